@@ -0,0 +1,244 @@
+package ru.rgordeev;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Читатель файлов в память вне кучи на Foreign Function &amp; Memory API (Java 22+).
+ * В отличие от {@link FileReaderExample#readBinaryFile(String)} содержимое не
+ * попадает в кучу и не нагружает сборщик мусора, сколько бы файлов ни было загружено.
+ *
+ * <p>Все сегменты выделяются из одной {@link Arena} и живут до {@link #close()}:
+ * закрытие освобождает память и отображения сразу, а не когда до них доберётся
+ * сборщик, как у {@link java.nio.MappedByteBuffer} и прямых буферов. Ресурс
+ * реализует {@link AutoCloseable} по аналогии с {@link ClosableResourceExample}.
+ * Обращение к сегменту после закрытия приводит к {@link IllegalStateException}
+ * вместо чтения освобождённой памяти.</p>
+ *
+ * <p>Ограниченная арена ({@link Arena#ofConfined()}) доступна только потоку,
+ * создавшему читатель, и закрывается дешевле всего. Общая ({@link Arena#ofShared()})
+ * позволяет читать сегменты из любых потоков; закрывать её можно, когда
+ * чтение закончено.</p>
+ *
+ * <p>Пример использования:</p>
+ * <pre>
+ * try (SegmentFileReader reader = new SegmentFileReader()) {
+ *     MemorySegment data = reader.map(Path.of("data.bin"));  // без ограничения в 2 ГБ
+ *     long header = data.get(ValueLayout.JAVA_LONG_UNALIGNED, 0);
+ * }
+ * </pre>
+ */
+public class SegmentFileReader implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(SegmentFileReader.class);
+
+    /** Наибольший объём одного вызова {@link FileChannel#read} при загрузке */
+    static final int READ_CHUNK_SIZE = 64 * 1024 * 1024;
+
+    private final Arena arena;
+    private final boolean shared;
+    private final AtomicInteger segments = new AtomicInteger();
+    private final AtomicLong loadedBytes = new AtomicLong();
+    private final AtomicLong mappedBytes = new AtomicLong();
+    private volatile boolean closed;
+
+    /**
+     * Создаёт читатель с ограниченной ареной, доступной только текущему потоку.
+     */
+    public SegmentFileReader() {
+        this(false);
+    }
+
+    /**
+     * Создаёт читатель с ограниченной или общей ареной.
+     *
+     * @param shared true — сегменты доступны из любых потоков
+     */
+    public SegmentFileReader(boolean shared) {
+        this.shared = shared;
+        this.arena = shared ? Arena.ofShared() : Arena.ofConfined();
+    }
+
+    /**
+     * Загружает файл целиком в память вне кучи.
+     * Размер файла не ограничен 2 ГБ, данные читаются блоками по {@value #READ_CHUNK_SIZE} байт.
+     *
+     * @param file путь к файлу
+     * @return сегмент только для чтения с содержимым файла
+     * @throws IllegalStateException если читатель закрыт
+     * @throws IOException           если файл не удалось прочитать или он укоротился во время чтения
+     */
+    public MemorySegment load(Path file) throws IOException {
+        checkNotClosed();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            MemorySegment segment = arena.allocate(size, Long.BYTES);
+            long position = 0;
+            while (position < size) {
+                int length = (int) Math.min(READ_CHUNK_SIZE, size - position);
+                ByteBuffer buffer = segment.asSlice(position, length).asByteBuffer();
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, position + buffer.position()) < 0) {
+                        throw new EOFException("Файл " + file + " укоротился во время чтения");
+                    }
+                }
+                position += length;
+            }
+            segments.incrementAndGet();
+            loadedBytes.addAndGet(size);
+            logger.debug("Файл {} ({} байт) загружен вне кучи", file, size);
+            return segment.asReadOnly();
+        }
+    }
+
+    /**
+     * Отображает файл в память только для чтения.
+     * Отображение освобождается при {@link #close()}, а не сборщиком мусора.
+     *
+     * @param file путь к файлу
+     * @return сегмент только для чтения, отображённый на файл
+     * @throws IllegalStateException если читатель закрыт
+     * @throws IOException           если файл не удалось открыть или отобразить
+     */
+    public MemorySegment map(Path file) throws IOException {
+        checkNotClosed();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            // Отображение остаётся действительным и после закрытия канала
+            MemorySegment segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, size, arena);
+            segments.incrementAndGet();
+            mappedBytes.addAndGet(size);
+            logger.debug("Файл {} ({} байт) отображён в память", file, size);
+            return segment.asReadOnly();
+        }
+    }
+
+    /**
+     * Выделяет в арене читателя копию части сегмента, например чтобы
+     * сохранить фрагмент отображённого файла независимо от его изменений.
+     *
+     * @param source сегмент-источник
+     * @param offset смещение начала копируемой части
+     * @param length длина копируемой части
+     * @return новый сегмент с копией данных
+     * @throws IllegalStateException     если читатель закрыт
+     * @throws IndexOutOfBoundsException если часть выходит за границы источника
+     */
+    public MemorySegment copyOf(MemorySegment source, long offset, long length) {
+        checkNotClosed();
+        MemorySegment part = source.asSlice(offset, length);
+        MemorySegment copy = arena.allocate(length, Long.BYTES).copyFrom(part);
+        segments.incrementAndGet();
+        return copy;
+    }
+
+    /**
+     * Проверяет, совпадает ли содержимое сегментов.
+     *
+     * @param first  первый сегмент
+     * @param second второй сегмент
+     * @return true, если длины и все байты совпадают; сравнение идёт
+     *         векторизованно через {@link MemorySegment#mismatch(MemorySegment)}
+     */
+    public static boolean contentEquals(MemorySegment first, MemorySegment second) {
+        return first.mismatch(second) == -1;
+    }
+
+    /**
+     * Сравнивает сегменты лексикографически как беззнаковые байты,
+     * по аналогии с {@link java.util.Arrays#compareUnsigned(byte[], byte[])}.
+     *
+     * @param first  первый сегмент
+     * @param second второй сегмент
+     * @return отрицательное число, ноль или положительное число, если первый
+     *         сегмент меньше, равен или больше второго
+     */
+    public static int compare(MemorySegment first, MemorySegment second) {
+        long index = first.mismatch(second);
+        if (index == -1) {
+            return 0;
+        }
+        if (index == first.byteSize() || index == second.byteSize()) {
+            return Long.compare(first.byteSize(), second.byteSize());
+        }
+        return Byte.compareUnsigned(first.get(ValueLayout.JAVA_BYTE, index),
+                second.get(ValueLayout.JAVA_BYTE, index));
+    }
+
+    /**
+     * Возвращает, доступны ли сегменты из любых потоков.
+     *
+     * @return true для общей арены
+     */
+    public boolean isShared() {
+        return shared;
+    }
+
+    /**
+     * Возвращает число выделенных сегментов.
+     *
+     * @return число сегментов
+     */
+    public int segmentCount() {
+        return segments.get();
+    }
+
+    /**
+     * Возвращает объём файлов, загруженных через {@link #load(Path)}.
+     *
+     * @return объём в байтах
+     */
+    public long loadedBytes() {
+        return loadedBytes.get();
+    }
+
+    /**
+     * Возвращает объём файлов, отображённых через {@link #map(Path)}.
+     *
+     * @return объём в байтах
+     */
+    public long mappedBytes() {
+        return mappedBytes.get();
+    }
+
+    /**
+     * Проверяет, закрыт ли читатель.
+     *
+     * @return true если читатель закрыт
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Закрывает арену: освобождает загруженную память и отображения.
+     * Для ограниченной арены вызывается из потока-владельца, для общей —
+     * когда ни один поток больше не обращается к сегментам.
+     */
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            arena.close();
+            closed = true;
+            logger.info("SegmentFileReader закрыт, освобождено сегментов: {} (загружено {} байт, отображено {} байт)",
+                    segments.get(), loadedBytes.get(), mappedBytes.get());
+        }
+    }
+
+    private void checkNotClosed() {
+        if (closed) {
+            throw new IllegalStateException("Ресурс уже закрыт!");
+        }
+    }
+}
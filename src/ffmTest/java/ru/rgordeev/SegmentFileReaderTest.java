@@ -0,0 +1,139 @@
+package ru.rgordeev;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Модульные тесты для класса SegmentFileReader.
+ * Проверяют загрузку и отображение файлов в сегменты, освобождение памяти
+ * при закрытии, доступ из других потоков для ограниченной и общей арены
+ * и помощники копирования и сравнения.
+ */
+class SegmentFileReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Проверяет, что загруженный и отображённый сегменты совпадают с файлом.
+     *
+     * @throws IOException если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldLoadAndMapFile() throws IOException {
+        byte[] content = new byte[3 * 1024 * 1024 + 17];
+        new Random(1).nextBytes(content);
+        Path file = Files.write(tempDir.resolve("data.bin"), content);
+
+        try (SegmentFileReader reader = new SegmentFileReader()) {
+            MemorySegment loaded = reader.load(file);
+            MemorySegment mapped = reader.map(file);
+            assertTrue(loaded.isReadOnly());
+            assertTrue(mapped.isMapped());
+            assertArrayEquals(content, loaded.toArray(ValueLayout.JAVA_BYTE));
+            assertTrue(SegmentFileReader.contentEquals(loaded, mapped));
+            assertEquals(content.length, reader.loadedBytes());
+            assertEquals(content.length, reader.mappedBytes());
+            assertEquals(2, reader.segmentCount());
+        }
+    }
+
+    /**
+     * Проверяет пустой файл.
+     *
+     * @throws IOException если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldHandleEmptyFile() throws IOException {
+        Path file = Files.createFile(tempDir.resolve("empty.bin"));
+        try (SegmentFileReader reader = new SegmentFileReader()) {
+            assertEquals(0, reader.load(file).byteSize());
+            assertEquals(0, reader.map(file).byteSize());
+        }
+    }
+
+    /**
+     * Проверяет, что после закрытия сегменты и сам читатель недоступны.
+     *
+     * @throws IOException если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldReleaseSegmentsOnClose() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("text.txt"), "Hello, World!");
+        SegmentFileReader reader = new SegmentFileReader();
+        MemorySegment segment;
+        try (reader) {
+            segment = reader.map(file);
+            assertEquals('H', segment.get(ValueLayout.JAVA_BYTE, 0));
+        }
+        assertTrue(reader.isClosed());
+        assertThrows(IllegalStateException.class, () -> segment.get(ValueLayout.JAVA_BYTE, 0));
+        IllegalStateException error = assertThrows(IllegalStateException.class, () -> reader.load(file));
+        assertEquals("Ресурс уже закрыт!", error.getMessage());
+        reader.close();
+    }
+
+    /**
+     * Проверяет, что сегменты ограниченной арены недоступны другим потокам,
+     * а общей — доступны.
+     *
+     * @throws Exception если возникла ошибка в потоках
+     */
+    @Test
+    void shouldRestrictConfinedSegmentsToOwnerThread() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("text.txt"), "abc");
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (SegmentFileReader confined = new SegmentFileReader();
+             SegmentFileReader shared = new SegmentFileReader(true)) {
+            MemorySegment own = confined.load(file);
+            MemorySegment common = shared.load(file);
+            assertFalse(confined.isShared());
+            assertTrue(shared.isShared());
+
+            CompletableFuture<Byte> fromConfined = CompletableFuture.supplyAsync(
+                    () -> own.get(ValueLayout.JAVA_BYTE, 0), executor);
+            Throwable error = assertThrows(Exception.class, fromConfined::join).getCause();
+            assertInstanceOf(WrongThreadException.class, error);
+            byte fromShared = CompletableFuture.supplyAsync(
+                    () -> common.get(ValueLayout.JAVA_BYTE, 0), executor).join();
+            assertEquals('a', fromShared);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Проверяет копирование части сегмента и лексикографическое сравнение.
+     *
+     * @throws IOException если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldCopyAndCompareSegments() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("text.txt"), "prefix-body-suffix");
+        try (SegmentFileReader reader = new SegmentFileReader()) {
+            MemorySegment mapped = reader.map(file);
+            MemorySegment body = reader.copyOf(mapped, 7, 4);
+            assertFalse(body.isReadOnly());
+            assertTrue(SegmentFileReader.contentEquals(body, MemorySegment.ofArray("body".getBytes())));
+
+            assertEquals(0, SegmentFileReader.compare(body, MemorySegment.ofArray("body".getBytes())));
+            assertTrue(SegmentFileReader.compare(body, MemorySegment.ofArray("bodz".getBytes())) < 0);
+            assertTrue(SegmentFileReader.compare(body, MemorySegment.ofArray("bod".getBytes())) > 0);
+            assertTrue(SegmentFileReader.compare(MemorySegment.ofArray(new byte[]{(byte) 0xFF}),
+                    MemorySegment.ofArray(new byte[]{1})) > 0);
+            assertThrows(IndexOutOfBoundsException.class, () -> reader.copyOf(mapped, 10, 100));
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package ru.rgordeev;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Дозапись большого числа мелких записей: отдельный {@code write} на запись,
+ * {@link BufferedOutputStream} и {@link BatchingFileWriter} в разных режимах надёжности.
+ *
+ * <p>Каждый вызов бенчмарка дописывает {@code records} записей по {@code recordSize}
+ * байт и закрывает файл. Режим {@code SYNC} выполняется в одном потоке, поэтому
+ * показывает стоимость {@code force} на каждую запись, а не group commit.
+ * Запуск: {@code ./gradlew jmh -Pjmh.includes=BatchingWriteBenchmark}</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BatchingWriteBenchmark {
+
+    /** Размер одной записи в байтах */
+    @Param({"64", "512"})
+    public int recordSize;
+
+    /** Число записей за вызов */
+    @Param({"100000"})
+    public int records;
+
+    private Path dir;
+    private Path target;
+    private byte[] record;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("jmh-batching");
+        target = dir.resolve("ingest.log");
+        record = new byte[recordSize];
+        record[recordSize - 1] = '\n';
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteTarget() throws IOException {
+        Files.deleteIfExists(target);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkFiles.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    public void unbufferedStream() throws IOException {
+        try (OutputStream out = new FileOutputStream(target.toFile(), true)) {
+            for (int i = 0; i < records; i++) {
+                out.write(record);
+            }
+        }
+    }
+
+    @Benchmark
+    public void bufferedStream() throws IOException {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(target.toFile(), true), 64 * 1024)) {
+            for (int i = 0; i < records; i++) {
+                out.write(record);
+            }
+        }
+    }
+
+    @Benchmark
+    public long batchingNone() throws IOException {
+        return write(BatchingFileWriter.Durability.NONE);
+    }
+
+    @Benchmark
+    public long batchingGroupCommit() throws IOException {
+        return write(BatchingFileWriter.Durability.GROUP_COMMIT);
+    }
+
+    @Benchmark
+    public long batchingSync() throws IOException {
+        // Каждая запись ждёт force: сокращаем число записей, чтобы вызов завершался за секунды
+        try (BatchingFileWriter writer = new BatchingFileWriter(target, BatchingFileWriter.Durability.SYNC,
+                Duration.ZERO)) {
+            long end = 0;
+            for (int i = 0; i < records / 100; i++) {
+                end = writer.write(record);
+            }
+            return end;
+        }
+    }
+
+    private long write(BatchingFileWriter.Durability durability) throws IOException {
+        try (BatchingFileWriter writer = new BatchingFileWriter(target, durability,
+                BatchingFileWriter.DEFAULT_COMMIT_INTERVAL)) {
+            long end = 0;
+            for (int i = 0; i < records; i++) {
+                end = writer.write(record);
+            }
+            return end;
+        }
+    }
+}
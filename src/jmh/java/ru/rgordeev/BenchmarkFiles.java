@@ -0,0 +1,72 @@
+package ru.rgordeev;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Вспомогательные методы для подготовки файлов в бенчмарках.
+ */
+final class BenchmarkFiles {
+
+    private BenchmarkFiles() {
+    }
+
+    /**
+     * Создаёт текстовый файл заданного размера из ASCII-строк длиной около 80 символов.
+     * Такой файл подходит и для бинарного, и для текстового, и для построчного чтения.
+     *
+     * @param file путь к файлу
+     * @param size размер файла в байтах
+     * @return путь к созданному файлу
+     */
+    static Path createTextFile(Path file, long size) {
+        byte[] line = "0123456789 abcdefghijklmnopqrstuvwxyz ABCDEFGHIJKLMNOPQRSTUVWXYZ 0123456789 io\n"
+                .getBytes(StandardCharsets.US_ASCII);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            long written = 0;
+            while (written < size) {
+                int length = (int) Math.min(line.length, size - written);
+                out.write(line, 0, length);
+                written += length;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return file;
+    }
+
+    /**
+     * Рекурсивно удаляет каталог с содержимым.
+     *
+     * @param dir каталог
+     */
+    static void deleteRecursively(Path dir) {
+        if (dir == null || Files.notExists(dir)) {
+            return;
+        }
+        try {
+            Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    Files.delete(file);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path directory, IOException exc) throws IOException {
+                    Files.delete(directory);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
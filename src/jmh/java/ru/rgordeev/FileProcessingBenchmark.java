@@ -0,0 +1,108 @@
+package ru.rgordeev;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Обработка 100 000 небольших файлов (чтение, преобразование, запись):
+ * последовательно, в пуле платформенных потоков и на виртуальных потоках
+ * через {@link FileProcessingExecutor}.
+ *
+ * <p>На Java 17 вариант {@code virtual} выполняется на платформенных потоках
+ * (см. {@link FileProcessingExecutor#virtualThreads(int)}); для сравнения
+ * с виртуальными потоками запустите бенчмарк на JDK 21+.</p>
+ *
+ * <p>Запуск: {@code ./gradlew jmh -Pjmh.includes=FileProcessingBenchmark}</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FileProcessingBenchmark {
+
+    private static final int FILES = 100_000;
+
+    /** Способ выполнения */
+    @Param({"sequential", "platform", "virtual"})
+    public String mode;
+
+    /** Лимит одновременно открытых файлов */
+    @Param({"64", "256"})
+    public int maxOpenFiles;
+
+    private Path dir;
+    private Path output;
+    private List<Path> files;
+    private FileProcessingExecutor executor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("jmh-files");
+        Path input = Files.createDirectory(dir.resolve("in"));
+        output = Files.createDirectory(dir.resolve("out"));
+        files = new ArrayList<>(FILES);
+        for (int i = 0; i < FILES; i++) {
+            files.add(BenchmarkFiles.createTextFile(input.resolve("file-" + i + ".txt"), 1024));
+        }
+        if (mode.equals("platform")) {
+            executor = FileProcessingExecutor.platformThreads(Runtime.getRuntime().availableProcessors() * 2, maxOpenFiles);
+        } else if (mode.equals("virtual")) {
+            executor = FileProcessingExecutor.virtualThreads(maxOpenFiles);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (executor != null) {
+            executor.close();
+        }
+        BenchmarkFiles.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    public long processFiles() throws IOException {
+        if (executor == null) {
+            long total = 0;
+            for (Path file : files) {
+                total += transform(file);
+            }
+            return total;
+        }
+        long total = 0;
+        for (long length : executor.processAll(files, this::transform)) {
+            total += length;
+        }
+        return total;
+    }
+
+    private long transform(Path file) throws IOException {
+        byte[] data = Files.readAllBytes(file);
+        for (int i = 0; i < data.length; i++) {
+            if (data[i] >= 'a' && data[i] <= 'z') {
+                data[i] -= 'a' - 'A';
+            }
+        }
+        Files.write(output.resolve(file.getFileName()), data);
+        return data.length;
+    }
+}
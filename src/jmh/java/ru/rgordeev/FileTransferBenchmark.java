@@ -0,0 +1,74 @@
+package ru.rgordeev;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение копирования больших файлов через {@link Files#copy} и
+ * {@link FileTransferService} ({@code FileChannel.transferTo}).
+ *
+ * <p>Файлы размером 1–10 ГБ создаются во временном каталоге, поэтому
+ * нужен соответствующий запас места на диске. Запуск:
+ * {@code ./gradlew jmh -Pjmh.includes=FileTransferBenchmark}</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class FileTransferBenchmark {
+
+    /** Размер копируемого файла в байтах: 1, 4 и 10 ГБ */
+    @Param({"1073741824", "4294967296", "10737418240"})
+    public long fileSize;
+
+    private Path dir;
+    private Path source;
+    private Path target;
+    private final FileTransferService service = new FileTransferService();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("jmh-transfer");
+        source = BenchmarkFiles.createTextFile(dir.resolve("source.txt"), fileSize);
+        target = dir.resolve("target.txt");
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteTarget() throws IOException {
+        Files.deleteIfExists(target);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkFiles.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    public Path filesCopy() throws IOException {
+        return Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Benchmark
+    public long transferServiceCopy() throws IOException {
+        return service.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,101 @@
+package ru.rgordeev;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Построчное чтение: {@link Files#readAllLines}, {@link BufferedReader#readLine()},
+ * {@link LineReader} и его параллельный поток. Каждый метод суммирует длины строк.
+ *
+ * <p>Результат — время на файл; число строк в секунду получается делением числа строк
+ * (размер файла / 80) на это время. Расход памяти сравнивается профилировщиком GC:
+ * {@code ./gradlew jmh -Pjmh.includes=LineReaderBenchmark -Pjmh.args="-prof gc"}
+ * (метрика {@code gc.alloc.rate.norm} — байт, выделенных на один проход).</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class LineReaderBenchmark {
+
+    /** Размер файла в байтах */
+    @Param({"16777216", "268435456"})
+    public long fileSize;
+
+    private Path dir;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("jmh-lines");
+        file = BenchmarkFiles.createTextFile(dir.resolve("lines.txt"), fileSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkFiles.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    public long readAllLines() throws IOException {
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        long total = 0;
+        for (String line : lines) {
+            total += line.length();
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long bufferedReader() throws IOException {
+        long total = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                total += line.length();
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long lineReader() throws IOException {
+        long total = 0;
+        try (LineReader reader = new LineReader(file, StandardCharsets.UTF_8)) {
+            CharSequence line;
+            while ((line = reader.nextLine()) != null) {
+                total += line.length();
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long lineReaderParallel() throws IOException {
+        try (Stream<CharSequence> lines = LineReader.lines(file, StandardCharsets.UTF_8)) {
+            return lines.parallel().mapToLong(CharSequence::length).sum();
+        }
+    }
+}
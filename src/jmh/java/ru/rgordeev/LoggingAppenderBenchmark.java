@@ -0,0 +1,79 @@
+package ru.rgordeev;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение appender'ов Log4j2 на нагрузке {@link CheckLoggerExample#logExampleEvents()}:
+ * консоль ({@code log4j2.xml}), синхронный {@code RollingRandomAccessFile}
+ * ({@code log4j2-bench-rolling.xml}) и профиль {@code log4j2-production.xml}
+ * (тот же файл через асинхронный логгер).
+ *
+ * <p>{@link #throughput()} даёт число вызовов в секунду (каждый — три записанных
+ * события уровня INFO/ERROR), {@link #latency()} — распределение времени вызова
+ * с перцентилями p99 и p99.9. Для асинхронного профиля это время постановки
+ * в очередь, пока она не заполнена.</p>
+ *
+ * <p>Запуск: {@code ./gradlew jmh -Pjmh.includes=LoggingAppenderBenchmark}.
+ * Вариант {@code log4j2.xml} пишет в консоль форка, и JMH выводит эти строки;
+ * результаты сохраняются в JSON (см. {@code build.gradle}). Конкуренция
+ * потоков: {@code -Pjmh.args="-t 4"}.</p>
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class LoggingAppenderBenchmark {
+
+    /** Файл конфигурации Log4j2 из ресурсов */
+    @Param({"log4j2.xml", "log4j2-bench-rolling.xml", "log4j2-production.xml"})
+    public String configuration;
+
+    private Path dir;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, URISyntaxException {
+        dir = Files.createTempDirectory("jmh-appender");
+        System.setProperty("log.dir", dir.toString());
+        Configurator.reconfigure(LoggingAppenderBenchmark.class.getResource("/" + configuration).toURI());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        LogManager.shutdown();
+        BenchmarkFiles.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void throughput() {
+        CheckLoggerExample.logExampleEvents();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void latency() {
+        CheckLoggerExample.logExampleEvents();
+    }
+}
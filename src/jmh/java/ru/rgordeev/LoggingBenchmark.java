@@ -0,0 +1,121 @@
+package ru.rgordeev;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность чтения при включённом уровне DEBUG: до и после
+ * замены сообщений на каждый элемент периодическими событиями {@link ReadProgress},
+ * с синхронной и асинхронной (LMAX Disruptor) конфигурацией Log4j2.
+ *
+ * <p>Методы {@code *PerElementLogging} повторяют прежние циклы
+ * {@link FileReaderExample}: сообщение DEBUG на каждый символ и на каждый
+ * прочитанный блок. Лог пишется в файл во временном каталоге
+ * (см. {@code src/jmh/resources/log4j2-bench-*.xml}).</p>
+ *
+ * <p>Запуск: {@code ./gradlew jmh -Pjmh.includes=LoggingBenchmark}</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class LoggingBenchmark {
+    private static final Logger logger = LogManager.getLogger(FileReaderExample.class);
+
+    /** Конфигурация логирования: {@code log4j2-bench-<logging>.xml} */
+    @Param({"sync", "async"})
+    public String logging;
+
+    /** Размер файла в байтах */
+    @Param({"1048576"})
+    public int fileSize;
+
+    private Path dir;
+    private Path file;
+    private FileReaderExample reader;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, URISyntaxException {
+        dir = Files.createTempDirectory("jmh-logging");
+        file = BenchmarkFiles.createTextFile(dir.resolve("data.txt"), fileSize);
+        System.setProperty("bench.log.dir", dir.toString());
+        Configurator.reconfigure(LoggingBenchmark.class.getResource("/log4j2-bench-" + logging + ".xml").toURI());
+        reader = new FileReaderExample();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        // Дописывает очередь асинхронного логгера и закрывает файл до удаления каталога
+        LogManager.shutdown();
+        BenchmarkFiles.deleteRecursively(dir);
+    }
+
+    /** Прежний цикл: сообщение DEBUG с упакованным символом на каждый символ */
+    @Benchmark
+    public String charByCharPerElementLogging() throws IOException {
+        StringBuilder content = new StringBuilder();
+        try (Reader in = new FileReader(file.toFile(), StandardCharsets.UTF_8)) {
+            int charValue;
+            while ((charValue = in.read()) != -1) {
+                content.append((char) charValue);
+                logger.debug("Прочитан символ: {}", (char) charValue);
+            }
+        }
+        return content.toString();
+    }
+
+    /** Текущий {@link FileReaderExample#readTextFileCharByChar(String)} */
+    @Benchmark
+    public String charByCharProgress() throws IOException {
+        return reader.readTextFileCharByChar(file.toString());
+    }
+
+    /** Прежний цикл: сообщение DEBUG на каждый блок {@value FileReaderExample#CHUNK_SIZE} байт */
+    @Benchmark
+    public byte[] bytesPerElementLogging() throws IOException {
+        byte[] buffer = new byte[fileSize];
+        try (InputStream in = new FileInputStream(file.toFile())) {
+            int length = 0;
+            int read;
+            while (length < buffer.length
+                    && (read = in.read(buffer, length, Math.min(FileReaderExample.CHUNK_SIZE, buffer.length - length))) != -1) {
+                length += read;
+                logger.debug("Прочитано {} байт", length);
+            }
+        }
+        return buffer;
+    }
+
+    /** Текущий {@link FileReaderExample#readBinaryFileBytes(String)} */
+    @Benchmark
+    public byte[] bytesProgress() throws IOException {
+        return reader.readBinaryFileBytes(file.toString());
+    }
+}
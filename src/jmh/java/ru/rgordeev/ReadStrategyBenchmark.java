@@ -0,0 +1,189 @@
+package ru.rgordeev;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH-бенчмарки для всех способов чтения файлов, которые есть в проекте.
+ * Заменяют разовые замеры через {@code System.nanoTime} из {@link IOOptimizationExample}:
+ * JMH выполняет прогрев, несколько итераций и форков и считает погрешность.
+ *
+ * <p>Запуск: {@code ./gradlew jmh -Pjmh.includes=ReadStrategyBenchmark}</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class ReadStrategyBenchmark {
+
+    /** Размер файла в байтах */
+    @Param({"1048576", "16777216"})
+    public int fileSize;
+
+    /** Размер буфера для буферизованных стратегий */
+    @Param({"8192", "65536"})
+    public int bufferSize;
+
+    private static final String ZIP_ENTRY = "data.txt";
+
+    private Path dir;
+    private Path file;
+    private Path zipPath;
+    private ZipFileSystemCache noCache;
+    private ZipIndex zipIndex;
+    private ZipFileSystemExample cachedZip;
+    private FileReaderExample fileReader;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("jmh-read");
+        file = BenchmarkFiles.createTextFile(dir.resolve("data.txt"), fileSize);
+        zipPath = dir.resolve("data.zip");
+        noCache = ZipFileSystemCache.uncached();
+        new ZipFileSystemExample(zipPath, noCache).copyFileToZip(file, ZIP_ENTRY);
+        zipIndex = ZipIndex.open(zipPath);
+        cachedZip = new ZipFileSystemExample(zipPath, noCache,
+                new ReadCache(2L * ReadCache.MAX_ENTRY_FRACTION * fileSize, false));
+        fileReader = new FileReaderExample();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        noCache.close();
+        BenchmarkFiles.deleteRecursively(dir);
+    }
+
+    /** Побайтовое чтение без буфера: один системный вызов на байт */
+    @Benchmark
+    public long unbufferedInputStream() throws IOException {
+        try (InputStream in = new FileInputStream(file.toFile())) {
+            return drainByteByByte(in);
+        }
+    }
+
+    /** Побайтовое чтение через {@link BufferedInputStream} */
+    @Benchmark
+    public long bufferedInputStream() throws IOException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file.toFile()), bufferSize)) {
+            return drainByteByByte(in);
+        }
+    }
+
+    /** Блочное чтение через {@code read(byte[])} */
+    @Benchmark
+    public long bulkRead() throws IOException {
+        byte[] buffer = new byte[bufferSize];
+        long total = 0;
+        try (InputStream in = new FileInputStream(file.toFile())) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                total += read;
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long channelHeapBuffer() throws IOException {
+        return ReadStrategies.channelHeapBuffer(bufferSize).read(file);
+    }
+
+    @Benchmark
+    public long channelDirectBuffer() throws IOException {
+        return ReadStrategies.channelDirectBuffer(bufferSize).read(file);
+    }
+
+    /** Прямой буфер из {@link BufferPool}: без {@code allocateDirect} на каждое чтение */
+    @Benchmark
+    public long channelPooledBuffer() throws IOException {
+        return ReadStrategies.channelPooledBuffer(bufferSize).read(file);
+    }
+
+    @Benchmark
+    public long channelTransferTo() throws IOException {
+        return ReadStrategies.transferTo().read(file);
+    }
+
+    @Benchmark
+    public String filesReadString() throws IOException {
+        return Files.readString(file, StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public List<String> filesReadAllLines() throws IOException {
+        return Files.readAllLines(file, StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] fileReaderExampleBytes() throws IOException {
+        return fileReader.readBinaryFileBytes(file.toString());
+    }
+
+    @Benchmark
+    public String fileReaderExampleText() throws IOException {
+        return fileReader.readTextFile(file.toString());
+    }
+
+    @Benchmark
+    public void mappedFileReader(Blackhole blackhole) throws IOException {
+        try (MappedFileReader reader = new MappedFileReader(file)) {
+            MappedFileReader.Cursor cursor = reader.cursor();
+            while (cursor.remaining() >= Long.BYTES) {
+                blackhole.consume(cursor.getLong());
+            }
+        }
+    }
+
+    /** Чтение через zip {@code FileSystem}, открываемую на каждый вызов */
+    @Benchmark
+    public String zipFileSystemRead() throws IOException {
+        try (ZipFileSystemCache.Handle zip = noCache.acquire(zipPath, false)) {
+            return Files.readString(zip.getPath(ZIP_ENTRY), StandardCharsets.UTF_8);
+        }
+    }
+
+    /** Распаковка записи по готовому {@link ZipIndex} без {@code FileSystem} */
+    @Benchmark
+    public String zipIndexRead() throws IOException {
+        return new String(zipIndex.read(zipIndex.find(ZIP_ENTRY)), StandardCharsets.UTF_8);
+    }
+
+    /** {@link ZipFileSystemExample#readFileFromZip(String)}: после первого вызова — попадание в {@link ReadCache} */
+    @Benchmark
+    public String zipCachedRead() throws IOException {
+        return cachedZip.readFileFromZip(ZIP_ENTRY);
+    }
+
+    private static long drainByteByByte(InputStream in) throws IOException {
+        long checksum = 0;
+        int value;
+        while ((value = in.read()) != -1) {
+            checksum += value;
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,75 @@
+package ru.rgordeev;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность {@link WriteAheadLog}: число подтверждённых записей
+ * в секунду при нескольких производителях.
+ *
+ * <p>Каждый вызов ставит в очередь {@value #RECORDS_PER_CALL} записей без ожидания
+ * и ждёт подтверждения последней, поэтому один {@code force} закрепляет записи
+ * всех потоков. Результат в операциях в секунду — это записи в секунду.
+ * Запуск: {@code ./gradlew jmh -Pjmh.includes=WriteAheadLogBenchmark}</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(4)
+@Fork(1)
+public class WriteAheadLogBenchmark {
+
+    static final int RECORDS_PER_CALL = 1000;
+
+    /** Размер одной записи в байтах */
+    @Param({"64", "256"})
+    public int recordSize;
+
+    private Path dir;
+    private WriteAheadLog log;
+    private byte[] record;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("jmh-wal");
+        log = new WriteAheadLog(dir);
+        record = new byte[recordSize];
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        log.close();
+        BenchmarkFiles.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS_PER_CALL)
+    public long appendBatch() {
+        CompletableFuture<Long> last = null;
+        for (int i = 0; i < RECORDS_PER_CALL; i++) {
+            last = log.append(record);
+        }
+        return last.join();
+    }
+}
@@ -0,0 +1,122 @@
+package ru.rgordeev;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность проверки существования записи в ZIP-архиве:
+ * 10 000 вызовов {@link Files#exists} через zip {@code FileSystem}, открываемую
+ * на каждый вызов (как было без кэша), через файловую систему, удерживаемую
+ * открытой в {@link ZipFileSystemCache}, и через {@link ZipIndex}, который
+ * {@link ZipFileSystemExample#fileExistsInZip(String)} использует, пока архив
+ * не открыт на запись.
+ *
+ * <p>Запуск: {@code ./gradlew jmh -Pjmh.includes=ZipFileSystemBenchmark}</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ZipFileSystemBenchmark {
+
+    private static final int CALLS = 10_000;
+
+    /** Число записей в архиве: влияет на стоимость разбора центрального каталога */
+    @Param({"10", "1000"})
+    public int entries;
+
+    private Path dir;
+    private Path zipPath;
+    private ZipFileSystemCache cache;
+    private ZipFileSystemCache noCache;
+    private ZipFileSystemCache.Handle cachedFs;
+    private ZipFileSystemExample indexed;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("jmh-zip");
+        zipPath = dir.resolve("bench.zip");
+        try (ZipFileSystemCache builder = ZipFileSystemCache.uncached();
+             ZipFileSystemCache.Handle zip = builder.acquire(zipPath, true)) {
+            for (int i = 0; i < entries; i++) {
+                Files.writeString(zip.getPath("entry-" + i + ".txt"), "content " + i);
+            }
+        }
+        cache = new ZipFileSystemCache(Duration.ofMinutes(10));
+        noCache = ZipFileSystemCache.uncached();
+        // Удерживаемый дескриптор не даёт кэшу закрыть файловую систему
+        cachedFs = cache.acquire(zipPath, false);
+        indexed = new ZipFileSystemExample(zipPath, noCache);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        cachedFs.close();
+        cache.close();
+        noCache.close();
+        BenchmarkFiles.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CALLS)
+    public int fileExistsUncached() throws IOException {
+        int found = 0;
+        for (int i = 0; i < CALLS; i++) {
+            try (ZipFileSystemCache.Handle zip = noCache.acquire(zipPath, false)) {
+                if (Files.exists(zip.getPath(name(i)))) {
+                    found++;
+                }
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CALLS)
+    public int fileExistsCached() {
+        int found = 0;
+        for (int i = 0; i < CALLS; i++) {
+            if (Files.exists(cachedFs.getPath(name(i)))) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CALLS)
+    public int fileExistsIndex() throws IOException {
+        int found = 0;
+        for (int i = 0; i < CALLS; i++) {
+            if (indexed.fileExistsInZip(name(i))) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    // Половина имён есть в архиве, половина — нет
+    private String name(int call) {
+        return "entry-" + (call % (entries * 2)) + ".txt";
+    }
+}
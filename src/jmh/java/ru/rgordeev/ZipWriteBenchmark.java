@@ -0,0 +1,116 @@
+package ru.rgordeev;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+/**
+ * Создание архива из {@code totalSize} байт входных файлов: через ZIP
+ * FileSystem с {@code create=true}, через {@link ZipBatch}
+ * ({@code ZipOutputStream}) и через {@link ZipStreamWriter} в одном потоке
+ * и на всех ядрах.
+ *
+ * <p>Входные файлы занимают {@code totalSize} байт во временном каталоге,
+ * архив — ещё около трети этого объёма. ZIP FileSystem дополнительно держит
+ * данные во временных файлах до закрытия. Запуск:
+ * {@code ./gradlew jmh -Pjmh.includes=ZipWriteBenchmark}</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class ZipWriteBenchmark {
+
+    /** Суммарный размер входных файлов: 256 МБ и 5 ГБ */
+    @Param({"268435456", "5368709120"})
+    public long totalSize;
+
+    /** Размер одного входного файла */
+    @Param({"67108864"})
+    public long fileSize;
+
+    private Path dir;
+    private Path target;
+    private final Map<String, Path> files = new LinkedHashMap<>();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("jmh-zip-write");
+        Path input = Files.createDirectory(dir.resolve("input"));
+        for (long written = 0, i = 0; written < totalSize; written += fileSize, i++) {
+            String name = "file-" + i + ".txt";
+            files.put(name, BenchmarkFiles.createTextFile(input.resolve(name), Math.min(fileSize, totalSize - written)));
+        }
+        target = dir.resolve("archive.zip");
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteTarget() throws IOException {
+        Files.deleteIfExists(target);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkFiles.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    public long zipFileSystem() throws IOException {
+        try (ZipFileSystemCache cache = ZipFileSystemCache.uncached();
+             ZipFileSystemCache.Handle zip = cache.acquire(target, true)) {
+            for (Map.Entry<String, Path> file : files.entrySet()) {
+                Files.copy(file.getValue(), zip.getPath(file.getKey()), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        return Files.size(target);
+    }
+
+    @Benchmark
+    public long zipOutputStream() throws IOException {
+        try (ZipFileSystemCache cache = ZipFileSystemCache.uncached()) {
+            new ZipFileSystemExample(target, cache).copyFilesToZip(files);
+        }
+        return Files.size(target);
+    }
+
+    @Benchmark
+    public long streamingSingleThread() throws IOException {
+        return stream(1);
+    }
+
+    @Benchmark
+    public long streamingParallel() throws IOException {
+        return stream(Runtime.getRuntime().availableProcessors());
+    }
+
+    private long stream(int parallelism) throws IOException {
+        try (ZipStreamWriter writer = new ZipStreamWriter(target, Deflater.DEFAULT_COMPRESSION, parallelism,
+                ZipStreamWriter.DEFAULT_WINDOW_BYTES)) {
+            for (Map.Entry<String, Path> file : files.entrySet()) {
+                writer.add(file.getKey(), file.getValue());
+            }
+        }
+        return Files.size(target);
+    }
+}
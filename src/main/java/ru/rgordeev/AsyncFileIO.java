@@ -0,0 +1,293 @@
+package ru.rgordeev;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Асинхронное чтение и запись по произвольным позициям файла поверх
+ * {@link AsynchronousFileChannel}.
+ *
+ * <p>Операции сразу возвращают {@link CompletableFuture}, и вызывающий поток не
+ * блокируется на время обращения к диску. Если операция прочитала или записала
+ * меньше запрошенного, следующая часть запрашивается из обработчика завершения,
+ * пока буфер не будет заполнен (или не будет достигнут конец файла при чтении).
+ * Обработчики завершения выполняются в пуле {@code executor}, переданном при
+ * открытии, либо в пуле канала по умолчанию.</p>
+ *
+ * <p>Режим scatter/gather ({@link #readAll(List)}, {@link #writeAll(long, ByteBuffer...)})
+ * отправляет все позиционные операции сразу, не дожидаясь завершения предыдущих,
+ * что позволяет ОС и устройству обрабатывать их параллельно.</p>
+ *
+ * <p>Пример использования:</p>
+ * <pre>
+ * try (AsyncFileIO io = new AsyncFileIO(Paths.get("data.bin"), executor, StandardOpenOption.READ)) {
+ *     io.read(4096, 512).thenAccept(buffer -&gt; process(buffer)).join();
+ * }
+ * </pre>
+ */
+public class AsyncFileIO implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(AsyncFileIO.class);
+
+    private final Path file;
+    private final AsynchronousFileChannel channel;
+    private final ExecutorService executor;
+
+    /**
+     * Открывает файл для асинхронного чтения в пуле канала по умолчанию.
+     *
+     * @param file путь к файлу
+     * @throws IOException если файл не удалось открыть
+     */
+    public AsyncFileIO(Path file) throws IOException {
+        this(file, null, StandardOpenOption.READ);
+    }
+
+    /**
+     * Открывает файл с указанными параметрами.
+     *
+     * @param file     путь к файлу
+     * @param executor пул для обработчиков завершения или null для пула по умолчанию;
+     *                 закрывать пул должен вызывающий код
+     * @param options  параметры открытия, например {@code READ}, {@code WRITE}, {@code CREATE}
+     * @throws IOException если файл не удалось открыть
+     */
+    public AsyncFileIO(Path file, ExecutorService executor, OpenOption... options) throws IOException {
+        this.file = file;
+        this.executor = executor;
+        Set<OpenOption> openOptions = new HashSet<>(Arrays.asList(options));
+        if (openOptions.isEmpty()) {
+            openOptions.add(StandardOpenOption.READ);
+        }
+        this.channel = AsynchronousFileChannel.open(file, openOptions, executor);
+        logger.debug("Файл {} открыт для асинхронного ввода-вывода", file);
+    }
+
+    /**
+     * @return текущий размер файла
+     * @throws IOException если размер не удалось получить
+     */
+    public long size() throws IOException {
+        return channel.size();
+    }
+
+    /**
+     * Читает до {@code length} байт начиная с позиции в новый буфер.
+     *
+     * @param position позиция в файле
+     * @param length   число байт
+     * @return буфер в режиме чтения; короче {@code length}, если файл закончился раньше
+     */
+    public CompletableFuture<ByteBuffer> read(long position, int length) {
+        if (length < 0) {
+            throw new IllegalArgumentException("Длина не может быть отрицательной: " + length);
+        }
+        return read(position, ByteBuffer.allocate(length));
+    }
+
+    /**
+     * Читает данные начиная с позиции, пока в буфере есть место или файл не закончился.
+     *
+     * @param position позиция в файле
+     * @param dst      буфер назначения
+     * @return тот же буфер, переведённый в режим чтения ({@link ByteBuffer#flip()})
+     */
+    public CompletableFuture<ByteBuffer> read(long position, ByteBuffer dst) {
+        checkPosition(position);
+        CompletableFuture<ByteBuffer> future = new CompletableFuture<>();
+        new ReadHandler(dst, position, future).next();
+        return future;
+    }
+
+    /**
+     * Записывает содержимое буфера начиная с позиции.
+     *
+     * @param position позиция в файле
+     * @param src      буфер с данными; записываются байты от position до limit
+     * @return тот же буфер после записи всех данных
+     */
+    public CompletableFuture<ByteBuffer> write(long position, ByteBuffer src) {
+        checkPosition(position);
+        CompletableFuture<ByteBuffer> future = new CompletableFuture<>();
+        new WriteHandler(src, position, future).next();
+        return future;
+    }
+
+    /**
+     * Отправляет все чтения сразу (scatter).
+     *
+     * @param regions области файла
+     * @return буферы в порядке {@code regions}; завершается с ошибкой, если не удалась любая операция
+     */
+    public CompletableFuture<List<ByteBuffer>> readAll(List<Region> regions) {
+        List<CompletableFuture<ByteBuffer>> reads = new ArrayList<>(regions.size());
+        for (Region region : regions) {
+            reads.add(read(region.position(), region.length()));
+        }
+        return CompletableFuture.allOf(reads.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> {
+                    List<ByteBuffer> buffers = new ArrayList<>(reads.size());
+                    for (CompletableFuture<ByteBuffer> read : reads) {
+                        buffers.add(read.join());
+                    }
+                    return buffers;
+                });
+    }
+
+    /**
+     * Записывает буферы подряд начиная с позиции (gather). Все записи отправляются
+     * сразу, каждая — по своему смещению.
+     *
+     * @param position позиция первого буфера
+     * @param sources  буферы с данными
+     * @return общее число записанных байт
+     */
+    public CompletableFuture<Long> writeAll(long position, ByteBuffer... sources) {
+        List<CompletableFuture<ByteBuffer>> writes = new ArrayList<>(sources.length);
+        long offset = position;
+        for (ByteBuffer source : sources) {
+            int length = source.remaining();
+            writes.add(write(offset, source));
+            offset += length;
+        }
+        long total = offset - position;
+        return CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> total);
+    }
+
+    /**
+     * Сбрасывает данные на устройство. Блокирующий вызов {@link AsynchronousFileChannel#force}
+     * выполняется в пуле, переданном при открытии, либо в общем пуле {@link CompletableFuture}.
+     *
+     * @param metaData сбрасывать ли также метаданные файла
+     * @return завершается после сброса
+     */
+    public CompletableFuture<Void> force(boolean metaData) {
+        Runnable force = () -> {
+            try {
+                channel.force(metaData);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        };
+        return executor != null ? CompletableFuture.runAsync(force, executor) : CompletableFuture.runAsync(force);
+    }
+
+    /**
+     * Закрывает канал. Незавершённые операции завершаются с
+     * {@link java.nio.channels.AsynchronousCloseException}.
+     *
+     * @throws IOException если при закрытии произошла ошибка
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+        logger.debug("Файл {} закрыт", file);
+    }
+
+    private static void checkPosition(long position) {
+        if (position < 0) {
+            throw new IllegalArgumentException("Позиция не может быть отрицательной: " + position);
+        }
+    }
+
+    /**
+     * Область файла для {@link #readAll(List)}.
+     *
+     * @param position позиция начала
+     * @param length   длина в байтах
+     */
+    public record Region(long position, int length) {
+    }
+
+    /** Дочитывает буфер, пока в нём есть место и файл не закончился */
+    private final class ReadHandler implements CompletionHandler<Integer, Void> {
+        private final ByteBuffer buffer;
+        private final CompletableFuture<ByteBuffer> future;
+        private long position;
+
+        ReadHandler(ByteBuffer buffer, long position, CompletableFuture<ByteBuffer> future) {
+            this.buffer = buffer;
+            this.position = position;
+            this.future = future;
+        }
+
+        void next() {
+            if (!buffer.hasRemaining()) {
+                future.complete(buffer.flip());
+                return;
+            }
+            try {
+                channel.read(buffer, position, null, this);
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public void completed(Integer read, Void attachment) {
+            if (read < 0) {
+                future.complete(buffer.flip());
+                return;
+            }
+            position += read;
+            next();
+        }
+
+        @Override
+        public void failed(Throwable e, Void attachment) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    /** Дописывает буфер до конца */
+    private final class WriteHandler implements CompletionHandler<Integer, Void> {
+        private final ByteBuffer buffer;
+        private final CompletableFuture<ByteBuffer> future;
+        private long position;
+
+        WriteHandler(ByteBuffer buffer, long position, CompletableFuture<ByteBuffer> future) {
+            this.buffer = buffer;
+            this.position = position;
+            this.future = future;
+        }
+
+        void next() {
+            if (!buffer.hasRemaining()) {
+                future.complete(buffer);
+                return;
+            }
+            try {
+                channel.write(buffer, position, null, this);
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public void completed(Integer written, Void attachment) {
+            position += written;
+            next();
+        }
+
+        @Override
+        public void failed(Throwable e, Void attachment) {
+            future.completeExceptionally(e);
+        }
+    }
+}
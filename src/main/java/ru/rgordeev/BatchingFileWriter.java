@@ -0,0 +1,435 @@
+package ru.rgordeev;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Дозапись записей в файл крупными пакетами.
+ *
+ * <p>Каждый вызов {@code write} небольшого массива в {@code FileOutputStream} —
+ * отдельный системный вызов. Здесь записи копируются в прямые буферы
+ * ({@link BufferPool}) размером {@code bufferSize}, а заполненные буферы
+ * записываются одним вызовом {@link FileChannel#write(ByteBuffer[])} (gathering write),
+ * когда их набирается {@code maxBatchBuffers}, по таймеру, при {@link #flush()}
+ * или при закрытии. Копирование в буфер выполняется под коротким монитором,
+ * запись в канал — под отдельной блокировкой, поэтому производители не ждут
+ * диск, пока пакет не переполнен.</p>
+ *
+ * <p>Надёжность задаётся {@link Durability}:</p>
+ * <ul>
+ *   <li>{@link Durability#NONE} — данные передаются ОС по таймеру, {@code force}
+ *       не вызывается; после сбоя ОС теряется всё, что не успело попасть на диск;</li>
+ *   <li>{@link Durability#GROUP_COMMIT} — по таймеру выполняется запись и
+ *       {@code force}: потеря ограничена интервалом {@code commitInterval};</li>
+ *   <li>{@link Durability#SYNC} — {@code write} возвращается только после
+ *       {@code force}. Потоки, пишущие одновременно, объединяются: пока один поток
+ *       сбрасывает данные на диск, остальные копят записи, и следующий
+ *       {@code force} закрепляет их все сразу (group commit).</li>
+ * </ul>
+ *
+ * <p>Файл открывается на дозапись. Экземпляр потокобезопасен. После ошибки
+ * записи в канал все последующие операции завершаются {@link IOException}.</p>
+ *
+ * <p>Пример использования:</p>
+ * <pre>
+ * try (BatchingFileWriter writer = new BatchingFileWriter(Paths.get("events.log"),
+ *         BatchingFileWriter.Durability.GROUP_COMMIT, Duration.ofMillis(50))) {
+ *     for (String event : events) {
+ *         writer.writeLine(event);
+ *     }
+ * }
+ * </pre>
+ */
+public class BatchingFileWriter implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(BatchingFileWriter.class);
+
+    /** Размер одного буфера по умолчанию */
+    public static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+
+    /** Число заполненных буферов, после которого пакет записывается сразу */
+    public static final int DEFAULT_MAX_BATCH_BUFFERS = 8;
+
+    /** Интервал фоновой записи по умолчанию */
+    public static final Duration DEFAULT_COMMIT_INTERVAL = Duration.ofMillis(50);
+
+    private final Path file;
+    private final FileChannel channel;
+    private final Durability durability;
+    private final int bufferSize;
+    private final int maxBatchBuffers;
+    private final BufferPool pool = BufferPool.shared();
+    private final ScheduledExecutorService committer;
+    private final ReentrantLock ioLock = new ReentrantLock();
+
+    // Защищены монитором this
+    private BufferPool.PooledBuffer current;
+    private final ArrayDeque<BufferPool.PooledBuffer> filled = new ArrayDeque<>();
+    private long appended;
+    private boolean closed;
+
+    // Изменяются под ioLock
+    private long written;
+    private volatile long durable;
+    private volatile IOException failure;
+
+    private final LongAdder records = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder forces = new LongAdder();
+
+    /**
+     * Открывает файл с параметрами по умолчанию: {@link Durability#GROUP_COMMIT}
+     * раз в {@link #DEFAULT_COMMIT_INTERVAL}.
+     *
+     * @param file файл для дозаписи; создаётся при отсутствии
+     * @throws IOException если файл не удалось открыть
+     */
+    public BatchingFileWriter(Path file) throws IOException {
+        this(file, Durability.GROUP_COMMIT, DEFAULT_COMMIT_INTERVAL);
+    }
+
+    /**
+     * @param file           файл для дозаписи; создаётся при отсутствии
+     * @param durability     режим надёжности
+     * @param commitInterval период фоновой записи (для {@link Durability#SYNC} не используется)
+     * @throws IOException если файл не удалось открыть
+     */
+    public BatchingFileWriter(Path file, Durability durability, Duration commitInterval) throws IOException {
+        this(file, durability, commitInterval, DEFAULT_BUFFER_SIZE, DEFAULT_MAX_BATCH_BUFFERS);
+    }
+
+    /**
+     * @param file            файл для дозаписи; создаётся при отсутствии
+     * @param durability      режим надёжности
+     * @param commitInterval  период фоновой записи (для {@link Durability#SYNC} не используется)
+     * @param bufferSize      размер одного буфера
+     * @param maxBatchBuffers число заполненных буферов, после которого пишущий поток
+     *                        сам записывает пакет (обратное давление)
+     * @throws IOException если файл не удалось открыть
+     */
+    public BatchingFileWriter(Path file, Durability durability, Duration commitInterval,
+                              int bufferSize, int maxBatchBuffers) throws IOException {
+        if (bufferSize <= 0 || maxBatchBuffers <= 0) {
+            throw new IllegalArgumentException("Размер буфера и пакета должны быть положительными: "
+                    + bufferSize + ", " + maxBatchBuffers);
+        }
+        if (durability != Durability.SYNC && (commitInterval.isNegative() || commitInterval.isZero())) {
+            throw new IllegalArgumentException("Интервал записи должен быть положительным: " + commitInterval);
+        }
+        this.file = file;
+        this.durability = durability;
+        this.bufferSize = bufferSize;
+        this.maxBatchBuffers = maxBatchBuffers;
+        this.channel = IoMetrics.global().wrap(file.toString(), FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND));
+        this.current = pool.acquire(bufferSize);
+        if (durability == Durability.SYNC) {
+            this.committer = null;
+        } else {
+            this.committer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "batching-writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long millis = commitInterval.toMillis();
+            committer.scheduleWithFixedDelay(this::commitInBackground, millis, millis, TimeUnit.MILLISECONDS);
+        }
+        logger.info("Файл {} открыт для пакетной записи ({}, буфер {} байт)", file, durability, bufferSize);
+    }
+
+    /**
+     * Добавляет запись. Данные копируются, буфер {@code src} можно переиспользовать сразу.
+     *
+     * @param src запись; читаются байты от position до limit
+     * @return число байт, добавленных этим экземпляром с момента открытия, включая эту запись
+     * @throws IOException           если предыдущая запись в канал завершилась ошибкой
+     *                               или (в режиме {@link Durability#SYNC}) не удался сброс на диск
+     * @throws IllegalStateException если файл уже закрыт
+     */
+    public long write(ByteBuffer src) throws IOException {
+        checkFailure();
+        long end;
+        boolean batchFull;
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Ресурс уже закрыт!");
+            }
+            appended += src.remaining();
+            end = appended;
+            while (src.hasRemaining()) {
+                ByteBuffer buffer = current.buffer();
+                if (!buffer.hasRemaining()) {
+                    filled.add(current);
+                    current = pool.acquire(bufferSize);
+                    continue;
+                }
+                int length = Math.min(buffer.remaining(), src.remaining());
+                int limit = src.limit();
+                src.limit(src.position() + length);
+                buffer.put(src);
+                src.limit(limit);
+            }
+            records.increment();
+            batchFull = filled.size() >= maxBatchBuffers;
+        }
+        if (durability == Durability.SYNC) {
+            sync(end);
+        } else if (batchFull) {
+            flush();
+        }
+        return end;
+    }
+
+    /**
+     * @param bytes запись
+     * @return число байт, добавленных этим экземпляром, включая эту запись
+     * @throws IOException если предыдущая запись в канал завершилась ошибкой
+     * @see #write(ByteBuffer)
+     */
+    public long write(byte[] bytes) throws IOException {
+        return write(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Добавляет строку в UTF-8 и перевод строки.
+     *
+     * @param line строка без перевода строки
+     * @return число байт, добавленных этим экземпляром, включая эту запись
+     * @throws IOException если предыдущая запись в канал завершилась ошибкой
+     * @see #write(ByteBuffer)
+     */
+    public long writeLine(CharSequence line) throws IOException {
+        return write((line + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Передаёт все накопленные записи ОС одним gathering write, без {@code force}.
+     *
+     * @throws IOException при ошибке записи
+     */
+    public void flush() throws IOException {
+        ioLock.lock();
+        try {
+            flushLocked();
+        } finally {
+            ioLock.unlock();
+        }
+    }
+
+    /**
+     * Записывает накопленные записи и сбрасывает их на устройство. Если другой
+     * поток уже закрепил все записи, добавленные до вызова, {@code force} не повторяется.
+     *
+     * @throws IOException при ошибке записи или сброса
+     */
+    public void sync() throws IOException {
+        long target;
+        synchronized (this) {
+            target = appended;
+        }
+        sync(target);
+    }
+
+    /**
+     * @return число байт, переданных ОС
+     */
+    public long writtenBytes() {
+        ioLock.lock();
+        try {
+            return written;
+        } finally {
+            ioLock.unlock();
+        }
+    }
+
+    /**
+     * @return число байт, гарантированно сброшенных на устройство
+     */
+    public long durableBytes() {
+        return durable;
+    }
+
+    /**
+     * @return число вызовов {@code force}
+     */
+    public long forceCount() {
+        return forces.sum();
+    }
+
+    /**
+     * @return число пакетов, записанных в канал
+     */
+    public long batchCount() {
+        return batches.sum();
+    }
+
+    /**
+     * Останавливает фоновую запись, записывает оставшиеся данные, для режимов
+     * с {@code force} сбрасывает их на устройство и закрывает файл.
+     * Повторный вызов ничего не делает.
+     *
+     * @throws IOException если оставшиеся данные не удалось записать, в том числе
+     *                     если ранее завершилась ошибкой фоновая запись: тогда
+     *                     оставшиеся данные отбрасываются, а файл всё равно закрывается
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        if (committer != null) {
+            // Без прерывания: прерывание потока во время записи закрыло бы канал
+            committer.shutdown();
+            try {
+                committer.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        ioLock.lock();
+        try {
+            if (failure == null) {
+                flushLocked();
+                if (durability != Durability.NONE) {
+                    forceLocked();
+                }
+            }
+        } finally {
+            ioLock.unlock();
+            synchronized (this) {
+                if (current != null) {
+                    current.close();
+                    current = null;
+                }
+                filled.forEach(BufferPool.PooledBuffer::close);
+                filled.clear();
+            }
+            channel.close();
+        }
+        logger.info("Файл {} закрыт: {} записей, {} байт, пакетов {}, сбросов на диск {}",
+                file, records.sum(), written, batches.sum(), forces.sum());
+        // Фоновая запись только пишет ошибку в лог: сообщаем о потере данных вызывающему
+        checkFailure();
+    }
+
+    private void sync(long target) throws IOException {
+        if (durable >= target) {
+            return;
+        }
+        ioLock.lock();
+        try {
+            // Пока поток ждал блокировку, предыдущий force мог закрепить и его записи
+            if (durable >= target) {
+                return;
+            }
+            flushLocked();
+            forceLocked();
+        } finally {
+            ioLock.unlock();
+        }
+    }
+
+    private void forceLocked() throws IOException {
+        long upTo = written;
+        if (durable >= upTo) {
+            return;
+        }
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            failure = e;
+            throw e;
+        }
+        forces.increment();
+        durable = upTo;
+    }
+
+    private void flushLocked() throws IOException {
+        checkFailure();
+        List<BufferPool.PooledBuffer> batch;
+        synchronized (this) {
+            if (current != null && current.buffer().position() > 0) {
+                filled.add(current);
+                current = closed ? null : pool.acquire(bufferSize);
+            }
+            if (filled.isEmpty()) {
+                return;
+            }
+            batch = new ArrayList<>(filled);
+            filled.clear();
+        }
+        ByteBuffer[] buffers = new ByteBuffer[batch.size()];
+        long total = 0;
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = batch.get(i).buffer().flip();
+            total += buffers[i].remaining();
+        }
+        try {
+            long done = 0;
+            while (done < total) {
+                done += channel.write(buffers);
+            }
+            written += total;
+            batches.increment();
+        } catch (IOException e) {
+            failure = e;
+            throw e;
+        } finally {
+            batch.forEach(BufferPool.PooledBuffer::close);
+        }
+    }
+
+    private void commitInBackground() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+        }
+        try {
+            if (durability == Durability.GROUP_COMMIT) {
+                sync();
+            } else {
+                flush();
+            }
+        } catch (IOException e) {
+            logger.error("Фоновая запись в {} завершилась ошибкой", file, e);
+        }
+    }
+
+    private void checkFailure() throws IOException {
+        IOException error = failure;
+        if (error != null) {
+            throw new IOException("Запись в " + file + " ранее завершилась ошибкой", error);
+        }
+    }
+
+    /**
+     * Компромисс между надёжностью и задержкой записи.
+     */
+    public enum Durability {
+        /** Без {@code force}: данные попадают на диск, когда решит ОС */
+        NONE,
+        /** {@code force} по таймеру: теряется не больше одного интервала */
+        GROUP_COMMIT,
+        /** {@code write} возвращается после {@code force}; одновременные записи объединяются */
+        SYNC
+    }
+}
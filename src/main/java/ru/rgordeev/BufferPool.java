@@ -0,0 +1,315 @@
+package ru.rgordeev;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Пул прямых {@link ByteBuffer} с классами размеров.
+ *
+ * <p>Выделение прямого буфера — это {@code malloc} вне кучи, обнуление памяти и
+ * регистрация очистителя; освобождается такая память только после сборки мусора.
+ * Для коротких операций чтения и копирования это дороже самого ввода-вывода,
+ * поэтому буферы переиспользуются.</p>
+ *
+ * <p>Запрошенная ёмкость округляется вверх до степени двойки от
+ * {@link #MIN_BUFFER_SIZE} до {@link #MAX_BUFFER_SIZE}. Буфер сначала ищется
+ * в кэше текущего потока (без синхронизации), затем в общей очереди своего
+ * класса. Буферы больше {@link #MAX_BUFFER_SIZE} не пулируются. Размеры кэша
+ * потока и общих очередей ограничены, лишние буферы при возврате отбрасываются.
+ * Кэш потока хранит только буферы до {@link #MAX_THREAD_LOCAL_SIZE}, чтобы
+ * долгоживущие потоки не удерживали мегабайты памяти.</p>
+ *
+ * <p>Буфер выдаётся в обёртке {@link PooledBuffer}, которую нужно закрыть
+ * (try-with-resources). В пуле хранятся сами буферы, а обёртка создаётся на
+ * каждую выдачу: закрытая обёртка навсегда теряет доступ к буферу, и повторное
+ * закрытие не вернёт в пул буфер, который уже выдан другому владельцу. Выдача
+ * из пула не выделяет прямую память и не берёт глобальных блокировок; в куче
+ * создаётся только небольшая обёртка.</p>
+ *
+ * <p>Утечки отслеживаются выборочно: очиститель {@link Cleaner} регистрируется
+ * для каждого нового буфера и для каждой {@value #LEAK_SAMPLE_INTERVAL}-й выдачи
+ * из пула в среднем. Если такая обёртка стала недостижима без закрытия, счётчик
+ * {@link Stats#leaks()} увеличивается, в лог пишется предупреждение. Буфер
+ * незакрытой обёртки в пул не возвращается.</p>
+ *
+ * <p>Пример использования:</p>
+ * <pre>
+ * try (BufferPool.PooledBuffer pooled = BufferPool.shared().acquire(64 * 1024)) {
+ *     ByteBuffer buffer = pooled.buffer();
+ *     channel.read(buffer);
+ * }
+ * </pre>
+ */
+public final class BufferPool {
+    private static final Logger logger = LogManager.getLogger(BufferPool.class);
+
+    /** Наименьший класс размера */
+    public static final int MIN_BUFFER_SIZE = 4 * 1024;
+
+    /** Наибольший класс размера; буферы больше не пулируются */
+    public static final int MAX_BUFFER_SIZE = 4 * 1024 * 1024;
+
+    /** Наибольший класс размера, который хранится в кэше потока */
+    public static final int MAX_THREAD_LOCAL_SIZE = 256 * 1024;
+
+    /** Число буферов одного класса в кэше потока по умолчанию */
+    public static final int DEFAULT_THREAD_LOCAL_CAPACITY = 4;
+
+    /** Число буферов одного класса в общей очереди по умолчанию */
+    public static final int DEFAULT_SHARED_CAPACITY = 32;
+
+    /** Одна из скольких выдач из пула в среднем отслеживается на утечку */
+    public static final int LEAK_SAMPLE_INTERVAL = 64;
+
+    private static final int MIN_SHIFT = Integer.numberOfTrailingZeros(MIN_BUFFER_SIZE);
+    private static final int SIZE_CLASSES = Integer.numberOfTrailingZeros(MAX_BUFFER_SIZE) - MIN_SHIFT + 1;
+    private static final int THREAD_LOCAL_CLASSES = Integer.numberOfTrailingZeros(MAX_THREAD_LOCAL_SIZE) - MIN_SHIFT + 1;
+
+    private static final Cleaner CLEANER = Cleaner.create();
+    private static final BufferPool SHARED = new BufferPool(DEFAULT_THREAD_LOCAL_CAPACITY, DEFAULT_SHARED_CAPACITY);
+
+    private final int threadLocalCapacity;
+    private final int sharedCapacity;
+    private final ThreadLocal<LocalCache> local;
+    // Ограниченные очереди без выделения узлов при каждом возврате
+    private final ArrayBlockingQueue<ByteBuffer>[] shared;
+
+    private final LongAdder threadLocalHits = new LongAdder();
+    private final LongAdder sharedHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder leaks = new LongAdder();
+
+    /**
+     * Создаёт пул с указанными ограничениями.
+     *
+     * @param threadLocalCapacity число буферов одного класса в кэше каждого потока (0 — без кэша потока)
+     * @param sharedCapacity      число буферов одного класса в общей очереди
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public BufferPool(int threadLocalCapacity, int sharedCapacity) {
+        if (threadLocalCapacity < 0 || sharedCapacity < 0) {
+            throw new IllegalArgumentException("Ёмкость пула не может быть отрицательной: "
+                    + threadLocalCapacity + ", " + sharedCapacity);
+        }
+        this.threadLocalCapacity = threadLocalCapacity;
+        this.sharedCapacity = sharedCapacity;
+        this.local = ThreadLocal.withInitial(() -> new LocalCache(threadLocalCapacity));
+        this.shared = new ArrayBlockingQueue[SIZE_CLASSES];
+        for (int i = 0; i < SIZE_CLASSES; i++) {
+            shared[i] = new ArrayBlockingQueue<>(Math.max(1, sharedCapacity));
+        }
+    }
+
+    /**
+     * @return общий пул проекта
+     */
+    public static BufferPool shared() {
+        return SHARED;
+    }
+
+    /**
+     * Выдаёт очищенный прямой буфер с порядком байтов {@link ByteOrder#BIG_ENDIAN}.
+     * При попадании в пул прямая память не выделяется, создаётся только обёртка.
+     *
+     * @param capacity минимальная ёмкость
+     * @return буфер ёмкостью не меньше {@code capacity}; для пулируемых размеров —
+     *         ёмкостью своего класса
+     */
+    public PooledBuffer acquire(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Ёмкость не может быть отрицательной: " + capacity);
+        }
+        int sizeClass = sizeClass(capacity);
+        if (sizeClass < 0) {
+            misses.increment();
+            return new PooledBuffer(this, ByteBuffer.allocateDirect(capacity), -1, true);
+        }
+        ByteBuffer buffer = null;
+        if (sizeClass < THREAD_LOCAL_CLASSES) {
+            buffer = local.get().poll(sizeClass);
+        }
+        if (buffer != null) {
+            threadLocalHits.increment();
+        } else if ((buffer = shared[sizeClass].poll()) != null) {
+            sharedHits.increment();
+        } else {
+            misses.increment();
+            return new PooledBuffer(this, ByteBuffer.allocateDirect(MIN_BUFFER_SIZE << sizeClass), sizeClass, true);
+        }
+        buffer.clear().order(ByteOrder.BIG_ENDIAN);
+        boolean tracked = ThreadLocalRandom.current().nextInt(LEAK_SAMPLE_INTERVAL) == 0;
+        return new PooledBuffer(this, buffer, sizeClass, tracked);
+    }
+
+    /**
+     * @return снимок счётчиков пула
+     */
+    public Stats stats() {
+        return new Stats(threadLocalHits.sum(), sharedHits.sum(), misses.sum(), leaks.sum());
+    }
+
+    @Override
+    public String toString() {
+        Stats stats = stats();
+        return String.format("BufferPool[threadLocal=%d, shared=%d, hits=%d, misses=%d, leaks=%d, hitRatio=%.2f]",
+                threadLocalCapacity, sharedCapacity, stats.threadLocalHits() + stats.sharedHits(),
+                stats.misses(), stats.leaks(), stats.hitRatio());
+    }
+
+    // Номер класса размера или -1, если буфер не пулируется
+    static int sizeClass(int capacity) {
+        if (capacity > MAX_BUFFER_SIZE) {
+            return -1;
+        }
+        int size = Math.max(capacity, MIN_BUFFER_SIZE);
+        return Integer.SIZE - Integer.numberOfLeadingZeros(size - 1) - MIN_SHIFT;
+    }
+
+    private void release(ByteBuffer buffer, int sizeClass) {
+        if (sizeClass < 0) {
+            return;
+        }
+        if (sizeClass < THREAD_LOCAL_CLASSES && local.get().offer(sizeClass, buffer)) {
+            return;
+        }
+        if (sharedCapacity > 0) {
+            // Если очередь заполнена, буфер освободит сборщик мусора
+            shared[sizeClass].offer(buffer);
+        }
+    }
+
+    /**
+     * Буфер, взятый из пула. Обёртка действует до закрытия: после него
+     * {@link #buffer()} недоступен, а повторное закрытие ничего не делает.
+     * Ссылку на сам {@link ByteBuffer} после закрытия хранить нельзя — пул
+     * выдаст его следующему владельцу.
+     */
+    public static final class PooledBuffer implements AutoCloseable {
+        private final BufferPool pool;
+        private final int sizeClass;
+        // null для выдач, не попавших в выборку отслеживания утечек
+        private final LeakState state;
+        private ByteBuffer buffer;
+
+        private PooledBuffer(BufferPool pool, ByteBuffer buffer, int sizeClass, boolean tracked) {
+            this.pool = pool;
+            this.buffer = buffer;
+            this.sizeClass = sizeClass;
+            if (tracked) {
+                state = new LeakState(pool.leaks, buffer.capacity());
+                CLEANER.register(this, state);
+            } else {
+                state = null;
+            }
+        }
+
+        /**
+         * @return прямой буфер
+         * @throws IllegalStateException если буфер уже возвращён в пул
+         */
+        public ByteBuffer buffer() {
+            ByteBuffer current = buffer;
+            if (current == null) {
+                throw new IllegalStateException("Ресурс уже закрыт!");
+            }
+            return current;
+        }
+
+        /**
+         * Возвращает буфер в пул. Повторный вызов ничего не делает.
+         */
+        @Override
+        public void close() {
+            ByteBuffer current = buffer;
+            if (current == null) {
+                return;
+            }
+            buffer = null;
+            if (state != null) {
+                state.released = true;
+            }
+            pool.release(current, sizeClass);
+        }
+    }
+
+    /**
+     * Снимок счётчиков пула.
+     *
+     * @param threadLocalHits буферы, выданные из кэша потока
+     * @param sharedHits      буферы, выданные из общей очереди
+     * @param misses          новые выделения, включая непулируемые размеры
+     * @param leaks           буферы, не возвращённые в пул до сборки мусора
+     */
+    public record Stats(long threadLocalHits, long sharedHits, long misses, long leaks) {
+        /**
+         * @return доля запросов, обслуженных без нового выделения
+         */
+        public double hitRatio() {
+            long hits = threadLocalHits + sharedHits;
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+    }
+
+    /**
+     * Действие очистителя. Не ссылается на {@link PooledBuffer}, иначе обёртка
+     * никогда не станет недостижимой. Закрытая обёртка утечкой не считается.
+     */
+    private static final class LeakState implements Runnable {
+        private final LongAdder leaks;
+        private final int capacity;
+        private volatile boolean released;
+
+        LeakState(LongAdder leaks, int capacity) {
+            this.leaks = leaks;
+            this.capacity = capacity;
+        }
+
+        @Override
+        public void run() {
+            if (!released) {
+                leaks.increment();
+                logger.warn("Буфер на {} байт не был возвращён в пул", capacity);
+            }
+        }
+    }
+
+    /** Кэш буферов одного потока: по стеку на класс размера */
+    private static final class LocalCache {
+        private final ByteBuffer[][] buffers;
+        private final int[] counts;
+
+        LocalCache(int capacity) {
+            this.buffers = new ByteBuffer[THREAD_LOCAL_CLASSES][capacity];
+            this.counts = new int[THREAD_LOCAL_CLASSES];
+        }
+
+        ByteBuffer poll(int sizeClass) {
+            int count = counts[sizeClass];
+            if (count == 0) {
+                return null;
+            }
+            counts[sizeClass] = --count;
+            ByteBuffer buffer = buffers[sizeClass][count];
+            buffers[sizeClass][count] = null;
+            return buffer;
+        }
+
+        boolean offer(int sizeClass, ByteBuffer buffer) {
+            int count = counts[sizeClass];
+            if (count == buffers[sizeClass].length) {
+                return false;
+            }
+            buffers[sizeClass][count] = buffer;
+            counts[sizeClass] = count + 1;
+            return true;
+        }
+    }
+}
@@ -18,6 +18,14 @@ public class CheckLoggerExample {
      * @param args аргументы командной строки (не используются)
      */
     public static void main(String[] args) {
+        logExampleEvents();
+    }
+
+    /**
+     * Записывает набор событий примера: два сообщения INFO, ошибку со стектрейсом
+     * и сообщение DEBUG. Используется также как нагрузка в {@code LoggingAppenderBenchmark}.
+     */
+    public static void logExampleEvents() {
         // Логирование начала выполнения программы
         logger.info("Приложение запущено!");
 
@@ -0,0 +1,197 @@
+package ru.rgordeev;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Сканирование дерева каталогов с чтением атрибутов один раз на элемент.
+ *
+ * <p>Вызовы {@code Files.isDirectory(entry)} и {@code Files.size(entry)} для каждого
+ * элемента — это по отдельному системному вызову {@code stat} на каждый.
+ * Сканер получает {@link BasicFileAttributes} один раз: при последовательном
+ * обходе их передаёт {@link Files#walkFileTree}, при параллельном — один вызов
+ * {@link Files#readAttributes(Path, Class, LinkOption...)}. Символические ссылки
+ * не разыменовываются.</p>
+ *
+ * <p>Параллельный обход ({@link #scanParallel(Path)}) создаёт задачу
+ * {@link RecursiveTask} на каждый подкаталог; каждая задача пишет в свой
+ * {@link DirectorySnapshot.Builder}; накопители подкаталогов подключаются к
+ * родительскому без копирования и сливаются в колонки снимка один раз в конце.
+ * Каталоги, которые не удалось прочитать (например, из-за прав доступа),
+ * пропускаются с предупреждением в логе.</p>
+ *
+ * <p>Пример использования:</p>
+ * <pre>
+ * DirectorySnapshot snapshot = new DirectoryScanner().scanParallel(Paths.get("/data"));
+ * logger.info("{} элементов, {} байт", snapshot.count(), snapshot.totalFileSize());
+ * </pre>
+ */
+public class DirectoryScanner {
+    private static final Logger logger = LogManager.getLogger(DirectoryScanner.class);
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Создаёт сканер, использующий общий {@link ForkJoinPool} для параллельного обхода.
+     */
+    public DirectoryScanner() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Создаёт сканер с указанным пулом для параллельного обхода.
+     *
+     * @param pool пул потоков
+     */
+    public DirectoryScanner(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Последовательно обходит дерево каталогов через {@link Files#walkFileTree}.
+     *
+     * @param root корневой каталог
+     * @return снимок содержимого в порядке обхода
+     * @throws NotDirectoryException если корень не является каталогом
+     * @throws IOException           если корневой каталог не удалось прочитать
+     */
+    public DirectorySnapshot scan(Path root) throws IOException {
+        long start = System.nanoTime();
+        checkDirectory(root);
+        DirectorySnapshot.Builder builder = new DirectorySnapshot.Builder();
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (!dir.equals(root)) {
+                    builder.add(relativeName(root, dir), attrs);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                builder.add(relativeName(root, file), attrs);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) throws IOException {
+                if (file.equals(root)) {
+                    throw e;
+                }
+                logger.warn("Не удалось прочитать {}: {}", file, e.toString());
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                if (e != null) {
+                    if (dir.equals(root)) {
+                        throw e;
+                    }
+                    logger.warn("Не удалось дочитать каталог {}: {}", dir, e.toString());
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return logged(builder.build(root), start);
+    }
+
+    /**
+     * Обходит дерево каталогов, обрабатывая подкаталоги параллельно.
+     *
+     * @param root корневой каталог
+     * @return снимок содержимого; порядок элементов не определён
+     * @throws NotDirectoryException если корень не является каталогом
+     * @throws IOException           если корневой каталог не удалось прочитать
+     */
+    public DirectorySnapshot scanParallel(Path root) throws IOException {
+        long start = System.nanoTime();
+        checkDirectory(root);
+        try {
+            return logged(pool.invoke(new ScanTask(root, root, true)).build(root), start);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void checkDirectory(Path root) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(root, BasicFileAttributes.class);
+        if (!attributes.isDirectory()) {
+            throw new NotDirectoryException(root.toString());
+        }
+    }
+
+    private static DirectorySnapshot logged(DirectorySnapshot snapshot, long start) {
+        logger.info("Каталог {} просканирован за {} ms: {} элементов",
+                snapshot.root(), (System.nanoTime() - start) / 1_000_000, snapshot.count());
+        return snapshot;
+    }
+
+    private static String relativeName(Path root, Path path) {
+        String name = root.relativize(path).toString();
+        String separator = path.getFileSystem().getSeparator();
+        return separator.equals("/") ? name : name.replace(separator, "/");
+    }
+
+    /** Задача обхода одного каталога; подкаталоги обрабатываются дочерними задачами */
+    private static final class ScanTask extends RecursiveTask<DirectorySnapshot.Builder> {
+        private final Path root;
+        private final Path dir;
+        private final boolean failOnError;
+
+        ScanTask(Path root, Path dir, boolean failOnError) {
+            this.root = root;
+            this.dir = dir;
+            this.failOnError = failOnError;
+        }
+
+        @Override
+        protected DirectorySnapshot.Builder compute() {
+            DirectorySnapshot.Builder builder = new DirectorySnapshot.Builder();
+            List<ScanTask> subtasks = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                for (Path entry : entries) {
+                    BasicFileAttributes attributes;
+                    try {
+                        attributes = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    } catch (IOException e) {
+                        // Элемент мог быть удалён между чтением каталога и чтением атрибутов
+                        logger.warn("Не удалось прочитать {}: {}", entry, e.toString());
+                        continue;
+                    }
+                    builder.add(relativeName(root, entry), attributes);
+                    if (attributes.isDirectory()) {
+                        ScanTask subtask = new ScanTask(root, entry, false);
+                        subtask.fork();
+                        subtasks.add(subtask);
+                    }
+                }
+            } catch (IOException e) {
+                if (failOnError) {
+                    throw new UncheckedIOException(e);
+                }
+                logger.warn("Не удалось прочитать {}: {}", dir, e.toString());
+            }
+            for (ScanTask subtask : subtasks) {
+                builder.append(subtask.join());
+            }
+            return builder;
+        }
+    }
+}
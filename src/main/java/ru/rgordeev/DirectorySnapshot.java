@@ -0,0 +1,216 @@
+package ru.rgordeev;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Снимок содержимого дерева каталогов в колоночном виде.
+ *
+ * <p>Вместо списка объектов {@link Path} и {@link BasicFileAttributes} на каждый
+ * элемент снимок хранит параллельные массивы примитивов: относительные пути в
+ * UTF-8 подряд в одном {@code byte[]} со смещениями в {@code int[]} (как имена в
+ * {@link ZipIndex}), размеры, времена изменения (в миллисекундах) и признак
+ * каталога. На миллионы файлов приходится несколько массивов, а не объекты на
+ * каждый элемент; строка имени создаётся только при вызове {@link #name(int)}.</p>
+ *
+ * <p>Корневой каталог в снимок не входит. Порядок элементов совпадает с порядком
+ * обхода; при параллельном сканировании он не определён. Экземпляр неизменяем.</p>
+ *
+ * @see DirectoryScanner
+ */
+public final class DirectorySnapshot {
+    private final Path root;
+    private final int count;
+    private final byte[] names;
+    /** Начало имени каждого элемента; последний элемент массива — общая длина имён */
+    private final int[] nameOffsets;
+    private final long[] sizes;
+    private final long[] lastModified;
+    private final boolean[] directories;
+
+    private DirectorySnapshot(Path root, int count, byte[] names, int[] nameOffsets,
+                              long[] sizes, long[] lastModified, boolean[] directories) {
+        this.root = root;
+        this.count = count;
+        this.names = names;
+        this.nameOffsets = nameOffsets;
+        this.sizes = sizes;
+        this.lastModified = lastModified;
+        this.directories = directories;
+    }
+
+    /**
+     * @return корневой каталог снимка
+     */
+    public Path root() {
+        return root;
+    }
+
+    /**
+     * @return число элементов в снимке
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * @param index номер элемента
+     * @return путь относительно корня, разделитель — {@code /}
+     */
+    public String name(int index) {
+        checkIndex(index);
+        return new String(names, nameOffsets[index], nameOffsets[index + 1] - nameOffsets[index],
+                StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param index номер элемента
+     * @return полный путь к элементу
+     */
+    public Path path(int index) {
+        return root.resolve(name(index));
+    }
+
+    /**
+     * @param index номер элемента
+     * @return размер в байтах
+     */
+    public long fileSize(int index) {
+        checkIndex(index);
+        return sizes[index];
+    }
+
+    /**
+     * @param index номер элемента
+     * @return время последнего изменения в миллисекундах от эпохи
+     */
+    public long lastModified(int index) {
+        checkIndex(index);
+        return lastModified[index];
+    }
+
+    /**
+     * @param index номер элемента
+     * @return true если элемент — каталог
+     */
+    public boolean isDirectory(int index) {
+        checkIndex(index);
+        return directories[index];
+    }
+
+    /**
+     * @return суммарный размер всех файлов (без каталогов)
+     */
+    public long totalFileSize() {
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            if (!directories[i]) {
+                total += sizes[i];
+            }
+        }
+        return total;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Индекс " + index + " вне снимка из " + count + " элементов");
+        }
+    }
+
+    /**
+     * Накопитель колонок. Каждый поток сканирования заполняет свой накопитель и
+     * подключает к нему накопители подкаталогов через {@link #append(Builder)}.
+     * Колонки всего дерева копируются один раз — в {@link #build(Path)}.
+     */
+    static final class Builder {
+        private int count;
+        private byte[] names = new byte[256];
+        private int namesLength;
+        private int[] nameOffsets = new int[16];
+        private long[] sizes = new long[16];
+        private long[] lastModified = new long[16];
+        private boolean[] directories = new boolean[16];
+        private List<Builder> children;
+
+        void add(String name, BasicFileAttributes attributes) {
+            ensureCapacity(count + 1);
+            byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+            if (namesLength + encoded.length > names.length) {
+                names = Arrays.copyOf(names, Math.max(namesLength + encoded.length, names.length * 2));
+            }
+            System.arraycopy(encoded, 0, names, namesLength, encoded.length);
+            nameOffsets[count] = namesLength;
+            namesLength += encoded.length;
+            sizes[count] = attributes.size();
+            lastModified[count] = attributes.lastModifiedTime().toMillis();
+            directories[count] = attributes.isDirectory();
+            count++;
+        }
+
+        // Без копирования: элементы другого накопителя войдут в снимок при build
+        void append(Builder other) {
+            if (children == null) {
+                children = new ArrayList<>();
+            }
+            children.add(other);
+        }
+
+        DirectorySnapshot build(Path root) {
+            List<Builder> all = new ArrayList<>();
+            ArrayDeque<Builder> pending = new ArrayDeque<>();
+            pending.push(this);
+            long totalCount = 0;
+            long totalNames = 0;
+            while (!pending.isEmpty()) {
+                Builder builder = pending.pop();
+                all.add(builder);
+                totalCount += builder.count;
+                totalNames += builder.namesLength;
+                if (builder.children != null) {
+                    builder.children.forEach(pending::push);
+                }
+            }
+            if (totalCount >= Integer.MAX_VALUE || totalNames > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("Снимок слишком велик: " + totalCount + " элементов, "
+                        + totalNames + " байт имён");
+            }
+            int count = (int) totalCount;
+            byte[] names = new byte[(int) totalNames];
+            int[] nameOffsets = new int[count + 1];
+            long[] sizes = new long[count];
+            long[] lastModified = new long[count];
+            boolean[] directories = new boolean[count];
+            int position = 0;
+            int namesPosition = 0;
+            for (Builder builder : all) {
+                System.arraycopy(builder.names, 0, names, namesPosition, builder.namesLength);
+                for (int i = 0; i < builder.count; i++) {
+                    nameOffsets[position + i] = namesPosition + builder.nameOffsets[i];
+                }
+                System.arraycopy(builder.sizes, 0, sizes, position, builder.count);
+                System.arraycopy(builder.lastModified, 0, lastModified, position, builder.count);
+                System.arraycopy(builder.directories, 0, directories, position, builder.count);
+                position += builder.count;
+                namesPosition += builder.namesLength;
+            }
+            nameOffsets[count] = namesPosition;
+            return new DirectorySnapshot(root, count, names, nameOffsets, sizes, lastModified, directories);
+        }
+
+        private void ensureCapacity(int required) {
+            if (required <= sizes.length) {
+                return;
+            }
+            int capacity = Math.max(required, sizes.length * 2);
+            nameOffsets = Arrays.copyOf(nameOffsets, capacity);
+            sizes = Arrays.copyOf(sizes, capacity);
+            lastModified = Arrays.copyOf(lastModified, capacity);
+            directories = Arrays.copyOf(directories, capacity);
+        }
+    }
+}
@@ -0,0 +1,425 @@
+package ru.rgordeev;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Отслеживание изменений в дереве каталогов через {@link WatchService}.
+ *
+ * <p>Вместо периодического пересканирования всего дерева (O(число файлов))
+ * наблюдатель один раз строит индекс файлов в памяти, а затем обновляет только
+ * те пути, о которых сообщила ОС (O(число изменений)). События, пришедшие
+ * в течение окна {@code coalesceWindow}, объединяются: для каждого пути
+ * сравнивается итоговое состояние на диске с индексом, поэтому, например,
+ * создание и удаление временного файла внутри окна не порождают событий,
+ * а серия записей в файл даёт одно {@link Kind#MODIFIED}.</p>
+ *
+ * <p>{@link WatchService} не рекурсивен, поэтому каждый каталог регистрируется
+ * отдельно; новые каталоги регистрируются и сканируются при появлении.
+ * Если очередь событий ОС переполнилась ({@link StandardWatchEventKinds#OVERFLOW}),
+ * события по каталогу могли потеряться, и пересканируется только этот каталог.</p>
+ *
+ * <p>Обработка событий и вызов {@link Listener} выполняются в отдельном потоке;
+ * методы чтения индекса потокобезопасны.</p>
+ *
+ * <p>Пример использования:</p>
+ * <pre>
+ * try (DirectoryWatcher watcher = new DirectoryWatcher(Paths.get("example_dir"),
+ *         Duration.ofMillis(200), changes -&gt; changes.forEach(c -&gt; logger.info("{}", c)))) {
+ *     watcher.start();
+ *     ...
+ * }
+ * </pre>
+ */
+public class DirectoryWatcher implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(DirectoryWatcher.class);
+
+    /** Окно объединения событий по умолчанию */
+    public static final Duration DEFAULT_COALESCE_WINDOW = Duration.ofMillis(200);
+
+    private final Path root;
+    private final long coalesceNanos;
+    private final Listener listener;
+    private final WatchService watchService;
+    /** Индекс: путь относительно корня с разделителем {@code /} — состояние файла */
+    private final NavigableMap<String, Entry> index = new ConcurrentSkipListMap<>();
+    private final Map<WatchKey, Path> keys = new HashMap<>();
+    private final Set<Path> watched = new HashSet<>();
+    private final Set<Path> dirtyPaths = new LinkedHashSet<>();
+    private final Set<Path> rescanDirectories = new LinkedHashSet<>();
+    private long firstPendingAt;
+    private Thread thread;
+    private volatile boolean closed;
+
+    /**
+     * Создаёт наблюдатель с окном {@link #DEFAULT_COALESCE_WINDOW}.
+     *
+     * @param root     корневой каталог
+     * @param listener получатель изменений
+     * @throws IOException если не удалось создать {@link WatchService}
+     */
+    public DirectoryWatcher(Path root, Listener listener) throws IOException {
+        this(root, DEFAULT_COALESCE_WINDOW, listener);
+    }
+
+    /**
+     * Создаёт наблюдатель.
+     *
+     * @param root           корневой каталог
+     * @param coalesceWindow время накопления событий перед обработкой
+     * @param listener       получатель изменений
+     * @throws IOException если не удалось создать {@link WatchService}
+     */
+    public DirectoryWatcher(Path root, Duration coalesceWindow, Listener listener) throws IOException {
+        if (coalesceWindow.isNegative()) {
+            throw new IllegalArgumentException("Окно объединения не может быть отрицательным: " + coalesceWindow);
+        }
+        this.root = root.toAbsolutePath().normalize();
+        this.coalesceNanos = coalesceWindow.toNanos();
+        this.listener = listener;
+        this.watchService = this.root.getFileSystem().newWatchService();
+    }
+
+    /**
+     * Строит индекс, регистрирует каталоги и запускает поток обработки событий.
+     * События по файлам, изменённым во время построения индекса, не теряются:
+     * каталог регистрируется до чтения его содержимого.
+     *
+     * @throws IllegalStateException если наблюдатель уже запущен или закрыт
+     * @throws IOException           если корневой каталог не удалось прочитать
+     */
+    public synchronized void start() throws IOException {
+        if (closed || thread != null) {
+            throw new IllegalStateException("Наблюдатель уже запущен или закрыт");
+        }
+        long start = System.nanoTime();
+        scanTree(root, null);
+        thread = new Thread(this::run, "directory-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        logger.info("Наблюдение за {} запущено: {} элементов, {} каталогов, {} ms",
+                root, index.size(), keys.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * @return корневой каталог
+     */
+    public Path root() {
+        return root;
+    }
+
+    /**
+     * @return число файлов и каталогов в индексе (без корня)
+     */
+    public int count() {
+        return index.size();
+    }
+
+    /**
+     * Возвращает состояние файла из индекса.
+     *
+     * @param path путь к файлу (абсолютный или относительно корня)
+     * @return состояние файла или null, если его нет в индексе
+     */
+    public Entry entry(Path path) {
+        return index.get(name(root.resolve(path)));
+    }
+
+    /**
+     * Останавливает наблюдение. Повторный вызов ничего не делает.
+     *
+     * @throws IOException если не удалось закрыть {@link WatchService}
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        watchService.close();
+        Thread current;
+        synchronized (this) {
+            current = thread;
+        }
+        if (current != null && current != Thread.currentThread()) {
+            try {
+                current.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        logger.info("Наблюдение за {} остановлено", root);
+    }
+
+    private void run() {
+        try {
+            while (!closed) {
+                WatchKey key = pending() ? watchService.poll(remainingWindow(), TimeUnit.NANOSECONDS)
+                        : watchService.poll(1, TimeUnit.SECONDS);
+                while (key != null) {
+                    handle(key);
+                    key = watchService.poll();
+                }
+                if (pending() && System.nanoTime() - firstPendingAt >= coalesceNanos) {
+                    processPending();
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            // Наблюдатель закрыт
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void handle(WatchKey key) {
+        Path dir = keys.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (dir == null) {
+                continue;
+            }
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                logger.warn("Переполнение очереди событий для {}, каталог будет пересканирован", dir);
+                markPending(rescanDirectories, dir);
+            } else {
+                markPending(dirtyPaths, dir.resolve((Path) event.context()));
+            }
+        }
+        if (!key.reset() && dir != null) {
+            // Каталог удалён или пересоздан: его состояние уточнит обновление пути
+            keys.remove(key);
+            watched.remove(dir);
+            markPending(dirtyPaths, dir);
+        }
+    }
+
+    private void markPending(Set<Path> set, Path path) {
+        if (!pending()) {
+            firstPendingAt = System.nanoTime();
+        }
+        set.add(path);
+    }
+
+    private boolean pending() {
+        return !dirtyPaths.isEmpty() || !rescanDirectories.isEmpty();
+    }
+
+    private long remainingWindow() {
+        return Math.max(0, coalesceNanos - (System.nanoTime() - firstPendingAt));
+    }
+
+    private void processPending() {
+        List<Change> changes = new ArrayList<>();
+        for (Path dir : rescanDirectories) {
+            rescan(dir, changes);
+        }
+        for (Path path : dirtyPaths) {
+            refresh(path, changes);
+        }
+        rescanDirectories.clear();
+        dirtyPaths.clear();
+        if (changes.isEmpty()) {
+            return;
+        }
+        logger.debug("Изменений в {}: {}", root, changes.size());
+        try {
+            listener.onChanges(changes);
+        } catch (RuntimeException e) {
+            logger.error("Ошибка в обработчике изменений", e);
+        }
+    }
+
+    // Сравнивает состояние пути на диске с индексом и обновляет индекс
+    private void refresh(Path path, List<Change> changes) {
+        String name = name(path);
+        if (name.isEmpty()) {
+            return;
+        }
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (NoSuchFileException e) {
+            attributes = null;
+        } catch (IOException e) {
+            logger.warn("Не удалось прочитать атрибуты {}: {}", path, e.toString());
+            return;
+        }
+        Entry old = index.get(name);
+        if (attributes == null) {
+            if (old != null) {
+                removeTree(name, changes);
+            }
+            return;
+        }
+        Entry current = Entry.of(attributes);
+        if (old != null && (old.directory() != current.directory()
+                || current.directory() && !watched.contains(path))) {
+            removeTree(name, changes);
+            old = null;
+        }
+        if (old == null) {
+            if (current.directory()) {
+                scanTree(path, changes);
+            } else {
+                index.put(name, current);
+                changes.add(new Change(Kind.CREATED, path));
+            }
+        } else if (!current.directory() && !current.equals(old)) {
+            index.put(name, current);
+            changes.add(new Change(Kind.MODIFIED, path));
+        }
+    }
+
+    // Пересканирует непосредственное содержимое каталога после потери событий
+    private void rescan(Path dir, List<Change> changes) {
+        String prefix = name(dir).isEmpty() ? "" : name(dir) + "/";
+        Set<String> seen = new HashSet<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+            for (Path entry : entries) {
+                seen.add(name(entry));
+                refresh(entry, changes);
+            }
+        } catch (IOException e) {
+            logger.warn("Не удалось пересканировать {}: {}", dir, e.toString());
+            refresh(dir, changes);
+            return;
+        }
+        List<String> removed = new ArrayList<>();
+        for (String name : children(prefix).keySet()) {
+            if (name.indexOf('/', prefix.length()) < 0 && !seen.contains(name)) {
+                removed.add(name);
+            }
+        }
+        for (String name : removed) {
+            removeTree(name, changes);
+        }
+    }
+
+    // Регистрирует каталог и его подкаталоги, добавляя в индекс всё найденное
+    private void scanTree(Path dir, List<Change> changes) {
+        try {
+            Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path path, BasicFileAttributes attrs) throws IOException {
+                    keys.put(path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY), path);
+                    watched.add(path);
+                    add(path, attrs);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) {
+                    add(path, attrs);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path path, IOException e) {
+                    logger.warn("Не удалось прочитать {}: {}", path, e.toString());
+                    return FileVisitResult.CONTINUE;
+                }
+
+                private void add(Path path, BasicFileAttributes attrs) {
+                    String name = name(path);
+                    if (!name.isEmpty() && index.put(name, Entry.of(attrs)) == null && changes != null) {
+                        changes.add(new Change(Kind.CREATED, path));
+                    }
+                }
+            });
+        } catch (IOException e) {
+            logger.warn("Не удалось просканировать {}: {}", dir, e.toString());
+        }
+    }
+
+    // Удаляет из индекса путь и, если это каталог, всё его содержимое
+    private void removeTree(String name, List<Change> changes) {
+        NavigableMap<String, Entry> descendants = children(name + "/");
+        for (String child : new ArrayList<>(descendants.descendingKeySet())) {
+            index.remove(child);
+            changes.add(new Change(Kind.DELETED, root.resolve(child)));
+        }
+        index.remove(name);
+        changes.add(new Change(Kind.DELETED, root.resolve(name)));
+    }
+
+    // Все пути индекса с заданным префиксом: '0' следует сразу за '/' в порядке символов
+    private NavigableMap<String, Entry> children(String prefix) {
+        if (prefix.isEmpty()) {
+            return index;
+        }
+        return index.subMap(prefix, true, prefix.substring(0, prefix.length() - 1) + '0', false);
+    }
+
+    private String name(Path path) {
+        String name = root.relativize(path.toAbsolutePath().normalize()).toString();
+        String separator = root.getFileSystem().getSeparator();
+        return separator.equals("/") ? name : name.replace(separator, "/");
+    }
+
+    /** Вид изменения */
+    public enum Kind {
+        /** Файл или каталог появился */
+        CREATED,
+        /** Изменились размер или время изменения файла */
+        MODIFIED,
+        /** Файл или каталог удалён */
+        DELETED
+    }
+
+    /**
+     * Изменение пути.
+     *
+     * @param kind вид изменения
+     * @param path абсолютный путь
+     */
+    public record Change(Kind kind, Path path) {
+    }
+
+    /**
+     * Состояние файла в индексе.
+     *
+     * @param size         размер в байтах
+     * @param lastModified время изменения в миллисекундах
+     * @param directory    true для каталога
+     */
+    public record Entry(long size, long lastModified, boolean directory) {
+        static Entry of(BasicFileAttributes attributes) {
+            return new Entry(attributes.size(), attributes.lastModifiedTime().toMillis(), attributes.isDirectory());
+        }
+    }
+
+    /** Получатель объединённых изменений; вызывается из потока наблюдателя */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * @param changes изменения, накопленные за окно объединения
+         */
+        void onChanges(List<Change> changes);
+    }
+}
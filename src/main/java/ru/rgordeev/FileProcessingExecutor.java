@@ -0,0 +1,347 @@
+package ru.rgordeev;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Выполнение задач над множеством файлов (чтение, преобразование, запись)
+ * с ограничением числа одновременно открытых файлов.
+ *
+ * <p>Задачи выполняются на виртуальных потоках, если среда выполнения их
+ * поддерживает (Java 21+), иначе — в фиксированном пуле платформенных потоков.
+ * Проект компилируется под Java 17, поэтому виртуальный пул создаётся через
+ * отражение ({@code Executors.newVirtualThreadPerTaskExecutor}).</p>
+ *
+ * <p>Число одновременно выполняемых задач ограничено семафором {@code maxOpenFiles}:
+ * это ограничение на открытые файловые дескрипторы, а не на число потоков.
+ * Когда лимит исчерпан, {@link #processAll(Collection, FileTask)} перестаёт
+ * отправлять задачи и ждёт освобождения (обратное давление), поэтому очередь
+ * задач не растёт вместе с числом файлов.</p>
+ *
+ * <p>{@link #processAll(Collection, FileTask)} работает как структурированная
+ * область: метод возвращается только после завершения всех запущенных им задач.
+ * При первой ошибке или прерывании вызывающего потока остальные задачи
+ * отменяются (с прерыванием), новые не запускаются, а ошибка пробрасывается
+ * после остановки всех задач.</p>
+ *
+ * <p>Пример использования:</p>
+ * <pre>
+ * try (FileProcessingExecutor executor = FileProcessingExecutor.virtualThreads(256)) {
+ *     List&lt;Long&gt; sizes = executor.processAll(files, Files::size);
+ * }
+ * </pre>
+ */
+public class FileProcessingExecutor implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(FileProcessingExecutor.class);
+
+    private final ExecutorService executor;
+    private final boolean virtual;
+    private final int maxOpenFiles;
+
+    private FileProcessingExecutor(ExecutorService executor, boolean virtual, int maxOpenFiles) {
+        if (maxOpenFiles <= 0) {
+            executor.shutdown();
+            throw new IllegalArgumentException("Лимит открытых файлов должен быть положительным: " + maxOpenFiles);
+        }
+        this.executor = executor;
+        this.virtual = virtual;
+        this.maxOpenFiles = maxOpenFiles;
+    }
+
+    /**
+     * Создаёт исполнитель на виртуальных потоках. Если они недоступны,
+     * используется пул из {@code maxOpenFiles} платформенных потоков.
+     *
+     * @param maxOpenFiles максимальное число одновременно обрабатываемых файлов
+     * @return новый исполнитель
+     */
+    public static FileProcessingExecutor virtualThreads(int maxOpenFiles) {
+        ExecutorService executor = newVirtualThreadExecutor();
+        if (executor == null) {
+            logger.warn("Виртуальные потоки недоступны в Java {}, используется пул платформенных потоков",
+                    Runtime.version().feature());
+            return platformThreads(maxOpenFiles, maxOpenFiles);
+        }
+        return new FileProcessingExecutor(executor, true, maxOpenFiles);
+    }
+
+    /**
+     * Создаёт исполнитель на фиксированном пуле платформенных потоков.
+     *
+     * @param threads      число потоков
+     * @param maxOpenFiles максимальное число одновременно обрабатываемых файлов
+     * @return новый исполнитель
+     */
+    public static FileProcessingExecutor platformThreads(int threads, int maxOpenFiles) {
+        AtomicInteger number = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "file-processing-" + number.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        return new FileProcessingExecutor(executor, false, maxOpenFiles);
+    }
+
+    /**
+     * @return true если среда выполнения поддерживает виртуальные потоки
+     */
+    public static boolean virtualThreadsAvailable() {
+        ExecutorService executor = newVirtualThreadExecutor();
+        if (executor == null) {
+            return false;
+        }
+        executor.shutdown();
+        return true;
+    }
+
+    /**
+     * @return true если задачи выполняются на виртуальных потоках
+     */
+    public boolean usesVirtualThreads() {
+        return virtual;
+    }
+
+    /**
+     * @return максимальное число одновременно обрабатываемых файлов
+     */
+    public int maxOpenFiles() {
+        return maxOpenFiles;
+    }
+
+    /**
+     * Выполняет задачу для каждого файла и ждёт завершения всех задач.
+     *
+     * @param files файлы для обработки
+     * @param task  задача над одним файлом
+     * @param <R>   тип результата задачи
+     * @return результаты в порядке {@code files}
+     * @throws IOException          первая ошибка задачи; ошибки остальных задач добавлены как подавленные
+     * @throws InterruptedIOException если вызывающий поток был прерван; все задачи отменены
+     */
+    public <R> List<R> processAll(Collection<Path> files, FileTask<R> task) throws IOException {
+        long start = System.nanoTime();
+        Scope scope = new Scope(maxOpenFiles);
+        List<Job<R>> jobs = new ArrayList<>(files.size());
+        Throwable failure = null;
+        try {
+            for (Path file : files) {
+                scope.openFiles.acquire();
+                if (scope.failure() != null) {
+                    scope.openFiles.release();
+                    break;
+                }
+                Job<R> job = new Job<>(file, task, scope);
+                scope.started();
+                try {
+                    job.future = executor.submit(job);
+                } catch (RejectedExecutionException e) {
+                    scope.finished(null);
+                    scope.openFiles.release();
+                    throw e;
+                }
+                jobs.add(job);
+            }
+            failure = scope.await();
+            if (failure == null) {
+                List<R> results = new ArrayList<>(jobs.size());
+                for (Job<R> job : jobs) {
+                    results.add(job.future.get());
+                }
+                logger.info("Обработано {} файлов за {} ms ({} потоки, до {} открытых файлов)",
+                        results.size(), (System.nanoTime() - start) / 1_000_000,
+                        virtual ? "виртуальные" : "платформенные", maxOpenFiles);
+                return results;
+            }
+        } catch (ExecutionException e) {
+            failure = e.getCause();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure = new InterruptedIOException("Обработка файлов прервана");
+        } catch (RuntimeException e) {
+            failure = e;
+        } finally {
+            if (failure != null) {
+                for (Job<R> job : jobs) {
+                    job.cancel();
+                }
+                // Все разрешения свободны только когда ни одна задача не выполняется
+                scope.openFiles.acquireUninterruptibly(maxOpenFiles);
+                collectSuppressed(failure, jobs);
+            }
+        }
+        throw rethrow(failure);
+    }
+
+    /**
+     * Останавливает пул, дожидаясь завершения выполняющихся задач.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.warn("Задачи обработки файлов не завершились за минуту");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void collectSuppressed(Throwable failure, List<? extends Job<?>> jobs) {
+        for (Job<?> job : jobs) {
+            if (!job.future.isDone() || job.future.isCancelled()) {
+                continue;
+            }
+            try {
+                job.future.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() != failure) {
+                    failure.addSuppressed(e.getCause());
+                }
+            } catch (CancellationException | InterruptedException ignored) {
+                // Отменённые задачи не считаются ошибками
+            }
+        }
+    }
+
+    private static IOException rethrow(Throwable failure) {
+        if (failure instanceof IOException) {
+            return (IOException) failure;
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        return new IOException("Ошибка при обработке файла", failure);
+    }
+
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        } catch (InvocationTargetException e) {
+            // В Java 19-20 виртуальные потоки доступны только с --enable-preview
+            return null;
+        }
+    }
+
+    /**
+     * Состояние одного вызова {@link #processAll(Collection, FileTask)}:
+     * семафор открытых файлов, число незавершённых задач и первая ошибка.
+     */
+    private static final class Scope {
+        final Semaphore openFiles;
+        private int pending;
+        private Throwable failure;
+
+        Scope(int maxOpenFiles) {
+            this.openFiles = new Semaphore(maxOpenFiles);
+        }
+
+        synchronized void started() {
+            pending++;
+        }
+
+        synchronized void finished(Throwable error) {
+            pending--;
+            if (error != null && failure == null) {
+                failure = error;
+            }
+            notifyAll();
+        }
+
+        synchronized Throwable failure() {
+            return failure;
+        }
+
+        // Ждёт завершения всех задач или первой ошибки
+        synchronized Throwable await() throws InterruptedException {
+            while (pending > 0 && failure == null) {
+                wait();
+            }
+            return failure;
+        }
+    }
+
+    /**
+     * Запущенная задача. Разрешение семафора освобождает ровно один из двух:
+     * сама задача после выполнения или отмена, если задача так и не начала работу.
+     */
+    private static final class Job<R> implements Callable<R> {
+        private final Path file;
+        private final FileTask<R> task;
+        private final Scope scope;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private Future<R> future;
+
+        Job(Path file, FileTask<R> task, Scope scope) {
+            this.file = file;
+            this.task = task;
+            this.scope = scope;
+        }
+
+        @Override
+        public R call() throws Exception {
+            if (!claimed.compareAndSet(false, true)) {
+                return null;
+            }
+            Throwable error = null;
+            try {
+                return task.process(file);
+            } catch (Exception | Error e) {
+                error = e;
+                throw e;
+            } finally {
+                scope.finished(error);
+                scope.openFiles.release();
+            }
+        }
+
+        void cancel() {
+            future.cancel(true);
+            if (claimed.compareAndSet(false, true)) {
+                scope.finished(null);
+                scope.openFiles.release();
+            }
+        }
+    }
+
+    /**
+     * Задача над одним файлом.
+     *
+     * @param <R> тип результата
+     */
+    @FunctionalInterface
+    public interface FileTask<R> {
+        /**
+         * @param file файл для обработки
+         * @return результат обработки
+         * @throws IOException при ошибке ввода-вывода
+         */
+        R process(Path file) throws IOException;
+    }
+}
@@ -7,19 +7,41 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Утилитарный класс для чтения бинарных и текстовых файлов.
  * Предоставляет методы для безопасного чтения файлов с использованием try-with-resources
- * и логированием процесса чтения.
+ * и логированием процесса чтения. Потоки и каналы оборачиваются {@link IoMetrics#global()}
+ * и учитываются в метриках ввода-вывода, если они включены; меткой служит каталог
+ * файла, чтобы число счётчиков не росло с числом прочитанных файлов.
  */
 public class FileReaderExample {
     // Логгер для записи информации о процессе чтения файлов
     private static final Logger logger = LogManager.getLogger(FileReaderExample.class);
 
+    // Размер блока для пакетного чтения (байт)
+    static final int CHUNK_SIZE = 64 * 1024;
+
+    // Максимальный размер массива, который может выделить JVM
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
     /**
      * Точка входа в программу. Демонстрирует использование методов чтения файлов.
      *
@@ -45,25 +67,104 @@ public class FileReaderExample {
     /**
      * Читает бинарный файл и возвращает его содержимое в виде списка байтов.
      *
+     * <p>Метод сохранён для совместимости и является тонкой обёрткой над
+     * {@link #readBinaryFileBytes(String)}: возвращаемый список не хранит
+     * упакованные {@code Byte}, а является неизменяемым представлением
+     * поверх примитивного массива.</p>
+     *
      * @param filePath путь к файлу для чтения
      * @return список байтов, содержащихся в файле
      * @throws IOException если произошла ошибка при чтении файла
      */
     public List<Byte> readBinaryFile(String filePath) throws IOException {
-        List<Byte> bytes = new ArrayList<>();
-        try (InputStream in = new FileInputStream(filePath)) {
+        return new ByteArrayList(readBinaryFileBytes(filePath));
+    }
+
+    /**
+     * Читает бинарный файл целиком в примитивный массив байтов.
+     * Данные читаются блоками по {@value #CHUNK_SIZE} байт; если размер файла
+     * известен заранее, массив выделяется сразу нужного размера.
+     *
+     * @param filePath путь к файлу для чтения
+     * @return содержимое файла
+     * @throws IOException если произошла ошибка при чтении файла
+     *                     или файл не помещается в массив
+     */
+    public byte[] readBinaryFileBytes(String filePath) throws IOException {
+        try (InputStream in = IoMetrics.global().wrap(metricsLabel(filePath), new FileInputStream(filePath))) {
             logger.info("Открыт {} для чтения байтов", filePath);
 
-            int byteValue;
-            // Читаем файл побайтово, пока не достигнем конца файла (-1)
-            while ((byteValue = in.read()) != -1) {
-                bytes.add((byte) byteValue);
-                logger.debug("Прочитан байт: {}", byteValue);
+            long expectedSize = Files.size(Path.of(filePath));
+            if (expectedSize > MAX_ARRAY_SIZE) {
+                throw new IOException("Файл " + filePath + " слишком велик для чтения в массив: "
+                        + expectedSize + " байт");
             }
+            ReadProgress progress = new ReadProgress(logger, filePath, "байт", expectedSize, ReadProgress.DEFAULT_STEP);
+            byte[] bytes = readFully(in, (int) expectedSize, progress);
 
-            logger.info("Чтение {} завершено", filePath);
+            logger.info("Чтение {} завершено, прочитано {} байт", filePath, bytes.length);
+            return bytes;
+        }
+    }
+
+    /**
+     * Читает бинарный файл целиком в прямой (off-heap) {@link ByteBuffer}.
+     * Буфер выделяется по размеру файла и заполняется через {@link FileChannel}
+     * без промежуточного копирования через массив в куче.
+     *
+     * @param filePath путь к файлу для чтения
+     * @return буфер, подготовленный для чтения (position = 0, limit = размер данных)
+     * @throws IOException если произошла ошибка при чтении файла
+     *                     или файл не помещается в буфер
+     */
+    public ByteBuffer readBinaryFileDirect(String filePath) throws IOException {
+        try (FileChannel channel = IoMetrics.global().wrap(metricsLabel(filePath),
+                FileChannel.open(Path.of(filePath), StandardOpenOption.READ))) {
+            logger.info("Открыт {} для чтения в прямой буфер", filePath);
+
+            long size = channel.size();
+            if (size > MAX_ARRAY_SIZE) {
+                throw new IOException("Файл " + filePath + " слишком велик для чтения в буфер: "
+                        + size + " байт");
+            }
+            ByteBuffer buffer = ByteBuffer.allocateDirect((int) size);
+            ReadProgress progress = new ReadProgress(logger, filePath, "байт", size, ReadProgress.DEFAULT_STEP);
+            // Канал может вернуть меньше байт, чем запрошено, поэтому читаем в цикле
+            while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+                progress.update(buffer.position());
+            }
+            buffer.flip();
+
+            logger.info("Чтение {} завершено, прочитано {} байт", filePath, buffer.remaining());
+            return buffer;
         }
-        return bytes;
+    }
+
+    /**
+     * Асинхронно читает бинарный файл целиком через {@link AsyncFileIO}.
+     * Вызывающий поток не блокируется на время чтения; файл закрывается
+     * после завершения операции.
+     *
+     * @param filePath путь к файлу для чтения
+     * @param executor пул для обработчиков завершения или null для пула по умолчанию
+     * @return буфер с содержимым файла, подготовленный для чтения
+     * @throws IOException если файл не удалось открыть или он не помещается в буфер
+     */
+    public CompletableFuture<ByteBuffer> readBinaryFileAsync(String filePath, ExecutorService executor)
+            throws IOException {
+        AsyncFileIO io = new AsyncFileIO(Path.of(filePath), executor, StandardOpenOption.READ);
+        long size = io.size();
+        if (size > MAX_ARRAY_SIZE) {
+            io.close();
+            throw new IOException("Файл " + filePath + " слишком велик для чтения в буфер: " + size + " байт");
+        }
+        return io.read(0, (int) size).whenComplete((buffer, error) -> {
+            try {
+                io.close();
+            } catch (IOException e) {
+                logger.warn("Ошибка при закрытии {}: {}", filePath, e.toString());
+            }
+        });
     }
 
     /**
@@ -73,21 +174,156 @@ public class FileReaderExample {
      * @param filePath путь к файлу для чтения
      * @return содержимое файла в виде строки
      * @throws IOException если произошла ошибка при чтении файла
+     * @see #readTextFile(String, Charset)
      */
     public String readTextFile(String filePath) throws IOException {
+        return readTextFile(filePath, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Читает текстовый файл в указанной кодировке блоками.
+     *
+     * <p>Байты читаются из {@link FileChannel} в переиспользуемый {@link ByteBuffer}
+     * и декодируются {@link CharsetDecoder} в переиспользуемый {@link CharBuffer}.
+     * Многобайтовая последовательность, разрезанная границей блока, остаётся
+     * в байтовом буфере (через {@link ByteBuffer#compact()}) и декодируется
+     * вместе со следующим блоком. Итоговый {@link StringBuilder} выделяется
+     * заранее по размеру файла и среднему числу символов на байт кодировки.
+     * Некорректные последовательности заменяются символом замены, как и в
+     * {@link java.io.FileReader}.</p>
+     *
+     * @param filePath путь к файлу для чтения
+     * @param charset  кодировка файла
+     * @return содержимое файла в виде строки
+     * @throws IOException если произошла ошибка при чтении файла
+     */
+    public String readTextFile(String filePath, Charset charset) throws IOException {
+        try (FileChannel channel = IoMetrics.global().wrap(metricsLabel(filePath),
+                FileChannel.open(Path.of(filePath), StandardOpenOption.READ))) {
+            logger.info("Открыт {} для чтения символов ({})", filePath, charset);
+
+            CharsetDecoder decoder = charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            long estimatedLength = (long) (channel.size() * (double) decoder.averageCharsPerByte());
+            StringBuilder content = new StringBuilder((int) Math.min(MAX_ARRAY_SIZE, estimatedLength + 16));
+
+            ByteBuffer bytes = ByteBuffer.allocate(CHUNK_SIZE);
+            CharBuffer chars = CharBuffer.allocate((int) (CHUNK_SIZE * decoder.maxCharsPerByte()) + 2);
+            boolean endOfInput = false;
+            while (!endOfInput) {
+                endOfInput = channel.read(bytes) == -1;
+                bytes.flip();
+                CoderResult result;
+                while ((result = decoder.decode(bytes, chars, endOfInput)).isOverflow()) {
+                    drain(chars, content);
+                }
+                if (result.isError()) {
+                    result.throwException();
+                }
+                // Незавершённая последовательность переносится в начало буфера
+                bytes.compact();
+                drain(chars, content);
+            }
+            while (decoder.flush(chars).isOverflow()) {
+                drain(chars, content);
+            }
+            drain(chars, content);
+
+            logger.info("Чтение {} завершено, прочитано {} символов", filePath, content.length());
+            return content.toString();
+        }
+    }
+
+    /**
+     * Читает текстовый файл посимвольно через небуферизованный {@link java.io.FileReader}.
+     * Оставлен для сравнения с блочным {@link #readTextFile(String)}. Прогресс
+     * пишется в лог уровня DEBUG раз в {@link ReadProgress#DEFAULT_STEP} символов,
+     * а не на каждый символ.
+     *
+     * @param filePath путь к файлу для чтения
+     * @return содержимое файла в виде строки
+     * @throws IOException если произошла ошибка при чтении файла
+     */
+    public String readTextFileCharByChar(String filePath) throws IOException {
         StringBuilder content = new StringBuilder();
-        try (Reader reader = new java.io.FileReader(filePath, StandardCharsets.UTF_8)) {
+        try (Reader reader = IoMetrics.global().wrap(metricsLabel(filePath), new java.io.FileReader(filePath, StandardCharsets.UTF_8))) {
             logger.info("Открыт {} для чтения символов (UTF-8)", filePath);
 
+            ReadProgress progress = new ReadProgress(logger, filePath, "символов", -1, ReadProgress.DEFAULT_STEP);
             int charValue;
             // Читаем файл посимвольно, пока не достигнем конца файла (-1)
             while ((charValue = reader.read()) != -1) {
                 content.append((char) charValue);
-                logger.debug("Прочитан символ: {}", (char) charValue);
+                progress.update(content.length());
             }
 
             logger.info("Чтение {} завершено", filePath);
         }
         return content.toString();
     }
+
+    // Метка метрик — каталог файла; без метрик путь не разбирается
+    private static String metricsLabel(String filePath) {
+        return IoMetrics.global().isEnabled() ? IoMetrics.directoryLabel(Path.of(filePath)) : filePath;
+    }
+
+    // Переносит декодированные символы в результат и очищает буфер
+    private static void drain(CharBuffer chars, StringBuilder content) {
+        content.append(chars.array(), chars.arrayOffset(), chars.position());
+        chars.clear();
+    }
+
+    /**
+     * Читает поток до конца в массив. Если ожидаемый размер больше нуля,
+     * массив выделяется сразу нужного размера; иначе (или если файл вырос
+     * во время чтения) используется растущий буфер.
+     */
+    private static byte[] readFully(InputStream in, int expectedSize, ReadProgress progress) throws IOException {
+        byte[] buffer = new byte[expectedSize > 0 ? expectedSize : CHUNK_SIZE];
+        int length = 0;
+        while (true) {
+            if (length == buffer.length) {
+                // Файл оказался больше ожидаемого — проверяем, есть ли ещё данные
+                int next = in.read();
+                if (next == -1) {
+                    return buffer;
+                }
+                if (buffer.length == MAX_ARRAY_SIZE) {
+                    throw new IOException("Данные не помещаются в массив");
+                }
+                int newLength = (int) Math.min(MAX_ARRAY_SIZE, Math.max(buffer.length * 2L, CHUNK_SIZE));
+                buffer = Arrays.copyOf(buffer, newLength);
+                buffer[length++] = (byte) next;
+            }
+            int read = in.read(buffer, length, Math.min(CHUNK_SIZE, buffer.length - length));
+            if (read == -1) {
+                return length == buffer.length ? buffer : Arrays.copyOf(buffer, length);
+            }
+            length += read;
+            progress.update(length);
+        }
+    }
+
+    /**
+     * Неизменяемое представление массива байтов в виде {@code List<Byte>}.
+     * Элементы упаковываются только при обращении к ним (из кэша {@link Byte#valueOf(byte)}).
+     */
+    private static final class ByteArrayList extends AbstractList<Byte> implements RandomAccess {
+        private final byte[] bytes;
+
+        ByteArrayList(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public Byte get(int index) {
+            return bytes[index];
+        }
+
+        @Override
+        public int size() {
+            return bytes.length;
+        }
+    }
 }
@@ -0,0 +1,278 @@
+package ru.rgordeev;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channel;
+import java.nio.channels.FileChannel;
+import java.nio.channels.IllegalBlockingModeException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.CopyOption;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Сервис передачи файлов без копирования данных через пространство пользователя.
+ *
+ * <p>В отличие от {@link Files#copy(Path, Path, CopyOption...)} и потоков ввода-вывода,
+ * данные передаются через {@link FileChannel#transferTo} / {@link FileChannel#transferFrom}:
+ * на Linux ядро выполняет {@code sendfile}/{@code copy_file_range}, и байты не попадают
+ * в буферы JVM. Передача идёт блоками по {@code chunkSize} байт — это обходит ограничение
+ * одного вызова ({@code transferTo} передаёт не больше 2 ГБ за раз) и позволяет сообщать
+ * о прогрессе через {@link ProgressListener}.</p>
+ *
+ * <p>Пример использования:</p>
+ * <pre>
+ * FileTransferService service = new FileTransferService();
+ * service.copy(source, target, (done, total) -&gt; log(done * 100 / total + "%"),
+ *         StandardCopyOption.REPLACE_EXISTING);
+ * </pre>
+ */
+public class FileTransferService {
+    private static final Logger logger = LogManager.getLogger(FileTransferService.class);
+
+    /** Размер блока передачи по умолчанию — 64 МБ */
+    public static final long DEFAULT_CHUNK_SIZE = 64L * 1024 * 1024;
+
+    /** Размер буфера для проверки конца источника в {@link #transferFrom} */
+    private static final int PROBE_SIZE = 8192;
+
+    /** Слушатель, который ничего не делает */
+    private static final ProgressListener NO_PROGRESS = (transferred, total) -> { };
+
+    private final long chunkSize;
+
+    /**
+     * Создаёт сервис с размером блока {@link #DEFAULT_CHUNK_SIZE}.
+     */
+    public FileTransferService() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param chunkSize размер блока одного вызова {@code transferTo/transferFrom}
+     * @throws IllegalArgumentException если размер блока не положителен
+     */
+    public FileTransferService(long chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Размер блока должен быть положительным: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Копирует файл без сообщений о прогрессе.
+     *
+     * @param source  исходный файл
+     * @param target  файл назначения
+     * @param options {@link StandardCopyOption#REPLACE_EXISTING} для перезаписи существующего файла
+     * @return число скопированных байт
+     * @throws IOException при ошибках ввода-вывода
+     */
+    public long copy(Path source, Path target, CopyOption... options) throws IOException {
+        return copy(source, target, NO_PROGRESS, options);
+    }
+
+    /**
+     * Копирует файл через {@link FileChannel#transferTo}.
+     *
+     * <p>Параметры понимаются так же, как в {@link Files#copy(Path, Path, CopyOption...)}:
+     * копирование файла в самого себя ничего не делает, {@link LinkOption#NOFOLLOW_LINKS}
+     * копирует символическую ссылку как ссылку, {@link StandardCopyOption#COPY_ATTRIBUTES}
+     * переносит время изменения, доступа и создания, а также права POSIX.</p>
+     *
+     * @param source   исходный файл
+     * @param target   файл назначения
+     * @param listener получает уведомление после каждого блока
+     * @param options  {@link StandardCopyOption#REPLACE_EXISTING}, {@link StandardCopyOption#COPY_ATTRIBUTES}
+     *                 и {@link LinkOption#NOFOLLOW_LINKS}
+     * @return число скопированных байт; 0, если источник и назначение — один и тот же файл
+     * @throws FileAlreadyExistsException    если файл назначения существует и перезапись не разрешена
+     * @throws UnsupportedOperationException если передан другой параметр, например {@link StandardCopyOption#ATOMIC_MOVE}
+     * @throws IOException                   при ошибках ввода-вывода
+     */
+    public long copy(Path source, Path target, ProgressListener listener, CopyOption... options)
+            throws IOException {
+        boolean replace = false;
+        boolean copyAttributes = false;
+        boolean followLinks = true;
+        for (CopyOption option : options) {
+            if (option == StandardCopyOption.REPLACE_EXISTING) {
+                replace = true;
+            } else if (option == StandardCopyOption.COPY_ATTRIBUTES) {
+                copyAttributes = true;
+            } else if (option == LinkOption.NOFOLLOW_LINKS) {
+                followLinks = false;
+            } else {
+                throw new UnsupportedOperationException("Неподдерживаемый параметр копирования: " + option);
+            }
+        }
+        LinkOption[] linkOptions = followLinks ? new LinkOption[0] : new LinkOption[]{LinkOption.NOFOLLOW_LINKS};
+
+        if (!followLinks && Files.isSymbolicLink(source)) {
+            // У ссылки нет данных для transferTo: копируется сама ссылка
+            Files.copy(source, target, options);
+            return 0;
+        }
+        // Открытие назначения с TRUNCATE_EXISTING стёрло бы источник до чтения
+        if (Files.exists(target) && Files.isSameFile(source, target)) {
+            logger.debug("Файл {} копируется сам в себя, копирование пропущено", source);
+            return 0;
+        }
+
+        Set<StandardOpenOption> openOptions = EnumSet.of(StandardOpenOption.WRITE,
+                replace ? StandardOpenOption.CREATE : StandardOpenOption.CREATE_NEW);
+        if (replace) {
+            openOptions.add(StandardOpenOption.TRUNCATE_EXISTING);
+        }
+        Set<OpenOption> sourceOptions = new HashSet<>(Arrays.asList(linkOptions));
+        sourceOptions.add(StandardOpenOption.READ);
+
+        long start = System.nanoTime();
+        long transferred;
+        try (FileChannel in = FileChannel.open(source, sourceOptions);
+             FileChannel out = FileChannel.open(target, openOptions)) {
+            transferred = transfer(in, out, listener);
+        }
+        if (copyAttributes) {
+            // После закрытия канала, иначе запись обновила бы время изменения
+            copyAttributes(source, target, linkOptions);
+        }
+        logger.info("Файл {} скопирован в {} ({} байт, {} ms)",
+                source.getFileName(), target.getFileName(), transferred, (System.nanoTime() - start) / 1_000_000);
+        return transferred;
+    }
+
+    /**
+     * Передаёт файл в произвольный канал, например {@link java.nio.channels.SocketChannel}.
+     *
+     * @param source   исходный файл
+     * @param target   канал назначения в блокирующем режиме; не закрывается
+     * @param listener получает уведомление после каждого блока
+     * @return число переданных байт
+     * @throws IllegalBlockingModeException если канал назначения в неблокирующем режиме
+     * @throws IOException                  при ошибках ввода-вывода
+     */
+    public long transferTo(Path source, WritableByteChannel target, ProgressListener listener)
+            throws IOException {
+        requireBlocking(target);
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+            long transferred = transfer(in, target, listener);
+            logger.info("Файл {} передан в канал ({} байт)", source.getFileName(), transferred);
+            return transferred;
+        }
+    }
+
+    /**
+     * Записывает в файл данные из канала через {@link FileChannel#transferFrom}.
+     * Файл создаётся или перезаписывается.
+     *
+     * @param source   канал-источник в блокирующем режиме, например сокет; не закрывается
+     * @param target   файл назначения
+     * @param count    максимальное число байт
+     * @param listener получает уведомление после каждого блока
+     * @return число записанных байт (меньше {@code count}, если источник закончился раньше)
+     * @throws IllegalBlockingModeException если канал-источник в неблокирующем режиме
+     * @throws IOException                  при ошибках ввода-вывода
+     */
+    public long transferFrom(ReadableByteChannel source, Path target, long count, ProgressListener listener)
+            throws IOException {
+        requireBlocking(source);
+        try (FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long transferred = 0;
+            ByteBuffer probe = null;
+            while (transferred < count) {
+                long written = out.transferFrom(source, transferred, Math.min(chunkSize, count - transferred));
+                if (written == 0) {
+                    // transferFrom возвращает 0 и в конце источника, и когда чтение ничего не дало:
+                    // конец определяет только read, вернувший -1
+                    if (probe == null) {
+                        probe = ByteBuffer.allocate(PROBE_SIZE);
+                    }
+                    probe.clear().limit((int) Math.min(PROBE_SIZE, count - transferred));
+                    if (source.read(probe) < 0) {
+                        break;
+                    }
+                    probe.flip();
+                    while (probe.hasRemaining()) {
+                        written += out.write(probe, transferred + written);
+                    }
+                    if (written == 0) {
+                        continue;
+                    }
+                }
+                transferred += written;
+                listener.onProgress(transferred, count);
+            }
+            logger.info("В файл {} записано из канала {} байт", target.getFileName(), transferred);
+            return transferred;
+        }
+    }
+
+    private static void copyAttributes(Path source, Path target, LinkOption... linkOptions) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(source, BasicFileAttributes.class, linkOptions);
+        Files.getFileAttributeView(target, BasicFileAttributeView.class)
+                .setTimes(attributes.lastModifiedTime(), attributes.lastAccessTime(), attributes.creationTime());
+        PosixFileAttributeView posix = Files.getFileAttributeView(target, PosixFileAttributeView.class);
+        if (posix != null) {
+            posix.setPermissions(Files.getPosixFilePermissions(source, linkOptions));
+        }
+    }
+
+    private long transfer(FileChannel in, WritableByteChannel out, ProgressListener listener) throws IOException {
+        long size = in.size();
+        long position = 0;
+        while (position < size) {
+            long transferred = in.transferTo(position, Math.min(chunkSize, size - position), out);
+            if (transferred == 0) {
+                // 0 — это и конец укоротившегося файла, и канал, ничего не принявший за вызов
+                if (in.size() <= position) {
+                    logger.warn("Файл укоротился во время передачи: передано {} из {} байт", position, size);
+                    break;
+                }
+                continue;
+            }
+            position += transferred;
+            listener.onProgress(position, size);
+        }
+        return position;
+    }
+
+    // Неблокирующий канал может принять или отдать 0 байт, и передача оборвалась бы молча
+    private static void requireBlocking(Channel channel) {
+        if (channel instanceof SelectableChannel selectable && !selectable.isBlocking()) {
+            throw new IllegalBlockingModeException();
+        }
+    }
+
+    /**
+     * Слушатель прогресса передачи.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        /**
+         * Вызывается после передачи очередного блока.
+         *
+         * @param transferred сколько байт передано к текущему моменту
+         * @param total       сколько байт нужно передать всего
+         */
+        void onProgress(long transferred, long total);
+    }
+}
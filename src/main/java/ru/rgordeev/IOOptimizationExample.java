@@ -3,8 +3,14 @@ package ru.rgordeev;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Класс для демонстрации и сравнения различных методов чтения файлов в Java.
@@ -13,7 +19,9 @@ import java.nio.file.Path;
  * <p>Класс предоставляет методы для:</p>
  * <ul>
  *   <li>Измерения времени чтения данных из потока ввода</li>
- *   <li>Сравнения производительности различных способов чтения файлов</li>
+ *   <li>Сравнения производительности различных способов чтения файлов
+ *       (см. {@link ReadStrategy} и {@link ReadStrategies})</li>
+ *   <li>Автоматического выбора способа чтения через {@link ReadStrategySelector}</li>
  *   <li>Тестирования на временных файлах большого размера</li>
  * </ul>
  */
@@ -21,8 +29,34 @@ public class IOOptimizationExample {
     /** Логгер для записи информации о производительности и ошибках */
     private static final Logger logger = LogManager.getLogger(IOOptimizationExample.class);
 
+    /** Стратегии, участвующие в сравнении */
+    private final List<ReadStrategy> strategies;
+
+    /** Селектор стратегии по размеру файла и типу файловой системы */
+    private final ReadStrategySelector selector;
+
+    /**
+     * Создаёт экземпляр со всеми стандартными стратегиями чтения.
+     */
+    public IOOptimizationExample() {
+        this(ReadStrategies.all(ReadStrategies.DEFAULT_BUFFER_SIZE));
+    }
+
+    /**
+     * Создаёт экземпляр с заданным набором стратегий чтения.
+     *
+     * @param strategies стратегии для сравнения и автоматического выбора
+     */
+    public IOOptimizationExample(List<ReadStrategy> strategies) {
+        this.strategies = List.copyOf(strategies);
+        this.selector = new ReadStrategySelector(this.strategies, ReadStrategySelector.DEFAULT_CALIBRATION_BYTES);
+    }
+
     /**
      * Измеряет время, необходимое для чтения всех данных из входного потока.
+     * Это разовый замер без прогрева, пригодный только для демонстрации;
+     * воспроизводимые результаты даёт JMH-бенчмарк {@code ReadStrategyBenchmark}
+     * ({@code ./gradlew jmh}).
      *
      * @param in входной поток для чтения данных
      * @return время выполнения операции в наносекундах
@@ -77,18 +111,59 @@ public class IOOptimizationExample {
     }
 
     /**
-     * Сравнивает производительность чтения файла с буферизацией и без неё.
-     * Выводит в лог разницу во времени выполнения.
+     * Измеряет время чтения файла указанной стратегией.
+     *
+     * @param file     путь к файлу для чтения
+     * @param strategy стратегия чтения
+     * @return время выполнения операции в наносекундах
+     * @throws IOException при ошибках работы с файлом
+     */
+    public long measureRead(Path file, ReadStrategy strategy) throws IOException {
+        long start = System.nanoTime();
+        strategy.read(file);
+        long time = System.nanoTime() - start;
+        logger.info("Время чтения ({}): {} ms", strategy.name(), time / 1_000_000);
+        return time;
+    }
+
+    /**
+     * Читает файл стратегией, выбранной {@link ReadStrategySelector}
+     * по размеру файла и типу файловой системы.
+     *
+     * @param file путь к файлу для чтения
+     * @return число прочитанных байт
+     * @throws IOException при ошибках работы с файлом
+     */
+    public long readWithSelectedStrategy(Path file) throws IOException {
+        return selector.select(file).read(file);
+    }
+
+    /**
+     * Сравнивает производительность чтения файла без буфера, с {@link BufferedInputStream}
+     * и всеми стратегиями {@link ReadStrategy}. Выводит в лог таблицу со временем,
+     * пропускной способностью и ускорением относительно чтения без буфера.
      *
      * @param file путь к файлу для тестирования
+     * @return время чтения (нс) для каждого способа в порядке измерения
      * @throws IOException при ошибках работы с файлом
      */
-    public void compareReadPerformance(Path file) throws IOException {
-        long unbufferedTime = measureUnbufferedRead(file);
-        long bufferedTime = measureBufferedRead(file);
+    public Map<String, Long> compareReadPerformance(Path file) throws IOException {
+        Map<String, Long> results = new LinkedHashMap<>();
+        results.put("unbuffered", measureUnbufferedRead(file));
+        results.put("buffered-input-stream", measureBufferedRead(file));
+        for (ReadStrategy strategy : strategies) {
+            results.put(strategy.name(), measureRead(file, strategy));
+        }
 
-        logger.info("Разница в производительности: {} ms",
-                (unbufferedTime - bufferedTime) / 1_000_000);
+        long size = Files.size(file);
+        long baseline = Math.max(1, results.get("unbuffered"));
+        StringBuilder table = new StringBuilder(String.format("%n%-24s %12s %12s %10s%n",
+                "Способ", "Время, ms", "МБ/с", "Ускорение"));
+        results.forEach((name, time) -> table.append(String.format("%-24s %12.2f %12.1f %9.1fx%n",
+                name, time / 1e6, size / 1e6 / Math.max(time, 1) * 1e9, (double) baseline / Math.max(time, 1))));
+        logger.info("Сравнение способов чтения {} ({} байт):{}", file.getFileName(), size, table);
+        logger.info("Автоматически выбранная стратегия: {}", selector.select(file).name());
+        return results;
     }
 
     /**
@@ -104,11 +179,15 @@ public class IOOptimizationExample {
     public static void main(String[] args) throws IOException {
         // Создаём временный файл для тестирования
         Path largeFile = Files.createTempFile("largeTest", ".bin");
-        try (OutputStream out = new FileOutputStream(largeFile.toFile())) {
-            // Записываем примерно 5 МБ данных
-            byte[] data = new byte[1024];
-            for (int i = 0; i < 5120; i++) {
-                out.write(data);
+        try (FileChannel out = FileChannel.open(largeFile, StandardOpenOption.WRITE);
+             BufferPool.PooledBuffer pooled = BufferPool.shared().acquire(64 * 1024)) {
+            // Записываем 5 МБ нулей одним переиспользуемым прямым буфером из пула
+            ByteBuffer data = pooled.buffer();
+            for (int i = 0; i < 80; i++) {
+                data.clear();
+                while (data.hasRemaining()) {
+                    out.write(data);
+                }
             }
         }
 
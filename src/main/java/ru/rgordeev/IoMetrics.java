@@ -0,0 +1,382 @@
+package ru.rgordeev;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * Метрики ввода-вывода: число операций, переданные байты, ошибки и гистограммы
+ * задержек ({@link LatencyHistogram}) по паре «путь + операция».
+ *
+ * <p>Инструментирование подключается обёртками: {@link #wrap(String, InputStream)},
+ * {@link #wrap(String, Reader)}, {@link #wrap(String, FileChannel)} и
+ * {@link #measure(String, String, IoCall, ToLongFunction)} для операций, которые
+ * не сводятся к потоку или каналу (например, работа с ZIP {@code FileSystem}).
+ * Путь — это метка, которую выбирает вызывающий код. Метки должны образовывать
+ * ограниченное множество: каталог ({@link #directoryLabel(Path)}), архив или
+ * логическое имя вроде {@code "wal"}, но не путь к каждому файлу. Каждая операция
+ * метки держит гистограмму задержек и MBean, поэтому метки по файлам расходуют
+ * память и быстро упираются в {@code maxPaths}, после которого новые метки
+ * учитываются под {@link #OTHER_PATH}. Счётчики операции создаются при первом
+ * её выполнении.</p>
+ *
+ * <p>Метрики доступны через JMX ({@link #enableJmx(String)}, по MBean на операцию)
+ * и периодическую запись в лог ({@link #startReporting(Duration)}).</p>
+ *
+ * <p>Общий экземпляр {@link #global()} по умолчанию выключен, и обёртки возвращают
+ * исходные объекты без накладных расходов. Включение: {@code -Dio.metrics=true};
+ * тогда метрики регистрируются в JMX в домене {@code ru.rgordeev} и пишутся в лог
+ * раз в {@code -Dio.metrics.logPeriod} секунд (по умолчанию 60, 0 — не писать).</p>
+ *
+ * <p>Пример использования:</p>
+ * <pre>
+ * try (InputStream in = IoMetrics.global().wrap(IoMetrics.directoryLabel(file), Files.newInputStream(file))) {
+ *     in.transferTo(out);
+ * }
+ * </pre>
+ */
+public final class IoMetrics implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(IoMetrics.class);
+
+    /** Операция чтения */
+    public static final String READ = "read";
+
+    /** Операция записи */
+    public static final String WRITE = "write";
+
+    /** Передача между каналами ({@code transferTo/transferFrom}) */
+    public static final String TRANSFER = "transfer";
+
+    /** Сброс на устройство ({@code force}) */
+    public static final String FORCE = "force";
+
+    /** Метка для путей сверх ограничения {@code maxPaths} */
+    public static final String OTHER_PATH = "(other)";
+
+    /** Ограничение числа различных путей по умолчанию */
+    public static final int DEFAULT_MAX_PATHS = 1000;
+
+    private static final IoMetrics GLOBAL = createGlobal();
+
+    private final boolean enabled;
+    private final int maxPaths;
+    private final ConcurrentHashMap<Key, OperationMetrics> operations = new ConcurrentHashMap<>();
+    private final Set<String> paths = ConcurrentHashMap.newKeySet();
+    private final Set<ObjectName> registered = ConcurrentHashMap.newKeySet();
+    private volatile String jmxDomain;
+    private ScheduledExecutorService reporter;
+
+    /**
+     * Создаёт включённый набор метрик с ограничением {@value #DEFAULT_MAX_PATHS} путей.
+     */
+    public IoMetrics() {
+        this(true, DEFAULT_MAX_PATHS);
+    }
+
+    /**
+     * @param enabled  false — обёртки возвращают исходные объекты, ничего не учитывается
+     * @param maxPaths наибольшее число различных путей
+     */
+    public IoMetrics(boolean enabled, int maxPaths) {
+        if (maxPaths <= 0) {
+            throw new IllegalArgumentException("Ограничение числа путей должно быть положительным: " + maxPaths);
+        }
+        this.enabled = enabled;
+        this.maxPaths = maxPaths;
+    }
+
+    /**
+     * @return общий набор метрик проекта
+     */
+    public static IoMetrics global() {
+        return GLOBAL;
+    }
+
+    /**
+     * @return true если метрики собираются
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Возвращает метку для файла — его каталог. Файлы одного каталога
+     * учитываются вместе, и число меток не растёт с числом файлов.
+     *
+     * @param file путь к файлу
+     * @return абсолютный путь каталога файла
+     */
+    public static String directoryLabel(Path file) {
+        Path parent = file.toAbsolutePath().normalize().getParent();
+        return parent != null ? parent.toString() : file.toAbsolutePath().toString();
+    }
+
+    /**
+     * Возвращает счётчики операции, создавая их при первом обращении.
+     *
+     * @param path      метка источника из ограниченного множества
+     * @param operation имя операции
+     * @return счётчики операции
+     */
+    public OperationMetrics operation(String path, String operation) {
+        Key key = new Key(boundedPath(path), operation);
+        OperationMetrics metrics = operations.get(key);
+        if (metrics != null) {
+            return metrics;
+        }
+        OperationMetrics created = new OperationMetrics(key.path(), operation);
+        metrics = operations.putIfAbsent(key, created);
+        if (metrics != null) {
+            return metrics;
+        }
+        String domain = jmxDomain;
+        if (domain != null) {
+            register(domain, created);
+        }
+        return created;
+    }
+
+    /**
+     * @return счётчики всех операций, упорядоченные по пути и операции
+     */
+    public List<OperationMetrics> operations() {
+        List<OperationMetrics> result = new ArrayList<>(operations.values());
+        result.sort(Comparator.comparing(OperationMetrics::getPath).thenComparing(OperationMetrics::getOperation));
+        return result;
+    }
+
+    /**
+     * @param path метка источника из ограниченного множества
+     * @param in   исходный поток
+     * @return поток, учитывающий чтения как {@value #READ}, или {@code in}, если метрики выключены
+     */
+    public InputStream wrap(String path, InputStream in) {
+        return enabled ? new MeteredInputStream(in, operation(path, READ)) : in;
+    }
+
+    /**
+     * @param path   метка источника из ограниченного множества
+     * @param reader исходный {@link Reader}
+     * @return {@link Reader}, учитывающий чтения как {@value #READ} (в символах),
+     *         или {@code reader}, если метрики выключены
+     */
+    public Reader wrap(String path, Reader reader) {
+        return enabled ? new MeteredReader(reader, operation(path, READ)) : reader;
+    }
+
+    /**
+     * @param path    метка источника из ограниченного множества
+     * @param channel исходный канал
+     * @return канал, учитывающий {@value #READ}, {@value #WRITE}, {@value #TRANSFER}
+     *         и {@value #FORCE}, или {@code channel}, если метрики выключены
+     */
+    public FileChannel wrap(String path, FileChannel channel) {
+        return enabled ? new MeteredFileChannel(channel, this, path) : channel;
+    }
+
+    /**
+     * Выполняет операцию и учитывает её длительность и объём.
+     *
+     * @param path      метка источника из ограниченного множества
+     * @param operation имя операции
+     * @param call      операция
+     * @param bytes     объём данных по результату операции
+     * @param <T>       тип результата
+     * @return результат операции
+     * @throws IOException ошибка операции; учитывается как ошибка
+     */
+    public <T> T measure(String path, String operation, IoCall<T> call, ToLongFunction<? super T> bytes)
+            throws IOException {
+        if (!enabled) {
+            return call.call();
+        }
+        OperationMetrics metrics = operation(path, operation);
+        long start = System.nanoTime();
+        T result;
+        try {
+            result = call.call();
+        } catch (IOException | RuntimeException e) {
+            metrics.recordError(System.nanoTime() - start);
+            throw e;
+        }
+        metrics.record(System.nanoTime() - start, bytes.applyAsLong(result));
+        return result;
+    }
+
+    /**
+     * Выполняет операцию с заранее известным объёмом данных и учитывает её длительность.
+     *
+     * @param path      метка источника из ограниченного множества
+     * @param operation имя операции
+     * @param bytes     объём данных
+     * @param action    операция
+     * @throws IOException ошибка операции; учитывается как ошибка
+     */
+    public void measure(String path, String operation, long bytes, IoAction action) throws IOException {
+        measure(path, operation, () -> {
+            action.run();
+            return null;
+        }, ignored -> bytes);
+    }
+
+    /**
+     * Регистрирует MBean каждой операции, включая созданные позже, в
+     * платформенном {@link MBeanServer}. Ошибки регистрации пишутся в лог.
+     *
+     * @param domain домен имён JMX
+     */
+    public synchronized void enableJmx(String domain) {
+        if (jmxDomain != null) {
+            return;
+        }
+        jmxDomain = domain;
+        for (OperationMetrics metrics : operations.values()) {
+            register(domain, metrics);
+        }
+    }
+
+    /**
+     * Запускает периодическую запись всех метрик в лог на фоновом потоке.
+     *
+     * @param period период записи
+     */
+    public synchronized void startReporting(Duration period) {
+        if (reporter != null) {
+            throw new IllegalStateException("Запись метрик в лог уже запущена");
+        }
+        reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "io-metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = period.toMillis();
+        reporter.scheduleAtFixedRate(this::report, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Записывает в лог все операции, которые выполнялись хотя бы раз.
+     */
+    public void report() {
+        List<OperationMetrics> snapshot = operations();
+        logger.info("Метрики ввода-вывода: {} операций", snapshot.size());
+        for (OperationMetrics metrics : snapshot) {
+            if (metrics.getCount() > 0) {
+                logger.info("  {}", metrics);
+            }
+        }
+    }
+
+    /**
+     * Останавливает запись в лог и снимает регистрацию MBean.
+     */
+    @Override
+    public synchronized void close() {
+        if (reporter != null) {
+            reporter.shutdownNow();
+            reporter = null;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName name : registered) {
+            try {
+                server.unregisterMBean(name);
+            } catch (JMException e) {
+                logger.warn("Не удалось снять регистрацию {}: {}", name, e.toString());
+            }
+        }
+        registered.clear();
+        jmxDomain = null;
+    }
+
+    private String boundedPath(String path) {
+        if (paths.contains(path)) {
+            return path;
+        }
+        // Проверка и добавление не атомарны: ограничение может быть превышено на число потоков
+        if (paths.size() >= maxPaths) {
+            return OTHER_PATH;
+        }
+        paths.add(path);
+        return path;
+    }
+
+    private void register(String domain, OperationMetrics metrics) {
+        try {
+            ObjectName name = new ObjectName(domain + ":type=IoMetrics,path=" + ObjectName.quote(metrics.getPath())
+                    + ",operation=" + ObjectName.quote(metrics.getOperation()));
+            // Операция могла быть зарегистрирована параллельно из enableJmx
+            if (!registered.add(name)) {
+                return;
+            }
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, name);
+            } catch (JMException e) {
+                registered.remove(name);
+                throw e;
+            }
+        } catch (JMException e) {
+            logger.warn("Не удалось зарегистрировать метрики {} {} в JMX: {}",
+                    metrics.getPath(), metrics.getOperation(), e.toString());
+        }
+    }
+
+    private static IoMetrics createGlobal() {
+        if (!Boolean.getBoolean("io.metrics")) {
+            return new IoMetrics(false, DEFAULT_MAX_PATHS);
+        }
+        IoMetrics metrics = new IoMetrics();
+        metrics.enableJmx("ru.rgordeev");
+        long period = Long.getLong("io.metrics.logPeriod", 60);
+        if (period > 0) {
+            metrics.startReporting(Duration.ofSeconds(period));
+        }
+        logger.info("Метрики ввода-вывода включены (JMX: ru.rgordeev, запись в лог раз в {} с)", period);
+        return metrics;
+    }
+
+    private record Key(String path, String operation) {
+    }
+
+    /**
+     * Операция ввода-вывода с результатом.
+     *
+     * @param <T> тип результата
+     */
+    @FunctionalInterface
+    public interface IoCall<T> {
+        /**
+         * @return результат операции
+         * @throws IOException при ошибке ввода-вывода
+         */
+        T call() throws IOException;
+    }
+
+    /**
+     * Операция ввода-вывода без результата.
+     */
+    @FunctionalInterface
+    public interface IoAction {
+        /**
+         * @throws IOException при ошибке ввода-вывода
+         */
+        void run() throws IOException;
+    }
+}
@@ -0,0 +1,204 @@
+package ru.rgordeev;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Гистограмма задержек в наносекундах с логарифмически-линейными корзинами
+ * в духе HdrHistogram.
+ *
+ * <p>Каждая степень двойки делится на {@code 2^SUB_BUCKET_BITS} равных корзин,
+ * поэтому относительная погрешность перцентиля не превышает ~3% на всём
+ * диапазоне от наносекунд до {@code 2^MAX_EXPONENT} нс (около 18 минут; большие
+ * значения попадают в последнюю корзину). Номер корзины вычисляется сдвигами,
+ * без логарифмов и ветвлений по диапазонам.</p>
+ *
+ * <p>Запись не блокируется: счётчики корзин лежат в полосах {@link AtomicLongArray},
+ * полоса выбирается по идентификатору потока. Как и в {@link LongAdder}, полосы
+ * добавляются только при конкуренции: пока запись идёт без неудачных CAS,
+ * гистограмма занимает одну полосу (около 9 КБ), при конкуренции число полос
+ * удваивается до {@value #MAX_STRIPES}. Сумма — {@link LongAdder}, максимум —
+ * {@link LongAccumulator}. Снимок складывает полосы и может не учитывать значения,
+ * записанные во время его построения.</p>
+ */
+public final class LatencyHistogram {
+    /** Число бит линейного деления внутри степени двойки */
+    static final int SUB_BUCKET_BITS = 5;
+
+    /** Наибольшая степень двойки, различимая гистограммой */
+    static final int MAX_EXPONENT = 40;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    /** Наибольшее число полос счётчиков */
+    static final int MAX_STRIPES = 8;
+
+    private static final int STRIPE_LIMIT = Math.min(MAX_STRIPES,
+            Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+
+    // Массив только растёт: прежние полосы переносятся в новый массив
+    private volatile AtomicLongArray[] stripes = {new AtomicLongArray(BUCKETS)};
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Записывает одно значение. Отрицательные значения считаются нулём.
+     *
+     * @param nanos задержка в наносекундах
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        int bucket = bucket(value);
+        AtomicLongArray[] current = stripes;
+        @SuppressWarnings("deprecation")
+        AtomicLongArray stripe = current[(int) Thread.currentThread().getId() & (current.length - 1)];
+        long count = stripe.get(bucket);
+        if (!stripe.compareAndSet(bucket, count, count + 1)) {
+            // Другой поток изменил ту же ячейку: добавляем полосы для следующих записей
+            grow(current);
+            stripe.incrementAndGet(bucket);
+        }
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * @return текущее число полос счётчиков
+     */
+    int stripeCount() {
+        return stripes.length;
+    }
+
+    private void grow(AtomicLongArray[] current) {
+        if (current.length >= STRIPE_LIMIT) {
+            return;
+        }
+        synchronized (this) {
+            if (stripes != current) {
+                return;
+            }
+            AtomicLongArray[] grown = Arrays.copyOf(current, current.length * 2);
+            for (int i = current.length; i < grown.length; i++) {
+                grown[i] = new AtomicLongArray(BUCKETS);
+            }
+            stripes = grown;
+        }
+    }
+
+    /**
+     * @return копия счётчиков для расчёта перцентилей
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < BUCKETS; i++) {
+                long n = stripe.get(i);
+                counts[i] += n;
+                count += n;
+            }
+        }
+        return new Snapshot(counts, count, sum.sum(), max.get());
+    }
+
+    // Номер корзины: значения меньше SUB_BUCKETS — по одному на корзину,
+    // дальше SUB_BUCKETS корзин на каждую степень двойки
+    static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    // Нижняя граница значений корзины
+    static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        return (SUB_BUCKETS + sub) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    // Верхняя граница значений корзины (не включительно)
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket + 1;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        return lowerBound(bucket) + (1L << (exponent - SUB_BUCKET_BITS));
+    }
+
+    /**
+     * Неизменяемый снимок гистограммы.
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        /**
+         * @return число записанных значений
+         */
+        public long count() {
+            return count;
+        }
+
+        /**
+         * @return среднее значение в наносекундах или 0 для пустой гистограммы
+         */
+        public double mean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        /**
+         * @return наибольшее записанное значение в наносекундах
+         */
+        public long max() {
+            return max;
+        }
+
+        /**
+         * @param percentile перцентиль от 0 до 100, например 99.9
+         * @return значение, не меньше которого {@code percentile}% записей не превышают
+         *         (с точностью до корзины), или 0 для пустой гистограммы
+         */
+        public long percentile(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("Перцентиль должен быть от 0 до 100: " + percentile);
+            }
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+            if (rank >= count) {
+                return max;
+            }
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    // Середина корзины, но не больше реального максимума
+                    return Math.min(max, (lowerBound(i) + upperBound(i) - 1) / 2);
+                }
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,504 @@
+package ru.rgordeev;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Потоковое построчное чтение больших текстовых файлов.
+ *
+ * <p>В отличие от {@link java.nio.file.Files#readAllLines}, строки не собираются
+ * в список и не копируются в отдельные {@link String}: {@link #nextLine()} возвращает
+ * {@link CharSequence}-представление над переиспользуемым буфером декодирования.
+ * Представление действительно только до следующего вызова {@link #nextLine()};
+ * чтобы сохранить строку, вызовите {@code toString()}. Окончания строк
+ * {@code \n} и {@code \r\n} не входят в результат.</p>
+ *
+ * <p>Файл можно разбить на диапазоны байт ({@link #split(Path, int)}) и читать их
+ * параллельно. Строка принадлежит диапазону, в котором лежит её первый байт:
+ * читатель диапазона пропускает начало строки, начатой в предыдущем диапазоне,
+ * и дочитывает последнюю строку за его концом. Поэтому каждая строка читается
+ * ровно один раз при любом разбиении.</p>
+ *
+ * <p>Поиск переводов строк идёт по байтам, поэтому поддерживаются кодировки,
+ * в которых байт {@code 0x0A} всегда означает {@code \n}: UTF-8 и однобайтовые.
+ * Класс не потокобезопасен.</p>
+ *
+ * <p>Пример использования:</p>
+ * <pre>
+ * try (LineReader reader = new LineReader(Paths.get("app.log"))) {
+ *     CharSequence line;
+ *     while ((line = reader.nextLine()) != null) {
+ *         if (line.length() > 0 &amp;&amp; line.charAt(0) == 'E') {
+ *             errors.add(line.toString());
+ *         }
+ *     }
+ * }
+ * </pre>
+ */
+public class LineReader implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(LineReader.class);
+
+    /** Начальный размер буфера чтения — 64 КБ */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /** Диапазоны меньше этого размера не делятся при параллельном чтении */
+    static final long MIN_SPLIT_SIZE = 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long end;
+    private final CharsetDecoder decoder;
+    private final Line line = new Line();
+
+    private ByteBuffer bytes;
+    private char[] chars = new char[256];
+    /** Смещение в файле, соответствующее нулевому байту буфера */
+    private long bufferOffset;
+    private boolean eof;
+    private boolean closed;
+
+    /**
+     * Открывает файл для чтения строк в UTF-8.
+     *
+     * @param file путь к файлу
+     * @throws IOException если файл не удалось открыть
+     */
+    public LineReader(Path file) throws IOException {
+        this(file, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Открывает файл для чтения строк в указанной кодировке.
+     *
+     * @param file    путь к файлу
+     * @param charset кодировка файла
+     * @throws IllegalArgumentException если кодировка не совместима с ASCII
+     * @throws IOException              если файл не удалось открыть
+     */
+    public LineReader(Path file, Charset charset) throws IOException {
+        this(file, charset, 0, Long.MAX_VALUE);
+    }
+
+    /**
+     * Открывает файл для чтения строк, начинающихся в диапазоне байт
+     * {@code [start, end)}.
+     *
+     * @param file    путь к файлу
+     * @param charset кодировка файла
+     * @param start   начало диапазона
+     * @param end     конец диапазона (не включительно)
+     * @throws IllegalArgumentException если кодировка не совместима с ASCII или диапазон некорректен
+     * @throws IOException              если файл не удалось открыть
+     */
+    public LineReader(Path file, Charset charset, long start, long end) throws IOException {
+        if (start < 0 || end < start) {
+            throw new IllegalArgumentException("Некорректный диапазон: [" + start + ", " + end + ")");
+        }
+        checkCharset(charset);
+        this.decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.end = end;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.bytes = ByteBuffer.allocate(DEFAULT_BUFFER_SIZE).flip();
+        this.bufferOffset = start;
+        try {
+            if (start > 0 && !startsLine(start)) {
+                skipLine();
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Разбивает файл на {@code parts} диапазонов примерно равного размера,
+     * границы которых совпадают с началами строк.
+     *
+     * @param file  путь к файлу
+     * @param parts желаемое число диапазонов
+     * @return непустые диапазоны, покрывающие весь файл
+     * @throws IOException если файл не удалось прочитать
+     */
+    public static List<Range> split(Path file, int parts) throws IOException {
+        if (parts <= 0) {
+            throw new IllegalArgumentException("Число диапазонов должно быть положительным: " + parts);
+        }
+        List<Range> ranges = new ArrayList<>(parts);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer buffer = ByteBuffer.allocate(8 * 1024);
+            long start = 0;
+            for (int i = 1; i <= parts && start < size; i++) {
+                long boundary = i == parts ? size : size * i / parts;
+                if (boundary <= start) {
+                    continue;
+                }
+                long aligned = boundary < size ? nextLineStart(channel, boundary, buffer) : size;
+                if (aligned > start) {
+                    ranges.add(new Range(start, aligned));
+                    start = aligned;
+                }
+            }
+        }
+        return ranges;
+    }
+
+    /**
+     * Возвращает поток строк файла, который может обрабатываться параллельно:
+     * при разделении поток делит диапазон байт пополам, и каждая часть читается
+     * своим {@link LineReader}. Элементы — переиспользуемые представления, их нельзя
+     * сохранять без {@code toString()}. Поток нужно закрыть, например
+     * в try-with-resources.
+     *
+     * @param file    путь к файлу
+     * @param charset кодировка файла
+     * @return поток строк в порядке следования в файле
+     * @throws IOException если файл не удалось открыть
+     */
+    public static Stream<CharSequence> lines(Path file, Charset charset) throws IOException {
+        checkCharset(charset);
+        long size;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            size = channel.size();
+        }
+        Set<LineReader> open = ConcurrentHashMap.newKeySet();
+        return StreamSupport.stream(new RangeSpliterator(file, charset, 0, size, open), false)
+                .onClose(() -> open.forEach(LineReader::closeQuietly));
+    }
+
+    /**
+     * Читает следующую строку.
+     *
+     * @return представление строки, действительное до следующего вызова,
+     *         или null, если строки в диапазоне закончились
+     * @throws IOException при ошибке чтения
+     */
+    public CharSequence nextLine() throws IOException {
+        checkOpen();
+        if (bufferOffset + bytes.position() >= end) {
+            return null;
+        }
+        byte[] array = bytes.array();
+        int scanFrom = bytes.position();
+        while (true) {
+            for (int i = scanFrom; i < bytes.limit(); i++) {
+                if (array[i] == '\n') {
+                    decode(bytes.position(), i);
+                    bytes.position(i + 1);
+                    return line;
+                }
+            }
+            if (eof) {
+                if (!bytes.hasRemaining()) {
+                    return null;
+                }
+                // Последняя строка без перевода строки в конце файла
+                decode(bytes.position(), bytes.limit());
+                bytes.position(bytes.limit());
+                return line;
+            }
+            scanFrom = bytes.remaining();
+            fill();
+            array = bytes.array();
+        }
+    }
+
+    /**
+     * Возвращает последовательный поток оставшихся строк этого читателя.
+     * Элементы — переиспользуемые представления, как у {@link #nextLine()}.
+     *
+     * @return поток строк
+     */
+    public Stream<CharSequence> stream() {
+        return StreamSupport.stream(new ReaderSpliterator(this), false);
+    }
+
+    /**
+     * Закрывает файл. Повторный вызов ничего не делает.
+     *
+     * @throws IOException если при закрытии произошла ошибка
+     */
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            channel.close();
+        }
+    }
+
+    // Проверяет, что перед позицией стоит перевод строки, то есть позиция — начало строки
+    private boolean startsLine(long position) throws IOException {
+        ByteBuffer previous = ByteBuffer.allocate(1);
+        return channel.read(previous, position - 1) == 1 && previous.get(0) == '\n';
+    }
+
+    // Пропускает остаток строки, начатой до начала диапазона
+    private void skipLine() throws IOException {
+        while (true) {
+            byte[] array = bytes.array();
+            for (int i = bytes.position(); i < bytes.limit(); i++) {
+                if (array[i] == '\n') {
+                    bytes.position(i + 1);
+                    return;
+                }
+            }
+            bytes.position(bytes.limit());
+            if (eof) {
+                return;
+            }
+            fill();
+        }
+    }
+
+    // Дочитывает данные за текущими; если в буфере нет места, увеличивает его вдвое
+    private void fill() throws IOException {
+        bufferOffset += bytes.position();
+        bytes.compact();
+        if (!bytes.hasRemaining()) {
+            ByteBuffer larger = ByteBuffer.allocate(bytes.capacity() * 2);
+            bytes.flip();
+            larger.put(bytes);
+            bytes = larger;
+            logger.debug("Буфер строк увеличен до {} байт", bytes.capacity());
+        }
+        int read = channel.read(bytes, bufferOffset + bytes.position());
+        if (read < 0) {
+            eof = true;
+        }
+        bytes.flip();
+    }
+
+    private void decode(int from, int to) {
+        if (to > from && bytes.get(to - 1) == '\r') {
+            to--;
+        }
+        int limit = bytes.limit();
+        int position = bytes.position();
+        while (true) {
+            bytes.limit(to).position(from);
+            CharBuffer out = CharBuffer.wrap(chars);
+            decoder.reset();
+            CoderResult result = decoder.decode(bytes, out, true);
+            if (!result.isOverflow()) {
+                result = decoder.flush(out);
+            }
+            if (!result.isOverflow()) {
+                line.length = out.position();
+                break;
+            }
+            chars = new char[chars.length * 2];
+        }
+        bytes.limit(limit).position(position);
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Ресурс уже закрыт!");
+        }
+    }
+
+    private static void checkCharset(Charset charset) {
+        if (!charset.equals(StandardCharsets.UTF_8) && charset.newEncoder().maxBytesPerChar() != 1) {
+            throw new IllegalArgumentException("Кодировка " + charset + " не поддерживается: "
+                    + "перевод строки должен кодироваться одним байтом 0x0A");
+        }
+    }
+
+    private static long nextLineStart(FileChannel channel, long position, ByteBuffer buffer) throws IOException {
+        long current = position - 1;
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer, current);
+            if (read <= 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return current + i + 1;
+                }
+            }
+            current += read;
+        }
+    }
+
+    private static void closeQuietly(LineReader reader) {
+        try {
+            reader.close();
+        } catch (IOException e) {
+            logger.error("Ошибка при закрытии файла", e);
+        }
+    }
+
+    /**
+     * Диапазон байт файла {@code [start, end)}.
+     *
+     * @param start начало диапазона
+     * @param end   конец диапазона (не включительно)
+     */
+    public record Range(long start, long end) {
+        /**
+         * @return размер диапазона в байтах
+         */
+        public long size() {
+            return end - start;
+        }
+    }
+
+    /** Представление текущей строки над переиспользуемым массивом символов */
+    private final class Line implements CharSequence {
+        int length;
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException("Индекс " + index + " вне строки длиной " + length);
+            }
+            return chars[index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > length || start > end) {
+                throw new IndexOutOfBoundsException("Диапазон [" + start + ", " + end + ") вне строки длиной " + length);
+            }
+            return new String(chars, start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(chars, 0, length);
+        }
+    }
+
+    /** Последовательный обход строк одного читателя */
+    private static final class ReaderSpliterator implements Spliterator<CharSequence> {
+        private final LineReader reader;
+
+        ReaderSpliterator(LineReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super CharSequence> action) {
+            try {
+                CharSequence next = reader.nextLine();
+                if (next == null) {
+                    return false;
+                }
+                action.accept(next);
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public Spliterator<CharSequence> trySplit() {
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL;
+        }
+    }
+
+    /**
+     * Обход строк диапазона байт. Пока чтение не началось, диапазон делится
+     * пополам; читатель открывается лениво и закрывается по исчерпании диапазона.
+     */
+    private static final class RangeSpliterator implements Spliterator<CharSequence> {
+        private final Path file;
+        private final Charset charset;
+        private final Set<LineReader> open;
+        private long start;
+        private final long end;
+        private LineReader reader;
+        private boolean done;
+
+        RangeSpliterator(Path file, Charset charset, long start, long end, Set<LineReader> open) {
+            this.file = file;
+            this.charset = charset;
+            this.start = start;
+            this.end = end;
+            this.open = open;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super CharSequence> action) {
+            if (done) {
+                return false;
+            }
+            try {
+                if (reader == null) {
+                    reader = new LineReader(file, charset, start, end);
+                    open.add(reader);
+                }
+                CharSequence next = reader.nextLine();
+                if (next == null) {
+                    done = true;
+                    open.remove(reader);
+                    reader.close();
+                    return false;
+                }
+                action.accept(next);
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public Spliterator<CharSequence> trySplit() {
+            if (reader != null || done || end - start < 2 * MIN_SPLIT_SIZE) {
+                return null;
+            }
+            long middle = start + (end - start) / 2;
+            RangeSpliterator prefix = new RangeSpliterator(file, charset, start, middle, open);
+            start = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - start;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL;
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package ru.rgordeev;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Читатель файлов, отображённых в память через {@link FileChannel#map}.
+ * Данные не копируются в кучу: чтение идёт напрямую из страничного кэша ОС.
+ *
+ * <p>Один {@link MappedByteBuffer} ограничен 2 ГБ, поэтому файл разбивается
+ * на окна фиксированного размера. Каждое окно захватывает ещё
+ * {@value #WINDOW_OVERLAP} байт следующего окна, чтобы значения
+ * {@code int}/{@code long} на границе окон читались одним обращением.</p>
+ *
+ * <p>Ресурс реализует {@link AutoCloseable} по аналогии с
+ * {@link ClosableResourceExample}: {@link #close()} явно освобождает
+ * отображения, после чего любое обращение приводит к
+ * {@link IllegalStateException}. Буфер, полученный через {@link #slice(long, int)},
+ * разделяет память с отображением и не может проверить, закрыт ли читатель,
+ * поэтому после первого такого вызова {@link #close()} не освобождает отображения
+ * явно: они остаются действительными, пока на них ссылаются выданные буферы, и
+ * освобождаются сборщиком мусора. Класс не потокобезопасен.</p>
+ *
+ * <p>Пример использования:</p>
+ * <pre>
+ * try (MappedFileReader reader = new MappedFileReader(Path.of("data.bin"))) {
+ *     long header = reader.getLong(0);
+ *     MappedFileReader.Cursor cursor = reader.cursor();
+ *     while (cursor.remaining() >= Long.BYTES) {
+ *         sum += cursor.getLong();
+ *     }
+ * }
+ * </pre>
+ */
+public class MappedFileReader implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(MappedFileReader.class);
+
+    /** Размер окна по умолчанию — 1 ГБ */
+    public static final int DEFAULT_WINDOW_SIZE = 1 << 30;
+
+    /** Перекрытие окон, достаточное для чтения {@code long} на границе */
+    static final int WINDOW_OVERLAP = Long.BYTES - 1;
+
+    private final Path file;
+    private final long size;
+    private final int windowSize;
+    private MappedByteBuffer[] windows;
+    private ByteOrder order = ByteOrder.BIG_ENDIAN;
+    private boolean closed;
+    /** Выданы буферы, разделяющие память с отображением: явно освобождать его нельзя */
+    private boolean sliced;
+
+    /**
+     * Отображает файл в память окнами размера {@link #DEFAULT_WINDOW_SIZE}.
+     *
+     * @param file путь к файлу
+     * @throws IOException если файл не удалось открыть или отобразить
+     */
+    public MappedFileReader(Path file) throws IOException {
+        this(file, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Отображает файл в память окнами заданного размера.
+     *
+     * @param file       путь к файлу
+     * @param windowSize размер окна в байтах
+     * @throws IllegalArgumentException если размер окна меньше {@code Long.BYTES}
+     *                                  или не оставляет места для перекрытия
+     * @throws IOException              если файл не удалось открыть или отобразить
+     */
+    public MappedFileReader(Path file, int windowSize) throws IOException {
+        if (windowSize < Long.BYTES || windowSize > Integer.MAX_VALUE - WINDOW_OVERLAP) {
+            throw new IllegalArgumentException("Недопустимый размер окна: " + windowSize);
+        }
+        this.file = file;
+        this.windowSize = windowSize;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            this.size = channel.size();
+            int count = (int) ((size + windowSize - 1) / windowSize);
+            this.windows = new MappedByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                long start = (long) i * windowSize;
+                long length = Math.min(size - start, (long) windowSize + WINDOW_OVERLAP);
+                windows[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            }
+            // Отображение остаётся действительным и после закрытия канала
+        }
+        logger.info("Файл {} ({} байт) отображён в память, окон: {}", file, size, windows.length);
+    }
+
+    /**
+     * Возвращает размер отображённого файла.
+     *
+     * @return размер в байтах
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Задаёт порядок байтов для чтения многобайтовых значений.
+     *
+     * @param order порядок байтов
+     * @return этот же объект
+     */
+    public MappedFileReader order(ByteOrder order) {
+        this.order = order;
+        return this;
+    }
+
+    /**
+     * Читает байт по абсолютной позиции.
+     *
+     * @param position позиция в файле
+     * @return значение байта
+     */
+    public byte get(long position) {
+        checkBounds(position, Byte.BYTES);
+        return window(position).get(offset(position));
+    }
+
+    /**
+     * Читает {@code int} по абсолютной позиции.
+     *
+     * @param position позиция в файле
+     * @return значение
+     */
+    public int getInt(long position) {
+        checkBounds(position, Integer.BYTES);
+        return window(position).order(order).getInt(offset(position));
+    }
+
+    /**
+     * Читает {@code long} по абсолютной позиции.
+     *
+     * @param position позиция в файле
+     * @return значение
+     */
+    public long getLong(long position) {
+        checkBounds(position, Long.BYTES);
+        return window(position).order(order).getLong(offset(position));
+    }
+
+    /**
+     * Возвращает буфер с указанным фрагментом файла. Если фрагмент целиком
+     * лежит в одном окне, буфер разделяет память с отображением; иначе
+     * фрагмент копируется в новый буфер в куче. Буфер остаётся читаемым и после
+     * {@link #close()}: в этом случае отображение освобождает сборщик мусора.
+     *
+     * @param position позиция начала фрагмента
+     * @param length   длина фрагмента
+     * @return буфер только для чтения
+     */
+    public ByteBuffer slice(long position, int length) {
+        checkBounds(position, length);
+        int offset = offset(position);
+        MappedByteBuffer window = window(position);
+        if (offset + length <= window.capacity()) {
+            sliced = true;
+            return window.slice(offset, length).asReadOnlyBuffer().order(order);
+        }
+        ByteBuffer copy = ByteBuffer.allocate(length);
+        long current = position;
+        while (copy.hasRemaining()) {
+            MappedByteBuffer source = window(current);
+            int from = offset(current);
+            int chunk = Math.min(copy.remaining(), windowSize - from);
+            copy.put(copy.position(), source, from, chunk);
+            copy.position(copy.position() + chunk);
+            current += chunk;
+        }
+        return copy.flip().asReadOnlyBuffer().order(order);
+    }
+
+    /**
+     * Создаёт последовательный курсор, начинающийся с начала файла.
+     *
+     * @return новый курсор
+     */
+    public Cursor cursor() {
+        checkOpen();
+        return new Cursor();
+    }
+
+    /**
+     * Проверяет, закрыт ли ресурс.
+     *
+     * @return true если отображения освобождены
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Освобождает отображения файла. Если через {@link #slice(long, int)} были выданы
+     * буферы, разделяющие с ним память, отображения только перестают удерживаться
+     * читателем и освобождаются сборщиком мусора. Повторный вызов ничего не делает.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        MappedByteBuffer[] released = windows;
+        windows = null;
+        if (sliced) {
+            // Явное освобождение сделало бы выданные срезы ссылками на недоступную память
+            logger.info("Отображение файла {} будет освобождено сборщиком мусора: выданы срезы", file);
+            return;
+        }
+        for (MappedByteBuffer window : released) {
+            Unmapper.unmap(window);
+        }
+        logger.info("Отображение файла {} освобождено", file);
+    }
+
+    private MappedByteBuffer window(long position) {
+        return windows[(int) (position / windowSize)];
+    }
+
+    private int offset(long position) {
+        return (int) (position % windowSize);
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Ресурс уже закрыт!");
+        }
+    }
+
+    private void checkBounds(long position, int length) {
+        checkOpen();
+        if (position < 0 || length < 0 || position > size - length) {
+            throw new IndexOutOfBoundsException("Позиция " + position + " и длина " + length
+                    + " выходят за пределы файла размером " + size);
+        }
+    }
+
+    /**
+     * Последовательный курсор по отображённому файлу.
+     * Каждое чтение сдвигает позицию на размер прочитанного значения.
+     */
+    public final class Cursor {
+        private long position;
+
+        private Cursor() {
+        }
+
+        /**
+         * @return текущая позиция курсора
+         */
+        public long position() {
+            return position;
+        }
+
+        /**
+         * Перемещает курсор.
+         *
+         * @param newPosition новая позиция в пределах файла
+         * @return этот же курсор
+         */
+        public Cursor position(long newPosition) {
+            if (newPosition < 0 || newPosition > size) {
+                throw new IndexOutOfBoundsException("Позиция " + newPosition + " вне файла");
+            }
+            position = newPosition;
+            return this;
+        }
+
+        /**
+         * @return число байт до конца файла
+         */
+        public long remaining() {
+            return size - position;
+        }
+
+        /**
+         * @return true если до конца файла остались данные
+         */
+        public boolean hasRemaining() {
+            return position < size;
+        }
+
+        /**
+         * @return следующий байт
+         */
+        public byte get() {
+            byte value = MappedFileReader.this.get(position);
+            position += Byte.BYTES;
+            return value;
+        }
+
+        /**
+         * @return следующее значение {@code int}
+         */
+        public int getInt() {
+            int value = MappedFileReader.this.getInt(position);
+            position += Integer.BYTES;
+            return value;
+        }
+
+        /**
+         * @return следующее значение {@code long}
+         */
+        public long getLong() {
+            long value = MappedFileReader.this.getLong(position);
+            position += Long.BYTES;
+            return value;
+        }
+
+        /**
+         * Копирует следующие байты файла в массив.
+         *
+         * @param dst массив назначения
+         * @return этот же курсор
+         * @throws BufferUnderflowException если до конца файла меньше байт, чем длина массива
+         */
+        public Cursor get(byte[] dst) {
+            return get(dst, 0, dst.length);
+        }
+
+        /**
+         * Копирует следующие байты файла в часть массива.
+         *
+         * @param dst    массив назначения
+         * @param offset смещение в массиве
+         * @param length число байт
+         * @return этот же курсор
+         * @throws BufferUnderflowException если до конца файла меньше {@code length} байт
+         */
+        public Cursor get(byte[] dst, int offset, int length) {
+            if (remaining() < length) {
+                throw new BufferUnderflowException();
+            }
+            int copied = 0;
+            while (copied < length) {
+                checkOpen();
+                int from = offset(position);
+                int chunk = Math.min(length - copied, windowSize - from);
+                window(position).get(from, dst, offset + copied, chunk);
+                copied += chunk;
+                position += chunk;
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Явное освобождение отображения. В Java 17 для этого нет публичного API,
+     * поэтому используется {@code sun.misc.Unsafe#invokeCleaner} из модуля
+     * {@code jdk.unsupported}; если он недоступен, память освободится при сборке мусора.
+     */
+    private static final class Unmapper {
+        private static final Object UNSAFE;
+        private static final Method INVOKE_CLEANER;
+
+        static {
+            Object unsafe = null;
+            Method invokeCleaner = null;
+            try {
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                Field field = unsafeClass.getDeclaredField("theUnsafe");
+                field.setAccessible(true);
+                unsafe = field.get(null);
+                invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                logger.warn("Явное освобождение отображений недоступно: {}", e.toString());
+            }
+            UNSAFE = unsafe;
+            INVOKE_CLEANER = invokeCleaner;
+        }
+
+        static void unmap(MappedByteBuffer buffer) {
+            if (INVOKE_CLEANER == null) {
+                return;
+            }
+            try {
+                INVOKE_CLEANER.invoke(UNSAFE, buffer);
+            } catch (ReflectiveOperationException e) {
+                logger.warn("Не удалось освободить отображение: {}", e.toString());
+            }
+        }
+    }
+}
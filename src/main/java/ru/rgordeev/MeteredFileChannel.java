@@ -0,0 +1,173 @@
+package ru.rgordeev;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * {@link FileChannel}, учитывающий чтение, запись, передачу и сброс на диск
+ * в {@link OperationMetrics}. Остальные методы передаются каналу без учёта.
+ * Создаётся через {@link IoMetrics#wrap(String, FileChannel)}.
+ *
+ * <p>Счётчики операции создаются при первом её выполнении: канал только для
+ * чтения не заводит гистограммы и MBean для записи, передачи и сброса.</p>
+ */
+final class MeteredFileChannel extends FileChannel {
+    private final FileChannel channel;
+    private final IoMetrics metrics;
+    private final String path;
+    // Заполняются при первом использовании; гонка безопасна — IoMetrics вернёт тот же объект
+    private OperationMetrics reads;
+    private OperationMetrics writes;
+    private OperationMetrics transfers;
+    private OperationMetrics forces;
+
+    MeteredFileChannel(FileChannel channel, IoMetrics metrics, String path) {
+        this.channel = channel;
+        this.metrics = metrics;
+        this.path = path;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        return (int) timed(reads(), () -> channel.read(dst));
+    }
+
+    @Override
+    public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+        return timed(reads(), () -> channel.read(dsts, offset, length));
+    }
+
+    @Override
+    public int read(ByteBuffer dst, long position) throws IOException {
+        return (int) timed(reads(), () -> channel.read(dst, position));
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        return (int) timed(writes(), () -> channel.write(src));
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+        return timed(writes(), () -> channel.write(srcs, offset, length));
+    }
+
+    @Override
+    public int write(ByteBuffer src, long position) throws IOException {
+        return (int) timed(writes(), () -> channel.write(src, position));
+    }
+
+    @Override
+    public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+        return timed(transfers(), () -> channel.transferTo(position, count, target));
+    }
+
+    @Override
+    public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+        return timed(transfers(), () -> channel.transferFrom(src, position, count));
+    }
+
+    @Override
+    public void force(boolean metaData) throws IOException {
+        timed(forces(), () -> {
+            channel.force(metaData);
+            return 0;
+        });
+    }
+
+    @Override
+    public long position() throws IOException {
+        return channel.position();
+    }
+
+    @Override
+    public FileChannel position(long newPosition) throws IOException {
+        channel.position(newPosition);
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        return channel.size();
+    }
+
+    @Override
+    public FileChannel truncate(long size) throws IOException {
+        channel.truncate(size);
+        return this;
+    }
+
+    @Override
+    public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+        return channel.map(mode, position, size);
+    }
+
+    @Override
+    public FileLock lock(long position, long size, boolean shared) throws IOException {
+        return channel.lock(position, size, shared);
+    }
+
+    @Override
+    public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+        return channel.tryLock(position, size, shared);
+    }
+
+    @Override
+    protected void implCloseChannel() throws IOException {
+        channel.close();
+    }
+
+    private OperationMetrics reads() {
+        OperationMetrics result = reads;
+        if (result == null) {
+            result = reads = metrics.operation(path, IoMetrics.READ);
+        }
+        return result;
+    }
+
+    private OperationMetrics writes() {
+        OperationMetrics result = writes;
+        if (result == null) {
+            result = writes = metrics.operation(path, IoMetrics.WRITE);
+        }
+        return result;
+    }
+
+    private OperationMetrics transfers() {
+        OperationMetrics result = transfers;
+        if (result == null) {
+            result = transfers = metrics.operation(path, IoMetrics.TRANSFER);
+        }
+        return result;
+    }
+
+    private OperationMetrics forces() {
+        OperationMetrics result = forces;
+        if (result == null) {
+            result = forces = metrics.operation(path, IoMetrics.FORCE);
+        }
+        return result;
+    }
+
+    private static long timed(OperationMetrics metrics, ChannelCall call) throws IOException {
+        long start = System.nanoTime();
+        try {
+            long result = call.call();
+            metrics.record(System.nanoTime() - start, result);
+            return result;
+        } catch (IOException | RuntimeException e) {
+            metrics.recordError(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    @FunctionalInterface
+    private interface ChannelCall {
+        long call() throws IOException;
+    }
+}
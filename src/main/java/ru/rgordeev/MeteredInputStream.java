@@ -0,0 +1,44 @@
+package ru.rgordeev;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Поток, учитывающий каждое чтение в {@link OperationMetrics}.
+ * Создаётся через {@link IoMetrics#wrap(String, InputStream)}.
+ */
+final class MeteredInputStream extends FilterInputStream {
+    private final OperationMetrics reads;
+
+    MeteredInputStream(InputStream in, OperationMetrics reads) {
+        super(in);
+        this.reads = reads;
+    }
+
+    @Override
+    public int read() throws IOException {
+        long start = System.nanoTime();
+        try {
+            int value = in.read();
+            reads.record(System.nanoTime() - start, value < 0 ? 0 : 1);
+            return value;
+        } catch (IOException | RuntimeException e) {
+            reads.recordError(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        long start = System.nanoTime();
+        try {
+            int read = in.read(b, off, len);
+            reads.record(System.nanoTime() - start, read);
+            return read;
+        } catch (IOException | RuntimeException e) {
+            reads.recordError(System.nanoTime() - start);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package ru.rgordeev;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * {@link Reader}, учитывающий каждое чтение в {@link OperationMetrics};
+ * вместо байт считаются символы. Создаётся через {@link IoMetrics#wrap(String, Reader)}.
+ */
+final class MeteredReader extends FilterReader {
+    private final OperationMetrics reads;
+
+    MeteredReader(Reader in, OperationMetrics reads) {
+        super(in);
+        this.reads = reads;
+    }
+
+    @Override
+    public int read() throws IOException {
+        long start = System.nanoTime();
+        try {
+            int value = in.read();
+            reads.record(System.nanoTime() - start, value < 0 ? 0 : 1);
+            return value;
+        } catch (IOException | RuntimeException e) {
+            reads.recordError(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        long start = System.nanoTime();
+        try {
+            int read = in.read(cbuf, off, len);
+            reads.record(System.nanoTime() - start, read);
+            return read;
+        } catch (IOException | RuntimeException e) {
+            reads.recordError(System.nanoTime() - start);
+            throw e;
+        }
+    }
+}
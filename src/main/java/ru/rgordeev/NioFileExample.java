@@ -7,6 +7,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.FileTime;
 import java.util.List;
 
@@ -60,19 +61,47 @@ public class NioFileExample {
         Files.writeString(file, text, StandardCharsets.UTF_8);
         logger.info("В файл {} записана строка: {}", file, text);
 
+        // Много мелких записей: копятся в прямых буферах и уходят в файл
+        // пакетами, а не отдельным системным вызовом на каждую строку
+        Path events = dir.resolve("events.log");
+        try (BatchingFileWriter writer = new BatchingFileWriter(events)) {
+            for (int i = 0; i < 10_000; i++) {
+                writer.writeLine("event " + i);
+            }
+        }
+        logger.info("В файл {} дописано 10000 строк", events);
+
         // ЧАСТЬ 4: Операции чтения
         // Демонстрация различных способов чтения файла
         // Способ 1: Чтение всего содержимого как строки
         String content = Files.readString(file, StandardCharsets.UTF_8);
         logger.info("Прямое чтение файла как строки: {}", content);
 
-        // Способ 2: Чтение файла построчно
+        // Способ 2: Чтение файла построчно в список (все строки сразу в памяти)
         List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
         logger.info("Чтение файла построчно, всего строк: {}", lines.size());
-        for (String line : lines) {
-            logger.info("Строка: {}", line);
+
+        // Способ 3: Потоковое чтение строк без накопления в памяти —
+        // подходит для файлов любого размера
+        try (LineReader reader = new LineReader(file, StandardCharsets.UTF_8)) {
+            CharSequence line;
+            while ((line = reader.nextLine()) != null) {
+                logger.info("Строка: {}", line);
+            }
         }
 
+        // Способ 4: Параллельная обработка диапазонов файла на всех ядрах
+        long lineCount = new ParallelFileScanner().countLines(file);
+        logger.info("Параллельный подсчёт строк: {}", lineCount);
+
+        // Способ 5: Многократное чтение небольшого файла через кэш —
+        // диск читается только при первом обращении или после изменения файла
+        ReadCache readCache = ReadCache.shared();
+        for (int i = 0; i < 1000; i++) {
+            content = readCache.readString(file, StandardCharsets.UTF_8);
+        }
+        logger.info("Чтение через кэш: {}", readCache);
+
         // ЧАСТЬ 5: Копирование файлов
         // Демонстрация копирования с заменой существующего файла
         Path copyPath = dir.resolve("notes_copy.txt");
@@ -93,25 +122,33 @@ public class NioFileExample {
                 movedPath.getFileName(), size, modifiedTime);
 
         // ЧАСТЬ 8: Обход директории
-        // Использование DirectoryStream для эффективного перебора содержимого
+        // Использование DirectoryStream для эффективного перебора содержимого.
+        // Атрибуты читаются одним вызовом вместо отдельных Files.isDirectory и Files.size
         try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
             logger.info("Содержимое каталога {}:", dir);
             for (Path entry : stream) {
-                if (Files.isDirectory(entry)) {
+                BasicFileAttributes attributes = Files.readAttributes(entry, BasicFileAttributes.class);
+                if (attributes.isDirectory()) {
                     logger.info("  [DIR]  {}", entry.getFileName());
                 } else {
                     logger.info("  [FILE] {} ({} bytes)",
-                            entry.getFileName(), Files.size(entry));
+                            entry.getFileName(), attributes.size());
                 }
             }
         }
 
+        // Для больших деревьев каталогов — снимок в колоночном виде с параллельным обходом
+        DirectorySnapshot snapshot = new DirectoryScanner().scanParallel(dir);
+        logger.info("Снимок каталога {}: {} элементов, {} байт",
+                dir, snapshot.count(), snapshot.totalFileSize());
+
         // ЧАСТЬ 9: Очистка - удаление созданных файлов и директории
         // Демонстрация различных методов удаления
         Files.delete(movedPath);
         logger.info("Файл {} удален.", movedPath.getFileName());
         Files.deleteIfExists(file);
         logger.info("Исходный файл {} удален.", file.getFileName());
+        Files.deleteIfExists(events);
         Files.delete(dir);
         logger.info("Каталог {} удален.", dir);
     }
@@ -0,0 +1,115 @@
+package ru.rgordeev;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Счётчики одной операции ввода-вывода над одним путём: число операций,
+ * переданные байты, ошибки и гистограмма задержек.
+ *
+ * <p>Счётчики — {@link LongAdder}, поэтому запись из многих потоков не
+ * конкурирует за одну ячейку памяти. Экземпляры создаёт {@link IoMetrics}.</p>
+ */
+public final class OperationMetrics implements OperationMetricsMXBean {
+    private final String path;
+    private final String operation;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    OperationMetrics(String path, String operation) {
+        this.path = path;
+        this.operation = operation;
+    }
+
+    /**
+     * Учитывает успешную операцию.
+     *
+     * @param nanos       длительность операции
+     * @param transferred число переданных байт; отрицательное (конец потока) не учитывается
+     */
+    public void record(long nanos, long transferred) {
+        count.increment();
+        if (transferred > 0) {
+            bytes.add(transferred);
+        }
+        latency.record(nanos);
+    }
+
+    /**
+     * Учитывает операцию, завершившуюся исключением.
+     *
+     * @param nanos длительность операции
+     */
+    public void recordError(long nanos) {
+        count.increment();
+        errors.increment();
+        latency.record(nanos);
+    }
+
+    /**
+     * @return снимок гистограммы задержек
+     */
+    public LatencyHistogram.Snapshot latency() {
+        return latency.snapshot();
+    }
+
+    @Override
+    public String getPath() {
+        return path;
+    }
+
+    @Override
+    public String getOperation() {
+        return operation;
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        return latency().mean() / 1_000;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return latency().percentile(50) / 1_000.0;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return latency().percentile(99) / 1_000.0;
+    }
+
+    @Override
+    public double getP999Micros() {
+        return latency().percentile(99.9) / 1_000.0;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return latency().max() / 1_000.0;
+    }
+
+    @Override
+    public String toString() {
+        LatencyHistogram.Snapshot snapshot = latency();
+        return String.format("%s %s: %d оп., %d байт, ошибок %d, p50 %.1f мкс, p99 %.1f мкс, p99.9 %.1f мкс, max %.1f мкс",
+                path, operation, getCount(), getBytes(), getErrors(),
+                snapshot.percentile(50) / 1_000.0, snapshot.percentile(99) / 1_000.0,
+                snapshot.percentile(99.9) / 1_000.0, snapshot.max() / 1_000.0);
+    }
+}
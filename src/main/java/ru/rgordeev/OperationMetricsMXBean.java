@@ -0,0 +1,59 @@
+package ru.rgordeev;
+
+/**
+ * JMX-представление метрик одной операции ввода-вывода.
+ * Регистрируется {@link IoMetrics#enableJmx(String)} под именем
+ * {@code <домен>:type=IoMetrics,path=<путь>,operation=<операция>}.
+ */
+public interface OperationMetricsMXBean {
+
+    /**
+     * @return путь или метка источника
+     */
+    String getPath();
+
+    /**
+     * @return имя операции, например {@code read}
+     */
+    String getOperation();
+
+    /**
+     * @return число выполненных операций
+     */
+    long getCount();
+
+    /**
+     * @return число переданных байт (для {@link java.io.Reader} — символов)
+     */
+    long getBytes();
+
+    /**
+     * @return число операций, завершившихся исключением
+     */
+    long getErrors();
+
+    /**
+     * @return средняя задержка в микросекундах
+     */
+    double getMeanMicros();
+
+    /**
+     * @return медиана задержки в микросекундах
+     */
+    double getP50Micros();
+
+    /**
+     * @return 99-й перцентиль задержки в микросекундах
+     */
+    double getP99Micros();
+
+    /**
+     * @return 99.9-й перцентиль задержки в микросекундах
+     */
+    double getP999Micros();
+
+    /**
+     * @return наибольшая задержка в микросекундах
+     */
+    double getMaxMicros();
+}
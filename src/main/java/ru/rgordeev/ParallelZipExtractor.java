@@ -0,0 +1,245 @@
+package ru.rgordeev;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Параллельная распаковка записей ZIP-архива по {@link ZipIndex}.
+ *
+ * <p>Записи раздаются пулу из {@code parallelism} потоков через общий счётчик:
+ * поток, закончивший запись, сразу берёт следующую, поэтому крупные и мелкие
+ * записи распределяются равномерно. Самые большие записи раздаются первыми,
+ * чтобы в конце не остался один поток с крупной записью. Каждый поток открывает
+ * собственный {@link FileChannel} (чтение позиционное, без общей позиции) и
+ * держит свой {@link Inflater} и {@link CRC32}.</p>
+ *
+ * <p>Объём распакованных, но ещё не записанных данных ограничен семафором
+ * {@code maxInFlightBytes}: поток резервирует размер записи до её чтения и
+ * освобождает после записи на диск. Запись больше лимита резервирует весь лимит
+ * и обрабатывается одна. Записи читаются в массив, поэтому записи больше 2 ГБ
+ * отклоняются до начала распаковки.</p>
+ *
+ * <p>Ошибка в любом потоке сразу останавливает раздачу записей: остальные потоки
+ * дорабатывают текущую запись и завершаются.</p>
+ *
+ * <p>Пример использования:</p>
+ * <pre>
+ * ParallelZipExtractor extractor = new ParallelZipExtractor(ZipIndex.open(zipPath));
+ * extractor.extractAll(Paths.get("out"), 8);
+ * </pre>
+ */
+public class ParallelZipExtractor {
+    private static final Logger logger = LogManager.getLogger(ParallelZipExtractor.class);
+
+    /** Лимит распакованных данных в памяти по умолчанию — 64 МБ */
+    public static final int DEFAULT_MAX_IN_FLIGHT_BYTES = 64 * 1024 * 1024;
+
+    private final ZipIndex index;
+    private final int maxInFlightBytes;
+
+    /**
+     * Создаёт распаковщик с лимитом {@link #DEFAULT_MAX_IN_FLIGHT_BYTES}.
+     *
+     * @param index индекс архива
+     */
+    public ParallelZipExtractor(ZipIndex index) {
+        this(index, DEFAULT_MAX_IN_FLIGHT_BYTES);
+    }
+
+    /**
+     * Создаёт распаковщик с заданным лимитом памяти.
+     *
+     * @param index            индекс архива
+     * @param maxInFlightBytes максимальный объём распакованных данных, одновременно находящихся в памяти
+     * @throws IllegalArgumentException если лимит не положительный
+     */
+    public ParallelZipExtractor(ZipIndex index, int maxInFlightBytes) {
+        if (maxInFlightBytes <= 0) {
+            throw new IllegalArgumentException("Лимит памяти должен быть положительным: " + maxInFlightBytes);
+        }
+        this.index = index;
+        this.maxInFlightBytes = maxInFlightBytes;
+    }
+
+    /**
+     * Распаковывает все записи архива в директорию. Существующие файлы перезаписываются.
+     *
+     * @param targetDir   директория назначения
+     * @param parallelism число потоков
+     * @throws ZipException если имя записи выходит за пределы директории или не совпала CRC
+     * @throws IOException  при ошибках чтения архива или записи файлов, а также если
+     *                      запись больше 2 ГБ
+     */
+    public void extractAll(Path targetDir, int parallelism) throws IOException {
+        Path root = targetDir.toAbsolutePath().normalize();
+        Files.createDirectories(root);
+        int[] entries = new int[index.size()];
+        Arrays.setAll(entries, i -> i);
+        long start = System.nanoTime();
+        run(entries, parallelism, (entry, data) -> {
+            Path target = root.resolve(index.name(entry)).normalize();
+            if (!target.startsWith(root)) {
+                throw new ZipException("Запись " + index.name(entry) + " выходит за пределы " + root);
+            }
+            if (index.isDirectory(entry)) {
+                Files.createDirectories(target);
+            } else {
+                Files.createDirectories(target.getParent());
+                Files.write(target, data);
+            }
+        });
+        logger.info("Распаковано {} записей в {} за {} ms ({} потоков)",
+                entries.length, root, (System.nanoTime() - start) / 1_000_000, parallelism);
+    }
+
+    /**
+     * Читает указанные записи параллельно.
+     *
+     * @param names       имена записей
+     * @param parallelism число потоков
+     * @return содержимое записей в порядке {@code names}
+     * @throws NoSuchFileException если какой-либо записи нет в архиве
+     * @throws IOException         при ошибках чтения, несовпадении CRC или если запись больше 2 ГБ
+     */
+    public Map<String, byte[]> readEntries(Collection<String> names, int parallelism) throws IOException {
+        int[] entries = new int[names.size()];
+        int count = 0;
+        for (String name : names) {
+            int entry = index.find(name);
+            if (entry < 0) {
+                throw new NoSuchFileException(name, null, "Файл не найден в архиве");
+            }
+            entries[count++] = entry;
+        }
+        Map<Integer, byte[]> read = new ConcurrentHashMap<>();
+        run(entries, parallelism, read::put);
+        Map<String, byte[]> result = new LinkedHashMap<>();
+        int i = 0;
+        for (String name : names) {
+            result.put(name, read.get(entries[i++]));
+        }
+        return result;
+    }
+
+    private void run(int[] entries, int parallelism, EntryHandler handler) throws IOException {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Число потоков должно быть положительным: " + parallelism);
+        }
+        for (int entry : entries) {
+            index.checkReadable(entry);
+        }
+        int[] ordered = Arrays.stream(entries).boxed()
+                .sorted(Comparator.comparingLong((Integer entry) -> index.size(entry)).reversed())
+                .mapToInt(Integer::intValue)
+                .toArray();
+        int workers = Math.max(1, Math.min(parallelism, ordered.length));
+        AtomicInteger next = new AtomicInteger();
+        Semaphore memory = new Semaphore(maxInFlightBytes);
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "zip-extract-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Future<?>[] futures = new Future<?>[workers];
+            for (int i = 0; i < workers; i++) {
+                futures[i] = pool.submit(() -> {
+                    work(ordered, next, memory, handler);
+                    return null;
+                });
+            }
+            awaitAll(futures, next, ordered.length);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void work(int[] entries, AtomicInteger next, Semaphore memory, EntryHandler handler)
+            throws IOException, InterruptedException {
+        Inflater inflater = new Inflater(true);
+        CRC32 crc = new CRC32();
+        try (FileChannel channel = FileChannel.open(index.path(), StandardOpenOption.READ)) {
+            int i;
+            while ((i = next.getAndIncrement()) < entries.length) {
+                int entry = entries[i];
+                int permits = (int) Math.min(index.size(entry), maxInFlightBytes);
+                memory.acquire(permits);
+                try {
+                    byte[] data = index.readEntry(channel, entry, inflater);
+                    crc.reset();
+                    crc.update(data);
+                    if (crc.getValue() != index.crc(entry)) {
+                        throw new ZipException("Несовпадение CRC у записи " + index.name(entry));
+                    }
+                    handler.accept(entry, data);
+                } finally {
+                    memory.release(permits);
+                }
+            }
+        } catch (Throwable e) {
+            // Останавливаем раздачу сразу, не дожидаясь, пока awaitAll дойдёт до этого потока
+            next.set(entries.length);
+            throw e;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    // Ждёт все потоки и пробрасывает первую ошибку, остальные добавляет как подавленные
+    private static void awaitAll(Future<?>[] futures, AtomicInteger next, int total) throws IOException {
+        IOException failure = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                next.set(total);
+                throw new InterruptedIOException("Распаковка прервана");
+            } catch (ExecutionException e) {
+                next.set(total);
+                Throwable cause = e.getCause();
+                IOException error = cause instanceof IOException
+                        ? (IOException) cause
+                        : new IOException("Ошибка при распаковке", cause);
+                if (failure == null) {
+                    failure = error;
+                } else {
+                    failure.addSuppressed(error);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /** Обработчик распакованной записи; вызывается из рабочих потоков */
+    @FunctionalInterface
+    private interface EntryHandler {
+        void accept(int entry, byte[] data) throws IOException;
+    }
+}
@@ -0,0 +1,339 @@
+package ru.rgordeev;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Кэш содержимого небольших файлов и записей ZIP-архивов с ограничением по объёму в байтах.
+ *
+ * <p>Ключ описывает версию содержимого: для файла — абсолютный путь, время изменения
+ * и размер ({@link #fileKey(Path)}), для записи архива — путь к архиву, имя записи,
+ * CRC и размер ({@link #zipEntryKey(Path, String, long, long)}). После изменения
+ * файла ключ меняется, а устаревшее содержимое вытесняется как давно не используемое.
+ * Время изменения хранится с точностью файловой системы: изменение без смены размера
+ * в пределах одного такта её часов не обнаруживается.</p>
+ *
+ * <p>Вытеснение — сегментированный LRU: новая запись попадает в испытательный сегмент
+ * и переходит в защищённый ({@value #PROTECTED_PERCENT}% объёма) при повторном
+ * обращении. Однократное чтение множества файлов (обход каталога) вытесняет только
+ * испытательный сегмент и не трогает часто читаемые записи. Записи больше
+ * {@code 1/}{@value #MAX_ENTRY_FRACTION} объёма не кэшируются.</p>
+ *
+ * <p>Одновременные промахи по одному ключу загружают содержимое один раз:
+ * остальные потоки ждут результат первого. Содержимое хранится в куче или,
+ * для {@code offHeap}, в прямых буферах вне кучи (память освобождается сборщиком
+ * мусора после вытеснения) и выдаётся как {@link ByteBuffer} только для чтения
+ * без копирования.</p>
+ *
+ * <p>Общий экземпляр {@link #shared()} настраивается свойствами
+ * {@code -Dread.cache.maxBytes} (по умолчанию {@value #DEFAULT_MAX_BYTES}) и
+ * {@code -Dread.cache.offHeap=true}.</p>
+ *
+ * <p>Пример использования:</p>
+ * <pre>
+ * String config = ReadCache.shared().readString(Paths.get("config.json"), StandardCharsets.UTF_8);
+ * logger.info("Доля попаданий: {}", ReadCache.shared().stats().hitRatio());
+ * </pre>
+ */
+public final class ReadCache {
+    /** Объём кэша по умолчанию */
+    public static final long DEFAULT_MAX_BYTES = 32L * 1024 * 1024;
+
+    /** Доля защищённого сегмента в процентах объёма */
+    public static final int PROTECTED_PERCENT = 80;
+
+    /** Записи больше {@code maxBytes / MAX_ENTRY_FRACTION} не кэшируются */
+    public static final int MAX_ENTRY_FRACTION = 8;
+
+    private static final ReadCache SHARED = new ReadCache(
+            Long.getLong("read.cache.maxBytes", DEFAULT_MAX_BYTES), Boolean.getBoolean("read.cache.offHeap"));
+
+    private final long maxBytes;
+    private final long protectedMaxBytes;
+    private final long maxEntryBytes;
+    private final boolean offHeap;
+
+    // Защищены монитором this; порядок доступа: первым идёт давно не использованный
+    private final LinkedHashMap<Key, ByteBuffer> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<Key, ByteBuffer> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+    private long probationBytes;
+    private long protectedBytes;
+
+    private final ConcurrentHashMap<Key, CompletableFuture<ByteBuffer>> loading = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxBytes наибольший суммарный объём содержимого в байтах
+     * @param offHeap  true — хранить содержимое в прямых буферах вне кучи
+     */
+    public ReadCache(long maxBytes, boolean offHeap) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Объём кэша должен быть положительным: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+        this.protectedMaxBytes = maxBytes * PROTECTED_PERCENT / 100;
+        this.maxEntryBytes = maxBytes / MAX_ENTRY_FRACTION;
+        this.offHeap = offHeap;
+    }
+
+    /**
+     * @return общий кэш проекта
+     */
+    public static ReadCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * Ключ версии файла по его атрибутам, прочитанным одним вызовом.
+     *
+     * @param file путь к файлу
+     * @return ключ, меняющийся при изменении времени изменения или размера файла
+     * @throws IOException если атрибуты не удалось прочитать
+     */
+    public static Key fileKey(Path file) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        return new Key(file.toAbsolutePath().normalize().toString(), "",
+                attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS), attributes.size());
+    }
+
+    /**
+     * Ключ содержимого записи ZIP-архива.
+     *
+     * @param zipPath путь к архиву
+     * @param name    имя записи
+     * @param crc     CRC-32 несжатого содержимого
+     * @param size    размер несжатого содержимого
+     * @return ключ записи
+     */
+    public static Key zipEntryKey(Path zipPath, String name, long crc, long size) {
+        return new Key(zipPath.toAbsolutePath().normalize().toString(), name, crc, size);
+    }
+
+    /**
+     * Возвращает содержимое из кэша или загружает его. Одновременные промахи
+     * по одному ключу вызывают {@code loader} один раз.
+     *
+     * @param key    ключ версии содержимого
+     * @param loader загрузка содержимого при промахе
+     * @return содержимое только для чтения; позиция и предел независимы для каждого вызова
+     * @throws IOException ошибка загрузки; результат с ошибкой не кэшируется
+     */
+    public ByteBuffer get(Key key, Loader loader) throws IOException {
+        ByteBuffer cached = lookup(key);
+        if (cached != null) {
+            hits.increment();
+            return cached.duplicate();
+        }
+        misses.increment();
+        CompletableFuture<ByteBuffer> created = new CompletableFuture<>();
+        CompletableFuture<ByteBuffer> existing = loading.putIfAbsent(key, created);
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing).duplicate();
+        }
+        try {
+            // Другой поток мог завершить загрузку между lookup и putIfAbsent
+            ByteBuffer content = lookup(key);
+            if (content == null) {
+                content = store(loader.load());
+                insert(key, content);
+            }
+            created.complete(content);
+            return content.duplicate();
+        } catch (IOException | RuntimeException e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, created);
+        }
+    }
+
+    /**
+     * Читает файл целиком через кэш.
+     *
+     * @param file путь к файлу
+     * @return содержимое только для чтения
+     * @throws IOException если файл не удалось прочитать
+     */
+    public ByteBuffer readAllBytes(Path file) throws IOException {
+        return get(fileKey(file), () -> Files.readAllBytes(file));
+    }
+
+    /**
+     * Читает текстовый файл через кэш. Как и {@link Files#readString(Path, Charset)},
+     * сообщает об ошибке при некорректных для кодировки байтах.
+     *
+     * @param file    путь к файлу
+     * @param charset кодировка
+     * @return содержимое файла
+     * @throws IOException если файл не удалось прочитать или декодировать
+     */
+    public String readString(Path file, Charset charset) throws IOException {
+        return charset.newDecoder().decode(readAllBytes(file)).toString();
+    }
+
+    /**
+     * Удаляет всё содержимое кэша. Счётчики не сбрасываются.
+     */
+    public synchronized void invalidateAll() {
+        probation.clear();
+        protectedSegment.clear();
+        probationBytes = 0;
+        protectedBytes = 0;
+    }
+
+    /**
+     * @return снимок счётчиков и заполненности кэша
+     */
+    public Stats stats() {
+        int entries;
+        long bytes;
+        synchronized (this) {
+            entries = probation.size() + protectedSegment.size();
+            bytes = probationBytes + protectedBytes;
+        }
+        return new Stats(hits.sum(), misses.sum(), coalesced.sum(), evictions.sum(), entries, bytes);
+    }
+
+    @Override
+    public String toString() {
+        Stats stats = stats();
+        return String.format("ReadCache[maxBytes=%d, offHeap=%b, entries=%d, bytes=%d, hitRatio=%.2f, evictions=%d]",
+                maxBytes, offHeap, stats.entries(), stats.bytes(), stats.hitRatio(), stats.evictions());
+    }
+
+    // Поиск с переводом записи из испытательного сегмента в защищённый
+    private synchronized ByteBuffer lookup(Key key) {
+        ByteBuffer content = protectedSegment.get(key);
+        if (content != null) {
+            return content;
+        }
+        content = probation.remove(key);
+        if (content == null) {
+            return null;
+        }
+        probationBytes -= content.capacity();
+        protectedSegment.put(key, content);
+        protectedBytes += content.capacity();
+        // Переполненный защищённый сегмент возвращает давние записи в испытательный
+        Iterator<Map.Entry<Key, ByteBuffer>> eldest = protectedSegment.entrySet().iterator();
+        while (protectedBytes > protectedMaxBytes && eldest.hasNext()) {
+            Map.Entry<Key, ByteBuffer> demoted = eldest.next();
+            eldest.remove();
+            protectedBytes -= demoted.getValue().capacity();
+            probation.put(demoted.getKey(), demoted.getValue());
+            probationBytes += demoted.getValue().capacity();
+        }
+        return content;
+    }
+
+    private synchronized void insert(Key key, ByteBuffer content) {
+        int size = content.capacity();
+        if (size > maxEntryBytes || protectedSegment.containsKey(key) || probation.containsKey(key)) {
+            return;
+        }
+        probation.put(key, content);
+        probationBytes += size;
+        evict(probation);
+        evict(protectedSegment);
+    }
+
+    private void evict(LinkedHashMap<Key, ByteBuffer> segment) {
+        Iterator<ByteBuffer> eldest = segment.values().iterator();
+        while (probationBytes + protectedBytes > maxBytes && eldest.hasNext()) {
+            int size = eldest.next().capacity();
+            eldest.remove();
+            if (segment == probation) {
+                probationBytes -= size;
+            } else {
+                protectedBytes -= size;
+            }
+            evictions.increment();
+        }
+    }
+
+    private ByteBuffer store(byte[] data) {
+        ByteBuffer buffer = offHeap
+                ? ByteBuffer.allocateDirect(data.length).put(data).flip()
+                : ByteBuffer.wrap(data);
+        return buffer.asReadOnlyBuffer();
+    }
+
+    private static ByteBuffer await(CompletableFuture<ByteBuffer> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Ожидание загрузки прервано");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Версия содержимого.
+     *
+     * @param source  абсолютный путь к файлу или архиву
+     * @param name    имя записи архива или пустая строка для файла
+     * @param version время изменения файла в наносекундах или CRC записи архива
+     * @param size    размер содержимого
+     */
+    public record Key(String source, String name, long version, long size) {
+    }
+
+    /**
+     * Загрузка содержимого при промахе.
+     */
+    @FunctionalInterface
+    public interface Loader {
+        /**
+         * @return содержимое; массив передаётся кэшу и не должен изменяться
+         * @throws IOException при ошибке чтения
+         */
+        byte[] load() throws IOException;
+    }
+
+    /**
+     * Снимок счётчиков кэша.
+     *
+     * @param hits      обращения, обслуженные из кэша
+     * @param misses    промахи, включая дождавшиеся чужой загрузки
+     * @param coalesced промахи, дождавшиеся загрузки другого потока вместо своей
+     * @param evictions вытесненные записи
+     * @param entries   число записей в кэше
+     * @param bytes     объём содержимого в кэше
+     */
+    public record Stats(long hits, long misses, long coalesced, long evictions, int entries, long bytes) {
+        /**
+         * @return доля обращений, обслуженных из кэша
+         */
+        public double hitRatio() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package ru.rgordeev;
+
+import org.apache.logging.log4j.Logger;
+
+import static org.apache.logging.log4j.util.Unbox.box;
+
+/**
+ * Периодические события прогресса для циклов чтения.
+ *
+ * <p>Сообщение на каждый прочитанный байт, символ или блок даже при выключенном
+ * уровне DEBUG стоит упаковки аргументов и вызова логгера, а при включённом —
+ * превращает чтение файла в запись лога. Вместо этого цикл сообщает, сколько
+ * обработано, а событие пишется только при пересечении очередного порога
+ * (каждые {@code step} единиц). Проверка в цикле — одно сравнение; аргументы
+ * передаются через {@link org.apache.logging.log4j.util.Unbox}, поэтому запись
+ * события не создаёт мусора.</p>
+ *
+ * <p>Экземпляр не потокобезопасен: один объект — один цикл чтения.</p>
+ */
+final class ReadProgress {
+    /** Шаг по умолчанию для байтов и символов */
+    static final long DEFAULT_STEP = 16L * 1024 * 1024;
+
+    private final Logger logger;
+    private final String source;
+    private final String unit;
+    private final long total;
+    private final long step;
+    private long next;
+
+    /**
+     * @param logger логгер, в который пишутся события уровня DEBUG
+     * @param source что читается, например путь к файлу
+     * @param unit   единица измерения для сообщения: «байт», «символов»
+     * @param total  ожидаемый объём или -1, если он неизвестен
+     * @param step   шаг между событиями
+     */
+    ReadProgress(Logger logger, String source, String unit, long total, long step) {
+        if (step <= 0) {
+            throw new IllegalArgumentException("Шаг должен быть положительным: " + step);
+        }
+        this.logger = logger;
+        this.source = source;
+        this.unit = unit;
+        this.total = total;
+        this.step = step;
+        this.next = step;
+    }
+
+    /**
+     * Сообщает, сколько обработано с начала чтения.
+     *
+     * @param done обработанный объём
+     * @return true если порог пересечён и событие отправлено в логгер
+     */
+    boolean update(long done) {
+        if (done < next) {
+            return false;
+        }
+        next = (done / step + 1) * step;
+        if (logger.isDebugEnabled()) {
+            if (total > 0) {
+                logger.debug("{}: обработано {} из {} {}", source, box(done), box(total), unit);
+            } else {
+                logger.debug("{}: обработано {} {}", source, box(done), unit);
+            }
+        }
+        return true;
+    }
+}
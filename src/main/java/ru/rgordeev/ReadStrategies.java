@@ -0,0 +1,194 @@
+package ru.rgordeev;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Фабрика стандартных реализаций {@link ReadStrategy}.
+ *
+ * <ul>
+ *   <li>{@link #bufferedStream(int)} — побайтовое чтение через {@link BufferedInputStream}</li>
+ *   <li>{@link #bulkRead(int)} — блочное чтение {@link InputStream#read(byte[])}</li>
+ *   <li>{@link #channelHeapBuffer(int)} — {@link FileChannel} с буфером в куче</li>
+ *   <li>{@link #channelDirectBuffer(int)} — {@link FileChannel} с прямым буфером</li>
+ *   <li>{@link #channelPooledBuffer(int)} — {@link FileChannel} с прямым буфером из {@link BufferPool}</li>
+ *   <li>{@link #memoryMapped(int)} — отображение в память через {@link MappedFileReader}</li>
+ *   <li>{@link #transferTo()} — {@link FileChannel#transferTo} в канал-приёмник</li>
+ * </ul>
+ */
+public final class ReadStrategies {
+
+    /** Размер буфера по умолчанию */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private ReadStrategies() {
+    }
+
+    /**
+     * @param bufferSize размер буфера для стратегий, которые его используют
+     * @return все стандартные стратегии
+     */
+    public static List<ReadStrategy> all(int bufferSize) {
+        return List.of(
+                bufferedStream(bufferSize),
+                bulkRead(bufferSize),
+                channelHeapBuffer(bufferSize),
+                channelDirectBuffer(bufferSize),
+                channelPooledBuffer(bufferSize),
+                memoryMapped(bufferSize),
+                transferTo());
+    }
+
+    /**
+     * @param bufferSize размер буфера {@link BufferedInputStream}
+     * @return стратегия побайтового чтения через буферизованный поток
+     */
+    public static ReadStrategy bufferedStream(int bufferSize) {
+        return named("buffered-stream", (file, limit) -> {
+            long total = 0;
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(file), bufferSize)) {
+                while (total < limit && in.read() != -1) {
+                    total++;
+                }
+            }
+            return total;
+        });
+    }
+
+    /**
+     * @param bufferSize размер массива для {@code read(byte[])}
+     * @return стратегия блочного чтения из потока
+     */
+    public static ReadStrategy bulkRead(int bufferSize) {
+        return named("bulk-read", (file, limit) -> {
+            byte[] buffer = new byte[bufferSize];
+            long total = 0;
+            try (InputStream in = Files.newInputStream(file)) {
+                int read;
+                while (total < limit
+                        && (read = in.read(buffer, 0, (int) Math.min(buffer.length, limit - total))) != -1) {
+                    total += read;
+                }
+            }
+            return total;
+        });
+    }
+
+    /**
+     * @param bufferSize размер буфера в куче
+     * @return стратегия чтения из канала в {@link ByteBuffer#allocate(int)}
+     */
+    public static ReadStrategy channelHeapBuffer(int bufferSize) {
+        return named("channel-heap", (file, limit) -> readChannel(file, limit, ByteBuffer.allocate(bufferSize)));
+    }
+
+    /**
+     * @param bufferSize размер прямого буфера
+     * @return стратегия чтения из канала в {@link ByteBuffer#allocateDirect(int)}
+     */
+    public static ReadStrategy channelDirectBuffer(int bufferSize) {
+        return named("channel-direct",
+                (file, limit) -> readChannel(file, limit, ByteBuffer.allocateDirect(bufferSize)));
+    }
+
+    /**
+     * @param bufferSize размер прямого буфера; округляется вверх до класса размера пула
+     * @return стратегия чтения из канала в прямой буфер из {@link BufferPool#shared()}
+     */
+    public static ReadStrategy channelPooledBuffer(int bufferSize) {
+        return named("channel-pooled", (file, limit) -> {
+            try (BufferPool.PooledBuffer pooled = BufferPool.shared().acquire(bufferSize)) {
+                return readChannel(file, limit, pooled.buffer());
+            }
+        });
+    }
+
+    /**
+     * @param bufferSize размер массива, в который копируются данные из отображения
+     * @return стратегия чтения через отображение файла в память
+     */
+    public static ReadStrategy memoryMapped(int bufferSize) {
+        return named("memory-mapped", (file, limit) -> {
+            byte[] buffer = new byte[bufferSize];
+            try (MappedFileReader reader = new MappedFileReader(file)) {
+                MappedFileReader.Cursor cursor = reader.cursor();
+                long total = Math.min(limit, reader.size());
+                while (cursor.position() < total) {
+                    cursor.get(buffer, 0, (int) Math.min(buffer.length, total - cursor.position()));
+                }
+                return total;
+            }
+        });
+    }
+
+    /**
+     * @return стратегия передачи данных через {@link FileChannel#transferTo}
+     *         в канал, отбрасывающий данные
+     */
+    public static ReadStrategy transferTo() {
+        return named("transfer-to", (file, limit) -> {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+                 WritableByteChannel sink = Channels.newChannel(OutputStream.nullOutputStream())) {
+                long total = Math.min(limit, channel.size());
+                long transferred = 0;
+                while (transferred < total) {
+                    long count = channel.transferTo(transferred, total - transferred, sink);
+                    if (count <= 0) {
+                        break;
+                    }
+                    transferred += count;
+                }
+                return transferred;
+            }
+        });
+    }
+
+    private static long readChannel(Path file, long limit, ByteBuffer buffer) throws IOException {
+        long total = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (total < limit) {
+                buffer.clear();
+                if (limit - total < buffer.capacity()) {
+                    buffer.limit((int) (limit - total));
+                }
+                int read = channel.read(buffer);
+                if (read == -1) {
+                    break;
+                }
+                total += read;
+            }
+        }
+        return total;
+    }
+
+    private static ReadStrategy named(String name, Reader reader) {
+        return new NamedStrategy(name, reader);
+    }
+
+    @FunctionalInterface
+    private interface Reader {
+        long read(Path file, long limit) throws IOException;
+    }
+
+    private record NamedStrategy(String name, Reader reader) implements ReadStrategy {
+        @Override
+        public long read(Path file, long limit) throws IOException {
+            return reader.read(file, limit);
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
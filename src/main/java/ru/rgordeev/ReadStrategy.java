@@ -0,0 +1,41 @@
+package ru.rgordeev;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Стратегия чтения файла. Реализации отличаются способом доставки данных
+ * из файла в приложение (поток, канал, отображение в память, {@code transferTo})
+ * и используются {@link IOOptimizationExample} для сравнения производительности
+ * и {@link ReadStrategySelector} для автоматического выбора.
+ *
+ * <p>Готовые реализации создаются фабричными методами {@link ReadStrategies}.</p>
+ */
+public interface ReadStrategy {
+
+    /**
+     * @return короткое имя стратегии для отчётов и логов
+     */
+    String name();
+
+    /**
+     * Читает не более {@code limit} байт с начала файла.
+     *
+     * @param file  путь к файлу
+     * @param limit максимальное число байт для чтения
+     * @return фактически прочитанное число байт
+     * @throws IOException при ошибках работы с файлом
+     */
+    long read(Path file, long limit) throws IOException;
+
+    /**
+     * Читает файл целиком.
+     *
+     * @param file путь к файлу
+     * @return число прочитанных байт
+     * @throws IOException при ошибках работы с файлом
+     */
+    default long read(Path file) throws IOException {
+        return read(file, Long.MAX_VALUE);
+    }
+}
@@ -0,0 +1,143 @@
+package ru.rgordeev;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Выбирает самую быструю {@link ReadStrategy} для файла.
+ *
+ * <p>Файлы группируются по типу файловой системы ({@link java.nio.file.FileStore#type()})
+ * и классу размера ({@link SizeClass}). Для первого файла каждой группы выполняется
+ * короткая калибровка: каждая стратегия читает не более {@code calibrationBytes}
+ * байт с начала файла (один прогревочный и несколько измеряемых прогонов),
+ * и лучшая по минимальному времени запоминается для всей группы.</p>
+ */
+public class ReadStrategySelector {
+    private static final Logger logger = LogManager.getLogger(ReadStrategySelector.class);
+
+    /** Сколько байт файла читается при калибровке одной стратегии по умолчанию */
+    public static final long DEFAULT_CALIBRATION_BYTES = 16L * 1024 * 1024;
+
+    /** Число измеряемых прогонов каждой стратегии */
+    private static final int CALIBRATION_ROUNDS = 3;
+
+    private final List<ReadStrategy> candidates;
+    private final long calibrationBytes;
+    private final Map<Key, ReadStrategy> selected = new ConcurrentHashMap<>();
+
+    /**
+     * Создаёт селектор для всех стандартных стратегий с буфером
+     * {@link ReadStrategies#DEFAULT_BUFFER_SIZE}.
+     */
+    public ReadStrategySelector() {
+        this(ReadStrategies.all(ReadStrategies.DEFAULT_BUFFER_SIZE), DEFAULT_CALIBRATION_BYTES);
+    }
+
+    /**
+     * @param candidates       стратегии, из которых выполняется выбор
+     * @param calibrationBytes сколько байт читать при калибровке одной стратегии
+     * @throws IllegalArgumentException если список стратегий пуст
+     */
+    public ReadStrategySelector(List<ReadStrategy> candidates, long calibrationBytes) {
+        if (candidates.isEmpty()) {
+            throw new IllegalArgumentException("Список стратегий не может быть пустым");
+        }
+        this.candidates = List.copyOf(candidates);
+        this.calibrationBytes = calibrationBytes;
+    }
+
+    /**
+     * Возвращает стратегию для файла, при необходимости выполняя калибровку.
+     *
+     * @param file путь к файлу
+     * @return лучшая стратегия для группы, к которой относится файл
+     * @throws IOException при ошибках работы с файлом
+     */
+    public ReadStrategy select(Path file) throws IOException {
+        Key key = new Key(Files.getFileStore(file).type(), SizeClass.of(Files.size(file)));
+        ReadStrategy strategy = selected.get(key);
+        if (strategy == null) {
+            strategy = best(calibrate(file));
+            ReadStrategy previous = selected.putIfAbsent(key, strategy);
+            if (previous != null) {
+                strategy = previous;
+            }
+            logger.info("Для {} выбрана стратегия {}", key, strategy.name());
+        }
+        return strategy;
+    }
+
+    /**
+     * Выполняет калибровку всех стратегий на указанном файле.
+     *
+     * @param file путь к файлу
+     * @return минимальное время чтения (нс) для каждой стратегии в порядке кандидатов
+     * @throws IOException при ошибках работы с файлом
+     */
+    public Map<ReadStrategy, Long> calibrate(Path file) throws IOException {
+        Map<ReadStrategy, Long> timings = new LinkedHashMap<>();
+        for (ReadStrategy strategy : candidates) {
+            strategy.read(file, calibrationBytes);
+            long best = Long.MAX_VALUE;
+            for (int round = 0; round < CALIBRATION_ROUNDS; round++) {
+                long start = System.nanoTime();
+                strategy.read(file, calibrationBytes);
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            timings.put(strategy, best);
+            logger.debug("Калибровка {} на {}: {} мкс", strategy.name(), file, best / 1_000);
+        }
+        return timings;
+    }
+
+    private static ReadStrategy best(Map<ReadStrategy, Long> timings) {
+        return timings.entrySet().stream()
+                .min(Map.Entry.comparingByValue())
+                .orElseThrow()
+                .getKey();
+    }
+
+    /**
+     * Классы размера файлов, для которых стратегия выбирается отдельно.
+     */
+    public enum SizeClass {
+        /** до 64 КБ */
+        SMALL(64L * 1024),
+        /** до 16 МБ */
+        MEDIUM(16L * 1024 * 1024),
+        /** до 1 ГБ */
+        LARGE(1024L * 1024 * 1024),
+        /** 1 ГБ и больше */
+        HUGE(Long.MAX_VALUE);
+
+        private final long upperBound;
+
+        SizeClass(long upperBound) {
+            this.upperBound = upperBound;
+        }
+
+        /**
+         * @param size размер файла в байтах
+         * @return класс размера
+         */
+        public static SizeClass of(long size) {
+            for (SizeClass sizeClass : values()) {
+                if (size < sizeClass.upperBound) {
+                    return sizeClass;
+                }
+            }
+            return HUGE;
+        }
+    }
+
+    private record Key(String fileStoreType, SizeClass sizeClass) {
+    }
+}
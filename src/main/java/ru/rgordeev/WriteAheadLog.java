@@ -0,0 +1,551 @@
+package ru.rgordeev;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * Журнал упреждающей записи (write-ahead log): записи только дописываются
+ * в каталог сегментов фиксированного размера и подтверждаются после
+ * {@code force}.
+ *
+ * <p>Формат. Сегмент — файл {@code <смещение>.wal} размером {@code segmentSize}
+ * байт, где смещение — логическая позиция начала сегмента в журнале. Размер
+ * файла задаётся при создании сегмента, поэтому {@code force(false)} не
+ * записывает изменения размера в метаданные (настоящего {@code fallocate}
+ * в Java нет, файл может оказаться разреженным). Запись хранится как
+ * {@code [длина:int][CRC32C:int][данные]}; нулевая длина означает конец
+ * данных в сегменте, поэтому пустые записи не допускаются. Смещение записи —
+ * логическая позиция её заголовка.</p>
+ *
+ * <p>Запись. Производители из любых потоков кладут записи в ограниченную
+ * очередь ({@link #append(byte[])}) и получают {@link CompletableFuture}.
+ * Единственный поток-писатель забирает из очереди всё накопившееся, собирает
+ * кадры в прямой буфер, записывает их позиционной записью и выполняет один
+ * {@code force} на весь пакет (group commit). Чем больше производителей ждут
+ * сброса, тем больше записей приходится на один {@code force}. Полная очередь
+ * блокирует производителей.</p>
+ *
+ * <p>Восстановление. При открытии последний сегмент просматривается с начала,
+ * и первая запись с неверной длиной или контрольной суммой считается
+ * оборванной при сбое: хвост сегмента обнуляется, запись продолжается с этого
+ * места. Перед переходом к новому сегменту предыдущий сбрасывается на диск,
+ * поэтому оборванной может быть только запись в последнем сегменте.</p>
+ *
+ * <p>Чтение. {@link #replay(long, RecordHandler)} отображает сегменты в память
+ * и передаёт записи начиная с заданного смещения, не копируя их. Читаются только
+ * записи, подтверждённые к началу чтения; повреждение в этой области — ошибка.</p>
+ *
+ * <p>Пример использования:</p>
+ * <pre>
+ * try (WriteAheadLog log = new WriteAheadLog(Paths.get("wal"))) {
+ *     log.append(event).thenAccept(offset -&gt; acknowledge(offset));
+ *     log.replay(log.startOffset(), (offset, record) -&gt; apply(record));
+ * }
+ * </pre>
+ */
+public class WriteAheadLog implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(WriteAheadLog.class);
+
+    /** Размер сегмента по умолчанию */
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    /** Ёмкость очереди производителей по умолчанию */
+    public static final int DEFAULT_QUEUE_CAPACITY = 64 * 1024;
+
+    /** Размер заголовка записи: длина и CRC32C */
+    public static final int HEADER_SIZE = 8;
+
+    private static final String SEGMENT_SUFFIX = ".wal";
+    private static final int BATCH_BUFFER_SIZE = 1024 * 1024;
+    private static final int MAX_BATCH_RECORDS = 16 * 1024;
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    private final Path dir;
+    private final int segmentSize;
+    private final BlockingQueue<Pending> queue;
+    private final long startOffset;
+    private final Thread writer;
+
+    // Изменяются только потоком-писателем
+    private Segment current;
+    private int position;
+    private int bufferStart;
+    private final CRC32C crc = new CRC32C();
+    private final BufferPool.PooledBuffer batchBuffer;
+    private IOException failure;
+
+    private volatile long durableOffset;
+    private volatile boolean closed;
+    private volatile boolean writerDone;
+
+    /**
+     * Открывает журнал с сегментами по {@value #DEFAULT_SEGMENT_SIZE} байт.
+     *
+     * @param dir каталог сегментов; создаётся при отсутствии
+     * @throws IOException если журнал не удалось открыть или восстановить
+     */
+    public WriteAheadLog(Path dir) throws IOException {
+        this(dir, DEFAULT_SEGMENT_SIZE, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param dir           каталог сегментов; создаётся при отсутствии
+     * @param segmentSize   размер сегмента; должен совпадать с размером существующих сегментов
+     * @param queueCapacity число записей, ожидающих писателя, после которого производители блокируются
+     * @throws IOException если журнал не удалось открыть или восстановить
+     */
+    public WriteAheadLog(Path dir, int segmentSize, int queueCapacity) throws IOException {
+        if (segmentSize <= HEADER_SIZE || queueCapacity <= 0) {
+            throw new IllegalArgumentException("Недопустимые размер сегмента или ёмкость очереди: "
+                    + segmentSize + ", " + queueCapacity);
+        }
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        Files.createDirectories(dir);
+
+        List<Long> bases = listSegments();
+        if (bases.isEmpty()) {
+            startOffset = 0;
+            current = createSegment(0);
+            position = 0;
+        } else {
+            startOffset = bases.get(0);
+            current = openSegment(bases.get(bases.size() - 1));
+            try {
+                position = recover(current);
+            } catch (IOException e) {
+                current.channel.close();
+                throw e;
+            }
+        }
+        bufferStart = position;
+        durableOffset = current.base + position;
+        logger.info("Журнал {} открыт: сегментов {}, записи с {} по {}",
+                dir, Math.max(1, bases.size()), startOffset, durableOffset);
+
+        batchBuffer = BufferPool.shared().acquire(BATCH_BUFFER_SIZE);
+        writer = new Thread(this::runWriter, "wal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Ставит запись в очередь. Массив не копируется и не должен изменяться,
+     * пока результат не завершён.
+     *
+     * @param record непустая запись не длиннее {@code segmentSize - HEADER_SIZE}
+     * @return смещение записи после её сброса на диск; завершается
+     *         {@link IOException}, если запись или сброс не удались
+     * @throws IllegalStateException если журнал закрыт
+     */
+    public CompletableFuture<Long> append(byte[] record) {
+        return append(ByteBuffer.wrap(record));
+    }
+
+    /**
+     * Ставит запись в очередь. Байты от position до limit не копируются
+     * и не должны изменяться, пока результат не завершён; позиция буфера не меняется.
+     *
+     * @param record непустая запись не длиннее {@code segmentSize - HEADER_SIZE}
+     * @return смещение записи после её сброса на диск
+     * @throws IllegalStateException если журнал закрыт
+     */
+    public CompletableFuture<Long> append(ByteBuffer record) {
+        int length = record.remaining();
+        if (length == 0 || length > segmentSize - HEADER_SIZE) {
+            throw new IllegalArgumentException("Размер записи должен быть от 1 до "
+                    + (segmentSize - HEADER_SIZE) + " байт: " + length);
+        }
+        if (closed) {
+            throw new IllegalStateException("Ресурс уже закрыт!");
+        }
+        Pending pending = new Pending(record.duplicate());
+        try {
+            while (!queue.offer(pending, POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (writerDone) {
+                    throw new IllegalStateException("Ресурс уже закрыт!");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.future.completeExceptionally(new InterruptedIOException("Ожидание места в очереди прервано"));
+            return pending.future;
+        }
+        // Писатель мог завершиться между проверкой closed и постановкой в очередь
+        if (writerDone && queue.remove(pending)) {
+            pending.future.completeExceptionally(new IllegalStateException("Ресурс уже закрыт!"));
+        }
+        return pending.future;
+    }
+
+    /**
+     * Дописывает запись и ждёт её сброса на диск.
+     *
+     * @param record непустая запись
+     * @return смещение записи
+     * @throws IOException если запись или сброс не удались
+     * @see #append(byte[])
+     */
+    public long appendAndWait(byte[] record) throws IOException {
+        try {
+            return append(record).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Ожидание записи в журнал прервано");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * @return смещение первой записи журнала
+     */
+    public long startOffset() {
+        return startOffset;
+    }
+
+    /**
+     * @return смещение, до которого все записи сброшены на диск
+     */
+    public long durableOffset() {
+        return durableOffset;
+    }
+
+    /**
+     * Передаёт обработчику подтверждённые записи, начиная с {@code fromOffset}.
+     * Буфер записи — срез отображённого в память сегмента только для чтения,
+     * действительный во время вызова обработчика.
+     *
+     * @param fromOffset смещение записи, полученное от {@link #append(byte[])},
+     *                   {@link #startOffset()} или предыдущего {@code replay}
+     * @param handler    обработчик записей
+     * @return смещение, с которого следует продолжить чтение
+     * @throws IOException если сегмент не удалось прочитать или запись повреждена
+     */
+    public long replay(long fromOffset, RecordHandler handler) throws IOException {
+        long end = durableOffset;
+        if (fromOffset < startOffset || fromOffset > end) {
+            throw new IllegalArgumentException("Смещение " + fromOffset + " вне журнала [" + startOffset + ", " + end + "]");
+        }
+        CRC32C checksum = new CRC32C();
+        long offset = fromOffset;
+        while (offset < end) {
+            long base = offset - offset % segmentSize;
+            MappedByteBuffer segment;
+            try (FileChannel channel = FileChannel.open(segmentPath(base), StandardOpenOption.READ)) {
+                segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, segmentSize);
+            }
+            int pos = (int) (offset - base);
+            boolean segmentEnd = false;
+            while (base + pos < end) {
+                // Нулевая длина или нехватка места под заголовок: писатель перешёл к следующему сегменту
+                if (pos > segmentSize - HEADER_SIZE || segment.getInt(pos) == 0) {
+                    segmentEnd = true;
+                    break;
+                }
+                int length = segment.getInt(pos);
+                if (length < 0 || length > segmentSize - pos - HEADER_SIZE) {
+                    throw new IOException("Повреждённая длина записи " + length + " по смещению " + (base + pos));
+                }
+                ByteBuffer record = segment.slice(pos + HEADER_SIZE, length).asReadOnlyBuffer();
+                checksum.reset();
+                checksum.update(record.duplicate());
+                if ((int) checksum.getValue() != segment.getInt(pos + Integer.BYTES)) {
+                    throw new IOException("Неверная контрольная сумма записи по смещению " + (base + pos));
+                }
+                handler.accept(base + pos, record);
+                pos += HEADER_SIZE + length;
+            }
+            offset = segmentEnd ? base + segmentSize : base + pos;
+        }
+        return Math.min(offset, end);
+    }
+
+    /**
+     * Дожидается записи всех поставленных в очередь записей, останавливает
+     * писателя и закрывает сегмент. Повторный вызов ничего не делает.
+     *
+     * @throws IOException если сегмент не удалось закрыть
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<Pending> rejected = new ArrayList<>();
+        queue.drainTo(rejected);
+        for (Pending pending : rejected) {
+            pending.future.completeExceptionally(new IllegalStateException("Ресурс уже закрыт!"));
+        }
+        batchBuffer.close();
+        current.channel.close();
+        logger.info("Журнал {} закрыт на смещении {}", dir, durableOffset);
+    }
+
+    // Цикл писателя: выходит, когда журнал закрыт и очередь пуста
+    private void runWriter() {
+        List<Pending> batch = new ArrayList<>();
+        try {
+            while (true) {
+                Pending first = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (closed) {
+                        break;
+                    }
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH_RECORDS - 1);
+                commit(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            writerDone = true;
+        }
+    }
+
+    private void commit(List<Pending> batch) {
+        if (failure == null) {
+            try {
+                for (Pending pending : batch) {
+                    pending.offset = writeFrame(pending.record);
+                }
+                writeBuffer();
+                current.channel.force(false);
+                durableOffset = current.base + position;
+                for (Pending pending : batch) {
+                    pending.future.complete(pending.offset);
+                }
+                return;
+            } catch (IOException | RuntimeException e) {
+                failure = e instanceof IOException ? (IOException) e : new IOException(e);
+                logger.error("Запись в журнал {} завершилась ошибкой", dir, e);
+            }
+        }
+        for (Pending pending : batch) {
+            pending.future.completeExceptionally(new IOException("Журнал " + dir + " недоступен для записи", failure));
+        }
+    }
+
+    private long writeFrame(ByteBuffer record) throws IOException {
+        int length = record.remaining();
+        int frame = HEADER_SIZE + length;
+        if (position + frame > segmentSize) {
+            writeBuffer();
+            roll();
+        }
+        long offset = current.base + position;
+        crc.reset();
+        crc.update(record.duplicate());
+        int checksum = (int) crc.getValue();
+        ByteBuffer buffer = batchBuffer.buffer();
+        if (frame > buffer.remaining()) {
+            writeBuffer();
+        }
+        if (frame <= buffer.remaining()) {
+            buffer.putInt(length).putInt(checksum).put(record.duplicate());
+        } else {
+            // Запись больше буфера пакета: заголовок и данные одной позиционной записью
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(length).putInt(checksum).flip();
+            writeFully(new ByteBuffer[]{header, record.duplicate()}, position);
+            bufferStart = position + frame;
+        }
+        position += frame;
+        return offset;
+    }
+
+    private void writeBuffer() throws IOException {
+        ByteBuffer buffer = batchBuffer.buffer().flip();
+        long pos = bufferStart;
+        while (buffer.hasRemaining()) {
+            pos += current.channel.write(buffer, pos);
+        }
+        buffer.clear();
+        bufferStart = position;
+    }
+
+    private void writeFully(ByteBuffer[] buffers, long pos) throws IOException {
+        for (ByteBuffer buffer : buffers) {
+            while (buffer.hasRemaining()) {
+                pos += current.channel.write(buffer, pos);
+            }
+        }
+    }
+
+    // Закрепляет текущий сегмент и переходит к следующему
+    private void roll() throws IOException {
+        current.channel.force(false);
+        current.channel.close();
+        current = createSegment(current.base + segmentSize);
+        position = 0;
+        bufferStart = 0;
+        logger.debug("Журнал {}: новый сегмент {}", dir, current.base);
+    }
+
+    private Segment createSegment(long base) throws IOException {
+        Path path = segmentPath(base);
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            // Размер задаётся сразу: последующие force(false) не меняют метаданные
+            channel.write(ByteBuffer.allocate(1), segmentSize - 1);
+            channel.force(true);
+            syncDirectory();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new Segment(base, IoMetrics.global().wrap(dir.toString(), channel));
+    }
+
+    private Segment openSegment(long base) throws IOException {
+        Path path = segmentPath(base);
+        long size = Files.size(path);
+        if (size != segmentSize) {
+            throw new IOException("Размер сегмента " + path + " (" + size + ") не совпадает с " + segmentSize);
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new Segment(base, IoMetrics.global().wrap(dir.toString(), channel));
+    }
+
+    // Находит конец корректных записей и обнуляет оборванный хвост
+    private int recover(Segment segment) throws IOException {
+        MappedByteBuffer data = segment.channel.map(FileChannel.MapMode.READ_ONLY, 0, segmentSize);
+        CRC32C checksum = new CRC32C();
+        int pos = 0;
+        while (pos <= segmentSize - HEADER_SIZE) {
+            int length = data.getInt(pos);
+            if (length <= 0 || length > segmentSize - pos - HEADER_SIZE) {
+                break;
+            }
+            checksum.reset();
+            checksum.update(data.slice(pos + HEADER_SIZE, length));
+            if ((int) checksum.getValue() != data.getInt(pos + Integer.BYTES)) {
+                break;
+            }
+            pos += HEADER_SIZE + length;
+        }
+        // Нулевой заголовок ещё не значит, что дальше пусто: за обнулённым или
+        // недописанным заголовком могут остаться целые записи прошлых запусков,
+        // которые новые записи сделают снова достижимыми. Обнуляем весь хвост,
+        // если в нём есть хоть один ненулевой байт.
+        ByteBuffer zeros = ByteBuffer.allocate(BATCH_BUFFER_SIZE);
+        if (hasData(data, pos, zeros)) {
+            logger.warn("Журнал {}: запись прервана на смещении {}, хвост сегмента обнуляется",
+                    dir, segment.base + pos);
+            for (long at = pos; at < segmentSize; at += BATCH_BUFFER_SIZE) {
+                zeros.clear().limit((int) Math.min(BATCH_BUFFER_SIZE, segmentSize - at));
+                long written = at;
+                while (zeros.hasRemaining()) {
+                    written += segment.channel.write(zeros, written);
+                }
+            }
+            segment.channel.force(false);
+        }
+        return pos;
+    }
+
+    // Проверяет, есть ли в сегменте ненулевые байты начиная с from
+    private boolean hasData(MappedByteBuffer data, int from, ByteBuffer zeros) {
+        for (int at = from; at < segmentSize; at += BATCH_BUFFER_SIZE) {
+            int length = Math.min(BATCH_BUFFER_SIZE, segmentSize - at);
+            if (data.slice(at, length).mismatch(zeros.clear().limit(length)) != -1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<Long> listSegments() throws IOException {
+        List<Long> bases = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                try {
+                    long base = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                    if (base % segmentSize != 0) {
+                        throw new IOException("Сегмент " + path + " не выровнен по размеру " + segmentSize);
+                    }
+                    bases.add(base);
+                } catch (NumberFormatException e) {
+                    logger.warn("Файл {} не является сегментом журнала", path);
+                }
+            }
+        }
+        bases.sort(null);
+        return bases;
+    }
+
+    private Path segmentPath(long base) {
+        return dir.resolve(String.format("%020d%s", base, SEGMENT_SUFFIX));
+    }
+
+    // Закрепляет на диске запись о новом файле в каталоге (поддерживается не всеми ОС)
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            logger.debug("Каталог {} не удалось сбросить на диск: {}", dir, e.toString());
+        }
+    }
+
+    private record Segment(long base, FileChannel channel) {
+    }
+
+    private static final class Pending {
+        final ByteBuffer record;
+        final CompletableFuture<Long> future = new CompletableFuture<>();
+        long offset;
+
+        Pending(ByteBuffer record) {
+            this.record = record;
+        }
+    }
+
+    /**
+     * Обработчик записей при чтении журнала.
+     */
+    @FunctionalInterface
+    public interface RecordHandler {
+        /**
+         * @param offset смещение записи
+         * @param record данные записи только для чтения
+         * @throws IOException если обработка записи завершилась ошибкой
+         */
+        void accept(long offset, ByteBuffer record) throws IOException;
+    }
+}
@@ -0,0 +1,241 @@
+package ru.rgordeev;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Пакетная запись файлов в ZIP-архив.
+ *
+ * <p>Изменения накапливаются через {@code add(...)} и применяются одним вызовом
+ * {@link #commit()}: архив переписывается один раз, а не при каждой записи.
+ * Существующие записи, которые не заменяются пакетом, копируются без изменения
+ * способа сжатия. Для новых записей пакет задаёт способ хранения
+ * ({@link ZipEntry#STORED} или {@link ZipEntry#DEFLATED}) и уровень сжатия.</p>
+ *
+ * <p>Пример использования:</p>
+ * <pre>
+ * zip.batch()
+ *    .level(Deflater.BEST_SPEED)
+ *    .add("a.txt", "Hello")
+ *    .add("data/b.bin", bytes)
+ *    .add("c.log", Path.of("c.log"))
+ *    .commit();
+ * </pre>
+ *
+ * <p>Экземпляры создаются методом {@link ZipFileSystemExample#batch()}.
+ * Пакет одноразовый и не потокобезопасен; запись в тот же архив из других потоков
+ * во время {@link #commit()} не поддерживается.</p>
+ */
+public class ZipBatch {
+    private static final Logger logger = LogManager.getLogger(ZipBatch.class);
+
+    private final Path zipPath;
+    private final ZipFileSystemCache cache;
+    private final Map<String, Source> sources = new LinkedHashMap<>();
+    private int method = ZipEntry.DEFLATED;
+    private int level = Deflater.DEFAULT_COMPRESSION;
+    private boolean committed;
+
+    ZipBatch(Path zipPath, ZipFileSystemCache cache) {
+        this.zipPath = zipPath;
+        this.cache = cache;
+    }
+
+    /**
+     * Задаёт способ хранения новых записей.
+     *
+     * @param method {@link ZipEntry#STORED} или {@link ZipEntry#DEFLATED}
+     * @return этот же пакет
+     * @throws IllegalArgumentException при неизвестном способе
+     */
+    public ZipBatch method(int method) {
+        if (method != ZipEntry.STORED && method != ZipEntry.DEFLATED) {
+            throw new IllegalArgumentException("Неизвестный способ сжатия: " + method);
+        }
+        this.method = method;
+        return this;
+    }
+
+    /**
+     * Задаёт уровень сжатия для {@link ZipEntry#DEFLATED}.
+     *
+     * @param level уровень от 0 до 9 или {@link Deflater#DEFAULT_COMPRESSION}
+     * @return этот же пакет
+     * @throws IllegalArgumentException при недопустимом уровне
+     */
+    public ZipBatch level(int level) {
+        if ((level < 0 || level > 9) && level != Deflater.DEFAULT_COMPRESSION) {
+            throw new IllegalArgumentException("Недопустимый уровень сжатия: " + level);
+        }
+        this.level = level;
+        return this;
+    }
+
+    /**
+     * Добавляет запись с двоичным содержимым. Повторное имя заменяет предыдущую запись.
+     *
+     * @param name    имя файла внутри архива
+     * @param content содержимое
+     * @return этот же пакет
+     */
+    public ZipBatch add(String name, byte[] content) {
+        return add(name, new Source(content, null));
+    }
+
+    /**
+     * Добавляет текстовую запись в кодировке UTF-8.
+     *
+     * @param name    имя файла внутри архива
+     * @param content содержимое
+     * @return этот же пакет
+     */
+    public ZipBatch add(String name, String content) {
+        return add(name, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Добавляет запись с содержимым внешнего файла. Файл читается при {@link #commit()}.
+     *
+     * @param name   имя файла внутри архива
+     * @param source путь к исходному файлу
+     * @return этот же пакет
+     */
+    public ZipBatch add(String name, Path source) {
+        return add(name, new Source(null, source));
+    }
+
+    /**
+     * @return число записей в пакете
+     */
+    public int size() {
+        return sources.size();
+    }
+
+    /**
+     * Записывает архив: существующие записи и записи пакета сохраняются во временный
+     * файл рядом с архивом, который затем заменяет архив.
+     *
+     * @throws IOException           при ошибках чтения исходных файлов или записи архива
+     * @throws IllegalStateException если пакет уже применён
+     */
+    public void commit() throws IOException {
+        if (committed) {
+            throw new IllegalStateException("Пакет уже применён");
+        }
+        committed = true;
+        long start = System.nanoTime();
+
+        // Несохранённые изменения из кэша должны попасть в файл до его перезаписи
+        cache.flush(zipPath);
+        Path directory = zipPath.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(directory, zipPath.getFileName().toString(), ".tmp");
+        try {
+            try (ZipOutputStream out = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.setLevel(level);
+                int copied = copyExisting(out);
+                for (Map.Entry<String, Source> entry : sources.entrySet()) {
+                    write(out, entry.getKey(), entry.getValue());
+                }
+                logger.debug("Скопировано существующих записей: {}", copied);
+            }
+            Files.move(temp, zipPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        logger.info("В архив {} записан пакет из {} файлов за {} ms",
+                zipPath.getFileName(), sources.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private ZipBatch add(String name, Source source) {
+        if (committed) {
+            throw new IllegalStateException("Пакет уже применён");
+        }
+        sources.put(normalize(name), source);
+        return this;
+    }
+
+    private int copyExisting(ZipOutputStream out) throws IOException {
+        if (Files.notExists(zipPath)) {
+            return 0;
+        }
+        int copied = 0;
+        try (ZipFile existing = new ZipFile(zipPath.toFile())) {
+            Enumeration<? extends ZipEntry> entries = existing.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry old = entries.nextElement();
+                if (sources.containsKey(old.getName())) {
+                    continue;
+                }
+                ZipEntry copy = new ZipEntry(old.getName());
+                copy.setTime(old.getTime());
+                copy.setMethod(old.getMethod());
+                if (old.getMethod() == ZipEntry.STORED) {
+                    copy.setSize(old.getSize());
+                    copy.setCompressedSize(old.getSize());
+                    copy.setCrc(old.getCrc());
+                }
+                out.putNextEntry(copy);
+                try (InputStream in = existing.getInputStream(old)) {
+                    in.transferTo(out);
+                }
+                out.closeEntry();
+                copied++;
+            }
+        }
+        return copied;
+    }
+
+    private void write(ZipOutputStream out, String name, Source source) throws IOException {
+        ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(method);
+        if (method == ZipEntry.STORED) {
+            // Для STORED размер и CRC нужны до записи данных
+            CRC32 crc = new CRC32();
+            long size;
+            if (source.content != null) {
+                crc.update(source.content);
+                size = source.content.length;
+            } else {
+                try (CheckedInputStream in = new CheckedInputStream(Files.newInputStream(source.file), crc)) {
+                    size = in.transferTo(OutputStream.nullOutputStream());
+                }
+            }
+            entry.setSize(size);
+            entry.setCompressedSize(size);
+            entry.setCrc(crc.getValue());
+        }
+        out.putNextEntry(entry);
+        if (source.content != null) {
+            out.write(source.content);
+        } else {
+            Files.copy(source.file, out);
+        }
+        out.closeEntry();
+    }
+
+    private static String normalize(String name) {
+        return name.startsWith("/") ? name.substring(1) : name;
+    }
+
+    /** Содержимое записи: либо массив байтов, либо путь к файлу */
+    private record Source(byte[] content, Path file) {
+    }
+}
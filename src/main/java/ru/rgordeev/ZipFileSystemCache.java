@@ -0,0 +1,391 @@
+package ru.rgordeev;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Кэш открытых ZIP {@link FileSystem} с подсчётом ссылок.
+ *
+ * <p>Открытие ZIP FileSystem разбирает центральный каталог архива, а закрытие
+ * перезаписывает архив целиком, если в нём были изменения. Кэш держит файловую
+ * систему открытой между операциями: каждая операция берёт {@link Handle}
+ * через {@link #acquire(Path, boolean)} и освобождает его в try-with-resources.
+ * Файловая система, которой никто не пользуется дольше {@code idleTimeout},
+ * закрывается фоновым потоком.</p>
+ *
+ * <p>Изменения попадают в файл на диске только при закрытии файловой системы:
+ * при вытеснении по таймауту, вызове {@link #flush(Path)} / {@link #flushAll()},
+ * {@link #close()} или при завершении JVM (для {@link #shared()}).
+ * Кэш с нулевым таймаутом ({@link #uncached()}) закрывает файловую систему сразу
+ * после освобождения последней ссылки, что повторяет поведение без кэша.</p>
+ *
+ * <p>Монитор кэша защищает только таблицу записей и счётчики ссылок. Открытие и
+ * закрытие файловой системы (закрытие изменённого архива перезаписывает его
+ * целиком) выполняются без монитора: запись на это время помечается как
+ * открываемая или закрываемая, и ждут только обращения к тому же архиву.</p>
+ */
+public class ZipFileSystemCache implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(ZipFileSystemCache.class);
+
+    /** Время простоя, после которого файловая система закрывается, по умолчанию */
+    public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofSeconds(30);
+
+    private static final ZipFileSystemCache SHARED = createShared();
+
+    private final Map<Path, Entry> entries = new HashMap<>();
+    private final long idleTimeoutNanos;
+    private final ScheduledExecutorService evictor;
+    private boolean closed;
+
+    /**
+     * Создаёт кэш с указанным временем простоя.
+     *
+     * @param idleTimeout время простоя до закрытия; {@link Duration#ZERO} отключает кэширование
+     * @throws IllegalArgumentException если время отрицательное
+     */
+    public ZipFileSystemCache(Duration idleTimeout) {
+        if (idleTimeout.isNegative()) {
+            throw new IllegalArgumentException("Время простоя не может быть отрицательным: " + idleTimeout);
+        }
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        if (idleTimeoutNanos > 0) {
+            long period = Math.max(TimeUnit.MILLISECONDS.toNanos(100), idleTimeoutNanos / 2);
+            this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "zip-fs-cache-evictor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.NANOSECONDS);
+        } else {
+            this.evictor = null;
+        }
+    }
+
+    /**
+     * Общий кэш с таймаутом {@link #DEFAULT_IDLE_TIMEOUT}. Изменения, сделанные через него,
+     * попадают на диск только при {@link #flush(Path)}, простое или штатном завершении JVM;
+     * при аварийном завершении процесса они теряются.
+     *
+     * @return общий кэш, сбрасываемый на диск при завершении JVM
+     */
+    public static ZipFileSystemCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * @return новый кэш, закрывающий файловую систему сразу после использования
+     */
+    public static ZipFileSystemCache uncached() {
+        return new ZipFileSystemCache(Duration.ZERO);
+    }
+
+    /**
+     * Возвращает ссылку на открытую файловую систему архива, открывая её при необходимости.
+     * Если для архива выполняется {@link #flush(Path)}, вызов ждёт его завершения.
+     *
+     * @param zipPath путь к архиву
+     * @param create  создать архив, если он не существует
+     * @return ссылка, которую нужно закрыть после использования
+     * @throws IOException если архив не удалось открыть
+     */
+    public Handle acquire(Path zipPath, boolean create) throws IOException {
+        Path key = zipPath.toAbsolutePath().normalize();
+        Entry entry;
+        synchronized (this) {
+            checkOpen();
+            entry = awaitReady(key);
+            if (entry != null) {
+                entry.references++;
+                return new Handle(entry);
+            }
+            // Остальные обращения к этому архиву ждут открытия, к другим архивам — нет
+            entry = new Entry(key);
+            entry.references++;
+            entries.put(key, entry);
+        }
+        FileSystem fileSystem;
+        try {
+            Map<String, String> env = new HashMap<>();
+            env.put("create", String.valueOf(create));
+            fileSystem = FileSystems.newFileSystem(key, env);
+        } catch (IOException | RuntimeException e) {
+            synchronized (this) {
+                entries.remove(key);
+                notifyAll();
+            }
+            throw e;
+        }
+        synchronized (this) {
+            entry.fileSystem = fileSystem;
+            notifyAll();
+        }
+        logger.debug("Открыта ZIP FileSystem {}", key);
+        return new Handle(entry);
+    }
+
+    /**
+     * Закрывает файловую систему архива, записывая изменения на диск.
+     * Ждёт, пока все выданные ссылки будут освобождены.
+     *
+     * @param zipPath путь к архиву
+     * @throws IOException если при записи архива произошла ошибка
+     */
+    public void flush(Path zipPath) throws IOException {
+        Entry entry;
+        synchronized (this) {
+            entry = awaitReady(zipPath.toAbsolutePath().normalize());
+            if (entry == null) {
+                return;
+            }
+            entry.closing = true;
+            try {
+                while (entry.references > 0) {
+                    awaitChange();
+                }
+            } catch (InterruptedIOException e) {
+                entry.closing = false;
+                notifyAll();
+                throw e;
+            }
+        }
+        closeEntry(entry);
+        logger.info("ZIP FileSystem {} сброшена на диск", entry.path);
+    }
+
+    /**
+     * Сбрасывает на диск все открытые файловые системы.
+     *
+     * @throws IOException если при записи какого-либо архива произошла ошибка;
+     *                     остальные архивы всё равно сбрасываются
+     */
+    public void flushAll() throws IOException {
+        List<Path> paths;
+        synchronized (this) {
+            paths = new ArrayList<>(entries.keySet());
+        }
+        IOException failure = null;
+        for (Path path : paths) {
+            try {
+                flush(path);
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * @param zipPath путь к архиву
+     * @return true если файловая система архива открыта, открывается или закрывается
+     *         (и файл архива может не совпадать с её содержимым)
+     */
+    public synchronized boolean isOpen(Path zipPath) {
+        return entries.containsKey(zipPath.toAbsolutePath().normalize());
+    }
+
+    /**
+     * @return число открытых файловых систем
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Сбрасывает все архивы на диск и останавливает фоновое вытеснение.
+     * После закрытия новые ссылки не выдаются.
+     *
+     * @throws IOException если при записи архива произошла ошибка
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        if (evictor != null) {
+            evictor.shutdownNow();
+        }
+        flushAll();
+    }
+
+    private void release(Entry entry) throws IOException {
+        synchronized (this) {
+            entry.references--;
+            entry.lastReleased = System.nanoTime();
+            if (entry.references > 0) {
+                return;
+            }
+            if (entry.closing) {
+                // Освобождение ждёт поток, выполняющий flush
+                notifyAll();
+                return;
+            }
+            if (idleTimeoutNanos > 0) {
+                return;
+            }
+            entry.closing = true;
+        }
+        closeEntry(entry);
+    }
+
+    private void evictIdle() {
+        List<Entry> idle = new ArrayList<>();
+        synchronized (this) {
+            long now = System.nanoTime();
+            for (Entry entry : entries.values()) {
+                if (entry.fileSystem != null && entry.references == 0 && !entry.closing
+                        && now - entry.lastReleased >= idleTimeoutNanos) {
+                    entry.closing = true;
+                    idle.add(entry);
+                }
+            }
+        }
+        for (Entry entry : idle) {
+            try {
+                closeEntry(entry);
+                logger.debug("ZIP FileSystem {} закрыта после простоя", entry.path);
+            } catch (IOException e) {
+                logger.error("Ошибка при закрытии ZIP FileSystem {}", entry.path, e);
+            }
+        }
+    }
+
+    /**
+     * Ждёт, пока файловая система архива откроется или будет закрыта.
+     * Вызывается под монитором кэша.
+     *
+     * @return открытая запись или null, если файловая система не открыта
+     */
+    private Entry awaitReady(Path key) throws InterruptedIOException {
+        Entry entry;
+        while ((entry = entries.get(key)) != null && (entry.closing || entry.fileSystem == null)) {
+            awaitChange();
+        }
+        return entry;
+    }
+
+    /**
+     * Закрывает файловую систему записи, помеченной как закрываемая, без монитора кэша:
+     * закрытие изменённого архива перезаписывает его целиком. Запись остаётся в таблице
+     * до конца закрытия, чтобы архив не открылся заново, пока он перезаписывается.
+     */
+    private void closeEntry(Entry entry) throws IOException {
+        try {
+            entry.fileSystem.close();
+        } finally {
+            synchronized (this) {
+                entries.remove(entry.path);
+                notifyAll();
+            }
+        }
+    }
+
+    private void awaitChange() throws InterruptedIOException {
+        try {
+            wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Ожидание ZIP FileSystem прервано");
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Кэш уже закрыт!");
+        }
+    }
+
+    private static ZipFileSystemCache createShared() {
+        ZipFileSystemCache cache = new ZipFileSystemCache(DEFAULT_IDLE_TIMEOUT);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                cache.close();
+            } catch (IOException e) {
+                logger.error("Ошибка при сбросе ZIP-архивов при завершении", e);
+            }
+        }, "zip-fs-cache-shutdown"));
+        return cache;
+    }
+
+    /**
+     * Файловая система архива и её счётчик ссылок; защищены монитором кэша.
+     * {@code fileSystem == null} — файловая система ещё открывается,
+     * {@code closing} — закрывается или ждёт освобождения ссылок для закрытия.
+     */
+    private static final class Entry {
+        final Path path;
+        // Читается через Handle без монитора; ссылка выдаётся только после открытия
+        volatile FileSystem fileSystem;
+        int references;
+        long lastReleased = System.nanoTime();
+        boolean closing;
+
+        Entry(Path path) {
+            this.path = path;
+        }
+    }
+
+    /**
+     * Ссылка на открытую ZIP FileSystem. Закрытие ссылки не закрывает
+     * файловую систему, а только уменьшает счётчик ссылок.
+     */
+    public final class Handle implements AutoCloseable {
+        private final Entry entry;
+        private boolean released;
+
+        private Handle(Entry entry) {
+            this.entry = entry;
+        }
+
+        /**
+         * @return файловая система архива
+         */
+        public FileSystem fileSystem() {
+            return entry.fileSystem;
+        }
+
+        /**
+         * @param name имя файла внутри архива
+         * @return абсолютный путь к файлу внутри архива
+         */
+        public Path getPath(String name) {
+            return entry.fileSystem.getPath("/" + name);
+        }
+
+        /**
+         * Освобождает ссылку. Для кэша без хранения ({@link #uncached()})
+         * закрывает файловую систему и записывает архив.
+         *
+         * @throws IOException если при записи архива произошла ошибка
+         */
+        @Override
+        public void close() throws IOException {
+            if (!released) {
+                released = true;
+                release(entry);
+            }
+        }
+    }
+}
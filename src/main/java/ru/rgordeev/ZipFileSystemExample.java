@@ -4,10 +4,12 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.IOException;
-import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
-import java.util.HashMap;
+import java.util.Collection;
 import java.util.Map;
+import java.util.zip.Deflater;
 
 /**
  * Класс для работы с ZIP-архивами через Java NIO.2 FileSystem API.
@@ -20,35 +22,94 @@ import java.util.Map;
  * zip.writeFileToZip("hello.txt", "Hello, World!");
  * String content = zip.readFileFromZip("hello.txt");
  * </pre>
+ *
+ * <p>По умолчанию файловая система архива открывается на время операции и закрывается
+ * сразу после неё, поэтому завершившаяся запись уже находится в файле архива.
+ * С кэшем {@link ZipFileSystemCache#shared()} (конструктор
+ * {@link #ZipFileSystemExample(Path, ZipFileSystemCache)}) файловая система не
+ * открывается заново при каждой операции, но изменения записываются в файл архива
+ * только при вызове {@link #flush()}, после простоя файловой системы или при штатном
+ * завершении JVM; при аварийном завершении процесса они теряются.</p>
+ *
+ * <p>Пока файловая система архива не открыта для записи, чтение и проверка
+ * существования файлов выполняются через {@link ZipIndex}: центральный каталог
+ * разбирается один раз и перечитывается только при изменении архива на диске.
+ * Если за время чтения архив был открыт для записи или перезаписан, чтение
+ * повторяется с новым индексом, а затем выполняется через файловую систему архива.</p>
+ *
+ * <p>Распакованное содержимое прочитанных через индекс записей хранится в
+ * {@link ReadCache} с ключом по CRC записи, поэтому повторное чтение не обращается
+ * к диску и не распаковывает запись заново.</p>
+ *
+ * <p>Большие архивы создаются заново потоковой записью {@link #streamingWriter(int)}
+ * без ZIP FileSystem, которая держит данные записей до закрытия.</p>
+ *
+ * <p>Чтение, запись и копирование файлов учитываются в {@link IoMetrics#global()}
+ * как операции {@code zip-read} и {@code zip-write} по пути архива.</p>
  */
 public class ZipFileSystemExample {
     private static final Logger logger = LogManager.getLogger(ZipFileSystemExample.class);
+
+    // Имена операций в IoMetrics
+    private static final String ZIP_READ = "zip-read";
+    private static final String ZIP_WRITE = "zip-write";
+    // Попыток чтения через индекс, прежде чем читать через файловую систему архива
+    private static final int INDEX_READ_ATTEMPTS = 3;
     private final Path zipPath;
+    private final ZipFileSystemCache cache;
+    private final ReadCache readCache;
+    private volatile ZipIndex index;
 
     /**
-     * Создаёт новый экземпляр для работы с ZIP-архивом.
+     * Создаёт новый экземпляр для работы с ZIP-архивом без кэширования файловой
+     * системы: каждая запись попадает в файл архива до возврата из метода.
      *
      * @param zipPath путь к ZIP-файлу, который будет создан или изменён
      */
     public ZipFileSystemExample(Path zipPath) {
+        this(zipPath, ZipFileSystemCache.uncached());
+    }
+
+    /**
+     * Создаёт новый экземпляр для работы с ZIP-архивом с указанным кэшем файловых систем.
+     *
+     * @param zipPath путь к ZIP-файлу, который будет создан или изменён
+     * @param cache   кэш открытых ZIP FileSystem
+     */
+    public ZipFileSystemExample(Path zipPath, ZipFileSystemCache cache) {
+        this(zipPath, cache, ReadCache.shared());
+    }
+
+    /**
+     * Создаёт новый экземпляр с указанными кэшами файловых систем и содержимого записей.
+     *
+     * @param zipPath   путь к ZIP-файлу, который будет создан или изменён
+     * @param cache     кэш открытых ZIP FileSystem
+     * @param readCache кэш распакованного содержимого записей
+     */
+    public ZipFileSystemExample(Path zipPath, ZipFileSystemCache cache, ReadCache readCache) {
         this.zipPath = zipPath;
+        this.cache = cache;
+        this.readCache = readCache;
     }
 
     /**
      * Записывает текстовый файл в ZIP-архив.
+     * С кэширующим {@link ZipFileSystemCache} файл попадает на диск только после {@link #flush()}.
      *
      * @param fileName имя файла внутри архива
      * @param content содержимое файла
      * @throws IOException если произошла ошибка при записи
      */
     public void writeFileToZip(String fileName, String content) throws IOException {
-        Map<String, String> env = createZipEnvironment();
-
-        try (FileSystem zipFs = createZipFileSystem(env)) {
-            Path fileInsideZip = zipFs.getPath("/" + fileName);
-            Files.write(fileInsideZip, content.getBytes());
-            logger.info("Записан файл внутри ZIP: {} ({} байт)", fileInsideZip, content.length());
-        }
+        byte[] bytes = content.getBytes();
+        IoMetrics.global().measure(zipPath.toString(), ZIP_WRITE, bytes.length, () -> {
+            try (ZipFileSystemCache.Handle zipFs = cache.acquire(zipPath, true)) {
+                Path fileInsideZip = zipFs.getPath(fileName);
+                Files.write(fileInsideZip, bytes);
+                logger.info("Записан файл внутри ZIP: {} ({} байт)", fileInsideZip, content.length());
+            }
+        });
     }
 
     /**
@@ -59,58 +120,219 @@ public class ZipFileSystemExample {
      * @throws IOException если файл не найден или произошла ошибка чтения
      */
     public String readFileFromZip(String fileName) throws IOException {
-        try (FileSystem zipFs = FileSystems.newFileSystem(zipPath, (ClassLoader) null)) {
-            Path fileInsideZip = zipFs.getPath("/" + fileName);
+        ByteBuffer bytes = IoMetrics.global().measure(zipPath.toString(), ZIP_READ,
+                () -> readBytesFromZip(fileName), ByteBuffer::remaining);
+        return StandardCharsets.UTF_8.newDecoder()
+                .decode(bytes)
+                .toString();
+    }
+
+    private ByteBuffer readBytesFromZip(String fileName) throws IOException {
+        for (int attempt = 0; attempt < INDEX_READ_ATTEMPTS && !cache.isOpen(zipPath); attempt++) {
+            ZipIndex zipIndex;
+            ByteBuffer content;
+            try {
+                zipIndex = index();
+                content = readFromIndex(zipIndex, fileName);
+            } catch (IOException e) {
+                // Ошибка из-за перезаписи архива во время чтения — повторяем с новым индексом
+                if (archiveChanged(index)) {
+                    continue;
+                }
+                throw e;
+            }
+            if (!archiveChanged(zipIndex)) {
+                return content;
+            }
+        }
+        try (ZipFileSystemCache.Handle zipFs = cache.acquire(zipPath, false)) {
+            Path fileInsideZip = zipFs.getPath(fileName);
             if (!Files.exists(fileInsideZip)) {
                 throw new IOException("Файл " + fileName + " не найден в архиве");
             }
-            return Files.readString(fileInsideZip);
+            return ByteBuffer.wrap(Files.readAllBytes(fileInsideZip));
+        }
+    }
+
+    private ByteBuffer readFromIndex(ZipIndex zipIndex, String fileName) throws IOException {
+        // Имя нормализуется так же, как путь в ZIP FileSystem
+        String name = ZipIndex.normalize(fileName);
+        int entry = zipIndex.find(name);
+        if (entry < 0) {
+            throw new IOException("Файл " + fileName + " не найден в архиве");
+        }
+        // Ключ по CRC и размеру: после перезаписи архива с тем же содержимым запись остаётся в кэше
+        return readCache.get(ReadCache.zipEntryKey(zipPath, name, zipIndex.crc(entry), zipIndex.size(entry)),
+                () -> zipIndex.read(entry));
+    }
+
+    /**
+     * Проверяет после чтения через индекс, что архив не открывался для записи
+     * и не перезаписывался на диске, то есть ответ соответствует индексу.
+     *
+     * @param zipIndex индекс, по которому выполнялось чтение; null — индекс не построен
+     * @return true если ответ мог устареть и чтение нужно повторить
+     */
+    private boolean archiveChanged(ZipIndex zipIndex) {
+        if (zipIndex == null || cache.isOpen(zipPath)) {
+            return true;
+        }
+        try {
+            return zipIndex.isStale();
+        } catch (IOException e) {
+            // Файловая система архива заменяет файл удалением и переносом: файла может не быть
+            return true;
         }
     }
 
     /**
      * Копирует внешний файл в ZIP-архив.
+     * С кэширующим {@link ZipFileSystemCache} файл попадает на диск только после {@link #flush()}.
      *
      * @param sourceFile путь к исходному файлу
      * @param targetFileName имя файла внутри архива
      * @throws IOException если произошла ошибка при копировании
      */
     public void copyFileToZip(Path sourceFile, String targetFileName) throws IOException {
-        Map<String, String> env = createZipEnvironment();
-
-        try (FileSystem zipFs = createZipFileSystem(env)) {
-            Path targetPath = zipFs.getPath("/" + targetFileName);
-            Files.copy(sourceFile, targetPath, StandardCopyOption.REPLACE_EXISTING);
-            logger.info("Файл {} скопирован в ZIP как {}", sourceFile.getFileName(), targetPath.getFileName());
-        }
+        IoMetrics.global().measure(zipPath.toString(), ZIP_WRITE, () -> {
+            try (ZipFileSystemCache.Handle zipFs = cache.acquire(zipPath, true)) {
+                Path targetPath = zipFs.getPath(targetFileName);
+                Files.copy(sourceFile, targetPath, StandardCopyOption.REPLACE_EXISTING);
+                logger.info("Файл {} скопирован в ZIP как {}", sourceFile.getFileName(), targetPath.getFileName());
+                return Files.size(sourceFile);
+            }
+        }, Long::longValue);
     }
 
     /**
-     * Проверяет существование файла в ZIP-архиве.
+     * Проверяет существование файла или директории в ZIP-архиве. Ответ не зависит
+     * от того, открыт ли архив в кэше: имя нормализуется, а директория существует
+     * и без собственной записи, как в ZIP FileSystem.
      *
      * @param fileName имя файла для проверки
      * @return true если файл существует, false в противном случае
      * @throws IOException если произошла ошибка при доступе к архиву
      */
     public boolean fileExistsInZip(String fileName) throws IOException {
-        try (FileSystem zipFs = FileSystems.newFileSystem(zipPath, (ClassLoader) null)) {
-            return Files.exists(zipFs.getPath("/" + fileName));
+        for (int attempt = 0; attempt < INDEX_READ_ATTEMPTS && !cache.isOpen(zipPath); attempt++) {
+            ZipIndex zipIndex;
+            try {
+                zipIndex = index();
+            } catch (IOException e) {
+                if (archiveChanged(index)) {
+                    continue;
+                }
+                throw e;
+            }
+            boolean exists = zipIndex.exists(fileName);
+            if (!archiveChanged(zipIndex)) {
+                return exists;
+            }
+        }
+        try (ZipFileSystemCache.Handle zipFs = cache.acquire(zipPath, false)) {
+            return Files.exists(zipFs.getPath(fileName));
         }
     }
 
-    // Вспомогательный метод для создания ZIP FileSystem
-    private FileSystem createZipFileSystem(Map<String, String> env) throws IOException {
-        return FileSystems.newFileSystem(
-                URI.create("jar:" + zipPath.toUri()),
-                env
-        );
+    // Возвращает индекс архива, перестраивая его после изменения файла на диске
+    private ZipIndex index() throws IOException {
+        ZipIndex current = index;
+        if (current == null || current.isStale()) {
+            current = ZipIndex.open(zipPath);
+            index = current;
+        }
+        return current;
     }
 
-    // Вспомогательный метод для создания параметров ZIP-архива
-    private Map<String, String> createZipEnvironment() {
-        Map<String, String> env = new HashMap<>();
-        env.put("create", "true");
-        return env;
+    /**
+     * Распаковывает все файлы архива в директорию параллельно.
+     * Перед распаковкой накопленные изменения записываются на диск.
+     *
+     * @param targetDir   директория назначения
+     * @param parallelism число потоков
+     * @throws IOException если произошла ошибка при чтении архива или записи файлов
+     * @see ParallelZipExtractor
+     */
+    public void extractAll(Path targetDir, int parallelism) throws IOException {
+        flush();
+        new ParallelZipExtractor(index()).extractAll(targetDir, parallelism);
+    }
+
+    /**
+     * Читает несколько файлов из архива параллельно,
+     * используя по потоку на каждое доступное ядро.
+     *
+     * @param fileNames имена файлов внутри архива
+     * @return содержимое файлов в порядке {@code fileNames}
+     * @throws IOException если какой-либо файл не найден или произошла ошибка чтения
+     */
+    public Map<String, byte[]> readEntries(Collection<String> fileNames) throws IOException {
+        flush();
+        return new ParallelZipExtractor(index())
+                .readEntries(fileNames, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Записывает в архив несколько файлов за одну перезапись архива.
+     *
+     * @param files имена файлов внутри архива и их содержимое
+     * @throws IOException если произошла ошибка при записи
+     * @see #batch()
+     */
+    public void writeFilesToZip(Map<String, byte[]> files) throws IOException {
+        ZipBatch batch = batch();
+        files.forEach(batch::add);
+        batch.commit();
+    }
+
+    /**
+     * Копирует в архив несколько внешних файлов за одну перезапись архива.
+     *
+     * @param files имена файлов внутри архива и пути к исходным файлам
+     * @throws IOException если произошла ошибка при копировании
+     * @see #batch()
+     */
+    public void copyFilesToZip(Map<String, Path> files) throws IOException {
+        ZipBatch batch = batch();
+        files.forEach(batch::add);
+        batch.commit();
+    }
+
+    /**
+     * Создаёт пакет изменений, который применяется к архиву одной операцией.
+     * В отличие от последовательных вызовов {@link #writeFileToZip(String, String)},
+     * пакет позволяет выбрать способ и уровень сжатия.
+     *
+     * @return новый пакет
+     */
+    public ZipBatch batch() {
+        return new ZipBatch(zipPath, cache);
+    }
+
+    /**
+     * Создаёт архив заново потоковой записью, минуя ZIP FileSystem: подходит для
+     * архивов в несколько гигабайт. Накопленные изменения перед этим записываются
+     * на диск, прежнее содержимое архива заменяется.
+     *
+     * @param parallelism число потоков сжатия
+     * @return объект записи, который нужно закрыть для завершения архива
+     * @throws IOException если архив не удалось открыть для записи
+     * @see ZipStreamWriter
+     */
+    public ZipStreamWriter streamingWriter(int parallelism) throws IOException {
+        flush();
+        return new ZipStreamWriter(zipPath, Deflater.DEFAULT_COMPRESSION, parallelism,
+                ZipStreamWriter.DEFAULT_WINDOW_BYTES);
+    }
+
+    /**
+     * Записывает накопленные изменения в файл архива.
+     * Без кэширования файловой системы ничего не делает: изменения уже на диске.
+     *
+     * @throws IOException если произошла ошибка при записи архива
+     */
+    public void flush() throws IOException {
+        cache.flush(zipPath);
     }
 
     /**
@@ -149,9 +371,23 @@ public class ZipFileSystemExample {
             logger.info("Файл copied_external.txt существует: {}", zipDemo.fileExistsInZip("copied_external.txt"));
             logger.info("Несуществующий файл exists: {}", zipDemo.fileExistsInZip("nonexistent.txt"));
 
+            // Запись изменений на диск
+            zipDemo.flush();
+
+            // 5. Потоковое создание архива без ZIP FileSystem
+            logger.info("5. Создаём архив потоковой записью с параллельным сжатием...");
+            Path streamedFile = tempDir.resolve("streamed.zip");
+            ZipFileSystemExample streamed = new ZipFileSystemExample(streamedFile);
+            try (ZipStreamWriter writer = streamed.streamingWriter(Runtime.getRuntime().availableProcessors())) {
+                writer.add("external.txt", tempFile);
+                writer.add("hello.txt", "Привет из потокового архива!");
+            }
+            logger.info("Прочитанное содержимое: {}", streamed.readFileFromZip("hello.txt"));
+
             // Очистка временных файлов
             Files.deleteIfExists(tempFile);
             Files.deleteIfExists(zipFile);
+            Files.deleteIfExists(streamedFile);
             Files.deleteIfExists(tempDir);
 
         } catch (IOException e) {
@@ -0,0 +1,643 @@
+package ru.rgordeev;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * Индекс записей ZIP-архива, построенный по центральному каталогу.
+ *
+ * <p>Центральный каталог читается один раз напрямую через {@link FileChannel}:
+ * сначала с конца файла находится запись End Of Central Directory (и её ZIP64-вариант
+ * для архивов с более чем 65535 записями или больше 4 ГБ), затем каталог разбирается
+ * в компактную хеш-таблицу на примитивных массивах: имена хранятся в одном общем
+ * {@code byte[]}, а смещение локального заголовка, размеры, CRC и способ сжатия —
+ * в параллельных массивах. Поиск по имени не создаёт объектов: имя кодируется в UTF-8
+ * в переиспользуемый буфер потока. Вторая таблица хранит директории — префиксы имён
+ * до {@code /}, — чтобы {@link #exists(CharSequence)} находил и директории без
+ * собственной записи в архиве, как {@link Files#exists} в ZIP {@code FileSystem}.</p>
+ *
+ * <p>Чтение записи ({@link #read(String)}) переходит сразу к локальному заголовку
+ * по сохранённому смещению, минуя {@link java.nio.file.FileSystem} архива.
+ * Индекс привязан к времени изменения и размеру файла, {@link #isStale()} сообщает,
+ * что архив изменился и индекс нужно построить заново.</p>
+ *
+ * <p>Экземпляр неизменяем и потокобезопасен.</p>
+ */
+public final class ZipIndex {
+    private static final Logger logger = LogManager.getLogger(ZipIndex.class);
+
+    private static final int EOCD_SIGNATURE = 0x06054b50;
+    private static final int EOCD_SIZE = 22;
+    private static final int ZIP64_EOCD_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int ZIP64_EOCD_LOCATOR_SIZE = 20;
+    private static final int ZIP64_EOCD_SIGNATURE = 0x06064b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int CENTRAL_HEADER_SIZE = 46;
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int ZIP64_EXTRA_ID = 0x0001;
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private static final int FNV_OFFSET = 0x811c9dc5;
+    private static final int FNV_PRIME = 0x01000193;
+
+    /** Буфер для кодирования имени при поиске, свой для каждого потока */
+    private static final ThreadLocal<byte[]> NAME_BUFFER = ThreadLocal.withInitial(() -> new byte[256]);
+
+    private final Path zipPath;
+    private final FileTime lastModified;
+    private final long fileSize;
+
+    private final int count;
+    private final byte[] names;
+    private final int[] nameOffsets;
+    private final int[] nameLengths;
+    private final int[] hashes;
+    private final long[] localHeaderOffsets;
+    private final long[] compressedSizes;
+    private final long[] sizes;
+    private final int[] crcs;
+    private final short[] methods;
+    /** Открытая адресация: номер записи + 1, ноль означает пустую ячейку */
+    private final int[] table;
+    /** Директории: запись, в имени которой встретился префикс, и длина префикса без {@code /} */
+    private final int[] directoryEntries;
+    private final int[] directoryLengths;
+    private final int[] directoryHashes;
+    /** Открытая адресация по директориям: номер директории + 1 */
+    private final int[] directoryTable;
+
+    private ZipIndex(Path zipPath, BasicFileAttributes attributes, int count, byte[] names,
+                     int[] nameOffsets, int[] nameLengths, long[] localHeaderOffsets,
+                     long[] compressedSizes, long[] sizes, int[] crcs, short[] methods) {
+        this.zipPath = zipPath;
+        this.lastModified = attributes.lastModifiedTime();
+        this.fileSize = attributes.size();
+        this.count = count;
+        this.names = names;
+        this.nameOffsets = nameOffsets;
+        this.nameLengths = nameLengths;
+        this.localHeaderOffsets = localHeaderOffsets;
+        this.compressedSizes = compressedSizes;
+        this.sizes = sizes;
+        this.crcs = crcs;
+        this.methods = methods;
+        this.hashes = new int[count];
+        this.table = new int[tableSize(count)];
+        for (int i = 0; i < count; i++) {
+            hashes[i] = hash(names, nameOffsets[i], nameLengths[i]);
+            int slot = hashes[i] & (table.length - 1);
+            while (table[slot] != 0) {
+                slot = (slot + 1) & (table.length - 1);
+            }
+            // При повторяющихся именах побеждает первая запись, как в java.util.zip.ZipFile
+            table[slot] = i + 1;
+        }
+
+        int slashes = 0;
+        for (byte b : names) {
+            if (b == '/') {
+                slashes++;
+            }
+        }
+        int[] entries = new int[slashes];
+        int[] lengths = new int[slashes];
+        int[] prefixHashes = new int[slashes];
+        int[] prefixTable = new int[tableSize(slashes)];
+        int mask = prefixTable.length - 1;
+        int directories = 0;
+        for (int i = 0; i < count; i++) {
+            int offset = nameOffsets[i];
+            // FNV считается по ходу имени: у каждого '/' готов хеш префикса перед ним
+            int running = FNV_OFFSET;
+            for (int p = 0; p < nameLengths[i]; p++) {
+                byte b = names[offset + p];
+                if (b == '/' && p > 0) {
+                    int hash = running ^ (running >>> 16);
+                    int slot = hash & mask;
+                    boolean known = false;
+                    for (; prefixTable[slot] != 0; slot = (slot + 1) & mask) {
+                        int directory = prefixTable[slot] - 1;
+                        int start = nameOffsets[entries[directory]];
+                        if (prefixHashes[directory] == hash && lengths[directory] == p
+                                && Arrays.equals(names, start, start + p, names, offset, offset + p)) {
+                            known = true;
+                            break;
+                        }
+                    }
+                    if (!known) {
+                        entries[directories] = i;
+                        lengths[directories] = p;
+                        prefixHashes[directories] = hash;
+                        prefixTable[slot] = ++directories;
+                    }
+                }
+                running = (running ^ (b & 0xFF)) * FNV_PRIME;
+            }
+        }
+        // Временные массивы рассчитаны на число '/', постоянные — на число различных директорий
+        this.directoryEntries = Arrays.copyOf(entries, directories);
+        this.directoryLengths = Arrays.copyOf(lengths, directories);
+        this.directoryHashes = Arrays.copyOf(prefixHashes, directories);
+        this.directoryTable = new int[tableSize(directories)];
+        for (int d = 0; d < directories; d++) {
+            int slot = directoryHashes[d] & (directoryTable.length - 1);
+            while (directoryTable[slot] != 0) {
+                slot = (slot + 1) & (directoryTable.length - 1);
+            }
+            directoryTable[slot] = d + 1;
+        }
+    }
+
+    /**
+     * Строит индекс по центральному каталогу архива.
+     *
+     * @param zipPath путь к архиву
+     * @return индекс записей
+     * @throws ZipException если файл не является ZIP-архивом
+     * @throws IOException  при ошибках чтения
+     */
+    public static ZipIndex open(Path zipPath) throws IOException {
+        long start = System.nanoTime();
+        BasicFileAttributes attributes = Files.readAttributes(zipPath, BasicFileAttributes.class);
+        try (FileChannel channel = FileChannel.open(zipPath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int tailSize = (int) Math.min(size, EOCD_SIZE + MAX_COMMENT_SIZE);
+            ByteBuffer tail = readFully(channel, size - tailSize, tailSize);
+            int eocd = findEndOfCentralDirectory(tail);
+            if (eocd < 0) {
+                throw new ZipException("Не найден конец центрального каталога: " + zipPath);
+            }
+            long entries = tail.getShort(eocd + 10) & 0xFFFF;
+            long directorySize = tail.getInt(eocd + 12) & ZIP64_MAGIC;
+            long directoryOffset = tail.getInt(eocd + 16) & ZIP64_MAGIC;
+
+            long locatorPosition = size - tailSize + eocd - ZIP64_EOCD_LOCATOR_SIZE;
+            if (locatorPosition >= 0) {
+                ByteBuffer locator = readFully(channel, locatorPosition, ZIP64_EOCD_LOCATOR_SIZE);
+                if (locator.getInt(0) == ZIP64_EOCD_LOCATOR_SIGNATURE) {
+                    ByteBuffer zip64 = readFully(channel, locator.getLong(8), 56);
+                    if (zip64.getInt(0) != ZIP64_EOCD_SIGNATURE) {
+                        throw new ZipException("Повреждена запись ZIP64 End Of Central Directory");
+                    }
+                    entries = zip64.getLong(32);
+                    directorySize = zip64.getLong(40);
+                    directoryOffset = zip64.getLong(48);
+                }
+            }
+            if (entries > Integer.MAX_VALUE / 2 || directorySize > Integer.MAX_VALUE) {
+                throw new ZipException("Центральный каталог слишком велик: " + entries + " записей");
+            }
+
+            ZipIndex index = parse(zipPath, attributes,
+                    readFully(channel, directoryOffset, (int) directorySize), (int) entries);
+            logger.info("Построен индекс {}: {} записей за {} ms",
+                    zipPath.getFileName(), index.count, (System.nanoTime() - start) / 1_000_000);
+            return index;
+        }
+    }
+
+    /**
+     * @return true если время изменения или размер архива изменились после построения индекса
+     * @throws IOException при ошибке чтения атрибутов
+     */
+    public boolean isStale() throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(zipPath, BasicFileAttributes.class);
+        return attributes.size() != fileSize || !attributes.lastModifiedTime().equals(lastModified);
+    }
+
+    /**
+     * @return число записей в архиве
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Ищет запись по имени. Ведущий {@code /} игнорируется.
+     *
+     * @param name имя записи
+     * @return номер записи или -1, если её нет
+     */
+    public int find(CharSequence name) {
+        int start = name.length() > 0 && name.charAt(0) == '/' ? 1 : 0;
+        int length = encode(name, start);
+        byte[] encoded = NAME_BUFFER.get();
+        int hash = hash(encoded, 0, length);
+        int mask = table.length - 1;
+        for (int slot = hash & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            int entry = table[slot] - 1;
+            if (hashes[entry] == hash && nameLengths[entry] == length
+                    && Arrays.equals(names, nameOffsets[entry], nameOffsets[entry] + length,
+                    encoded, 0, length)) {
+                return entry;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param name имя записи
+     * @return true если запись есть в архиве
+     */
+    public boolean contains(CharSequence name) {
+        return find(name) >= 0;
+    }
+
+    /**
+     * Проверяет существование файла или директории так же, как {@link Files#exists}
+     * в ZIP {@code FileSystem}: имя нормализуется ({@link #normalize(CharSequence)}),
+     * директория существует и без собственной записи, если в архиве есть файлы в ней.
+     *
+     * @param name имя файла или директории
+     * @return true если файл или директория есть в архиве; для корня — всегда true
+     */
+    public boolean exists(CharSequence name) {
+        String normalized = normalize(name);
+        if (normalized.isEmpty()) {
+            return true;
+        }
+        if (find(normalized) >= 0) {
+            return true;
+        }
+        int length = encode(normalized, 0);
+        byte[] encoded = NAME_BUFFER.get();
+        return findDirectory(encoded, 0, length, hash(encoded, 0, length)) >= 0;
+    }
+
+    /**
+     * Нормализует имя записи, как ZIP {@code FileSystem} при разрешении пути
+     * {@code "/" + name}: убирает ведущие, повторяющиеся и завершающие {@code /},
+     * сегменты {@code .} и разрешает {@code ..}.
+     *
+     * @param name имя записи
+     * @return нормализованное имя; пустая строка означает корень архива
+     */
+    public static String normalize(CharSequence name) {
+        if (isNormalized(name)) {
+            return name.toString();
+        }
+        String[] segments = name.toString().split("/");
+        String[] kept = new String[segments.length];
+        int depth = 0;
+        for (String segment : segments) {
+            if (segment.isEmpty() || segment.equals(".")) {
+                continue;
+            }
+            if (segment.equals("..")) {
+                if (depth > 0) {
+                    depth--;
+                }
+            } else {
+                kept[depth++] = segment;
+            }
+        }
+        return String.join("/", Arrays.asList(kept).subList(0, depth));
+    }
+
+    /**
+     * @return путь к архиву
+     */
+    public Path path() {
+        return zipPath;
+    }
+
+    /**
+     * @param entry номер записи
+     * @return true если запись является директорией (имя оканчивается на {@code /})
+     */
+    public boolean isDirectory(int entry) {
+        return nameLengths[entry] > 0 && names[nameOffsets[entry] + nameLengths[entry] - 1] == '/';
+    }
+
+    /**
+     * @param entry номер записи
+     * @return размер несжатых данных
+     */
+    public long size(int entry) {
+        return sizes[entry];
+    }
+
+    /**
+     * @param entry номер записи
+     * @return CRC-32 несжатых данных
+     */
+    public long crc(int entry) {
+        return crcs[entry] & ZIP64_MAGIC;
+    }
+
+    /**
+     * @param entry номер записи
+     * @return имя записи
+     */
+    public String name(int entry) {
+        return new String(names, nameOffsets[entry], nameLengths[entry], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Читает содержимое записи.
+     *
+     * @param name имя записи
+     * @return несжатые данные
+     * @throws NoSuchFileException если записи нет
+     * @throws IOException         при ошибках чтения или несовпадении CRC
+     */
+    public byte[] read(String name) throws IOException {
+        int entry = find(name);
+        if (entry < 0) {
+            throw new NoSuchFileException(name, null, "Файл не найден в архиве " + zipPath);
+        }
+        return read(entry);
+    }
+
+    /**
+     * Читает содержимое записи по номеру, переходя сразу к её локальному заголовку.
+     *
+     * @param entry номер записи
+     * @return несжатые данные
+     * @throws IOException при ошибках чтения или несовпадении CRC
+     */
+    public byte[] read(int entry) throws IOException {
+        byte[] data;
+        try (FileChannel channel = FileChannel.open(zipPath, StandardOpenOption.READ)) {
+            data = readEntry(channel, entry);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        if (crc.getValue() != crc(entry)) {
+            throw new ZipException("Несовпадение CRC у записи " + name(entry));
+        }
+        return data;
+    }
+
+    /**
+     * Читает данные записи из уже открытого канала. Используется для параллельного
+     * чтения, когда каждый поток держит свой канал и {@link Inflater}.
+     *
+     * @param channel  канал архива (используется позиционное чтение)
+     * @param entry    номер записи
+     * @param inflater распаковщик в режиме {@code nowrap}; сбрасывается перед использованием
+     * @return несжатые данные без проверки CRC
+     * @throws IOException при ошибках чтения или если запись не помещается в массив
+     */
+    byte[] readEntry(FileChannel channel, int entry, Inflater inflater) throws IOException {
+        checkReadable(entry);
+        ByteBuffer local = readFully(channel, localHeaderOffsets[entry], LOCAL_HEADER_SIZE);
+        if (local.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+            throw new ZipException("Неверный локальный заголовок записи " + name(entry));
+        }
+        long dataOffset = localHeaderOffsets[entry] + LOCAL_HEADER_SIZE
+                + (local.getShort(26) & 0xFFFF) + (local.getShort(28) & 0xFFFF);
+        int compressedSize = (int) compressedSizes[entry];
+        switch (methods[entry]) {
+            case ZipEntry.STORED:
+                return readFully(channel, dataOffset, compressedSize).array();
+            case ZipEntry.DEFLATED:
+                // Сжатые данные нужны только на время распаковки: прямой буфер из пула
+                // передаётся в zlib без копирования в массив
+                try (BufferPool.PooledBuffer pooled = BufferPool.shared().acquire(compressedSize)) {
+                    ByteBuffer compressed = pooled.buffer().limit(compressedSize);
+                    readFully(channel, dataOffset, compressed);
+                    return inflate(entry, compressed.flip(), inflater);
+                }
+            default:
+                throw new ZipException("Неподдерживаемый способ сжатия " + methods[entry] + " у " + name(entry));
+        }
+    }
+
+    /**
+     * Проверяет, что запись можно прочитать в массив: ни сжатый, ни несжатый размер
+     * не превышает наибольшего размера массива.
+     *
+     * @param entry номер записи
+     * @throws IOException если запись слишком велика
+     */
+    void checkReadable(int entry) throws IOException {
+        if (sizes[entry] > MAX_ARRAY_SIZE || compressedSizes[entry] > MAX_ARRAY_SIZE) {
+            throw new IOException("Запись " + name(entry) + " слишком велика для чтения в массив: "
+                    + sizes[entry] + " байт (сжато " + compressedSizes[entry] + ")");
+        }
+    }
+
+    private byte[] inflate(int entry, ByteBuffer compressed, Inflater inflater) throws ZipException {
+        byte[] data = new byte[(int) sizes[entry]];
+        inflater.reset();
+        inflater.setInput(compressed);
+        try {
+            int inflated = 0;
+            while (inflated < data.length) {
+                int n = inflater.inflate(data, inflated, data.length - inflated);
+                if (n == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new ZipException("Сжатые данные записи " + name(entry) + " обрываются");
+                }
+                inflated += n;
+            }
+        } catch (DataFormatException e) {
+            throw new ZipException("Повреждены сжатые данные записи " + name(entry) + ": " + e.getMessage());
+        }
+        return data;
+    }
+
+    private byte[] readEntry(FileChannel channel, int entry) throws IOException {
+        Inflater inflater = new Inflater(true);
+        try {
+            return readEntry(channel, entry, inflater);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static ZipIndex parse(Path zipPath, BasicFileAttributes attributes, ByteBuffer directory, int expected)
+            throws ZipException {
+        byte[] names = new byte[directory.capacity()];
+        int[] nameOffsets = new int[expected];
+        int[] nameLengths = new int[expected];
+        long[] localHeaderOffsets = new long[expected];
+        long[] compressedSizes = new long[expected];
+        long[] sizes = new long[expected];
+        int[] crcs = new int[expected];
+        short[] methods = new short[expected];
+
+        int namesLength = 0;
+        int position = 0;
+        int count = 0;
+        while (count < expected) {
+            if (position + CENTRAL_HEADER_SIZE > directory.capacity()
+                    || directory.getInt(position) != CENTRAL_HEADER_SIGNATURE) {
+                throw new ZipException("Повреждён центральный каталог в позиции " + position);
+            }
+            methods[count] = directory.getShort(position + 10);
+            crcs[count] = directory.getInt(position + 16);
+            long compressedSize = directory.getInt(position + 20) & ZIP64_MAGIC;
+            long size = directory.getInt(position + 24) & ZIP64_MAGIC;
+            int nameLength = directory.getShort(position + 28) & 0xFFFF;
+            int extraLength = directory.getShort(position + 30) & 0xFFFF;
+            int commentLength = directory.getShort(position + 32) & 0xFFFF;
+            long localHeaderOffset = directory.getInt(position + 42) & ZIP64_MAGIC;
+
+            int extra = position + CENTRAL_HEADER_SIZE + nameLength;
+            int extraEnd = extra + extraLength;
+            while (extra + 4 <= extraEnd) {
+                int id = directory.getShort(extra) & 0xFFFF;
+                int length = directory.getShort(extra + 2) & 0xFFFF;
+                if (id == ZIP64_EXTRA_ID) {
+                    // Поля ZIP64 присутствуют только для значений, равных 0xFFFFFFFF, в этом порядке
+                    int field = extra + 4;
+                    if (size == ZIP64_MAGIC) {
+                        size = directory.getLong(field);
+                        field += 8;
+                    }
+                    if (compressedSize == ZIP64_MAGIC) {
+                        compressedSize = directory.getLong(field);
+                        field += 8;
+                    }
+                    if (localHeaderOffset == ZIP64_MAGIC) {
+                        localHeaderOffset = directory.getLong(field);
+                    }
+                }
+                extra += 4 + length;
+            }
+
+            directory.get(position + CENTRAL_HEADER_SIZE, names, namesLength, nameLength);
+            nameOffsets[count] = namesLength;
+            nameLengths[count] = nameLength;
+            namesLength += nameLength;
+            localHeaderOffsets[count] = localHeaderOffset;
+            compressedSizes[count] = compressedSize;
+            sizes[count] = size;
+            count++;
+            position = extraEnd + commentLength;
+        }
+        return new ZipIndex(zipPath, attributes, count, Arrays.copyOf(names, namesLength),
+                nameOffsets, nameLengths, localHeaderOffsets, compressedSizes, sizes, crcs, methods);
+    }
+
+    private static int findEndOfCentralDirectory(ByteBuffer tail) {
+        for (int position = tail.capacity() - EOCD_SIZE; position >= 0; position--) {
+            if (tail.getInt(position) == EOCD_SIGNATURE
+                    && position + EOCD_SIZE + (tail.getShort(position + 20) & 0xFFFF) == tail.capacity()) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, position, buffer);
+        return buffer;
+    }
+
+    private static void readFully(FileChannel channel, long position, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Неожиданный конец архива в позиции " + (position + buffer.position()));
+            }
+        }
+    }
+
+    // Номер директории с именем bytes[offset, offset + length) или -1
+    private int findDirectory(byte[] bytes, int offset, int length, int hash) {
+        int mask = directoryTable.length - 1;
+        for (int slot = hash & mask; directoryTable[slot] != 0; slot = (slot + 1) & mask) {
+            int directory = directoryTable[slot] - 1;
+            int entryOffset = nameOffsets[directoryEntries[directory]];
+            if (directoryHashes[directory] == hash && directoryLengths[directory] == length
+                    && Arrays.equals(names, entryOffset, entryOffset + length, bytes, offset, offset + length)) {
+                return directory;
+            }
+        }
+        return -1;
+    }
+
+    // Быстрая проверка без создания объектов: в имени нет пустых сегментов, "." и ".."
+    private static boolean isNormalized(CharSequence name) {
+        int length = name.length();
+        int segmentStart = 0;
+        for (int i = 0; i <= length; i++) {
+            if (i == length || name.charAt(i) == '/') {
+                int segmentLength = i - segmentStart;
+                if (segmentLength == 0 && length > 0) {
+                    return false;
+                }
+                if (segmentLength <= 2 && segmentLength > 0 && name.charAt(segmentStart) == '.'
+                        && (segmentLength == 1 || name.charAt(segmentStart + 1) == '.')) {
+                    return false;
+                }
+                segmentStart = i + 1;
+            }
+        }
+        return true;
+    }
+
+    private static int tableSize(int count) {
+        int size = 16;
+        while (size < count * 2) {
+            size <<= 1;
+        }
+        return size;
+    }
+
+    private static int hash(byte[] bytes, int offset, int length) {
+        int hash = FNV_OFFSET;
+        for (int i = offset; i < offset + length; i++) {
+            hash = (hash ^ (bytes[i] & 0xFF)) * FNV_PRIME;
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Кодирует имя в UTF-8 в буфер потока {@link #NAME_BUFFER} без создания
+     * промежуточных объектов и возвращает длину результата.
+     */
+    private static int encode(CharSequence name, int start) {
+        byte[] buffer = NAME_BUFFER.get();
+        int length = name.length();
+        if (buffer.length < (length - start) * 3) {
+            buffer = new byte[(length - start) * 3];
+            NAME_BUFFER.set(buffer);
+        }
+        int position = 0;
+        for (int i = start; i < length; i++) {
+            char c = name.charAt(i);
+            if (c < 0x80) {
+                buffer[position++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xC0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(name.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, name.charAt(++i));
+                buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else {
+                buffer[position++] = (byte) (0xE0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return position;
+    }
+}
@@ -0,0 +1,552 @@
+package ru.rgordeev;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * Потоковая запись нового ZIP-архива напрямую в {@link FileChannel}, без
+ * ZIP {@link java.nio.file.FileSystem}.
+ *
+ * <p>ZIP FileSystem с {@code create=true} держит данные записей в памяти или
+ * во временных файлах до закрытия. Здесь каждая запись уходит в файл сразу,
+ * а в памяти остаётся только центральный каталог (имена, размеры, CRC и смещения).
+ * Архив записывается заново целиком; поддерживается ZIP64 (записи и архивы больше
+ * 4 ГБ, больше 65535 записей).</p>
+ *
+ * <p>Сжатие параллельное, с сохранением порядка. Содержимое записи делится на
+ * блоки по {@value #CHUNK_SIZE} байт, и каждый блок сжимается отдельно на пуле
+ * потоков. Блок завершается {@link Deflater#SYNC_FLUSH}, а последние 32 КБ
+ * предыдущего блока задаются как словарь (так делает pigz). Поэтому сжатые
+ * блоки подряд образуют один поток deflate, и большие записи тоже сжимаются
+ * параллельно. CRC считается в вызывающем потоке при чтении. Блоки записываются
+ * в файл в порядке добавления. Размеры многоблочной записи становятся известны
+ * только в конце, поэтому её локальный заголовок дописывается позиционной записью.
+ * Если одноблочная запись при сжатии не уменьшилась, она сохраняется
+ * как {@link ZipEntry#STORED}.</p>
+ *
+ * <p>Память ограничена окном: если несжатых блоков в обработке больше
+ * {@code windowBytes}, добавление ждёт записи самого старого блока.</p>
+ *
+ * <p>Пример использования:</p>
+ * <pre>
+ * try (ZipStreamWriter zip = new ZipStreamWriter(Paths.get("archive.zip"))) {
+ *     zip.add("readme.txt", "Hello");
+ *     zip.add("data/huge.bin", Paths.get("huge.bin"));
+ * }
+ * </pre>
+ *
+ * <p>Экземпляр не потокобезопасен. После ошибки архив неполон, и его следует удалить.</p>
+ */
+public class ZipStreamWriter implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(ZipStreamWriter.class);
+
+    /** Размер окна несжатых данных в обработке по умолчанию */
+    public static final long DEFAULT_WINDOW_BYTES = 64L * 1024 * 1024;
+
+    /** Размер блока, сжимаемого одной задачей */
+    public static final int CHUNK_SIZE = 1024 * 1024;
+
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int CENTRAL_HEADER_SIZE = 46;
+    private static final int EOCD_SIGNATURE = 0x06054b50;
+    private static final int EOCD_SIZE = 22;
+    private static final int ZIP64_EOCD_SIGNATURE = 0x06064b50;
+    private static final int ZIP64_EOCD_SIZE = 56;
+    private static final int ZIP64_EOCD_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int ZIP64_EOCD_LOCATOR_SIZE = 20;
+    private static final int ZIP64_EXTRA_ID = 0x0001;
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+    private static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+    /** Записи не меньше этого размера получают ZIP64-заголовок: запас на рост при сжатии */
+    private static final long ZIP64_ENTRY_THRESHOLD = 0xF0000000L;
+    private static final int VERSION_DEFAULT = 20;
+    private static final int VERSION_ZIP64 = 45;
+    private static final int FLAG_UTF8 = 0x0800;
+    private static final int DIRECTORY_BUFFER_SIZE = 256 * 1024;
+
+    private final Path zipPath;
+    private final FileChannel channel;
+    private final long windowBytes;
+    private final ExecutorService executor;
+    /** Deflater каждого потока сжатия; освобождается Cleaner после остановки потоков */
+    private final ThreadLocal<Deflater> deflaters;
+    private final ArrayDeque<Chunk> inFlight = new ArrayDeque<>();
+    private final List<Entry> entries = new ArrayList<>();
+    private final Set<String> names = new HashSet<>();
+    private final CRC32 crc = new CRC32();
+    private long pendingBytes;
+    private long position;
+    private long inputBytes;
+    private boolean closed;
+
+    /**
+     * Создаёт архив со сжатием по умолчанию на всех ядрах.
+     *
+     * @param zipPath путь к архиву; существующий файл перезаписывается
+     * @throws IOException если файл не удалось открыть
+     */
+    public ZipStreamWriter(Path zipPath) throws IOException {
+        this(zipPath, Deflater.DEFAULT_COMPRESSION, Runtime.getRuntime().availableProcessors(), DEFAULT_WINDOW_BYTES);
+    }
+
+    /**
+     * @param zipPath     путь к архиву; существующий файл перезаписывается
+     * @param level       уровень сжатия от 0 до 9 или {@link Deflater#DEFAULT_COMPRESSION}
+     * @param parallelism число потоков сжатия; 1 — сжатие в вызывающем потоке
+     * @param windowBytes наибольший объём несжатых данных в обработке, не меньше {@value #CHUNK_SIZE}
+     * @throws IOException если файл не удалось открыть
+     */
+    public ZipStreamWriter(Path zipPath, int level, int parallelism, long windowBytes) throws IOException {
+        if ((level < 0 || level > 9) && level != Deflater.DEFAULT_COMPRESSION) {
+            throw new IllegalArgumentException("Недопустимый уровень сжатия: " + level);
+        }
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Число потоков должно быть положительным: " + parallelism);
+        }
+        if (windowBytes < CHUNK_SIZE) {
+            throw new IllegalArgumentException("Окно должно быть не меньше " + CHUNK_SIZE + " байт: " + windowBytes);
+        }
+        this.zipPath = zipPath;
+        this.windowBytes = windowBytes;
+        this.deflaters = ThreadLocal.withInitial(() -> new Deflater(level, true));
+        if (parallelism == 1) {
+            this.executor = null;
+        } else {
+            AtomicInteger threadNumber = new AtomicInteger();
+            this.executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+                Thread thread = new Thread(runnable, "zip-deflate-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        FileChannel opened;
+        try {
+            opened = FileChannel.open(zipPath, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+            throw e;
+        }
+        this.channel = IoMetrics.global().wrap(zipPath.toString(), opened);
+    }
+
+    /**
+     * Добавляет текстовую запись в кодировке UTF-8.
+     *
+     * @param name    имя файла внутри архива
+     * @param content содержимое
+     * @return этот же объект
+     * @throws IOException если произошла ошибка при сжатии или записи
+     */
+    public ZipStreamWriter add(String name, String content) throws IOException {
+        return add(name, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Добавляет запись с двоичным содержимым. Массив не копируется и не должен
+     * изменяться до закрытия архива.
+     *
+     * @param name    имя файла внутри архива
+     * @param content содержимое
+     * @return этот же объект
+     * @throws IOException если произошла ошибка при сжатии или записи
+     */
+    public ZipStreamWriter add(String name, byte[] content) throws IOException {
+        Entry entry = begin(name, System.currentTimeMillis(), content.length);
+        ByteBuffer previous = null;
+        int offset = 0;
+        do {
+            int length = Math.min(CHUNK_SIZE, content.length - offset);
+            ByteBuffer chunk = ByteBuffer.wrap(content, offset, length).slice();
+            offset += length;
+            submit(entry, chunk, previous, offset == content.length);
+            previous = chunk;
+        } while (offset < content.length);
+        return this;
+    }
+
+    /**
+     * Добавляет запись с содержимым внешнего файла. Файл читается блоками,
+     * поэтому его размер не ограничен памятью.
+     *
+     * @param name   имя файла внутри архива
+     * @param source путь к исходному файлу
+     * @return этот же объект
+     * @throws IOException если файл не удалось прочитать или произошла ошибка при сжатии или записи
+     */
+    public ZipStreamWriter add(String name, Path source) throws IOException {
+        Entry entry = begin(name, Files.getLastModifiedTime(source).toMillis(), Files.size(source));
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+            ByteBuffer previous = null;
+            ByteBuffer current = readChunk(in);
+            while (true) {
+                // Неполный блок означает конец файла; иначе читаем следующий, чтобы знать, последний ли текущий
+                ByteBuffer next = current.remaining() < CHUNK_SIZE ? null : readChunk(in);
+                boolean last = next == null || !next.hasRemaining();
+                submit(entry, current, previous, last);
+                if (last) {
+                    break;
+                }
+                previous = current;
+                current = next;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @return число добавленных записей
+     */
+    public int entryCount() {
+        return names.size();
+    }
+
+    /**
+     * Дописывает оставшиеся блоки и центральный каталог и закрывает файл.
+     * Повторный вызов ничего не делает.
+     *
+     * @throws IOException если произошла ошибка при сжатии или записи
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            while (!inFlight.isEmpty()) {
+                writeHead();
+            }
+            writeCentralDirectory();
+            logger.info("Архив {} записан: {} записей, {} байт данных, {} байт в архиве",
+                    zipPath, entries.size(), inputBytes, position);
+        } finally {
+            for (Chunk chunk : inFlight) {
+                chunk.output.cancel(false);
+            }
+            inFlight.clear();
+            if (executor != null) {
+                executor.shutdownNow();
+            } else {
+                deflaters.get().end();
+                deflaters.remove();
+            }
+            channel.close();
+        }
+    }
+
+    private Entry begin(String name, long modified, long size) {
+        if (closed) {
+            throw new IllegalStateException("Ресурс уже закрыт!");
+        }
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        if (nameBytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Слишком длинное имя записи: " + nameBytes.length + " байт");
+        }
+        if (!names.add(name)) {
+            throw new IllegalArgumentException("Запись уже добавлена: " + name);
+        }
+        crc.reset();
+        return new Entry(nameBytes, dosTime(modified), size >= ZIP64_ENTRY_THRESHOLD);
+    }
+
+    // Ставит блок на сжатие; при заполненном окне сначала записывает старые блоки
+    private void submit(Entry entry, ByteBuffer input, ByteBuffer previous, boolean last) throws IOException {
+        crc.update(input.duplicate());
+        entry.size += input.remaining();
+        if (last) {
+            entry.crc = crc.getValue();
+        }
+        boolean single = previous == null && last;
+        ByteBuffer dictionary = previous == null ? null
+                : previous.duplicate().position(Math.max(0, previous.limit() - DICTIONARY_SIZE));
+
+        while (!inFlight.isEmpty() && pendingBytes + input.remaining() > windowBytes) {
+            writeHead();
+        }
+        Future<Deflated> output;
+        if (executor == null) {
+            output = CompletableFuture.completedFuture(deflate(input, dictionary, last, single));
+        } else {
+            output = executor.submit(() -> deflate(input, dictionary, last, single));
+        }
+        inFlight.add(new Chunk(entry, output, input.remaining(), previous == null, last));
+        pendingBytes += input.remaining();
+        inputBytes += input.remaining();
+        while (!inFlight.isEmpty() && inFlight.peek().output.isDone()) {
+            writeHead();
+        }
+    }
+
+    // Выполняется в потоке сжатия
+    private Deflated deflate(ByteBuffer input, ByteBuffer dictionary, boolean last, boolean single) {
+        Deflater deflater = deflaters.get();
+        deflater.reset();
+        if (dictionary != null) {
+            deflater.setDictionary(dictionary.duplicate());
+        }
+        int inputLength = input.remaining();
+        deflater.setInput(input.duplicate());
+        if (last) {
+            deflater.finish();
+        }
+        int flush = last ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH;
+        byte[] out = new byte[Math.max(64, inputLength / 2)];
+        int length = 0;
+        while (true) {
+            if (length == out.length) {
+                if (single && length >= inputLength) {
+                    return new Deflated(input, true);
+                }
+                out = Arrays.copyOf(out, single ? Math.min(length * 2, Math.max(inputLength, length + 1)) : length * 2);
+            }
+            int space = out.length - length;
+            int written = deflater.deflate(out, length, space, flush);
+            length += written;
+            if (last ? deflater.finished() : written < space && deflater.needsInput()) {
+                break;
+            }
+        }
+        if (single && length >= inputLength) {
+            return new Deflated(input, true);
+        }
+        return new Deflated(ByteBuffer.wrap(out, 0, length), false);
+    }
+
+    // Записывает самый старый блок, дожидаясь его сжатия
+    private void writeHead() throws IOException {
+        Chunk chunk = inFlight.poll();
+        pendingBytes -= chunk.inputLength;
+        Deflated deflated = await(chunk.output);
+        Entry entry = chunk.entry;
+        int length = deflated.data.remaining();
+        if (chunk.first) {
+            entry.offset = position;
+            entry.method = deflated.stored ? ZipEntry.STORED : ZipEntry.DEFLATED;
+            // Размеры одноблочной записи уже известны; многоблочная получит их в конце
+            ByteBuffer header = localHeader(entry, chunk.last ? length : 0, chunk.last);
+            write(header, deflated.data);
+        } else {
+            write(deflated.data);
+        }
+        entry.compressedSize += length;
+        if (chunk.last) {
+            if (!entry.zip64 && (entry.size >= ZIP64_MAGIC || entry.compressedSize >= ZIP64_MAGIC)) {
+                throw new ZipException("Размер записи " + new String(entry.name, StandardCharsets.UTF_8)
+                        + " изменился во время записи и превысил 4 ГБ");
+            }
+            if (!chunk.first) {
+                ByteBuffer header = localHeader(entry, entry.compressedSize, true);
+                long at = entry.offset;
+                while (header.hasRemaining()) {
+                    at += channel.write(header, at);
+                }
+            }
+            entries.add(entry);
+        }
+    }
+
+    private ByteBuffer localHeader(Entry entry, long compressedSize, boolean complete) {
+        int extraLength = entry.zip64 ? 20 : 0;
+        ByteBuffer header = ByteBuffer.allocate(LOCAL_HEADER_SIZE + entry.name.length + extraLength)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(LOCAL_HEADER_SIGNATURE)
+                .putShort((short) (entry.zip64 ? VERSION_ZIP64 : VERSION_DEFAULT))
+                .putShort((short) FLAG_UTF8)
+                .putShort((short) entry.method)
+                .putInt(entry.dosTime)
+                .putInt(complete ? (int) entry.crc : 0)
+                .putInt(entry.zip64 ? (int) ZIP64_MAGIC : (int) compressedSize)
+                .putInt(entry.zip64 ? (int) ZIP64_MAGIC : (complete ? (int) entry.size : 0))
+                .putShort((short) entry.name.length)
+                .putShort((short) extraLength)
+                .put(entry.name);
+        if (entry.zip64) {
+            header.putShort((short) ZIP64_EXTRA_ID)
+                    .putShort((short) 16)
+                    .putLong(complete ? entry.size : 0)
+                    .putLong(compressedSize);
+        }
+        return header.flip();
+    }
+
+    private void writeCentralDirectory() throws IOException {
+        long directoryOffset = position;
+        try (BufferPool.PooledBuffer pooled = BufferPool.shared().acquire(DIRECTORY_BUFFER_SIZE)) {
+            ByteBuffer buffer = pooled.buffer().order(ByteOrder.LITTLE_ENDIAN);
+            for (Entry entry : entries) {
+                boolean sizes64 = entry.size >= ZIP64_MAGIC || entry.compressedSize >= ZIP64_MAGIC;
+                boolean offset64 = entry.offset >= ZIP64_MAGIC;
+                int extraLength = (sizes64 ? 16 : 0) + (offset64 ? 8 : 0);
+                int headerLength = CENTRAL_HEADER_SIZE + entry.name.length + (extraLength > 0 ? 4 + extraLength : 0);
+                if (buffer.remaining() < headerLength) {
+                    write(buffer.flip());
+                    buffer.clear();
+                }
+                buffer.putInt(CENTRAL_HEADER_SIGNATURE)
+                        .putShort((short) VERSION_ZIP64)
+                        .putShort((short) (extraLength > 0 || entry.zip64 ? VERSION_ZIP64 : VERSION_DEFAULT))
+                        .putShort((short) FLAG_UTF8)
+                        .putShort((short) entry.method)
+                        .putInt(entry.dosTime)
+                        .putInt((int) entry.crc)
+                        .putInt(sizes64 ? (int) ZIP64_MAGIC : (int) entry.compressedSize)
+                        .putInt(sizes64 ? (int) ZIP64_MAGIC : (int) entry.size)
+                        .putShort((short) entry.name.length)
+                        .putShort((short) (extraLength > 0 ? 4 + extraLength : 0))
+                        .putShort((short) 0)
+                        .putShort((short) 0)
+                        .putShort((short) 0)
+                        .putInt(0)
+                        .putInt(offset64 ? (int) ZIP64_MAGIC : (int) entry.offset)
+                        .put(entry.name);
+                if (extraLength > 0) {
+                    // Поля ZIP64 в порядке: размер, сжатый размер, смещение — только для значений 0xFFFFFFFF
+                    buffer.putShort((short) ZIP64_EXTRA_ID).putShort((short) extraLength);
+                    if (sizes64) {
+                        buffer.putLong(entry.size).putLong(entry.compressedSize);
+                    }
+                    if (offset64) {
+                        buffer.putLong(entry.offset);
+                    }
+                }
+            }
+            long directorySize = position + buffer.position() - directoryOffset;
+            int count = entries.size();
+            boolean zip64 = count >= ZIP64_MAGIC_COUNT || directoryOffset >= ZIP64_MAGIC || directorySize >= ZIP64_MAGIC;
+            if (buffer.remaining() < ZIP64_EOCD_SIZE + ZIP64_EOCD_LOCATOR_SIZE + EOCD_SIZE) {
+                write(buffer.flip());
+                buffer.clear();
+            }
+            if (zip64) {
+                long zip64Offset = position + buffer.position();
+                buffer.putInt(ZIP64_EOCD_SIGNATURE)
+                        .putLong(ZIP64_EOCD_SIZE - 12)
+                        .putShort((short) VERSION_ZIP64)
+                        .putShort((short) VERSION_ZIP64)
+                        .putInt(0)
+                        .putInt(0)
+                        .putLong(count)
+                        .putLong(count)
+                        .putLong(directorySize)
+                        .putLong(directoryOffset);
+                buffer.putInt(ZIP64_EOCD_LOCATOR_SIGNATURE)
+                        .putInt(0)
+                        .putLong(zip64Offset)
+                        .putInt(1);
+            }
+            buffer.putInt(EOCD_SIGNATURE)
+                    .putShort((short) 0)
+                    .putShort((short) 0)
+                    .putShort((short) (zip64 ? ZIP64_MAGIC_COUNT : count))
+                    .putShort((short) (zip64 ? ZIP64_MAGIC_COUNT : count))
+                    .putInt(zip64 ? (int) ZIP64_MAGIC : (int) directorySize)
+                    .putInt(zip64 ? (int) ZIP64_MAGIC : (int) directoryOffset)
+                    .putShort((short) 0);
+            write(buffer.flip());
+        }
+    }
+
+    private void write(ByteBuffer... buffers) throws IOException {
+        long total = 0;
+        for (ByteBuffer buffer : buffers) {
+            total += buffer.remaining();
+        }
+        long done = 0;
+        while (done < total) {
+            done += channel.write(buffers);
+        }
+        position += total;
+    }
+
+    private static ByteBuffer readChunk(FileChannel in) throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE);
+        while (chunk.hasRemaining() && in.read(chunk) >= 0) {
+            // читаем до заполнения блока или конца файла
+        }
+        return chunk.flip();
+    }
+
+    private static Deflated await(Future<Deflated> output) throws IOException {
+        try {
+            return output.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Сжатие прервано");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("Ошибка при сжатии", cause);
+        }
+    }
+
+    // Время в формате MS-DOS: дата в старших 16 битах, время в младших
+    private static int dosTime(long millis) {
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+        if (time.getYear() < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+        return (time.getYear() - 1980) << 25 | time.getMonthValue() << 21 | time.getDayOfMonth() << 16
+                | time.getHour() << 11 | time.getMinute() << 5 | time.getSecond() >> 1;
+    }
+
+    /** Запись архива: данные центрального каталога */
+    private static final class Entry {
+        final byte[] name;
+        final int dosTime;
+        final boolean zip64;
+        int method;
+        long crc;
+        long size;
+        long compressedSize;
+        long offset;
+
+        Entry(byte[] name, int dosTime, boolean zip64) {
+            this.name = name;
+            this.dosTime = dosTime;
+            this.zip64 = zip64;
+        }
+    }
+
+    private record Chunk(Entry entry, Future<Deflated> output, int inputLength, boolean first, boolean last) {
+    }
+
+    private record Deflated(ByteBuffer data, boolean stored) {
+    }
+}
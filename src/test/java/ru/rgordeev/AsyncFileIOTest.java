@@ -0,0 +1,109 @@
+package ru.rgordeev;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Модульные тесты для класса AsyncFileIO.
+ * Проверяют чтение и запись по позициям, режим scatter/gather
+ * и завершение операций с ошибкой после закрытия.
+ */
+class AsyncFileIOTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Проверяет запись и чтение по произвольным позициям, включая чтение за концом файла.
+     *
+     * @throws IOException если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldReadAndWriteAtPositions() throws IOException {
+        Path file = tempDir.resolve("data.bin");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try (AsyncFileIO io = new AsyncFileIO(file, executor,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            io.write(0, ByteBuffer.wrap("Привет".getBytes(StandardCharsets.UTF_8))).join();
+            io.write(100, ByteBuffer.wrap("мир".getBytes(StandardCharsets.UTF_8))).join();
+            io.force(false).join();
+
+            assertEquals(106, io.size());
+            assertEquals("Привет", StandardCharsets.UTF_8.decode(io.read(0, 12).join()).toString());
+            ByteBuffer tail = io.read(100, 1000).join();
+            assertEquals(6, tail.remaining());
+            assertEquals("мир", StandardCharsets.UTF_8.decode(tail).toString());
+            assertEquals(0, io.read(500, 10).join().remaining());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Проверяет, что scatter-чтение возвращает буферы в порядке запросов,
+     * а gather-запись пишет буферы подряд.
+     *
+     * @throws IOException если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldScatterReadAndGatherWrite() throws IOException {
+        Path file = tempDir.resolve("gather.bin");
+        ByteBuffer[] parts = new ByteBuffer[100];
+        for (int i = 0; i < parts.length; i++) {
+            byte[] block = new byte[1000];
+            java.util.Arrays.fill(block, (byte) i);
+            parts[i] = ByteBuffer.wrap(block);
+        }
+        try (AsyncFileIO io = new AsyncFileIO(file, null,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            assertEquals(100_000L, io.writeAll(0, parts).join());
+
+            List<AsyncFileIO.Region> regions = new ArrayList<>();
+            for (int i = parts.length - 1; i >= 0; i--) {
+                regions.add(new AsyncFileIO.Region(i * 1000L + 10, 10));
+            }
+            List<ByteBuffer> buffers = io.readAll(regions).join();
+
+            assertEquals(parts.length, buffers.size());
+            for (int i = 0; i < buffers.size(); i++) {
+                ByteBuffer buffer = buffers.get(i);
+                assertEquals(10, buffer.remaining());
+                assertEquals((byte) (parts.length - 1 - i), buffer.get(0));
+            }
+        }
+        assertEquals(100_000, Files.size(file));
+    }
+
+    /**
+     * Проверяет, что операции после закрытия завершаются с ошибкой, а не бросают исключение сразу.
+     *
+     * @throws IOException если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldFailFutureAfterClose() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("closed.txt"), "data");
+        AsyncFileIO io = new AsyncFileIO(file);
+        io.close();
+
+        CompletableFuture<ByteBuffer> read = io.read(0, 4);
+        CompletionException error = assertThrows(CompletionException.class, read::join);
+        assertInstanceOf(ClosedChannelException.class, error.getCause());
+        assertThrows(IllegalArgumentException.class, () -> io.read(-1, 4));
+    }
+}
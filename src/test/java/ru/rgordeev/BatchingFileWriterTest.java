@@ -0,0 +1,217 @@
+package ru.rgordeev;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Модульные тесты для класса BatchingFileWriter.
+ * Проверяют порядок и полноту записей, записи больше буфера, дозапись,
+ * фоновую запись, группировку сбросов на диск и закрытие.
+ */
+class BatchingFileWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Проверяет, что записи из одного потока попадают в файл по порядку и пакетами.
+     *
+     * @throws IOException если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldWriteRecordsInOrderInBatches() throws IOException {
+        Path file = tempDir.resolve("ordered.log");
+        StringBuilder expected = new StringBuilder();
+        try (BatchingFileWriter writer = new BatchingFileWriter(file, BatchingFileWriter.Durability.NONE,
+                Duration.ofMinutes(1), 8192, 2)) {
+            for (int i = 0; i < 5_000; i++) {
+                String line = "record " + i;
+                expected.append(line).append('\n');
+                assertEquals(expected.length(), writer.writeLine(line));
+            }
+            assertTrue(writer.writtenBytes() > 0, "после переполнения пакета данные должны уйти в файл");
+            assertTrue(writer.batchCount() < 5_000 / 10);
+            assertEquals(0, writer.forceCount());
+        }
+        assertEquals(expected.toString(), Files.readString(file, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Проверяет записи больше одного буфера и дозапись в существующий файл.
+     *
+     * @throws IOException если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldSplitLargeRecordsAndAppend() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("append.bin"), "head");
+        byte[] large = new byte[20_000];
+        for (int i = 0; i < large.length; i++) {
+            large[i] = (byte) i;
+        }
+        try (BatchingFileWriter writer = new BatchingFileWriter(file, BatchingFileWriter.Durability.GROUP_COMMIT,
+                Duration.ofMinutes(1), 4096, 8)) {
+            ByteBuffer source = ByteBuffer.wrap(large);
+            assertEquals(large.length, writer.write(source));
+            assertFalse(source.hasRemaining());
+            writer.sync();
+            assertEquals(large.length, writer.durableBytes());
+            assertEquals(1, writer.forceCount());
+            // Повторный sync без новых записей не вызывает force
+            writer.sync();
+            assertEquals(1, writer.forceCount());
+        }
+        byte[] content = Files.readAllBytes(file);
+        assertEquals(4 + large.length, content.length);
+        assertEquals("head", new String(content, 0, 4, StandardCharsets.UTF_8));
+        for (int i = 0; i < large.length; i++) {
+            assertEquals(large[i], content[4 + i]);
+        }
+    }
+
+    /**
+     * Проверяет, что фоновый поток передаёт данные в файл без явного flush.
+     *
+     * @throws Exception если возникла ошибка при работе с файлами или ожидании
+     */
+    @Test
+    void shouldFlushInBackground() throws Exception {
+        Path file = tempDir.resolve("background.log");
+        try (BatchingFileWriter writer = new BatchingFileWriter(file, BatchingFileWriter.Durability.GROUP_COMMIT,
+                Duration.ofMillis(10))) {
+            writer.writeLine("hello");
+            long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (writer.durableBytes() < 6 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(6, writer.durableBytes());
+            assertEquals("hello\n", Files.readString(file, StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Проверяет, что в режиме SYNC все записи из разных потоков закреплены
+     * к моменту возврата и сбросов на диск не больше, чем записей.
+     *
+     * @throws Exception если возникла ошибка при работе с файлами или в потоках
+     */
+    @Test
+    void syncModeShouldGroupConcurrentCommits() throws Exception {
+        Path file = tempDir.resolve("sync.log");
+        int threads = 4;
+        int perThread = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (BatchingFileWriter writer = new BatchingFileWriter(file, BatchingFileWriter.Durability.SYNC,
+                Duration.ZERO)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        long end = writer.writeLine(thread + ":" + i);
+                        assertTrue(writer.durableBytes() >= end);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            assertTrue(writer.forceCount() <= (long) threads * perThread);
+            assertEquals(writer.writtenBytes(), writer.durableBytes());
+        } finally {
+            executor.shutdown();
+        }
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(threads * perThread, lines.size());
+        assertEquals(threads * perThread, new HashSet<>(lines).size());
+        // Записи одного потока идут по порядку
+        for (int t = 0; t < threads; t++) {
+            String prefix = t + ":";
+            int next = 0;
+            for (String line : lines) {
+                if (line.startsWith(prefix)) {
+                    assertEquals(prefix + next++, line);
+                }
+            }
+            assertEquals(perThread, next);
+        }
+    }
+
+    /**
+     * Проверяет повторное закрытие и запись после закрытия.
+     *
+     * @throws IOException если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldRejectWritesAfterClose() throws IOException {
+        Path file = tempDir.resolve("closed.log");
+        BatchingFileWriter writer = new BatchingFileWriter(file);
+        writer.writeLine("last");
+        writer.close();
+        writer.close();
+
+        assertThrows(IllegalStateException.class, () -> writer.writeLine("late"));
+        assertEquals("last\n", Files.readString(file, StandardCharsets.UTF_8));
+        assertEquals(5, writer.durableBytes());
+    }
+
+    /**
+     * Проверяет, что ошибка фоновой записи не теряется: закрытие сообщает о ней.
+     * Запись в {@code /dev/full} всегда завершается ошибкой «нет места».
+     *
+     * @throws Exception если возникла ошибка при ожидании
+     */
+    @Test
+    void closeShouldReportBackgroundFailure() throws Exception {
+        Path full = Path.of("/dev/full");
+        if (!Files.isWritable(full)) {
+            // Устройство есть только в Linux
+            return;
+        }
+        BatchingFileWriter writer = new BatchingFileWriter(full, BatchingFileWriter.Durability.NONE,
+                Duration.ofMillis(10));
+        boolean failed = false;
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!failed && System.nanoTime() < deadline) {
+            try {
+                writer.writeLine("lost");
+                Thread.sleep(5);
+            } catch (IOException e) {
+                failed = true;
+            }
+        }
+        assertTrue(failed);
+
+        IOException error = assertThrows(IOException.class, writer::close);
+        assertNotNull(error.getCause());
+        writer.close();
+    }
+
+    /**
+     * Проверяет проверку параметров.
+     */
+    @Test
+    void shouldValidateArguments() {
+        Path file = tempDir.resolve("invalid.log");
+        assertThrows(IllegalArgumentException.class, () -> new BatchingFileWriter(file,
+                BatchingFileWriter.Durability.NONE, Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> new BatchingFileWriter(file,
+                BatchingFileWriter.Durability.SYNC, Duration.ZERO, 0, 1));
+    }
+}
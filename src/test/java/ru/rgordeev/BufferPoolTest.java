@@ -0,0 +1,208 @@
+package ru.rgordeev;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Модульные тесты для класса BufferPool.
+ * Проверяют классы размеров, переиспользование буферов через кэш потока и общую
+ * очередь, счётчики попаданий, защиту от устаревших обёрток и обнаружение утечек.
+ */
+class BufferPoolTest {
+
+    /**
+     * Проверяет округление ёмкости до класса размера.
+     */
+    @Test
+    void shouldRoundCapacityToSizeClass() {
+        BufferPool pool = new BufferPool(4, 4);
+        try (BufferPool.PooledBuffer small = pool.acquire(1);
+             BufferPool.PooledBuffer exact = pool.acquire(64 * 1024);
+             BufferPool.PooledBuffer rounded = pool.acquire(64 * 1024 + 1);
+             BufferPool.PooledBuffer huge = pool.acquire(BufferPool.MAX_BUFFER_SIZE + 1)) {
+            assertEquals(BufferPool.MIN_BUFFER_SIZE, small.buffer().capacity());
+            assertEquals(64 * 1024, exact.buffer().capacity());
+            assertEquals(128 * 1024, rounded.buffer().capacity());
+            assertEquals(BufferPool.MAX_BUFFER_SIZE + 1, huge.buffer().capacity());
+            assertTrue(small.buffer().isDirect());
+        }
+        assertEquals(-1, BufferPool.sizeClass(BufferPool.MAX_BUFFER_SIZE + 1));
+        assertEquals(0, BufferPool.sizeClass(0));
+        assertEquals(1, BufferPool.sizeClass(BufferPool.MIN_BUFFER_SIZE + 1));
+    }
+
+    /**
+     * Проверяет, что возвращённый буфер выдаётся снова из кэша потока очищенным.
+     */
+    @Test
+    void shouldReuseBufferFromThreadLocalCache() {
+        BufferPool pool = new BufferPool(4, 4);
+        ByteBuffer first;
+        try (BufferPool.PooledBuffer pooled = pool.acquire(8192)) {
+            first = pooled.buffer();
+            first.putInt(42).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        try (BufferPool.PooledBuffer pooled = pool.acquire(8000)) {
+            assertSame(first, pooled.buffer());
+            assertEquals(0, pooled.buffer().position());
+            assertEquals(pooled.buffer().capacity(), pooled.buffer().limit());
+            assertEquals(ByteOrder.BIG_ENDIAN, pooled.buffer().order());
+        }
+
+        BufferPool.Stats stats = pool.stats();
+        assertEquals(1, stats.threadLocalHits());
+        assertEquals(1, stats.misses());
+        assertEquals(0.5, stats.hitRatio(), 1e-9);
+    }
+
+    /**
+     * Проверяет, что в установившемся режиме выдача и возврат буфера не выделяют
+     * прямую память, а в куче создаётся только небольшая обёртка.
+     */
+    @Test
+    void shouldOnlyAllocateHandleOnSteadyStateAcquire() {
+        BufferPool pool = new BufferPool(4, 4);
+        // Прогрев, чтобы в замер не попали выделения при компиляции и загрузке классов
+        for (int i = 0; i < 100_000; i++) {
+            pool.acquire(4096).close();
+        }
+        assertEquals(1, pool.stats().misses());
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean allocations)) {
+            // Счётчик выделений есть только в HotSpot-совместимых JVM
+            return;
+        }
+        long before = allocations.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 100_000; i++) {
+            pool.acquire(4096).close();
+        }
+        long allocated = allocations.getCurrentThreadAllocatedBytes() - before;
+        assertEquals(1, pool.stats().misses());
+        assertTrue(allocated < 100_000L * 64, "Выделено в куче: " + allocated);
+    }
+
+    /**
+     * Проверяет, что устаревшая обёртка не даёт доступа к буферу, выданному
+     * снова, и повторным закрытием не возвращает его в пул.
+     */
+    @Test
+    void staleHandleShouldNotReleaseReissuedBuffer() {
+        BufferPool pool = new BufferPool(4, 4);
+        BufferPool.PooledBuffer stale = pool.acquire(4096);
+        stale.close();
+        try (BufferPool.PooledBuffer owner = pool.acquire(4096)) {
+            assertNotSame(stale, owner);
+            ByteBuffer owned = owner.buffer();
+            stale.close();
+            assertThrows(IllegalStateException.class, stale::buffer);
+            try (BufferPool.PooledBuffer other = pool.acquire(4096)) {
+                assertNotSame(owned, other.buffer());
+            }
+            assertSame(owned, owner.buffer());
+        }
+    }
+
+    /**
+     * Проверяет, что буфер, возвращённый другим потоком, переходит через общую очередь.
+     *
+     * @throws InterruptedException если поток был прерван
+     */
+    @Test
+    void shouldShareBuffersBetweenThreads() throws InterruptedException {
+        // Без кэша потока все буферы проходят через общую очередь
+        BufferPool pool = new BufferPool(0, 4);
+        AtomicReference<ByteBuffer> released = new AtomicReference<>();
+        Thread thread = new Thread(() -> {
+            try (BufferPool.PooledBuffer pooled = pool.acquire(16 * 1024)) {
+                released.set(pooled.buffer());
+            }
+        });
+        thread.start();
+        thread.join();
+
+        try (BufferPool.PooledBuffer pooled = pool.acquire(16 * 1024)) {
+            assertSame(released.get(), pooled.buffer());
+        }
+        assertEquals(1, pool.stats().sharedHits());
+    }
+
+    /**
+     * Проверяет, что буферы сверх ёмкости пула отбрасываются, а не накапливаются.
+     */
+    @Test
+    void shouldDropBuffersBeyondCapacity() {
+        BufferPool pool = new BufferPool(1, 1);
+        BufferPool.PooledBuffer a = pool.acquire(4096);
+        BufferPool.PooledBuffer b = pool.acquire(4096);
+        BufferPool.PooledBuffer c = pool.acquire(4096);
+        a.close();
+        b.close();
+        c.close();
+
+        for (int i = 0; i < 3; i++) {
+            pool.acquire(4096).close();
+        }
+        try (BufferPool.PooledBuffer first = pool.acquire(4096);
+             BufferPool.PooledBuffer second = pool.acquire(4096);
+             BufferPool.PooledBuffer third = pool.acquire(4096)) {
+            assertNotNull(third.buffer());
+        }
+        BufferPool.Stats stats = pool.stats();
+        // 3 начальных промаха и 1 при третьем одновременном запросе
+        assertEquals(4, stats.misses());
+        assertEquals(4, stats.threadLocalHits());
+        assertEquals(1, stats.sharedHits());
+    }
+
+    /**
+     * Проверяет, что закрытый буфер нельзя использовать, а повторное закрытие безопасно.
+     */
+    @Test
+    void shouldRejectAccessAfterClose() {
+        BufferPool pool = new BufferPool(4, 4);
+        BufferPool.PooledBuffer pooled = pool.acquire(4096);
+        pooled.close();
+        pooled.close();
+
+        assertThrows(IllegalStateException.class, pooled::buffer);
+        // Двойной возврат не должен положить буфер в пул дважды
+        try (BufferPool.PooledBuffer first = pool.acquire(4096);
+             BufferPool.PooledBuffer second = pool.acquire(4096)) {
+            assertNotSame(first.buffer(), second.buffer());
+        }
+    }
+
+    /**
+     * Проверяет, что незакрытый буфер учитывается как утечка после сборки мусора.
+     *
+     * @throws InterruptedException если поток был прерван
+     */
+    @Test
+    void shouldDetectLeakedBuffer() throws InterruptedException {
+        BufferPool pool = new BufferPool(4, 4);
+        leak(pool);
+
+        for (int i = 0; i < 100 && pool.stats().leaks() == 0; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertEquals(1, pool.stats().leaks());
+
+        pool.acquire(4096).close();
+        System.gc();
+        Thread.sleep(100);
+        assertEquals(1, pool.stats().leaks());
+    }
+
+    private static void leak(BufferPool pool) {
+        pool.acquire(4096).buffer().put((byte) 1);
+    }
+}
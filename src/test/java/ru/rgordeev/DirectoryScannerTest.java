@@ -0,0 +1,121 @@
+package ru.rgordeev;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Модульные тесты для классов DirectoryScanner и DirectorySnapshot.
+ * Проверяют, что последовательный и параллельный обход дают одинаковый
+ * снимок с корректными размерами и признаками каталогов.
+ */
+class DirectoryScannerTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Проверяет последовательный и параллельный обход вложенного дерева.
+     *
+     * @throws IOException если возникла ошибка при работе с файлами
+     */
+    @Test
+    void sequentialAndParallelScansShouldMatch() throws IOException {
+        Map<String, Long> expected = new HashMap<>();
+        long total = 0;
+        for (int d = 0; d < 5; d++) {
+            Path sub = Files.createDirectories(tempDir.resolve("dir" + d).resolve("nested"));
+            expected.put("dir" + d, -1L);
+            expected.put("dir" + d + "/nested", -1L);
+            for (int f = 0; f < 20; f++) {
+                byte[] data = new byte[d * 100 + f];
+                Files.write(sub.resolve("file" + f + ".bin"), data);
+                expected.put("dir" + d + "/nested/file" + f + ".bin", (long) data.length);
+                total += data.length;
+            }
+        }
+        Files.writeString(tempDir.resolve("root.txt"), "корень");
+        expected.put("root.txt", (long) "корень".getBytes().length);
+        total += "корень".getBytes().length;
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            DirectoryScanner scanner = new DirectoryScanner(pool);
+            DirectorySnapshot sequential = scanner.scan(tempDir);
+            DirectorySnapshot parallel = scanner.scanParallel(tempDir);
+
+            assertEquals(expected, toMap(sequential));
+            assertEquals(expected, toMap(parallel));
+            assertEquals(total, sequential.totalFileSize());
+            assertEquals(total, parallel.totalFileSize());
+            assertEquals(tempDir.resolve("root.txt"), sequential.path(indexOf(sequential, "root.txt")));
+            assertTrue(parallel.lastModified(indexOf(parallel, "root.txt")) > 0);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Проверяет ошибки: корень не каталог и выход индекса за пределы снимка.
+     *
+     * @throws IOException если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldRejectFileRootAndInvalidIndex() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("file.txt"), "x");
+        DirectoryScanner scanner = new DirectoryScanner();
+
+        assertThrows(NotDirectoryException.class, () -> scanner.scan(file));
+        assertThrows(NotDirectoryException.class, () -> scanner.scanParallel(file));
+        DirectorySnapshot snapshot = scanner.scan(tempDir);
+        assertEquals(1, snapshot.count());
+        assertThrows(IndexOutOfBoundsException.class, () -> snapshot.name(1));
+    }
+
+    /**
+     * Проверяет, что имена в UTF-8 из упакованной колонки читаются без искажений
+     * при последовательном и параллельном обходе.
+     *
+     * @throws IOException если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldKeepNonAsciiNames() throws IOException {
+        Path dir = Files.createDirectories(tempDir.resolve("каталог").resolve("日本"));
+        Files.writeString(dir.resolve("файл.txt"), "данные");
+        Map<String, Long> expected = Map.of("каталог", -1L, "каталог/日本", -1L,
+                "каталог/日本/файл.txt", (long) "данные".getBytes(StandardCharsets.UTF_8).length);
+
+        DirectoryScanner scanner = new DirectoryScanner();
+        assertEquals(expected, toMap(scanner.scan(tempDir)));
+        DirectorySnapshot parallel = scanner.scanParallel(tempDir);
+        assertEquals(expected, toMap(parallel));
+        assertEquals(dir.resolve("файл.txt"), parallel.path(indexOf(parallel, "каталог/日本/файл.txt")));
+    }
+
+    private static Map<String, Long> toMap(DirectorySnapshot snapshot) {
+        Map<String, Long> entries = new HashMap<>();
+        for (int i = 0; i < snapshot.count(); i++) {
+            entries.put(snapshot.name(i), snapshot.isDirectory(i) ? -1L : snapshot.fileSize(i));
+        }
+        return entries;
+    }
+
+    private static int indexOf(DirectorySnapshot snapshot, String name) {
+        for (int i = 0; i < snapshot.count(); i++) {
+            if (snapshot.name(i).equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,155 @@
+package ru.rgordeev;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Модульные тесты для класса DirectoryWatcher.
+ * Проверяют построение индекса, объединение событий, обработку
+ * вложенных каталогов и массовых изменений.
+ */
+class DirectoryWatcherTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final List<DirectoryWatcher.Change> changes = new CopyOnWriteArrayList<>();
+
+    /**
+     * Проверяет создание, изменение и удаление файла.
+     *
+     * @throws Exception если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldTrackCreateModifyDelete() throws Exception {
+        Files.writeString(tempDir.resolve("existing.txt"), "old");
+        try (DirectoryWatcher watcher = new DirectoryWatcher(tempDir, Duration.ofMillis(50), changes::addAll)) {
+            watcher.start();
+            assertEquals(1, watcher.count());
+
+            Path file = Files.writeString(tempDir.resolve("new.txt"), "data");
+            await(() -> watcher.entry(file) != null);
+            assertEquals(4, watcher.entry(Path.of("new.txt")).size());
+
+            Files.writeString(file, "longer data");
+            await(() -> watcher.entry(file).size() == 11);
+
+            Files.delete(tempDir.resolve("existing.txt"));
+            await(() -> watcher.count() == 1);
+
+            assertTrue(changes.contains(new DirectoryWatcher.Change(DirectoryWatcher.Kind.CREATED, file)));
+            assertTrue(changes.contains(new DirectoryWatcher.Change(DirectoryWatcher.Kind.MODIFIED, file)));
+            assertTrue(changes.contains(new DirectoryWatcher.Change(DirectoryWatcher.Kind.DELETED,
+                    tempDir.resolve("existing.txt"))));
+        }
+    }
+
+    /**
+     * Проверяет, что новые каталоги регистрируются, а удаление каталога
+     * удаляет из индекса всё его содержимое.
+     *
+     * @throws Exception если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldWatchNestedDirectories() throws Exception {
+        try (DirectoryWatcher watcher = new DirectoryWatcher(tempDir, Duration.ofMillis(50), changes::addAll)) {
+            watcher.start();
+
+            Path nested = Files.createDirectories(tempDir.resolve("a/b"));
+            Files.writeString(nested.resolve("first.txt"), "1");
+            await(() -> watcher.entry(nested.resolve("first.txt")) != null);
+
+            Files.writeString(nested.resolve("second.txt"), "2");
+            await(() -> watcher.entry(nested.resolve("second.txt")) != null);
+            assertEquals(4, watcher.count());
+            assertTrue(watcher.entry(Path.of("a")).directory());
+
+            TreeCleanup.deleteRecursively(tempDir.resolve("a"));
+            await(() -> watcher.count() == 0);
+        }
+    }
+
+    /**
+     * Проверяет, что файл, созданный и удалённый внутри окна объединения, не порождает событий,
+     * а несколько записей в файл дают одно событие.
+     *
+     * @throws Exception если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldCoalesceEventsWithinWindow() throws Exception {
+        try (DirectoryWatcher watcher = new DirectoryWatcher(tempDir, Duration.ofSeconds(1), changes::addAll)) {
+            watcher.start();
+
+            Path temporary = Files.writeString(tempDir.resolve("temporary.txt"), "x");
+            Files.delete(temporary);
+            Path file = tempDir.resolve("written.txt");
+            for (int i = 0; i < 10; i++) {
+                Files.writeString(file, "x".repeat(i + 1));
+            }
+            await(() -> watcher.entry(file) != null);
+
+            assertEquals(List.of(new DirectoryWatcher.Change(DirectoryWatcher.Kind.CREATED, file)), changes);
+            assertEquals(10, watcher.entry(file).size());
+        }
+    }
+
+    /**
+     * Проверяет, что массовое создание файлов (возможно, с переполнением очереди ОС)
+     * приводит к полному индексу без дубликатов событий.
+     *
+     * @throws Exception если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldCoalesceBulkChanges() throws Exception {
+        try (DirectoryWatcher watcher = new DirectoryWatcher(tempDir, Duration.ofMillis(200), changes::addAll)) {
+            watcher.start();
+
+            int files = 2000;
+            for (int i = 0; i < files; i++) {
+                Files.writeString(tempDir.resolve("file" + i + ".txt"), "x");
+            }
+            await(() -> watcher.count() == files);
+            Thread.sleep(300);
+
+            List<DirectoryWatcher.Change> created = new ArrayList<>();
+            for (DirectoryWatcher.Change change : changes) {
+                if (change.kind() == DirectoryWatcher.Kind.CREATED) {
+                    created.add(change);
+                }
+            }
+            assertEquals(files, created.size());
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(20).toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("Условие не выполнилось за 20 секунд");
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    /** Рекурсивное удаление каталога */
+    private static final class TreeCleanup {
+        static void deleteRecursively(Path dir) throws IOException {
+            try (var paths = Files.walk(dir)) {
+                for (Path path : paths.sorted((a, b) -> b.getNameCount() - a.getNameCount()).toList()) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+}
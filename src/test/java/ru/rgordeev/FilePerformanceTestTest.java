@@ -4,6 +4,7 @@ import org.junit.jupiter.api.*;
 import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Map;
 
 class FilePerformanceTestTest {
     private static Path testFile;
@@ -38,13 +39,40 @@ class FilePerformanceTestTest {
         }
     }
 
+    /**
+     * Сравнение по времени на CI нестабильно, поэтому проверяется причина ускорения:
+     * буферизованное чтение обращается к файлу на порядки реже.
+     * Замеры времени выполняются JMH-бенчмарком ReadStrategyBenchmark.
+     */
     @Test
     void bufferedInputShouldBeFasterThanUnbuffered() throws IOException {
-        long unbufferedTime = performanceTest.measureUnbufferedRead(testFile);
-        long bufferedTime = performanceTest.measureBufferedRead(testFile);
+        CountingInputStream unbuffered = new CountingInputStream(new FileInputStream(testFile.toFile()));
+        try (InputStream in = unbuffered) {
+            performanceTest.measureReadTime(in);
+        }
+        CountingInputStream underlying = new CountingInputStream(new FileInputStream(testFile.toFile()));
+        try (InputStream in = new BufferedInputStream(underlying)) {
+            performanceTest.measureReadTime(in);
+        }
+
+        Assertions.assertTrue(underlying.reads * 100 < unbuffered.reads,
+                "Буферизованное чтение должно выполнять намного меньше обращений к файлу");
+    }
+
+    @Test
+    void compareShouldReportEveryStrategy() throws IOException {
+        Map<String, Long> results = performanceTest.compareReadPerformance(testFile);
+
+        Assertions.assertTrue(results.containsKey("unbuffered"));
+        Assertions.assertTrue(results.containsKey("buffered-input-stream"));
+        for (ReadStrategy strategy : ReadStrategies.all(ReadStrategies.DEFAULT_BUFFER_SIZE)) {
+            Assertions.assertTrue(results.containsKey(strategy.name()), strategy.name());
+        }
+    }
 
-        Assertions.assertTrue(bufferedTime <= unbufferedTime,
-                "Буферизованное чтение должно быть быстрее небуферизованного");
+    @Test
+    void selectedStrategyShouldReadWholeFile() throws IOException {
+        Assertions.assertEquals(Files.size(testFile), performanceTest.readWithSelectedStrategy(testFile));
     }
 
     @Test
@@ -52,4 +80,25 @@ class FilePerformanceTestTest {
         Assertions.assertThrows(IllegalArgumentException.class,
                 () -> performanceTest.measureReadTime(null));
     }
+
+    /** Считает число вызовов read у обёрнутого потока */
+    private static final class CountingInputStream extends FilterInputStream {
+        long reads;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            reads++;
+            return super.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            reads++;
+            return super.read(b, off, len);
+        }
+    }
 }
@@ -0,0 +1,142 @@
+package ru.rgordeev;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Модульные тесты для класса FileProcessingExecutor.
+ * Проверяют порядок результатов, ограничение числа одновременно обрабатываемых
+ * файлов, отмену задач при ошибке и прерывании.
+ */
+class FileProcessingExecutorTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Проверяет чтение, преобразование и запись файлов с соблюдением лимита.
+     *
+     * @throws IOException если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldProcessFilesWithinLimit() throws IOException {
+        List<Path> files = createFiles(500);
+        Path output = Files.createDirectory(tempDir.resolve("out"));
+        AtomicInteger open = new AtomicInteger();
+        AtomicInteger maxOpen = new AtomicInteger();
+
+        try (FileProcessingExecutor executor = FileProcessingExecutor.virtualThreads(8)) {
+            List<Integer> lengths = executor.processAll(files, file -> {
+                maxOpen.accumulateAndGet(open.incrementAndGet(), Math::max);
+                try {
+                    String content = Files.readString(file).toUpperCase();
+                    Files.writeString(output.resolve(file.getFileName()), content);
+                    return content.length();
+                } finally {
+                    open.decrementAndGet();
+                }
+            });
+
+            assertEquals(files.size(), lengths.size());
+            for (int i = 0; i < files.size(); i++) {
+                assertEquals(("file " + i).length(), (int) lengths.get(i));
+                assertEquals("FILE " + i, Files.readString(output.resolve(files.get(i).getFileName())));
+            }
+        }
+        assertTrue(maxOpen.get() <= 8, "Одновременно обрабатывалось " + maxOpen.get() + " файлов");
+    }
+
+    /**
+     * Проверяет, что при ошибке одной задачи остальные отменяются и
+     * к моменту выхода из метода ни одна задача не выполняется.
+     *
+     * @throws IOException если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldCancelRemainingTasksOnFailure() throws IOException {
+        List<Path> files = createFiles(1000);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger started = new AtomicInteger();
+
+        try (FileProcessingExecutor executor = FileProcessingExecutor.platformThreads(4, 4)) {
+            IOException error = assertThrows(IOException.class, () -> executor.processAll(files, file -> {
+                started.incrementAndGet();
+                running.incrementAndGet();
+                try {
+                    if (file.getFileName().toString().equals("file10.txt")) {
+                        throw new IOException("Ошибка обработки " + file.getFileName());
+                    }
+                    Thread.sleep(5);
+                    return null;
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                } finally {
+                    running.decrementAndGet();
+                }
+            }));
+
+            assertEquals("Ошибка обработки file10.txt", error.getMessage());
+            assertEquals(0, running.get());
+            assertTrue(started.get() < files.size(), "Запущено задач: " + started.get());
+        }
+    }
+
+    /**
+     * Проверяет, что прерывание вызывающего потока отменяет задачи.
+     *
+     * @throws Exception если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldStopOnCallerInterrupt() throws Exception {
+        List<Path> files = createFiles(100);
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        AtomicReference<Throwable> result = new AtomicReference<>();
+
+        try (FileProcessingExecutor executor = FileProcessingExecutor.platformThreads(2, 2)) {
+            Thread caller = new Thread(() -> {
+                try {
+                    executor.processAll(files, file -> {
+                        firstStarted.countDown();
+                        try {
+                            Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+                        } catch (InterruptedException e) {
+                            throw new InterruptedIOException();
+                        }
+                        return null;
+                    });
+                } catch (Throwable e) {
+                    result.set(e);
+                }
+            });
+            caller.start();
+            assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+            caller.interrupt();
+            caller.join(TimeUnit.SECONDS.toMillis(10));
+
+            assertFalse(caller.isAlive());
+            assertInstanceOf(InterruptedIOException.class, result.get());
+        }
+    }
+
+    private List<Path> createFiles(int count) throws IOException {
+        Path input = Files.createDirectories(tempDir.resolve("in"));
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            files.add(Files.writeString(input.resolve("file" + i + ".txt"), "file " + i));
+        }
+        return files;
+    }
+}
@@ -1,11 +1,17 @@
 package ru.rgordeev;
 
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
 import org.junit.jupiter.api.io.TempDir;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 /**
  * Модульные тесты для класса FileReaderExample.
@@ -87,6 +93,45 @@ class FileReaderExampleTest {
                 "Прочитанный текст должен совпадать с исходным");
     }
 
+    /**
+     * Тест проверяет, что многобайтовые символы UTF-8 (кириллица и суррогатные пары),
+     * попадающие на границу блоков, декодируются корректно.
+     *
+     * @throws IOException если возникли проблемы при работе с файлом
+     */
+    @Test
+    void testReadTextFileMultiByteAcrossChunks() throws IOException {
+        StringBuilder text = new StringBuilder("x");
+        while (text.length() < FileReaderExample.CHUNK_SIZE * 3) {
+            text.append("Привет, мир! \uD83D\uDE00 ");
+        }
+        String testContent = text.toString();
+        Path testFile = tempDir.resolve("utf8.txt");
+        Files.writeString(testFile, testContent, StandardCharsets.UTF_8);
+
+        Assertions.assertEquals(testContent, fileReaderExample.readTextFile(testFile.toString()),
+                "Текст, содержащий многобайтовые символы, должен читаться без искажений");
+        Assertions.assertEquals(testContent, fileReaderExample.readTextFileCharByChar(testFile.toString()));
+    }
+
+    /**
+     * Тест проверяет чтение в однобайтовой кодировке и замену некорректных
+     * последовательностей UTF-8 символом замены.
+     *
+     * @throws IOException если возникли проблемы при работе с файлом
+     */
+    @Test
+    void testReadTextFileCharsetAndMalformedInput() throws IOException {
+        Charset cp1251 = Charset.forName("windows-1251");
+        Path cp1251File = tempDir.resolve("cp1251.txt");
+        Files.writeString(cp1251File, "Привет", cp1251);
+        Assertions.assertEquals("Привет", fileReaderExample.readTextFile(cp1251File.toString(), cp1251));
+
+        Path malformedFile = tempDir.resolve("malformed.txt");
+        Files.write(malformedFile, new byte[]{'a', (byte) 0xD0, 'b'});
+        Assertions.assertEquals("a\uFFFDb", fileReaderExample.readTextFile(malformedFile.toString()));
+    }
+
     /**
      * Тест проверяет, что при попытке чтения несуществующего бинарного файла
      * генерируется исключение IOException.
@@ -116,4 +161,143 @@ class FileReaderExampleTest {
                 () -> fileReaderExample.readTextFile(nonExistentFile),
                 "Должно быть выброшено исключение при попытке чтения несуществующего файла");
     }
+
+    /**
+     * Тест проверяет чтение в примитивный массив файла, размер которого
+     * не кратен размеру блока чтения.
+     *
+     * @throws IOException если возникли проблемы при работе с файлом
+     */
+    @Test
+    void testReadBinaryFileBytesMultipleChunks() throws IOException {
+        byte[] testData = randomBytes(FileReaderExample.CHUNK_SIZE * 3 + 17);
+        Path testFile = tempDir.resolve("chunks.bin");
+        Files.write(testFile, testData);
+
+        byte[] result = fileReaderExample.readBinaryFileBytes(testFile.toString());
+
+        Assertions.assertArrayEquals(testData, result,
+                "Содержимое массива должно совпадать с исходными данными");
+    }
+
+    /**
+     * Тест проверяет чтение пустого файла.
+     *
+     * @throws IOException если возникли проблемы при работе с файлом
+     */
+    @Test
+    void testReadBinaryFileBytesEmpty() throws IOException {
+        Path testFile = Files.createFile(tempDir.resolve("empty.bin"));
+
+        Assertions.assertEquals(0, fileReaderExample.readBinaryFileBytes(testFile.toString()).length);
+        Assertions.assertEquals(0, fileReaderExample.readBinaryFile(testFile.toString()).size());
+    }
+
+    /**
+     * Тест проверяет чтение файла в прямой ByteBuffer.
+     *
+     * @throws IOException если возникли проблемы при работе с файлом
+     */
+    @Test
+    void testReadBinaryFileDirect() throws IOException {
+        byte[] testData = randomBytes(100_003);
+        Path testFile = tempDir.resolve("direct.bin");
+        Files.write(testFile, testData);
+
+        ByteBuffer buffer = fileReaderExample.readBinaryFileDirect(testFile.toString());
+
+        Assertions.assertTrue(buffer.isDirect(), "Буфер должен быть прямым");
+        Assertions.assertEquals(testData.length, buffer.remaining());
+        byte[] result = new byte[buffer.remaining()];
+        buffer.get(result);
+        Assertions.assertArrayEquals(testData, result);
+    }
+
+    /**
+     * Тест проверяет асинхронное чтение файла целиком.
+     *
+     * @throws IOException если возникли проблемы при работе с файлом
+     */
+    @Test
+    void testReadBinaryFileAsync() throws IOException {
+        byte[] testData = randomBytes(100_003);
+        Path testFile = tempDir.resolve("async.bin");
+        Files.write(testFile, testData);
+
+        ByteBuffer buffer = fileReaderExample.readBinaryFileAsync(testFile.toString(), null).join();
+
+        byte[] result = new byte[buffer.remaining()];
+        buffer.get(result);
+        Assertions.assertArrayEquals(testData, result);
+    }
+
+    /**
+     * Сравнивает расход памяти и скорость чтения файла размером 256 МБ
+     * в примитивный массив с прежним подходом (побайтовое чтение в {@code List<Byte>}).
+     * Прежний подход измеряется на части файла, так как на полном объёме
+     * ему не хватает памяти.
+     * Запускается только с {@code -Dio.largeTests=true}.
+     *
+     * @throws IOException если возникли проблемы при работе с файлом
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "io.largeTests", matches = "true")
+    void testReadBinaryFileBytesLargeFileHeapAndThroughput() throws IOException {
+        int largeSize = 256 * 1024 * 1024;
+        int sampleSize = 8 * 1024 * 1024;
+        Path largeFile = tempDir.resolve("large.bin");
+        byte[] block = randomBytes(1024 * 1024);
+        try (OutputStream out = Files.newOutputStream(largeFile)) {
+            for (int written = 0; written < largeSize; written += block.length) {
+                out.write(block);
+            }
+        }
+
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        byte[] bytes = fileReaderExample.readBinaryFileBytes(largeFile.toString());
+        long primitiveNanos = System.nanoTime() - start;
+        long primitiveHeap = usedHeap() - heapBefore;
+        Assertions.assertEquals(largeSize, bytes.length);
+        bytes = null;
+
+        heapBefore = usedHeap();
+        start = System.nanoTime();
+        List<Byte> boxed = new ArrayList<>();
+        try (InputStream in = new FileInputStream(largeFile.toFile())) {
+            int value;
+            while (boxed.size() < sampleSize && (value = in.read()) != -1) {
+                boxed.add((byte) value);
+            }
+        }
+        long boxedNanos = System.nanoTime() - start;
+        long boxedHeap = usedHeap() - heapBefore;
+        Assertions.assertEquals(sampleSize, boxed.size());
+
+        double primitiveBytesPerByte = (double) primitiveHeap / largeSize;
+        double boxedBytesPerByte = (double) boxedHeap / sampleSize;
+        double primitiveMbPerSec = largeSize / 1e6 / (primitiveNanos / 1e9);
+        double boxedMbPerSec = sampleSize / 1e6 / (boxedNanos / 1e9);
+        System.out.printf("byte[]: %.2f байт кучи на байт, %.1f МБ/с; List<Byte>: %.2f байт кучи на байт, %.1f МБ/с%n",
+                primitiveBytesPerByte, primitiveMbPerSec, boxedBytesPerByte, boxedMbPerSec);
+
+        Assertions.assertTrue(primitiveBytesPerByte < 1.5,
+                "Примитивный массив не должен требовать заметно больше одного байта кучи на байт файла");
+        Assertions.assertTrue(boxedBytesPerByte > primitiveBytesPerByte * 2,
+                "List<Byte> должен расходовать существенно больше памяти");
+        Assertions.assertTrue(primitiveMbPerSec > boxedMbPerSec,
+                "Пакетное чтение должно быть быстрее побайтового");
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(42).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
 }
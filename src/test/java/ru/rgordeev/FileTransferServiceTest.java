@@ -0,0 +1,269 @@
+package ru.rgordeev;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.IllegalBlockingModeException;
+import java.nio.channels.Pipe;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Модульные тесты для класса FileTransferService.
+ * Проверяют копирование файлов блоками, сообщения о прогрессе
+ * и передачу между файлом и каналами.
+ */
+class FileTransferServiceTest {
+
+    /** Маленький блок, чтобы передача выполнялась за несколько вызовов */
+    private static final long CHUNK_SIZE = 4096;
+
+    @TempDir
+    Path tempDir;
+
+    private final FileTransferService service = new FileTransferService(CHUNK_SIZE);
+
+    /**
+     * Проверяет копирование блоками и монотонный прогресс до полного размера.
+     *
+     * @throws IOException если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldCopyInChunksAndReportProgress() throws IOException {
+        byte[] data = randomBytes((int) CHUNK_SIZE * 5 + 11);
+        Path source = tempDir.resolve("source.bin");
+        Path target = tempDir.resolve("target.bin");
+        Files.write(source, data);
+
+        List<Long> progress = new ArrayList<>();
+        long copied = service.copy(source, target, (transferred, total) -> {
+            assertEquals(data.length, total);
+            progress.add(transferred);
+        });
+
+        assertEquals(data.length, copied);
+        assertArrayEquals(data, Files.readAllBytes(target));
+        assertEquals(6, progress.size());
+        assertEquals((long) data.length, progress.get(progress.size() - 1));
+    }
+
+    /**
+     * Проверяет, что существующий файл перезаписывается только с REPLACE_EXISTING.
+     *
+     * @throws IOException если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldReplaceOnlyWhenRequested() throws IOException {
+        Path source = tempDir.resolve("short.txt");
+        Path target = tempDir.resolve("existing.txt");
+        Files.writeString(source, "new");
+        Files.writeString(target, "old and longer content");
+
+        assertThrows(FileAlreadyExistsException.class, () -> service.copy(source, target));
+
+        service.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+        assertEquals("new", Files.readString(target));
+    }
+
+    /**
+     * Проверяет, что копирование файла в самого себя ничего не делает
+     * и не стирает его даже с REPLACE_EXISTING.
+     *
+     * @throws IOException если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldNotTruncateWhenCopyingFileToItself() throws IOException {
+        Path source = Files.writeString(tempDir.resolve("self.txt"), "content");
+
+        assertEquals(0, service.copy(source, source, StandardCopyOption.REPLACE_EXISTING));
+        assertEquals(0, service.copy(source, tempDir.resolve(".").resolve("self.txt")));
+        assertEquals("content", Files.readString(source));
+    }
+
+    /**
+     * Проверяет COPY_ATTRIBUTES, NOFOLLOW_LINKS и отказ от неподдерживаемых параметров.
+     *
+     * @throws IOException если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldHonourCopyOptions() throws IOException {
+        Path source = Files.writeString(tempDir.resolve("attributes.txt"), "data");
+        FileTime modified = FileTime.from(Instant.parse("2020-01-02T03:04:05Z"));
+        Files.setLastModifiedTime(source, modified);
+
+        Path withAttributes = tempDir.resolve("with-attributes.txt");
+        service.copy(source, withAttributes, StandardCopyOption.COPY_ATTRIBUTES);
+        assertEquals(modified, Files.getLastModifiedTime(withAttributes));
+        assertEquals("data", Files.readString(withAttributes));
+        Path withoutAttributes = tempDir.resolve("without-attributes.txt");
+        service.copy(source, withoutAttributes);
+        assertNotEquals(modified, Files.getLastModifiedTime(withoutAttributes));
+
+        Path link = Files.createSymbolicLink(tempDir.resolve("link"), source.getFileName());
+        Path linkCopy = tempDir.resolve("link-copy");
+        assertEquals(0, service.copy(link, linkCopy, LinkOption.NOFOLLOW_LINKS));
+        assertTrue(Files.isSymbolicLink(linkCopy));
+        Path followed = tempDir.resolve("followed.txt");
+        assertEquals(4, service.copy(link, followed));
+        assertFalse(Files.isSymbolicLink(followed));
+
+        Path target = tempDir.resolve("atomic.txt");
+        assertThrows(UnsupportedOperationException.class,
+                () -> service.copy(source, target, StandardCopyOption.ATOMIC_MOVE));
+        assertFalse(Files.exists(target));
+    }
+
+    /**
+     * Проверяет передачу файла в сокет.
+     *
+     * @throws Exception если возникла ошибка при работе с файлами или сокетами
+     */
+    @Test
+    void shouldTransferFileToSocket() throws Exception {
+        byte[] data = randomBytes((int) CHUNK_SIZE * 3 + 1);
+        Path source = tempDir.resolve("socket.bin");
+        Files.write(source, data);
+
+        try (ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            CompletableFuture<byte[]> received = CompletableFuture.supplyAsync(() -> {
+                try (SocketChannel client = server.accept();
+                     InputStream in = Channels.newInputStream(client)) {
+                    return in.readAllBytes();
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+
+            try (SocketChannel socket = SocketChannel.open(server.getLocalAddress())) {
+                assertEquals(data.length, service.transferTo(source, socket, (transferred, total) -> { }));
+            }
+            assertArrayEquals(data, received.get());
+        }
+    }
+
+    /**
+     * Проверяет запись в файл из канала, который заканчивается раньше заявленного объёма.
+     *
+     * @throws IOException если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldTransferFromChannelUntilExhausted() throws IOException {
+        byte[] data = randomBytes((int) CHUNK_SIZE * 2 + 5);
+        Path target = tempDir.resolve("from-channel.bin");
+
+        long written = service.transferFrom(Channels.newChannel(new ByteArrayInputStream(data)),
+                target, data.length * 2L, (transferred, total) -> { });
+
+        assertEquals(data.length, written);
+        assertArrayEquals(data, Files.readAllBytes(target));
+    }
+
+    /**
+     * Проверяет, что вызов, не передавший ни байта, не обрывает передачу молча:
+     * канал назначения и источник через раз принимают и отдают 0 байт.
+     *
+     * @throws IOException если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldNotStopOnZeroByteTransfers() throws IOException {
+        byte[] data = randomBytes((int) CHUNK_SIZE * 2 + 5);
+        Path source = Files.write(tempDir.resolve("source.bin"), data);
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        WritableByteChannel channel = Channels.newChannel(sink);
+        WritableByteChannel stalling = new WritableByteChannel() {
+            private boolean stall;
+
+            @Override
+            public int write(ByteBuffer src) throws IOException {
+                stall = !stall;
+                return stall ? 0 : channel.write(src);
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        assertEquals(data.length, service.transferTo(source, stalling, (transferred, total) -> { }));
+        assertArrayEquals(data, sink.toByteArray());
+
+        ReadableByteChannel input = Channels.newChannel(new ByteArrayInputStream(data));
+        ReadableByteChannel slow = new ReadableByteChannel() {
+            private boolean stall;
+
+            @Override
+            public int read(ByteBuffer dst) throws IOException {
+                stall = !stall;
+                return stall ? 0 : input.read(dst);
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        Path target = tempDir.resolve("from-slow.bin");
+        assertEquals(data.length,
+                service.transferFrom(slow, target, data.length * 2L, (transferred, total) -> { }));
+        assertArrayEquals(data, Files.readAllBytes(target));
+    }
+
+    /**
+     * Проверяет, что неблокирующие каналы отклоняются до начала передачи.
+     *
+     * @throws IOException если возникла ошибка при работе с каналами
+     */
+    @Test
+    void shouldRejectNonBlockingChannels() throws IOException {
+        Path source = Files.write(tempDir.resolve("source.bin"), randomBytes(16));
+        Pipe pipe = Pipe.open();
+        try (Pipe.SinkChannel sink = pipe.sink(); Pipe.SourceChannel pipeSource = pipe.source()) {
+            sink.configureBlocking(false);
+            pipeSource.configureBlocking(false);
+            assertThrows(IllegalBlockingModeException.class,
+                    () -> service.transferTo(source, sink, (transferred, total) -> { }));
+            assertThrows(IllegalBlockingModeException.class,
+                    () -> service.transferFrom(pipeSource, tempDir.resolve("target.bin"), 16,
+                            (transferred, total) -> { }));
+        }
+        assertFalse(Files.exists(tempDir.resolve("target.bin")));
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(3).nextBytes(bytes);
+        return bytes;
+    }
+}
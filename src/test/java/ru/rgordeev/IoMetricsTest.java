@@ -0,0 +1,179 @@
+package ru.rgordeev;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Модульные тесты для класса IoMetrics.
+ * Проверяют учёт операций обёртками потоков и каналов, ошибки, ограничение
+ * числа путей, выключенный режим и регистрацию в JMX.
+ */
+class IoMetricsTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Проверяет учёт чтений из {@link InputStream} и {@link Reader}.
+     *
+     * @throws IOException если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldCountStreamAndReaderReads() throws IOException {
+        Path file = Files.write(tempDir.resolve("data.bin"), new byte[10_000]);
+        IoMetrics metrics = new IoMetrics();
+
+        try (InputStream in = metrics.wrap("data.bin", Files.newInputStream(file))) {
+            byte[] buffer = new byte[4096];
+            while (in.read(buffer) != -1) {
+                // читаем до конца
+            }
+            assertEquals(-1, in.read());
+        }
+        OperationMetrics reads = metrics.operation("data.bin", IoMetrics.READ);
+        assertEquals(10_000, reads.getBytes());
+        // 3 блока, чтение конца потока блоком и одиночным байтом
+        assertEquals(5, reads.getCount());
+        assertEquals(5, reads.latency().count());
+
+        try (Reader reader = metrics.wrap("text", new StringReader("привет"))) {
+            while (reader.read() != -1) {
+                // посимвольно
+            }
+        }
+        assertEquals(6, metrics.operation("text", IoMetrics.READ).getBytes());
+        assertEquals(7, metrics.operation("text", IoMetrics.READ).getCount());
+    }
+
+    /**
+     * Проверяет учёт записи, чтения и сброса через {@link FileChannel}.
+     *
+     * @throws IOException если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldCountChannelOperations() throws IOException {
+        Path file = tempDir.resolve("channel.bin");
+        IoMetrics metrics = new IoMetrics();
+
+        try (FileChannel channel = metrics.wrap("channel", FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE))) {
+            channel.write(ByteBuffer.wrap("hello".getBytes(StandardCharsets.UTF_8)));
+            channel.force(false);
+            ByteBuffer buffer = ByteBuffer.allocate(16);
+            channel.read(buffer, 0);
+            assertEquals(5, buffer.position());
+            assertEquals(5, channel.size());
+        }
+        assertEquals(5, metrics.operation("channel", IoMetrics.WRITE).getBytes());
+        assertEquals(5, metrics.operation("channel", IoMetrics.READ).getBytes());
+        assertEquals(1, metrics.operation("channel", IoMetrics.FORCE).getCount());
+        assertEquals(0, metrics.operation("channel", IoMetrics.TRANSFER).getCount());
+    }
+
+    /**
+     * Проверяет, что канал заводит счётчики только для выполненных операций,
+     * а метка каталога общая для файлов одного каталога.
+     *
+     * @throws IOException если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldCreateChannelMetricsLazily() throws IOException {
+        Path file = Files.write(tempDir.resolve("lazy.bin"), new byte[100]);
+        IoMetrics metrics = new IoMetrics();
+        String label = IoMetrics.directoryLabel(file);
+        assertEquals(label, IoMetrics.directoryLabel(tempDir.resolve("other.bin")));
+
+        try (FileChannel channel = metrics.wrap(label, FileChannel.open(file, StandardOpenOption.READ))) {
+            assertTrue(metrics.operations().isEmpty());
+            channel.read(ByteBuffer.allocate(100), 0);
+        }
+        assertEquals(1, metrics.operations().size());
+        assertEquals(100, metrics.operation(label, IoMetrics.READ).getBytes());
+    }
+
+    /**
+     * Проверяет, что исключение операции учитывается как ошибка и пробрасывается.
+     */
+    @Test
+    void shouldCountErrors() {
+        IoMetrics metrics = new IoMetrics();
+        IOException error = assertThrows(IOException.class, () -> metrics.measure("zip", "zip-read",
+                () -> {
+                    throw new IOException("нет записи");
+                }, value -> 0));
+        assertEquals("нет записи", error.getMessage());
+
+        OperationMetrics operation = metrics.operation("zip", "zip-read");
+        assertEquals(1, operation.getCount());
+        assertEquals(1, operation.getErrors());
+    }
+
+    /**
+     * Проверяет, что пути сверх ограничения учитываются под общей меткой.
+     *
+     * @throws IOException если операция завершилась ошибкой
+     */
+    @Test
+    void shouldLimitDistinctPaths() throws IOException {
+        IoMetrics metrics = new IoMetrics(true, 2);
+        for (int i = 0; i < 5; i++) {
+            metrics.measure("file-" + i, IoMetrics.WRITE, 10, () -> { });
+        }
+        assertEquals(3, metrics.operations().size());
+        assertEquals(30, metrics.operation(IoMetrics.OTHER_PATH, IoMetrics.WRITE).getBytes());
+        assertEquals(10, metrics.operation("file-0", IoMetrics.WRITE).getBytes());
+    }
+
+    /**
+     * Проверяет, что выключенные метрики возвращают исходные объекты.
+     *
+     * @throws IOException если операция завершилась ошибкой
+     */
+    @Test
+    void disabledMetricsShouldNotWrap() throws IOException {
+        IoMetrics metrics = new IoMetrics(false, IoMetrics.DEFAULT_MAX_PATHS);
+        Reader reader = new StringReader("x");
+        assertSame(reader, metrics.wrap("text", reader));
+        assertEquals("ok", metrics.measure("zip", "zip-read", () -> "ok", String::length));
+        assertTrue(metrics.operations().isEmpty());
+    }
+
+    /**
+     * Проверяет публикацию метрик в JMX и снятие регистрации при закрытии.
+     *
+     * @throws Exception если обращение к JMX завершилось ошибкой
+     */
+    @Test
+    void shouldExposeMetricsThroughJmx() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("ru.rgordeev.test:type=IoMetrics,path=" + ObjectName.quote("a.txt")
+                + ",operation=" + ObjectName.quote(IoMetrics.READ));
+        try (IoMetrics metrics = new IoMetrics()) {
+            metrics.operation("a.txt", IoMetrics.READ).record(2_000_000, 100);
+            metrics.enableJmx("ru.rgordeev.test");
+
+            assertEquals(1L, server.getAttribute(name, "Count"));
+            assertEquals(100L, server.getAttribute(name, "Bytes"));
+            assertEquals(2_000, (double) server.getAttribute(name, "MaxMicros"), 1e-9);
+            assertEquals(2_000, (double) server.getAttribute(name, "P99Micros"), 2_000 * 0.04);
+            metrics.report();
+        }
+        assertFalse(server.isRegistered(name));
+    }
+}
@@ -0,0 +1,110 @@
+package ru.rgordeev;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Модульные тесты для класса LatencyHistogram.
+ * Проверяют границы корзин, точность перцентилей, запись из нескольких потоков
+ * и добавление полос счётчиков только при конкуренции.
+ */
+class LatencyHistogramTest {
+
+    /**
+     * Проверяет, что каждое значение попадает в корзину, границы которой его содержат.
+     */
+    @Test
+    void bucketShouldContainValue() {
+        long[] values = {0, 1, 31, 32, 33, 63, 64, 1_000, 1_000_000, 123_456_789, 1L << 40};
+        for (long value : values) {
+            int bucket = LatencyHistogram.bucket(value);
+            assertTrue(LatencyHistogram.lowerBound(bucket) <= value, "value " + value);
+            assertTrue(value < LatencyHistogram.upperBound(bucket), "value " + value);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            long value = ThreadLocalRandom.current().nextLong(1L << LatencyHistogram.MAX_EXPONENT);
+            int bucket = LatencyHistogram.bucket(value);
+            assertTrue(LatencyHistogram.lowerBound(bucket) <= value && value < LatencyHistogram.upperBound(bucket));
+        }
+        // Значения за пределами диапазона попадают в последнюю корзину
+        int last = LatencyHistogram.bucket((1L << (LatencyHistogram.MAX_EXPONENT + 1)) - 1);
+        assertEquals(last, LatencyHistogram.bucket(1L << (LatencyHistogram.MAX_EXPONENT + 1)));
+        assertEquals(last, LatencyHistogram.bucket(Long.MAX_VALUE));
+    }
+
+    /**
+     * Проверяет перцентили равномерного распределения с точностью корзины.
+     */
+    @Test
+    void percentilesShouldBeWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1_000);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(100_000, snapshot.count());
+        assertEquals(100_000_000, snapshot.max());
+        assertEquals(50_000_500, snapshot.mean(), 1);
+        assertEquals(50_000_000, snapshot.percentile(50), 50_000_000 * 0.04);
+        assertEquals(99_000_000, snapshot.percentile(99), 99_000_000 * 0.04);
+        assertEquals(100_000_000, snapshot.percentile(100));
+        assertEquals(1_000, snapshot.percentile(0), 1_000 * 0.04);
+    }
+
+    /**
+     * Проверяет пустую гистограмму и отрицательные значения.
+     */
+    @Test
+    void shouldHandleEmptyAndNegative() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.snapshot().percentile(99));
+        assertEquals(0.0, histogram.snapshot().mean());
+
+        histogram.record(-5);
+        assertEquals(1, histogram.snapshot().count());
+        assertEquals(0, histogram.snapshot().max());
+        assertThrows(IllegalArgumentException.class, () -> histogram.snapshot().percentile(101));
+    }
+
+    /**
+     * Проверяет, что записи из нескольких потоков не теряются.
+     *
+     * @throws InterruptedException если поток был прерван
+     */
+    @Test
+    void shouldCountConcurrentRecords() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    histogram.record(i);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(400_000, histogram.snapshot().count());
+        assertEquals(99_999, histogram.snapshot().max());
+        assertTrue(histogram.stripeCount() <= LatencyHistogram.MAX_STRIPES);
+    }
+
+    /**
+     * Проверяет, что без конкуренции гистограмма держит одну полосу счётчиков.
+     */
+    @Test
+    void shouldKeepSingleStripeWithoutContention() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 100_000; i++) {
+            histogram.record(i);
+        }
+        assertEquals(1, histogram.stripeCount());
+        assertEquals(100_000, histogram.snapshot().count());
+    }
+}
@@ -0,0 +1,163 @@
+package ru.rgordeev;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Модульные тесты для класса LineReader.
+ * Проверяют разбиение на строки, декодирование UTF-8 на границах буфера,
+ * разбиение файла на диапазоны и параллельный поток строк.
+ */
+class LineReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Проверяет окончания строк, пустые строки и последнюю строку без перевода строки.
+     *
+     * @throws IOException если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldSplitLines() throws IOException {
+        Path file = tempDir.resolve("lines.txt");
+        Files.writeString(file, "первая\r\n\nтретья\nпоследняя", StandardCharsets.UTF_8);
+
+        assertEquals(List.of("первая", "", "третья", "последняя"), readAll(file));
+    }
+
+    /**
+     * Проверяет строки длиннее буфера и многобайтовые символы на границе чтения.
+     *
+     * @throws IOException если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldReadLongLinesAcrossBufferBoundaries() throws IOException {
+        Path file = tempDir.resolve("long.txt");
+        List<String> expected = new ArrayList<>();
+        expected.add("ж".repeat(LineReader.DEFAULT_BUFFER_SIZE));
+        for (int i = 0; i < 20_000; i++) {
+            expected.add("строка " + i);
+        }
+        Files.write(file, expected, StandardCharsets.UTF_8);
+
+        assertEquals(expected, readAll(file));
+    }
+
+    /**
+     * Проверяет, что представление строки переиспользуется, а копия сохраняется.
+     *
+     * @throws IOException если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldReuseLineView() throws IOException {
+        Path file = tempDir.resolve("view.txt");
+        Files.writeString(file, "abc\ndef\n");
+
+        try (LineReader reader = new LineReader(file)) {
+            CharSequence first = reader.nextLine();
+            String copy = first.toString();
+            CharSequence second = reader.nextLine();
+
+            assertSame(first, second);
+            assertEquals("abc", copy);
+            assertEquals("ef", second.subSequence(1, 3));
+            assertNull(reader.nextLine());
+            reader.close();
+            assertThrows(IllegalStateException.class, reader::nextLine);
+        }
+    }
+
+    /**
+     * Проверяет, что при любом разбиении каждая строка читается ровно один раз.
+     *
+     * @throws IOException если возникла ошибка при работе с файлами
+     */
+    @Test
+    void rangesShouldCoverEveryLineOnce() throws IOException {
+        Path file = tempDir.resolve("ranges.txt");
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            expected.add("line-" + i + "-" + "x".repeat(i % 37));
+        }
+        Files.write(file, expected);
+        long size = Files.size(file);
+
+        for (int parts : new int[]{1, 2, 3, 7, 64}) {
+            List<LineReader.Range> ranges = LineReader.split(file, parts);
+            assertEquals(0, ranges.get(0).start());
+            assertEquals(size, ranges.get(ranges.size() - 1).end());
+            List<String> lines = new ArrayList<>();
+            for (LineReader.Range range : ranges) {
+                lines.addAll(readRange(file, range.start(), range.end()));
+            }
+            assertEquals(expected, lines);
+        }
+
+        // Невыровненные границы тоже не теряют и не дублируют строки
+        List<String> lines = new ArrayList<>();
+        for (long start = 0; start < size; start += 1001) {
+            lines.addAll(readRange(file, start, Math.min(size, start + 1001)));
+        }
+        assertEquals(expected, lines);
+    }
+
+    /**
+     * Проверяет параллельный поток строк на файле, который делится на несколько диапазонов.
+     *
+     * @throws IOException если возникла ошибка при работе с файлами
+     */
+    @Test
+    void parallelStreamShouldSeeAllLinesInOrder() throws IOException {
+        Path file = tempDir.resolve("parallel.txt");
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 200_000; i++) {
+            expected.add("строка номер " + i);
+        }
+        Files.write(file, expected, StandardCharsets.UTF_8);
+
+        try (Stream<CharSequence> lines = LineReader.lines(file, StandardCharsets.UTF_8)) {
+            assertEquals(expected, lines.parallel().map(CharSequence::toString).collect(Collectors.toList()));
+        }
+        try (Stream<CharSequence> lines = LineReader.lines(file, StandardCharsets.UTF_8)) {
+            assertEquals(expected.size(), lines.parallel().filter(line -> line.charAt(0) == 'с').count());
+        }
+    }
+
+    /**
+     * Проверяет, что кодировки с многобайтовым переводом строки отклоняются.
+     */
+    @Test
+    void shouldRejectUtf16() {
+        Path file = tempDir.resolve("utf16.txt");
+        assertThrows(IllegalArgumentException.class, () -> new LineReader(file, StandardCharsets.UTF_16));
+    }
+
+    private static List<String> readAll(Path file) throws IOException {
+        try (LineReader reader = new LineReader(file)) {
+            return reader.stream().map(CharSequence::toString).collect(Collectors.toList());
+        }
+    }
+
+    private static List<String> readRange(Path file, long start, long end) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (LineReader reader = new LineReader(file, StandardCharsets.UTF_8, start, end)) {
+            CharSequence line;
+            while ((line = reader.nextLine()) != null) {
+                lines.add(line.toString());
+            }
+        }
+        return lines;
+    }
+}
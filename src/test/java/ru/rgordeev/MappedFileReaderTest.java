@@ -0,0 +1,194 @@
+package ru.rgordeev;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Модульные тесты для класса MappedFileReader.
+ * Проверяют произвольный и последовательный доступ к отображённому файлу,
+ * чтение на границах окон и освобождение отображений.
+ */
+class MappedFileReaderTest {
+
+    /** Маленький размер окна, чтобы проверить чтение на границах окон */
+    private static final int SMALL_WINDOW = 4096;
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Проверяет, что значения int/long совпадают с прочитанными через ByteBuffer,
+     * в том числе когда значение пересекает границу окна.
+     *
+     * @throws IOException если возникла ошибка при работе с файлом
+     */
+    @Test
+    void shouldReadValuesAcrossWindowBoundaries() throws IOException {
+        byte[] data = randomBytes(SMALL_WINDOW * 3 + 5);
+        Path file = tempDir.resolve("data.bin");
+        Files.write(file, data);
+        ByteBuffer expected = ByteBuffer.wrap(data);
+
+        try (MappedFileReader reader = new MappedFileReader(file, SMALL_WINDOW)) {
+            assertEquals(data.length, reader.size());
+            for (int position = SMALL_WINDOW - Long.BYTES; position <= SMALL_WINDOW + 1; position++) {
+                assertEquals(expected.getLong(position), reader.getLong(position));
+                assertEquals(expected.getInt(position), reader.getInt(position));
+                assertEquals(data[position], reader.get(position));
+            }
+            long last = data.length - Long.BYTES;
+            assertEquals(expected.getLong((int) last), reader.getLong(last));
+
+            reader.order(ByteOrder.LITTLE_ENDIAN);
+            expected.order(ByteOrder.LITTLE_ENDIAN);
+            assertEquals(expected.getLong(SMALL_WINDOW - 3), reader.getLong(SMALL_WINDOW - 3));
+
+            assertThrows(IndexOutOfBoundsException.class, () -> reader.getLong(data.length - 4));
+        }
+    }
+
+    /**
+     * Проверяет получение фрагментов внутри окна и через границу окон.
+     *
+     * @throws IOException если возникла ошибка при работе с файлом
+     */
+    @Test
+    void shouldSliceWithinAndAcrossWindows() throws IOException {
+        byte[] data = randomBytes(SMALL_WINDOW * 2 + 100);
+        Path file = tempDir.resolve("slice.bin");
+        Files.write(file, data);
+
+        try (MappedFileReader reader = new MappedFileReader(file, SMALL_WINDOW)) {
+            assertEquals(ByteBuffer.wrap(data, 10, 100), reader.slice(10, 100));
+            assertEquals(ByteBuffer.wrap(data, SMALL_WINDOW - 50, SMALL_WINDOW + 120),
+                    reader.slice(SMALL_WINDOW - 50, SMALL_WINDOW + 120));
+        }
+    }
+
+    /**
+     * Проверяет, что последовательный курсор читает весь файл по порядку.
+     *
+     * @throws IOException если возникла ошибка при работе с файлом
+     */
+    @Test
+    void cursorShouldReadSequentially() throws IOException {
+        byte[] data = randomBytes(SMALL_WINDOW * 2 + 3);
+        Path file = tempDir.resolve("cursor.bin");
+        Files.write(file, data);
+        ByteBuffer expected = ByteBuffer.wrap(data);
+
+        try (MappedFileReader reader = new MappedFileReader(file, SMALL_WINDOW)) {
+            MappedFileReader.Cursor cursor = reader.cursor();
+            while (cursor.remaining() >= Long.BYTES) {
+                assertEquals(expected.getLong(), cursor.getLong());
+            }
+            assertEquals(expected.get(), cursor.get());
+            byte[] tail = new byte[(int) cursor.remaining()];
+            cursor.get(tail);
+            assertFalse(cursor.hasRemaining());
+
+            byte[] all = new byte[data.length];
+            cursor.position(0).get(all);
+            assertArrayEquals(data, all);
+        }
+    }
+
+    /**
+     * Проверяет, что после закрытия обращение к данным запрещено,
+     * а повторное закрытие безопасно.
+     *
+     * @throws IOException если возникла ошибка при работе с файлом
+     */
+    @Test
+    void shouldRejectAccessAfterClose() throws IOException {
+        Path file = tempDir.resolve("closed.bin");
+        Files.write(file, randomBytes(64));
+
+        MappedFileReader reader = new MappedFileReader(file);
+        MappedFileReader.Cursor cursor = reader.cursor();
+        reader.close();
+
+        assertTrue(reader.isClosed());
+        assertThrows(IllegalStateException.class, () -> reader.getInt(0));
+        assertThrows(IllegalStateException.class, cursor::getLong);
+        assertDoesNotThrow(reader::close);
+    }
+
+    /**
+     * Проверяет, что срез, разделяющий память с отображением, остаётся
+     * читаемым после закрытия читателя.
+     *
+     * @throws IOException если возникла ошибка при работе с файлом
+     */
+    @Test
+    void sliceShouldStayReadableAfterClose() throws IOException {
+        byte[] data = randomBytes(SMALL_WINDOW * 2);
+        Path file = tempDir.resolve("sliced.bin");
+        Files.write(file, data);
+
+        ByteBuffer slice;
+        try (MappedFileReader reader = new MappedFileReader(file, SMALL_WINDOW)) {
+            slice = reader.slice(SMALL_WINDOW + 10, 100);
+            assertTrue(slice.isDirect());
+        }
+        System.gc();
+        assertEquals(ByteBuffer.wrap(data, SMALL_WINDOW + 10, 100), slice);
+    }
+
+    /**
+     * Проверяет, что последовательный проход по файлу больше 2 ГБ
+     * не увеличивает заметно используемую кучу.
+     * Запускается только с {@code -Dio.largeTests=true}.
+     *
+     * @throws IOException если возникла ошибка при работе с файлом
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "io.largeTests", matches = "true")
+    void scanningMultiGigabyteFileShouldNotGrowHeap() throws IOException {
+        long size = 3L * 1024 * 1024 * 1024;
+        Path file = tempDir.resolve("huge.bin");
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            // Разреженный файл: на диске занимает только записанные блоки
+            raf.setLength(size);
+            raf.seek(size - Long.BYTES);
+            raf.writeLong(42L);
+        }
+
+        long heapBefore = usedHeap();
+        long sum = 0;
+        try (MappedFileReader reader = new MappedFileReader(file)) {
+            MappedFileReader.Cursor cursor = reader.cursor();
+            while (cursor.remaining() >= Long.BYTES) {
+                sum += cursor.getLong();
+            }
+        }
+        long heapGrowth = usedHeap() - heapBefore;
+
+        assertEquals(42L, sum);
+        assertTrue(heapGrowth < 16 * 1024 * 1024,
+                "Чтение через отображение не должно расходовать кучу, рост: " + heapGrowth);
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(7).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,78 @@
+package ru.rgordeev;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Модульные тесты для класса ParallelFileScanner.
+ * Проверяют, что параллельная агрегация по диапазонам совпадает
+ * с последовательной обработкой файла.
+ */
+class ParallelFileScannerTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Проверяет агрегацию CSV-файла по ключу в нескольких потоках.
+     *
+     * @throws IOException если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldAggregateCsvLikeSequentialScan() throws IOException {
+        Path file = tempDir.resolve("data.csv");
+        List<String> lines = new ArrayList<>();
+        Map<String, Long> expected = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            String key = "ключ" + (i % 17);
+            lines.add(key + "," + i);
+            expected.merge(key, (long) i, Long::sum);
+        }
+        Files.write(file, lines, StandardCharsets.UTF_8);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ParallelFileScanner scanner = new ParallelFileScanner(pool, StandardCharsets.UTF_8);
+            Map<String, Long> sums = scanner.scan(file, HashMap::new, (map, line) -> {
+                String row = line.toString();
+                int comma = row.indexOf(',');
+                map.merge(row.substring(0, comma), Long.parseLong(row.substring(comma + 1)), Long::sum);
+            }, (a, b) -> {
+                b.forEach((key, value) -> a.merge(key, value, Long::sum));
+                return a;
+            });
+
+            assertEquals(expected, sums);
+            assertEquals(lines.size(), scanner.countLines(file));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Проверяет пустой и отсутствующий файл.
+     *
+     * @throws IOException если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldHandleEmptyAndMissingFiles() throws IOException {
+        Path empty = Files.createFile(tempDir.resolve("empty.csv"));
+        ParallelFileScanner scanner = new ParallelFileScanner();
+
+        assertEquals(0, scanner.countLines(empty));
+        assertThrows(NoSuchFileException.class, () -> scanner.countLines(tempDir.resolve("missing.csv")));
+    }
+}
@@ -0,0 +1,188 @@
+package ru.rgordeev;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Модульные тесты для класса ParallelZipExtractor.
+ * Проверяют параллельную распаковку, чтение выбранных записей,
+ * работу с малым лимитом памяти, защиту от выхода за пределы директории,
+ * отклонение слишком больших записей и остановку после первой ошибки.
+ */
+class ParallelZipExtractorTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Проверяет, что все записи распаковываются с исходным содержимым.
+     *
+     * @throws IOException если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldExtractAllEntries() throws IOException {
+        Path zipPath = tempDir.resolve("many.zip");
+        int entries = 2000;
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zipPath))) {
+            out.putNextEntry(new ZipEntry("dir/"));
+            out.closeEntry();
+            for (int i = 0; i < entries; i++) {
+                out.putNextEntry(new ZipEntry("dir/" + (i % 10) + "/file" + i + ".txt"));
+                out.write(content(i));
+                out.closeEntry();
+            }
+        }
+
+        Path target = tempDir.resolve("out");
+        new ParallelZipExtractor(ZipIndex.open(zipPath)).extractAll(target, 4);
+
+        assertTrue(Files.isDirectory(target.resolve("dir")));
+        for (int i = 0; i < entries; i++) {
+            assertArrayEquals(content(i), Files.readAllBytes(target.resolve("dir/" + (i % 10) + "/file" + i + ".txt")));
+        }
+    }
+
+    /**
+     * Проверяет, что записи больше лимита памяти обрабатываются по одной.
+     *
+     * @throws IOException если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldRespectSmallMemoryLimit() throws IOException {
+        Path zipPath = tempDir.resolve("large.zip");
+        List<String> names = new ArrayList<>();
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zipPath))) {
+            for (int i = 0; i < 20; i++) {
+                names.add("e" + i);
+                out.putNextEntry(new ZipEntry("e" + i));
+                out.write(content(i * 1000));
+                out.closeEntry();
+            }
+        }
+
+        Map<String, byte[]> read = new ParallelZipExtractor(ZipIndex.open(zipPath), 16).readEntries(names, 4);
+
+        assertEquals(names, new ArrayList<>(read.keySet()));
+        for (int i = 0; i < 20; i++) {
+            assertArrayEquals(content(i * 1000), read.get("e" + i));
+        }
+    }
+
+    /**
+     * Проверяет ошибки: отсутствующая запись и имя, выходящее за пределы директории.
+     *
+     * @throws IOException если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldRejectMissingAndEscapingEntries() throws IOException {
+        Path zipPath = tempDir.resolve("evil.zip");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zipPath))) {
+            out.putNextEntry(new ZipEntry("../evil.txt"));
+            out.write(content(1));
+            out.closeEntry();
+        }
+        ParallelZipExtractor extractor = new ParallelZipExtractor(ZipIndex.open(zipPath));
+
+        assertThrows(NoSuchFileException.class, () -> extractor.readEntries(List.of("missing.txt"), 2));
+        assertThrows(ZipException.class, () -> extractor.extractAll(tempDir.resolve("out"), 2));
+        assertFalse(Files.exists(tempDir.resolve("evil.txt")));
+    }
+
+    /**
+     * Проверяет, что запись больше 2 ГБ отклоняется понятной ошибкой до начала
+     * распаковки. Размер в центральном каталоге подменяется, чтобы не создавать
+     * такой архив на диске.
+     *
+     * @throws IOException если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldRejectEntriesTooLargeForArray() throws IOException {
+        Path zipPath = tempDir.resolve("huge.zip");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zipPath))) {
+            out.putNextEntry(new ZipEntry("small.txt"));
+            out.write(content(1));
+            out.closeEntry();
+            out.putNextEntry(new ZipEntry("huge.bin"));
+            out.write(content(2));
+            out.closeEntry();
+        }
+        patchCentralHeader(zipPath, "huge.bin", 24, 0xFFFF_FFF0);
+        ParallelZipExtractor extractor = new ParallelZipExtractor(ZipIndex.open(zipPath));
+
+        IOException error = assertThrows(IOException.class, () -> extractor.extractAll(tempDir.resolve("out"), 2));
+        assertTrue(error.getMessage().contains("huge.bin"), error.getMessage());
+        assertFalse(Files.exists(tempDir.resolve("out").resolve("small.txt")));
+        assertThrows(IOException.class, () -> extractor.readEntries(List.of("huge.bin"), 2));
+    }
+
+    /**
+     * Проверяет, что ошибка в одном потоке останавливает раздачу записей остальным,
+     * не дожидаясь потоков, запущенных раньше.
+     *
+     * @throws IOException если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldStopDistributionOnFirstFailure() throws IOException {
+        Path zipPath = tempDir.resolve("corrupt.zip");
+        int entries = 2000;
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zipPath))) {
+            // Записи раздаются по убыванию размера: испорченная достанется
+            // произвольному потоку примерно в середине распаковки
+            out.putNextEntry(new ZipEntry("corrupt.txt"));
+            out.write(new byte[500]);
+            out.closeEntry();
+            for (int i = 0; i < entries; i++) {
+                out.putNextEntry(new ZipEntry("file" + i + ".txt"));
+                out.write(new byte[i % 1000]);
+                out.closeEntry();
+            }
+        }
+        patchCentralHeader(zipPath, "corrupt.txt", 16, 0x1234_5678);
+        Path target = tempDir.resolve("out");
+
+        ParallelZipExtractor extractor = new ParallelZipExtractor(ZipIndex.open(zipPath));
+        assertThrows(ZipException.class, () -> extractor.extractAll(target, 4));
+        try (Stream<Path> files = Files.list(target)) {
+            // До ошибки распаковано около половины записей, после неё — не больше одной на поток
+            assertTrue(files.count() < entries * 3 / 4);
+        }
+    }
+
+    // Записывает 4 байта по смещению field в заголовок записи name центрального каталога
+    private static void patchCentralHeader(Path zipPath, String name, int field, int value) throws IOException {
+        byte[] zip = Files.readAllBytes(zipPath);
+        ByteBuffer buffer = ByteBuffer.wrap(zip).order(ByteOrder.LITTLE_ENDIAN);
+        byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i + 46 + encoded.length <= zip.length; i++) {
+            if (buffer.getInt(i) == 0x02014b50 && (buffer.getShort(i + 28) & 0xFFFF) == encoded.length
+                    && Arrays.equals(zip, i + 46, i + 46 + encoded.length, encoded, 0, encoded.length)) {
+                buffer.putInt(i + field, value);
+                Files.write(zipPath, zip);
+                return;
+            }
+        }
+        fail("Запись " + name + " не найдена в центральном каталоге");
+    }
+
+    private static byte[] content(int i) {
+        return ("Запись " + i + " ").repeat(1 + i % 50).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,185 @@
+package ru.rgordeev;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Модульные тесты для класса ReadCache.
+ * Проверяют попадания и промахи, смену ключа при изменении файла, вытеснение
+ * сегментированным LRU, однократную загрузку при одновременных промахах,
+ * ошибки загрузки и хранение вне кучи.
+ */
+class ReadCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Проверяет, что повторное чтение файла обслуживается из кэша,
+     * а изменение файла приводит к новой загрузке.
+     *
+     * @throws IOException если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldCacheFileUntilItChanges() throws IOException {
+        ReadCache cache = new ReadCache(1024 * 1024, false);
+        Path file = Files.writeString(tempDir.resolve("notes.txt"), "первая версия");
+
+        assertEquals("первая версия", cache.readString(file, StandardCharsets.UTF_8));
+        assertEquals("первая версия", cache.readString(file, StandardCharsets.UTF_8));
+        assertEquals("первая версия", cache.readString(file, StandardCharsets.UTF_8));
+        ReadCache.Stats stats = cache.stats();
+        assertEquals(2, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(2.0 / 3, stats.hitRatio(), 1e-9);
+
+        Files.writeString(file, "вторая, более длинная версия");
+        assertEquals("вторая, более длинная версия", cache.readString(file, StandardCharsets.UTF_8));
+        assertEquals(2, cache.stats().misses());
+        assertEquals(2, cache.stats().entries());
+    }
+
+    /**
+     * Проверяет, что буфер только для чтения и позиция не зависит от других вызовов.
+     *
+     * @throws IOException если загрузка завершилась ошибкой
+     */
+    @Test
+    void shouldReturnIndependentReadOnlyBuffers() throws IOException {
+        ReadCache cache = new ReadCache(1024, true);
+        ReadCache.Key key = ReadCache.zipEntryKey(tempDir.resolve("a.zip"), "x.txt", 42, 3);
+
+        ByteBuffer first = cache.get(key, () -> new byte[]{1, 2, 3});
+        assertTrue(first.isReadOnly());
+        assertTrue(first.isDirect());
+        first.get();
+        ByteBuffer second = cache.get(key, () -> fail("содержимое должно браться из кэша"));
+        assertEquals(0, second.position());
+        assertEquals(3, second.remaining());
+        assertThrows(java.nio.ReadOnlyBufferException.class, () -> second.put(0, (byte) 9));
+    }
+
+    /**
+     * Проверяет устойчивость к однократному просмотру: часто читаемая запись
+     * остаётся в защищённом сегменте, пока испытательный вытесняется.
+     *
+     * @throws IOException если загрузка завершилась ошибкой
+     */
+    @Test
+    void shouldKeepFrequentEntriesDuringScan() throws IOException {
+        ReadCache cache = new ReadCache(8 * 100, false);
+        ReadCache.Key hot = key("hot");
+        cache.get(hot, () -> new byte[100]);
+        cache.get(hot, () -> new byte[100]);
+
+        for (int i = 0; i < 50; i++) {
+            cache.get(key("scan-" + i), () -> new byte[100]);
+        }
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(hot, () -> {
+            loads.incrementAndGet();
+            return new byte[100];
+        });
+        assertEquals(0, loads.get());
+        assertTrue(cache.stats().evictions() >= 43);
+        assertTrue(cache.stats().bytes() <= 800);
+    }
+
+    /**
+     * Проверяет, что записи больше допустимой доли объёма не кэшируются.
+     *
+     * @throws IOException если загрузка завершилась ошибкой
+     */
+    @Test
+    void shouldNotCacheLargeEntries() throws IOException {
+        ReadCache cache = new ReadCache(800, false);
+        cache.get(key("large"), () -> new byte[101]);
+        cache.get(key("large"), () -> new byte[101]);
+        assertEquals(2, cache.stats().misses());
+        assertEquals(0, cache.stats().entries());
+    }
+
+    /**
+     * Проверяет, что одновременные промахи по одному ключу вызывают загрузку один раз.
+     *
+     * @throws Exception если возникла ошибка в потоках
+     */
+    @Test
+    void shouldLoadOnceForConcurrentMisses() throws Exception {
+        ReadCache cache = new ReadCache(1024 * 1024, false);
+        ReadCache.Key key = key("shared");
+        int threads = 8;
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<ByteBuffer>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> cache.get(key, () -> {
+                    loads.incrementAndGet();
+                    await(release);
+                    return "значение".getBytes(StandardCharsets.UTF_8);
+                })));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (cache.stats().coalesced() < threads - 1 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+            for (Future<ByteBuffer> result : results) {
+                assertEquals("значение", StandardCharsets.UTF_8.decode(result.get()).toString());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, loads.get());
+        assertEquals(threads - 1, cache.stats().coalesced());
+    }
+
+    /**
+     * Проверяет, что ошибка загрузки передаётся вызывающему и не кэшируется.
+     *
+     * @throws IOException если повторная загрузка завершилась ошибкой
+     */
+    @Test
+    void shouldNotCacheFailures() throws IOException {
+        ReadCache cache = new ReadCache(1024, false);
+        IOException error = assertThrows(IOException.class,
+                () -> cache.get(key("missing"), () -> {
+                    throw new IOException("нет файла");
+                }));
+        assertEquals("нет файла", error.getMessage());
+        assertEquals(1, cache.get(key("missing"), () -> new byte[1]).remaining());
+        assertEquals(1, cache.stats().entries());
+    }
+
+    private static void await(CountDownLatch latch) throws IOException {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    private static ReadCache.Key key(String name) {
+        return new ReadCache.Key("test", name, 0, 0);
+    }
+}
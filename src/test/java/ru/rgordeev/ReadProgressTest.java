@@ -0,0 +1,49 @@
+package ru.rgordeev;
+
+import org.apache.logging.log4j.LogManager;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Модульные тесты для класса ReadProgress.
+ * Проверяют, что события отправляются только при пересечении порогов.
+ */
+class ReadProgressTest {
+
+    /**
+     * Проверяет одно событие на каждый пересечённый шаг.
+     */
+    @Test
+    void shouldReportOncePerStep() {
+        ReadProgress progress = new ReadProgress(LogManager.getLogger(ReadProgressTest.class), "test", "байт", 1000, 100);
+        int events = 0;
+        for (int done = 1; done <= 1000; done++) {
+            if (progress.update(done)) {
+                events++;
+            }
+        }
+        assertEquals(10, events);
+    }
+
+    /**
+     * Проверяет, что большой скачок даёт одно событие, а следующий порог выравнивается по шагу.
+     */
+    @Test
+    void shouldSkipThresholdsOnLargeJump() {
+        ReadProgress progress = new ReadProgress(LogManager.getLogger(ReadProgressTest.class), "test", "байт", -1, 100);
+        assertFalse(progress.update(99));
+        assertTrue(progress.update(350));
+        assertFalse(progress.update(399));
+        assertTrue(progress.update(400));
+    }
+
+    /**
+     * Проверяет, что шаг должен быть положительным.
+     */
+    @Test
+    void shouldRejectNonPositiveStep() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new ReadProgress(LogManager.getLogger(ReadProgressTest.class), "test", "байт", -1, 0));
+    }
+}
@@ -0,0 +1,91 @@
+package ru.rgordeev;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Модульные тесты для стратегий чтения {@link ReadStrategies}
+ * и их автоматического выбора {@link ReadStrategySelector}.
+ */
+class ReadStrategiesTest {
+
+    /** Небольшой буфер, чтобы файл читался за несколько обращений */
+    private static final int BUFFER_SIZE = 1024;
+
+    @TempDir
+    Path tempDir;
+
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = tempDir.resolve("data.bin");
+        Files.write(file, new byte[BUFFER_SIZE * 10 + 123]);
+    }
+
+    /**
+     * Проверяет, что каждая стратегия читает файл целиком.
+     *
+     * @throws IOException если возникла ошибка при работе с файлом
+     */
+    @Test
+    void everyStrategyShouldReadWholeFile() throws IOException {
+        for (ReadStrategy strategy : ReadStrategies.all(BUFFER_SIZE)) {
+            assertEquals(Files.size(file), strategy.read(file), strategy.name());
+        }
+    }
+
+    /**
+     * Проверяет, что каждая стратегия соблюдает ограничение на число байт.
+     *
+     * @throws IOException если возникла ошибка при работе с файлом
+     */
+    @Test
+    void everyStrategyShouldRespectLimit() throws IOException {
+        long limit = BUFFER_SIZE * 3 + 7;
+        for (ReadStrategy strategy : ReadStrategies.all(BUFFER_SIZE)) {
+            assertEquals(limit, strategy.read(file, limit), strategy.name());
+        }
+    }
+
+    /**
+     * Проверяет, что калибровка измеряет все стратегии, а выбор
+     * запоминается для файлов того же класса размера.
+     *
+     * @throws IOException если возникла ошибка при работе с файлом
+     */
+    @Test
+    void selectorShouldCalibrateAndCacheChoice() throws IOException {
+        List<ReadStrategy> candidates = ReadStrategies.all(BUFFER_SIZE);
+        ReadStrategySelector selector = new ReadStrategySelector(candidates, BUFFER_SIZE * 4);
+
+        Map<ReadStrategy, Long> timings = selector.calibrate(file);
+        assertEquals(candidates.size(), timings.size());
+
+        ReadStrategy selected = selector.select(file);
+        assertTrue(candidates.contains(selected));
+
+        Path sameSizeClass = tempDir.resolve("other.bin");
+        Files.write(sameSizeClass, new byte[BUFFER_SIZE]);
+        assertSame(selected, selector.select(sameSizeClass));
+    }
+
+    /**
+     * Проверяет границы классов размера.
+     */
+    @Test
+    void sizeClassShouldFollowBounds() {
+        assertEquals(ReadStrategySelector.SizeClass.SMALL, ReadStrategySelector.SizeClass.of(0));
+        assertEquals(ReadStrategySelector.SizeClass.MEDIUM, ReadStrategySelector.SizeClass.of(64 * 1024));
+        assertEquals(ReadStrategySelector.SizeClass.HUGE, ReadStrategySelector.SizeClass.of(5L << 30));
+    }
+}
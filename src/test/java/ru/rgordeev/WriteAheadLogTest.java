@@ -0,0 +1,246 @@
+package ru.rgordeev;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Модульные тесты для класса WriteAheadLog.
+ * Проверяют запись и чтение с произвольного смещения, переход между сегментами,
+ * запись из нескольких потоков, восстановление после оборванной записи
+ * и обнаружение повреждений.
+ */
+class WriteAheadLogTest {
+
+    private static final int SEGMENT_SIZE = 4096;
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Проверяет, что записи читаются в порядке записи со своими смещениями,
+     * в том числе с середины журнала.
+     *
+     * @throws IOException если возникла ошибка при работе с журналом
+     */
+    @Test
+    void shouldReplayFromAnyOffset() throws IOException {
+        try (WriteAheadLog log = new WriteAheadLog(tempDir, SEGMENT_SIZE, 16)) {
+            long first = log.appendAndWait(bytes("first"));
+            long second = log.appendAndWait(bytes("second"));
+            long third = log.appendAndWait(bytes("third"));
+            assertEquals(0, first);
+            assertEquals(WriteAheadLog.HEADER_SIZE + 5, second);
+            assertEquals(third + WriteAheadLog.HEADER_SIZE + 5, log.durableOffset());
+
+            List<String> all = new ArrayList<>();
+            long next = log.replay(log.startOffset(), (offset, record) -> all.add(offset + ":" + string(record)));
+            assertEquals(List.of(first + ":first", second + ":second", third + ":third"), all);
+            assertEquals(log.durableOffset(), next);
+
+            List<String> tail = new ArrayList<>();
+            log.replay(second, (offset, record) -> tail.add(string(record)));
+            assertEquals(List.of("second", "third"), tail);
+
+            assertEquals(next, log.replay(next, (offset, record) -> fail("записей после конца нет")));
+        }
+    }
+
+    /**
+     * Проверяет переход к новому сегменту, когда запись не помещается в текущий.
+     *
+     * @throws IOException если возникла ошибка при работе с журналом
+     */
+    @Test
+    void shouldRollOverSegments() throws IOException {
+        byte[] record = new byte[1000];
+        List<Long> offsets = new ArrayList<>();
+        try (WriteAheadLog log = new WriteAheadLog(tempDir, SEGMENT_SIZE, 16)) {
+            for (int i = 0; i < 10; i++) {
+                record[0] = (byte) i;
+                offsets.add(log.appendAndWait(record.clone()));
+            }
+            // В сегмент 4096 байт помещаются 4 записи по 1008 байт
+            assertEquals(SEGMENT_SIZE, offsets.get(4));
+            assertEquals(2L * SEGMENT_SIZE, offsets.get(8));
+
+            List<Long> replayed = new ArrayList<>();
+            log.replay(0, (offset, data) -> {
+                assertEquals(replayed.size(), (int) data.get(0));
+                replayed.add(offset);
+            });
+            assertEquals(offsets, replayed);
+        }
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(tempDir)) {
+            segments = files.toList();
+        }
+        assertEquals(3, segments.size());
+        for (Path segment : segments) {
+            assertEquals(SEGMENT_SIZE, Files.size(segment));
+        }
+    }
+
+    /**
+     * Проверяет, что записи из нескольких потоков сохраняются все и по одному разу.
+     *
+     * @throws Exception если возникла ошибка при работе с журналом или в потоках
+     */
+    @Test
+    void shouldGroupCommitConcurrentAppends() throws Exception {
+        int threads = 4;
+        int perThread = 2_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (WriteAheadLog log = new WriteAheadLog(tempDir, 64 * 1024, 1024)) {
+            List<Future<List<CompletableFuture<Long>>>> producers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                producers.add(executor.submit(() -> {
+                    List<CompletableFuture<Long>> futures = new ArrayList<>();
+                    for (int i = 0; i < perThread; i++) {
+                        futures.add(log.append(bytes(thread + ":" + i)));
+                    }
+                    return futures;
+                }));
+            }
+            HashSet<Long> offsets = new HashSet<>();
+            for (Future<List<CompletableFuture<Long>>> producer : producers) {
+                for (CompletableFuture<Long> future : producer.get()) {
+                    long offset = future.get();
+                    assertTrue(offset < log.durableOffset());
+                    offsets.add(offset);
+                }
+            }
+            assertEquals(threads * perThread, offsets.size());
+
+            HashSet<String> records = new HashSet<>();
+            log.replay(0, (offset, record) -> {
+                assertTrue(offsets.contains(offset));
+                records.add(string(record));
+            });
+            assertEquals(threads * perThread, records.size());
+            assertTrue(records.contains("3:1999"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Проверяет восстановление после оборванной записи: хвост отбрасывается,
+     * запись продолжается с конца последней целой записи.
+     *
+     * @throws IOException если возникла ошибка при работе с журналом
+     */
+    @Test
+    void shouldRecoverFromTornWrite() throws IOException {
+        long end;
+        try (WriteAheadLog log = new WriteAheadLog(tempDir, SEGMENT_SIZE, 16)) {
+            log.appendAndWait(bytes("kept"));
+            end = log.durableOffset();
+        }
+        // Имитируем сбой во время записи: заголовок есть, данных нет
+        try (FileChannel channel = FileChannel.open(tempDir.resolve("00000000000000000000.wal"),
+                StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(WriteAheadLog.HEADER_SIZE).putInt(100).putInt(12345).flip(), end);
+        }
+
+        try (WriteAheadLog log = new WriteAheadLog(tempDir, SEGMENT_SIZE, 16)) {
+            assertEquals(end, log.durableOffset());
+            assertEquals(end, log.appendAndWait(bytes("after")));
+            List<String> records = new ArrayList<>();
+            log.replay(0, (offset, record) -> records.add(string(record)));
+            assertEquals(List.of("kept", "after"), records);
+        }
+    }
+
+    /**
+     * Проверяет, что при нулевом заголовке после последней целой записи хвост
+     * всё равно обнуляется: целая запись за ним не должна стать достижимой,
+     * когда новая запись той же длины займёт место обнулённой.
+     *
+     * @throws IOException если возникла ошибка при работе с журналом
+     */
+    @Test
+    void shouldDiscardValidRecordsBehindZeroHeader() throws IOException {
+        long end;
+        try (WriteAheadLog log = new WriteAheadLog(tempDir, SEGMENT_SIZE, 16)) {
+            log.appendAndWait(bytes("kept"));
+            end = log.appendAndWait(bytes("lost"));
+            log.appendAndWait(bytes("stale"));
+        }
+        // Заголовок записи "lost" не дошёл до диска, а запись за ней осталась
+        try (FileChannel channel = FileChannel.open(tempDir.resolve("00000000000000000000.wal"),
+                StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(WriteAheadLog.HEADER_SIZE), end);
+        }
+
+        try (WriteAheadLog log = new WriteAheadLog(tempDir, SEGMENT_SIZE, 16)) {
+            assertEquals(end, log.durableOffset());
+            assertEquals(end, log.appendAndWait(bytes("redo")));
+        }
+        try (WriteAheadLog log = new WriteAheadLog(tempDir, SEGMENT_SIZE, 16)) {
+            List<String> records = new ArrayList<>();
+            log.replay(0, (offset, record) -> records.add(string(record)));
+            assertEquals(List.of("kept", "redo"), records);
+        }
+    }
+
+    /**
+     * Проверяет, что повреждение подтверждённой записи обнаруживается при чтении.
+     *
+     * @throws IOException если возникла ошибка при работе с журналом
+     */
+    @Test
+    void shouldDetectCorruptedRecord() throws IOException {
+        try (WriteAheadLog log = new WriteAheadLog(tempDir, SEGMENT_SIZE, 16)) {
+            log.appendAndWait(bytes("first"));
+            log.appendAndWait(bytes("second"));
+            try (FileChannel channel = FileChannel.open(tempDir.resolve("00000000000000000000.wal"),
+                    StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.wrap(bytes("X")), WriteAheadLog.HEADER_SIZE);
+            }
+            IOException error = assertThrows(IOException.class, () -> log.replay(0, (offset, record) -> { }));
+            assertTrue(error.getMessage().contains("контрольная сумма"));
+        }
+    }
+
+    /**
+     * Проверяет проверку размера записи и запись после закрытия.
+     *
+     * @throws IOException если возникла ошибка при работе с журналом
+     */
+    @Test
+    void shouldRejectInvalidRecordsAndWritesAfterClose() throws IOException {
+        WriteAheadLog log = new WriteAheadLog(tempDir, SEGMENT_SIZE, 16);
+        assertThrows(IllegalArgumentException.class, () -> log.append(new byte[0]));
+        assertThrows(IllegalArgumentException.class, () -> log.append(new byte[SEGMENT_SIZE]));
+        log.close();
+        log.close();
+        assertThrows(IllegalStateException.class, () -> log.append(bytes("late")));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(ByteBuffer record) {
+        return StandardCharsets.UTF_8.decode(record).toString();
+    }
+}
@@ -0,0 +1,140 @@
+package ru.rgordeev;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Модульные тесты для класса ZipBatch.
+ * Проверяют применение пакета изменений, сохранение существующих записей,
+ * выбор способа сжатия и линейный рост времени записи.
+ */
+class ZipBatchTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path zipPath;
+    private ZipFileSystemExample zip;
+
+    @BeforeEach
+    void setUp() {
+        zipPath = tempDir.resolve("batch.zip");
+        zip = new ZipFileSystemExample(zipPath);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        zip.flush();
+    }
+
+    /**
+     * Проверяет, что пакет дополняет архив, заменяет записи с совпадающими именами
+     * и сохраняет остальные, включая ещё не сброшенные на диск.
+     *
+     * @throws IOException если возникла ошибка при работе с архивом
+     */
+    @Test
+    void shouldMergeWithExistingEntries() throws IOException {
+        zip.writeFileToZip("keep.txt", "keep");
+        zip.writeFileToZip("replace.txt", "old");
+        Path external = tempDir.resolve("external.txt");
+        Files.writeString(external, "from file");
+
+        zip.batch()
+                .add("replace.txt", "new")
+                .add("/added.txt", "added".getBytes(StandardCharsets.UTF_8))
+                .add("dir/external.txt", external)
+                .commit();
+
+        assertEquals("keep", zip.readFileFromZip("keep.txt"));
+        assertEquals("new", zip.readFileFromZip("replace.txt"));
+        assertEquals("added", zip.readFileFromZip("added.txt"));
+        assertEquals("from file", zip.readFileFromZip("dir/external.txt"));
+    }
+
+    /**
+     * Проверяет запись без сжатия и с максимальным уровнем сжатия.
+     *
+     * @throws IOException если возникла ошибка при работе с архивом
+     */
+    @Test
+    void shouldApplyCompressionSettings() throws IOException {
+        String text = "повторяющийся текст ".repeat(1000);
+        Path external = tempDir.resolve("stored.txt");
+        Files.writeString(external, text);
+
+        zip.batch().method(ZipEntry.STORED).add("stored.txt", text).add("stored-file.txt", external).commit();
+        zip.batch().level(Deflater.BEST_COMPRESSION).add("deflated.txt", text).commit();
+
+        try (ZipFile archive = new ZipFile(zipPath.toFile())) {
+            ZipEntry stored = archive.getEntry("stored.txt");
+            assertEquals(ZipEntry.STORED, stored.getMethod());
+            assertEquals(stored.getSize(), stored.getCompressedSize());
+            assertEquals(ZipEntry.STORED, archive.getEntry("stored-file.txt").getMethod());
+
+            ZipEntry deflated = archive.getEntry("deflated.txt");
+            assertEquals(ZipEntry.DEFLATED, deflated.getMethod());
+            assertTrue(deflated.getCompressedSize() < deflated.getSize() / 10);
+        }
+        assertEquals(text, zip.readFileFromZip("stored.txt"));
+    }
+
+    /**
+     * Проверяет, что пакет нельзя применить дважды, а недопустимые параметры отклоняются.
+     *
+     * @throws IOException если возникла ошибка при работе с архивом
+     */
+    @Test
+    void shouldRejectReuseAndInvalidSettings() throws IOException {
+        ZipBatch batch = zip.batch().add("a.txt", "a");
+        batch.commit();
+
+        assertThrows(IllegalStateException.class, batch::commit);
+        assertThrows(IllegalStateException.class, () -> batch.add("b.txt", "b"));
+        assertThrows(IllegalArgumentException.class, () -> zip.batch().method(42));
+        assertThrows(IllegalArgumentException.class, () -> zip.batch().level(10));
+    }
+
+    /**
+     * Проверяет, что время записи 10 000 небольших файлов растёт линейно:
+     * в 10 раз больше файлов не должно занимать в 100 раз больше времени,
+     * как при перезаписи архива на каждый файл.
+     *
+     * @throws IOException если возникла ошибка при работе с архивом
+     */
+    @Test
+    void buildTimeShouldScaleLinearly() throws IOException {
+        buildArchive(tempDir.resolve("warmup.zip"), 1_000);
+
+        long small = buildArchive(tempDir.resolve("small.zip"), 1_000);
+        long large = buildArchive(tempDir.resolve("large.zip"), 10_000);
+
+        assertTrue(large < small * 30,
+                "10 000 записей: " + large / 1_000_000 + " ms, 1 000 записей: " + small / 1_000_000 + " ms");
+        try (ZipFile archive = new ZipFile(tempDir.resolve("large.zip").toFile())) {
+            assertEquals(10_000, archive.size());
+        }
+    }
+
+    private static long buildArchive(Path path, int entries) throws IOException {
+        ZipBatch batch = new ZipFileSystemExample(path).batch();
+        for (int i = 0; i < entries; i++) {
+            batch.add("entry-" + i + ".txt", "content " + i);
+        }
+        long start = System.nanoTime();
+        batch.commit();
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,140 @@
+package ru.rgordeev;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Модульные тесты для класса ZipFileSystemCache.
+ * Проверяют повторное использование открытых файловых систем,
+ * запись изменений на диск и вытеснение по простою.
+ */
+class ZipFileSystemCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Проверяет, что повторные обращения к одному архиву используют одну файловую систему,
+     * а изменения попадают на диск после flush.
+     *
+     * @throws IOException если возникла ошибка при работе с архивом
+     */
+    @Test
+    void shouldReuseFileSystemUntilFlush() throws IOException {
+        Path zipPath = tempDir.resolve("cached.zip");
+        try (ZipFileSystemCache cache = new ZipFileSystemCache(Duration.ofMinutes(1))) {
+            try (ZipFileSystemCache.Handle first = cache.acquire(zipPath, true);
+                 ZipFileSystemCache.Handle second = cache.acquire(tempDir.resolve(".").resolve("cached.zip"), false)) {
+                assertSame(first.fileSystem(), second.fileSystem());
+                Files.writeString(first.getPath("a.txt"), "A");
+            }
+            assertEquals(1, cache.size());
+
+            cache.flush(zipPath);
+            assertEquals(0, cache.size());
+            try (ZipFile zip = new ZipFile(zipPath.toFile())) {
+                assertEquals("A", new String(zip.getInputStream(zip.getEntry("a.txt")).readAllBytes(),
+                        StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    /**
+     * Проверяет, что кэш без хранения закрывает файловую систему сразу после использования.
+     *
+     * @throws IOException если возникла ошибка при работе с архивом
+     */
+    @Test
+    void uncachedShouldCloseImmediately() throws IOException {
+        Path zipPath = tempDir.resolve("uncached.zip");
+        try (ZipFileSystemCache cache = ZipFileSystemCache.uncached()) {
+            try (ZipFileSystemCache.Handle handle = cache.acquire(zipPath, true)) {
+                Files.writeString(handle.getPath("b.txt"), "B");
+            }
+            assertEquals(0, cache.size());
+            assertTrue(Files.size(zipPath) > 0);
+        }
+    }
+
+    /**
+     * Проверяет, что ошибка открытия не оставляет запись в кэше
+     * и не мешает последующему открытию.
+     *
+     * @throws IOException если возникла ошибка при работе с архивом
+     */
+    @Test
+    void failedOpenShouldNotStayInCache() throws IOException {
+        Path zipPath = tempDir.resolve("missing.zip");
+        try (ZipFileSystemCache cache = new ZipFileSystemCache(Duration.ofMinutes(1))) {
+            assertThrows(IOException.class, () -> cache.acquire(zipPath, false));
+            assertEquals(0, cache.size());
+            assertFalse(cache.isOpen(zipPath));
+
+            try (ZipFileSystemCache.Handle handle = cache.acquire(zipPath, true)) {
+                Files.writeString(handle.getPath("e.txt"), "E");
+            }
+            assertTrue(cache.isOpen(zipPath));
+        }
+        assertTrue(Files.exists(zipPath));
+    }
+
+    /**
+     * Проверяет, что неиспользуемая файловая система закрывается после простоя.
+     *
+     * @throws Exception если возникла ошибка при работе с архивом
+     */
+    @Test
+    void shouldEvictIdleFileSystem() throws Exception {
+        Path zipPath = tempDir.resolve("idle.zip");
+        try (ZipFileSystemCache cache = new ZipFileSystemCache(Duration.ofMillis(200))) {
+            try (ZipFileSystemCache.Handle handle = cache.acquire(zipPath, true)) {
+                Files.writeString(handle.getPath("c.txt"), "C");
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (cache.size() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(50);
+            }
+            assertEquals(0, cache.size());
+            assertTrue(Files.exists(zipPath));
+        }
+    }
+
+    /**
+     * Проверяет, что flush дожидается освобождения выданных ссылок.
+     *
+     * @throws Exception если возникла ошибка при работе с архивом
+     */
+    @Test
+    void flushShouldWaitForOutstandingHandles() throws Exception {
+        Path zipPath = tempDir.resolve("busy.zip");
+        try (ZipFileSystemCache cache = new ZipFileSystemCache(Duration.ofMinutes(1))) {
+            ZipFileSystemCache.Handle handle = cache.acquire(zipPath, true);
+            CompletableFuture<Void> flush = CompletableFuture.runAsync(() -> {
+                try {
+                    cache.flush(zipPath);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+
+            Thread.sleep(100);
+            assertFalse(flush.isDone(), "flush не должен завершиться, пока ссылка не освобождена");
+            Files.writeString(handle.getPath("d.txt"), "D");
+            handle.close();
+
+            flush.get(5, TimeUnit.SECONDS);
+            assertEquals(0, cache.size());
+        }
+    }
+}
@@ -6,8 +6,18 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -66,6 +76,57 @@ class ZipFileSystemExampleTest {
         assertEquals(content, readContent.trim());
     }
 
+    /**
+     * Проверяет, что без кэширования записанный файл находится в архиве
+     * на диске сразу после возврата из метода, без вызова flush.
+     *
+     * @throws IOException если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldWriteThroughByDefault() throws IOException {
+        zipFileSystem.writeFileToZip("durable.txt", "on disk");
+
+        try (ZipFile zip = new ZipFile(zipPath.toFile())) {
+            assertEquals("on disk", new String(zip.getInputStream(zip.getEntry("durable.txt")).readAllBytes(),
+                    StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Проверяет, что чтение через индекс не завершается ошибкой и не даёт устаревший
+     * ответ, когда архив перезаписывается через тот же кэш файловых систем во время чтения.
+     *
+     * @throws Exception если возникла ошибка при работе с файлами или в потоке записи
+     */
+    @Test
+    void shouldReadConsistentlyWhileArchiveIsRewritten() throws Exception {
+        zipFileSystem.writeFileToZip("stable.txt", "stable content");
+        ZipFileSystemCache cache = ZipFileSystemCache.uncached();
+        // Кэш содержимого отключён, чтобы каждое чтение шло в файл архива
+        ZipFileSystemExample reader = new ZipFileSystemExample(zipPath, cache, new ReadCache(8, false));
+        ZipFileSystemExample writer = new ZipFileSystemExample(zipPath, cache);
+        AtomicBoolean running = new AtomicBoolean(true);
+        CompletableFuture<Void> rewrites = CompletableFuture.runAsync(() -> {
+            try {
+                for (int i = 0; running.get(); i++) {
+                    writer.writeFileToZip("a-" + (i % 2) + ".txt", "x".repeat(i % 5000));
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        try {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+            while (System.nanoTime() < deadline) {
+                assertEquals("stable content", reader.readFileFromZip("stable.txt"));
+                assertTrue(reader.fileExistsInZip("stable.txt"));
+            }
+        } finally {
+            running.set(false);
+        }
+        rewrites.get(10, TimeUnit.SECONDS);
+    }
+
     /**
      * Проверяет копирование внешнего файла в ZIP-архив.
      * Создает временный файл с тестовым содержимым, копирует его в архив
@@ -87,6 +148,24 @@ class ZipFileSystemExampleTest {
         assertEquals(content, zipFileSystem.readFileFromZip(targetFileName).trim());
     }
 
+    /**
+     * Проверяет пакетную запись содержимого и пакетное копирование внешних файлов.
+     *
+     * @throws IOException если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldWriteAndCopyFilesInBatch() throws IOException {
+        Path sourceFile = tempDir.resolve("batch-source.txt");
+        Files.writeString(sourceFile, "copied");
+
+        zipFileSystem.writeFilesToZip(Map.of("one.txt", "1".getBytes(), "two.txt", "2".getBytes()));
+        zipFileSystem.copyFilesToZip(Map.of("copied.txt", sourceFile));
+
+        assertEquals("1", zipFileSystem.readFileFromZip("one.txt"));
+        assertEquals("2", zipFileSystem.readFileFromZip("two.txt"));
+        assertEquals("copied", zipFileSystem.readFileFromZip("copied.txt"));
+    }
+
     /**
      * Проверяет, что при попытке чтения несуществующего файла из архива
      * генерируется исключение IOException.
@@ -97,4 +176,59 @@ class ZipFileSystemExampleTest {
                 zipFileSystem.readFileFromZip("nonexistent.txt")
         );
     }
+
+    /**
+     * Проверяет, что проверка существования и чтение через индекс отвечают так же,
+     * как через открытую ZIP FileSystem: директории без собственной записи существуют,
+     * ненормализованные имена разрешаются.
+     *
+     * @throws IOException если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldResolveNamesLikeZipFileSystem() throws IOException {
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zipPath))) {
+            out.putNextEntry(new ZipEntry("dir/nested/file.txt"));
+            out.write("вложенный".getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+        }
+        String[] present = {"dir", "dir/", "dir/nested", "./dir/nested/file.txt", "dir//nested/file.txt",
+                "/dir/nested/file.txt", "dir/other/../nested/file.txt"};
+        String[] absent = {"nested", "dir/missing", "dir/nested/file"};
+
+        try (ZipFileSystemCache cache = new ZipFileSystemCache(Duration.ofMinutes(1))) {
+            ZipFileSystemExample viaFileSystem = new ZipFileSystemExample(zipPath, cache);
+            try (ZipFileSystemCache.Handle open = cache.acquire(zipPath, false)) {
+                assertTrue(cache.isOpen(zipPath));
+                for (ZipFileSystemExample zip : List.of(zipFileSystem, viaFileSystem)) {
+                    for (String name : present) {
+                        assertTrue(zip.fileExistsInZip(name), name);
+                    }
+                    for (String name : absent) {
+                        assertFalse(zip.fileExistsInZip(name), name);
+                    }
+                    assertEquals("вложенный", zip.readFileFromZip("./dir//nested/file.txt"));
+                }
+            }
+        }
+    }
+
+    /**
+     * Проверяет параллельную распаковку и чтение нескольких файлов архива.
+     *
+     * @throws IOException если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldExtractAndReadEntriesInParallel() throws IOException {
+        zipFileSystem.writeFileToZip("a.txt", "Первый");
+        zipFileSystem.writeFileToZip("b.txt", "Второй");
+
+        Path target = tempDir.resolve("extracted");
+        zipFileSystem.extractAll(target, 2);
+
+        assertEquals("Первый", Files.readString(target.resolve("a.txt")));
+        assertEquals("Второй", Files.readString(target.resolve("b.txt")));
+        Map<String, byte[]> entries = zipFileSystem.readEntries(List.of("b.txt", "a.txt"));
+        assertEquals("Второй", new String(entries.get("b.txt"), StandardCharsets.UTF_8));
+        assertEquals(2, entries.size());
+    }
 }
@@ -0,0 +1,187 @@
+package ru.rgordeev;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Модульные тесты для класса ZipIndex.
+ * Проверяют разбор центрального каталога (в том числе ZIP64), поиск записей,
+ * чтение сжатых и несжатых данных и определение устаревшего индекса.
+ */
+class ZipIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Проверяет поиск и чтение записей STORED и DEFLATED, включая имена в UTF-8.
+     *
+     * @throws IOException если возникла ошибка при работе с архивом
+     */
+    @Test
+    void shouldFindAndReadEntries() throws IOException {
+        Path zipPath = tempDir.resolve("index.zip");
+        byte[] text = "Содержимое файла ".repeat(100).getBytes(StandardCharsets.UTF_8);
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zipPath))) {
+            out.putNextEntry(new ZipEntry("deflated.txt"));
+            out.write(text);
+            out.closeEntry();
+            putStored(out, "каталог/файл.txt", text);
+            out.putNextEntry(new ZipEntry("dir/"));
+            out.closeEntry();
+        }
+
+        ZipIndex index = ZipIndex.open(zipPath);
+
+        assertEquals(3, index.size());
+        assertArrayEquals(text, index.read("deflated.txt"));
+        assertArrayEquals(text, index.read("/каталог/файл.txt"));
+        int entry = index.find("каталог/файл.txt");
+        assertEquals("каталог/файл.txt", index.name(entry));
+        assertEquals(text.length, index.size(entry));
+        assertTrue(index.contains("dir/"));
+        assertFalse(index.contains("missing.txt"));
+        assertThrows(NoSuchFileException.class, () -> index.read("missing.txt"));
+    }
+
+    /**
+     * Проверяет разбор архива с количеством записей больше 65535 (формат ZIP64).
+     *
+     * @throws IOException если возникла ошибка при работе с архивом
+     */
+    @Test
+    void shouldReadZip64Directory() throws IOException {
+        Path zipPath = tempDir.resolve("zip64.zip");
+        int entries = 70_000;
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zipPath))) {
+            for (int i = 0; i < entries; i++) {
+                putStored(out, "e" + i, new byte[]{(byte) i});
+            }
+        }
+
+        ZipIndex index = ZipIndex.open(zipPath);
+
+        assertEquals(entries, index.size());
+        assertArrayEquals(new byte[]{(byte) 69_999}, index.read("e69999"));
+        assertTrue(index.contains("e0"));
+    }
+
+    /**
+     * Проверяет, что индекс становится устаревшим после изменения архива.
+     *
+     * @throws IOException если возникла ошибка при работе с архивом
+     */
+    @Test
+    void shouldDetectStaleIndex() throws IOException {
+        Path zipPath = tempDir.resolve("stale.zip");
+        ZipFileSystemExample zip = new ZipFileSystemExample(zipPath);
+        zip.writeFilesToZip(java.util.Map.of("a.txt", "A".getBytes()));
+
+        ZipIndex index = ZipIndex.open(zipPath);
+        assertFalse(index.isStale());
+
+        zip.writeFilesToZip(java.util.Map.of("b.txt", "B".getBytes()));
+        Files.setLastModifiedTime(zipPath, FileTime.from(Instant.now().plusSeconds(60)));
+        assertTrue(index.isStale());
+        assertTrue(zip.fileExistsInZip("b.txt"));
+        assertEquals("B", zip.readFileFromZip("b.txt"));
+    }
+
+    /**
+     * Проверяет, что повторный поиск по одному и тому же имени не выделяет память.
+     *
+     * @throws IOException если возникла ошибка при работе с архивом
+     */
+    @Test
+    void repeatedLookupsShouldNotAllocate() throws IOException {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+
+        Path zipPath = tempDir.resolve("alloc.zip");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zipPath))) {
+            for (int i = 0; i < 100; i++) {
+                putStored(out, "entry-" + i, new byte[0]);
+            }
+        }
+        ZipIndex index = ZipIndex.open(zipPath);
+        String name = "entry-42";
+        for (int i = 0; i < 10_000; i++) {
+            index.find(name);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        int found = 0;
+        for (int i = 0; i < 100_000; i++) {
+            found += index.find(name) >= 0 ? 1 : 0;
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        assertEquals(100_000, found);
+        assertTrue(allocated < 64 * 1024, "Поиск выделил " + allocated + " байт");
+    }
+
+    /**
+     * Проверяет, что {@link ZipIndex#exists(CharSequence)} отвечает так же, как
+     * {@link Files#exists} в ZIP FileSystem: для директорий без собственной записи
+     * и для ненормализованных имён.
+     *
+     * @throws IOException если возникла ошибка при работе с архивом
+     */
+    @Test
+    void existsShouldMatchZipFileSystem() throws IOException {
+        Path zipPath = tempDir.resolve("dirs.zip");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zipPath))) {
+            for (String name : new String[]{"top.txt", "a/b.txt", "c/", "c/d/e.txt", "каталог/файл.txt"}) {
+                out.putNextEntry(new ZipEntry(name));
+                out.closeEntry();
+            }
+        }
+        ZipIndex index = ZipIndex.open(zipPath);
+
+        String[] names = {"top.txt", "a", "a/", "a/b.txt", "./a/b.txt", "a//b.txt", "/a/b.txt", "a/./b.txt",
+                "a/../top.txt", "c", "c/d", "c/d/", "c/d/e.txt", "c/d/e.txt/", "каталог", "b.txt", "a/b",
+                "c/d/e", "missing", "", "/", "."};
+        try (FileSystem zipFs = FileSystems.newFileSystem(zipPath)) {
+            for (String name : names) {
+                assertEquals(Files.exists(zipFs.getPath("/" + name)), index.exists(name), name);
+            }
+        }
+        assertEquals("a/b.txt", ZipIndex.normalize("./a//b.txt/"));
+        assertSame("a/b.txt", ZipIndex.normalize("a/b.txt"));
+    }
+
+    private static void putStored(ZipOutputStream out, String name, byte[] data) throws IOException {
+        ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(data.length);
+        entry.setCompressedSize(data.length);
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        entry.setCrc(crc.getValue());
+        out.putNextEntry(entry);
+        OutputStream stream = out;
+        stream.write(data);
+        out.closeEntry();
+    }
+}
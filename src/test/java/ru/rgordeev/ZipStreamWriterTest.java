@@ -0,0 +1,154 @@
+package ru.rgordeev;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Модульные тесты для класса ZipStreamWriter.
+ * Проверяют чтение созданных архивов через {@link ZipFile} и {@link ZipIndex},
+ * многоблочные записи, независимость результата от числа потоков, ZIP64
+ * и проверку аргументов.
+ */
+class ZipStreamWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Проверяет небольшие записи: сжимаемые сохраняются как DEFLATED,
+     * несжимаемые — как STORED.
+     *
+     * @throws IOException если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldWriteSmallEntries() throws IOException {
+        Path zipPath = tempDir.resolve("small.zip");
+        byte[] random = new byte[10_000];
+        new Random(1).nextBytes(random);
+        try (ZipStreamWriter writer = new ZipStreamWriter(zipPath)) {
+            writer.add("hello.txt", "Привет, ".repeat(1000));
+            writer.add("dir/random.bin", random);
+            writer.add("empty.txt", new byte[0]);
+            assertThrows(IllegalArgumentException.class, () -> writer.add("hello.txt", "снова"));
+        }
+
+        try (ZipFile zip = new ZipFile(zipPath.toFile())) {
+            assertEquals(3, zip.size());
+            ZipEntry hello = zip.getEntry("hello.txt");
+            assertEquals(ZipEntry.DEFLATED, hello.getMethod());
+            assertTrue(hello.getCompressedSize() < hello.getSize());
+            assertEquals("Привет, ".repeat(1000), new String(read(zip, "hello.txt"), StandardCharsets.UTF_8));
+            assertEquals(ZipEntry.STORED, zip.getEntry("dir/random.bin").getMethod());
+            assertArrayEquals(random, read(zip, "dir/random.bin"));
+            assertEquals(0, read(zip, "empty.txt").length);
+        }
+        assertArrayEquals(random, ZipIndex.open(zipPath).read("dir/random.bin"));
+    }
+
+    /**
+     * Проверяет запись из файла больше нескольких блоков и то, что архив
+     * не зависит от числа потоков сжатия.
+     *
+     * @throws IOException если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldCompressLargeEntriesInParallelChunks() throws IOException {
+        byte[] content = new byte[3 * ZipStreamWriter.CHUNK_SIZE + 12_345];
+        Random random = new Random(2);
+        for (int i = 0; i < content.length; i++) {
+            // Текстоподобные данные с повторами через границы блоков
+            content[i] = (byte) ('a' + (i % 1000 < 500 ? i % 7 : random.nextInt(26)));
+        }
+        Path source = Files.write(tempDir.resolve("large.txt"), content);
+        Path parallel = tempDir.resolve("parallel.zip");
+        Path sequential = tempDir.resolve("sequential.zip");
+
+        try (ZipStreamWriter writer = new ZipStreamWriter(parallel, Deflater.DEFAULT_COMPRESSION, 4,
+                2L * ZipStreamWriter.CHUNK_SIZE)) {
+            writer.add("a/large.txt", source);
+            writer.add("b/large.txt", source);
+            assertEquals(2, writer.entryCount());
+        }
+        try (ZipStreamWriter writer = new ZipStreamWriter(sequential, Deflater.DEFAULT_COMPRESSION, 1,
+                ZipStreamWriter.DEFAULT_WINDOW_BYTES)) {
+            writer.add("a/large.txt", source);
+            writer.add("b/large.txt", source);
+        }
+
+        try (ZipFile zip = new ZipFile(parallel.toFile())) {
+            ZipEntry entry = zip.getEntry("b/large.txt");
+            assertEquals(content.length, entry.getSize());
+            assertTrue(entry.getCompressedSize() < content.length / 2);
+            assertArrayEquals(content, read(zip, "a/large.txt"));
+            assertArrayEquals(content, read(zip, "b/large.txt"));
+        }
+        assertArrayEquals(content, ZipIndex.open(parallel).read("b/large.txt"));
+        assertArrayEquals(Files.readAllBytes(sequential), Files.readAllBytes(parallel));
+    }
+
+    /**
+     * Проверяет ZIP64 End Of Central Directory при числе записей больше 65535.
+     *
+     * @throws IOException если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldWriteZip64DirectoryForManyEntries() throws IOException {
+        Path zipPath = tempDir.resolve("many.zip");
+        int count = 70_000;
+        try (ZipStreamWriter writer = new ZipStreamWriter(zipPath, Deflater.BEST_SPEED, 1,
+                ZipStreamWriter.DEFAULT_WINDOW_BYTES)) {
+            for (int i = 0; i < count; i++) {
+                writer.add("entry-" + i, "value " + i);
+            }
+        }
+        try (ZipFile zip = new ZipFile(zipPath.toFile())) {
+            assertEquals(count, zip.size());
+            assertEquals("value 69999", new String(read(zip, "entry-69999"), StandardCharsets.UTF_8));
+        }
+        ZipIndex index = ZipIndex.open(zipPath);
+        assertEquals(count, index.size());
+        assertEquals("value 12345", new String(index.read("entry-12345"), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Проверяет проверку аргументов и запись после закрытия.
+     *
+     * @throws IOException если возникла ошибка при работе с файлами
+     */
+    @Test
+    void shouldValidateArguments() throws IOException {
+        Path zipPath = tempDir.resolve("invalid.zip");
+        assertThrows(IllegalArgumentException.class, () -> new ZipStreamWriter(zipPath, 10, 1,
+                ZipStreamWriter.DEFAULT_WINDOW_BYTES));
+        assertThrows(IllegalArgumentException.class, () -> new ZipStreamWriter(zipPath,
+                Deflater.DEFAULT_COMPRESSION, 0, ZipStreamWriter.DEFAULT_WINDOW_BYTES));
+        assertThrows(IllegalArgumentException.class, () -> new ZipStreamWriter(zipPath,
+                Deflater.DEFAULT_COMPRESSION, 1, 1024));
+
+        ZipStreamWriter writer = new ZipStreamWriter(zipPath);
+        writer.close();
+        writer.close();
+        assertThrows(IllegalStateException.class, () -> writer.add("late.txt", "x"));
+        try (ZipFile zip = new ZipFile(zipPath.toFile())) {
+            assertEquals(0, zip.size());
+        }
+    }
+
+    private static byte[] read(ZipFile zip, String name) throws IOException {
+        try (InputStream in = zip.getInputStream(zip.getEntry(name))) {
+            return in.readAllBytes();
+        }
+    }
+}